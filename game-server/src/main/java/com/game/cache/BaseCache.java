@@ -6,10 +6,13 @@ import com.game.dao.mapper.BaseDao;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.lang.reflect.ParameterizedType;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiConsumer;
+import java.util.function.IntConsumer;
 
 /**
  * 基础缓存类 - 仅提供基于主键的基本增删改查操作
@@ -18,7 +21,7 @@ import java.util.concurrent.ConcurrentHashMap;
  * 1. 引入分批处理机制，避免一次性处理大量数据导致的性能问题
  * 2. 批量操作采用BATCH_SIZE（默认1000）条记录为一批进行处理
  * 3. 提供详细的错误统计和日志记录
- * 4. 在批量操作失败时提供逐条重试机制
+ * 4. 定时写库失败的记录重新标记为脏数据在下一轮重试，停机批量写库失败时逐条重试
  *
  * @param <T> 实体类型
  */
@@ -166,10 +169,25 @@ public abstract class BaseCache<T extends BaseEntity> {
      * 根据主键ID删除实体（只操作缓存，不操作数据库）
      */
     public boolean delete(Long id) {
-        add(null, PersistType.DELETE);
+        if (id == null) {
+            return false;
+        }
+        markDeleted(String.valueOf(id));
         return true;
     }
 
+    /**
+     * 标记实体为待删除（只操作缓存，不操作数据库）
+     */
+    private void markDeleted(String idx) {
+        synchronized (lock) {
+            cacheMap.remove(idx);
+            insertMap.remove(idx);
+            updateMap.remove(idx);
+            deleteMap.put(idx, true);
+        }
+    }
+
     /**
      * 异步新增实体
      */
@@ -249,126 +267,300 @@ public abstract class BaseCache<T extends BaseEntity> {
     }
 
     /**
-     * 同步缓存中的所有数据到数据库
-     * 将cacheMap中所有数据同步到数据库，并处理删除标记
-     * 优化版本：采用分批处理方式，避免一次性处理大量数据导致的性能问题
+     * 同步缓存中的所有脏数据到数据库
+     * 与按槽位同步共用一套流程：持锁摘取脏标记后再写库，写库期间产生的修改不会被误清除
+     *
+     * @return 本次写入数据库的记录数
      */
-    public void syncAllDataToDatabase() {
-        logger.debug("Starting to sync all cache data to database, cache size: {}, insert size: {}, update size: {}, delete size: {}",
-                cacheMap.size(), insertMap.size(), updateMap.size(), deleteMap.size());
-        int insertCount = 0;
-        int updateCount = 0;
-        int deleteCount = 0;
-        int errorCount = 0;
+    public int syncAllDataToDatabase() {
+        return syncSlotToDatabase(0, 1);
+    }
+
+    /**
+     * 按槽位同步脏数据到数据库
+     * 只处理实体ID落在指定槽位的记录，配合CacheFlushScheduler把一个持久化周期的写入分摊到多个时间片
+     * 摘取脏标记时持锁，写库时不持锁；写库期间再次修改的实体会重新进入脏集合，在下一轮被写入
+     * 写库失败的记录重新标记为脏数据，在下一轮重试
+     *
+     * @param slot      槽位序号，取值[0, slotCount)
+     * @param slotCount 槽位总数
+     * @return 本次写入数据库的记录数
+     */
+    public int syncSlotToDatabase(int slot, int slotCount) {
+        DirtyData<T> dirty = drainDirty(slot, slotCount);
+        if (dirty.isEmpty()) {
+            return 0;
+        }
 
+        DirtyData<T> failed = new DirtyData<>(new ArrayList<>(), new ArrayList<>(), new ArrayList<>());
         try {
-            // 处理需要删除的记录（分批处理）
-            if (!deleteMap.isEmpty()) {
-                List<String> deleteIds = new ArrayList<>(deleteMap.keySet());
-                deleteCount = processBatchDeletes(deleteIds);
-            }
+            int deleteCount = dirty.getDeleteIds().isEmpty() ? 0 : processBatchDeletes(dirty.getDeleteIds(), failed.getDeleteIds());
+            int insertCount = dirty.getInsertEntities().isEmpty() ? 0 : processBatchInserts(dirty.getInsertEntities(), failed.getInsertEntities());
+            int updateCount = dirty.getUpdateEntities().isEmpty() ? 0 : processBatchUpdates(dirty.getUpdateEntities(), failed.getUpdateEntities());
 
-            // 处理需要插入的记录（分批处理）
-            if (!insertMap.isEmpty()) {
-                List<T> insertEntities = new ArrayList<>(insertMap.values());
-                insertCount = processBatchInserts(insertEntities);
+            logger.debug("Cache slot {}/{} synced: inserts={}, updates={}, deletes={}",
+                    slot, slotCount, insertCount, updateCount, deleteCount);
+            return insertCount + updateCount + deleteCount;
+        } catch (Exception e) {
+            logger.error("Failed to sync cache slot {}/{} to database", slot, slotCount, e);
+            throw new RuntimeException("Failed to sync cache slot to database", e);
+        } finally {
+            if (!failed.isEmpty()) {
+                logger.warn("Cache slot {}/{} has {} rows failed to sync, retry next round", slot, slotCount, failed.size());
+                markDirtyAgain(failed);
             }
+        }
+    }
 
-            // 处理需要更新的记录（分批处理）
-            if (!updateMap.isEmpty()) {
-                List<T> updateEntities = new ArrayList<>(updateMap.values());
-                updateCount = processBatchUpdates(updateEntities);
+    /**
+     * 把写库失败的记录重新标记为脏数据
+     * 以缓存中的最新状态为准：写库期间已被删除、重新修改或再次标记的记录不会被旧数据覆盖；
+     * 插入失败的记录在数据库中不存在，即使之后被修改过也按插入处理
+     *
+     * @param failed 写库失败的数据
+     */
+    private void markDirtyAgain(DirtyData<T> failed) {
+        synchronized (lock) {
+            for (String idx : failed.getDeleteIds()) {
+                if (!cacheMap.containsKey(idx)) {
+                    deleteMap.put(idx, true);
+                }
+            }
+            for (T entity : failed.getInsertEntities()) {
+                T current = cacheMap.get(entity.getIdx());
+                if (current != null && !deleteMap.containsKey(entity.getIdx())) {
+                    updateMap.remove(entity.getIdx());
+                    insertMap.putIfAbsent(entity.getIdx(), current);
+                }
+            }
+            for (T entity : failed.getUpdateEntities()) {
+                T current = cacheMap.get(entity.getIdx());
+                if (current != null && !deleteMap.containsKey(entity.getIdx()) && !insertMap.containsKey(entity.getIdx())) {
+                    updateMap.putIfAbsent(entity.getIdx(), current);
+                }
             }
-
-            // 清除已处理的标记
-            insertMap.clear();
-            updateMap.clear();
-            deleteMap.clear();
-
-            logger.debug("Cache sync completed: inserts={}, updates={}, deletes={}, errors={}",
-                    insertCount, updateCount, deleteCount, errorCount);
-        } catch (Exception e) {
-            logger.error("Failed to sync all cache data to database", e);
-            throw new RuntimeException("Failed to sync cache data to database", e);
         }
     }
 
     /**
-     * 批量保存缓存中的所有数据到数据库（用于系统关闭时的完整同步）
-     * 优化版本：采用分批处理方式，避免一次性处理大量数据导致的性能问题
+     * 摘取所有脏数据，摘取后缓存中的脏标记被清除
      */
-    public void saveAllToDatabase() {
+    public DirtyData<T> drainAllDirty() {
+        return drainDirty(0, 1);
+    }
+
+    /**
+     * 持锁摘取指定槽位的脏数据
+     */
+    private DirtyData<T> drainDirty(int slot, int slotCount) {
+        List<String> deleteIds = new ArrayList<>();
+        List<T> insertEntities = new ArrayList<>();
+        List<T> updateEntities = new ArrayList<>();
+
         synchronized (lock) {
-            int insertCount = 0;
-            int updateCount = 0;
-            int deleteCount = 0;
-            int errorCount = 0;
-            try {
-                // 处理需要删除的记录（分批处理）
-                if (!deleteMap.isEmpty()) {
-                    List<String> deleteIds = new ArrayList<>(deleteMap.keySet());
-                    deleteCount = processBatchDeletes(deleteIds);
+            deleteMap.keySet().removeIf(idx -> {
+                if (slotOf(idx, slotCount) != slot) {
+                    return false;
                 }
-
-                // 处理需要插入的记录（分批处理）
-                if (!insertMap.isEmpty()) {
-                    List<T> insertEntities = new ArrayList<>(insertMap.values());
-                    insertCount = processBatchInserts(insertEntities);
+                deleteIds.add(idx);
+                return true;
+            });
+            insertMap.values().removeIf(entity -> {
+                if (slotOf(entity.getIdx(), slotCount) != slot) {
+                    return false;
                 }
+                insertEntities.add(entity);
+                return true;
+            });
+            updateMap.values().removeIf(entity -> {
+                if (slotOf(entity.getIdx(), slotCount) != slot) {
+                    return false;
+                }
+                updateEntities.add(entity);
+                return true;
+            });
+        }
+        return new DirtyData<>(deleteIds, insertEntities, updateEntities);
+    }
 
-                // 处理需要更新的记录（分批处理）
-                if (!updateMap.isEmpty()) {
-                    List<T> updateEntities = new ArrayList<>(updateMap.values());
-                    updateCount = processBatchUpdates(updateEntities);
+    /**
+     * 停机写库：按 删除 -> 插入 -> 更新 的顺序以批量语句写入一批脏数据
+     * 每写完一批推进DirtyData的游标；超过截止时间后不再开始新的批次，未写入部分由调用方转存本地日志
+     *
+     * @param dirty         待写入数据
+     * @param batchWriter   批量写库工具
+     * @param deadlineNanos 截止时间（System.nanoTime）
+     * @param progress      进度回调，参数为本批处理的条数
+     * @return 批量写入与逐条重试都失败的数据
+     */
+    public DirtyData<T> flushForShutdown(DirtyData<T> dirty, CacheBatchWriter batchWriter,
+                                         long deadlineNanos, IntConsumer progress) {
+        List<String> failedDeletes = new ArrayList<>();
+        List<T> failedInserts = new ArrayList<>();
+        List<T> failedUpdates = new ArrayList<>();
+
+        List<String> deleteIds = dirty.getDeleteIds();
+        while (dirty.deletedCursor < deleteIds.size() && System.nanoTime() < deadlineNanos) {
+            int from = dirty.deletedCursor;
+            int to = Math.min(from + BATCH_SIZE, deleteIds.size());
+            List<String> batch = new ArrayList<>();
+            for (String idx : deleteIds.subList(from, to)) {
+                // 停机期间被重新加入缓存的记录不再删除
+                if (!cacheMap.containsKey(idx)) {
+                    batch.add(idx);
                 }
+            }
+            writeShutdownBatch(batchWriter, batch, (mapper, idx) -> mapper.deleteById(Long.parseLong(idx)), failedDeletes);
+            dirty.deletedCursor = to;
+            progress.accept(to - from);
+        }
 
-                // 处理缓存中剩余的记录（未在insertMap和updateMap中的记录）
-                // 这些记录可能是直接放入缓存的，需要根据ID判断是插入还是更新
-                int[] remainingStats = processRemainingCacheEntities();
-                errorCount = remainingStats[0];
+        List<T> insertEntities = dirty.getInsertEntities();
+        while (dirty.insertedCursor < insertEntities.size() && System.nanoTime() < deadlineNanos) {
+            int from = dirty.insertedCursor;
+            int to = Math.min(from + BATCH_SIZE, insertEntities.size());
+            writeShutdownBatch(batchWriter, insertEntities.subList(from, to), BaseDao::insert, failedInserts);
+            dirty.insertedCursor = to;
+            progress.accept(to - from);
+        }
 
-                // 清除已处理的标记
-                insertMap.clear();
-                updateMap.clear();
-                deleteMap.clear();
+        List<T> updateEntities = dirty.getUpdateEntities();
+        while (dirty.updatedCursor < updateEntities.size() && System.nanoTime() < deadlineNanos) {
+            int from = dirty.updatedCursor;
+            int to = Math.min(from + BATCH_SIZE, updateEntities.size());
+            writeShutdownBatch(batchWriter, updateEntities.subList(from, to), BaseDao::update, failedUpdates);
+            dirty.updatedCursor = to;
+            progress.accept(to - from);
+        }
+
+        return new DirtyData<>(failedDeletes, failedInserts, failedUpdates);
+    }
+
+    /**
+     * 以批量语句写入一批数据，整批失败时逐条重试，重试仍失败的记录放入failed
+     */
+    private <R> void writeShutdownBatch(CacheBatchWriter batchWriter, List<R> batch,
+                                        BiConsumer<BaseDao<T>, R> operation, List<R> failed) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        try {
+            batchWriter.write(dao, batch, operation);
+        } catch (Exception e) {
+            logger.error("Batch write failed during shutdown flush, retrying {} rows one by one", batch.size(), e);
+            for (R row : batch) {
+                try {
+                    operation.accept(dao, row);
+                } catch (Exception innerE) {
+                    failed.add(row);
+                    logger.error("Failed to write row during shutdown flush: {}", row, innerE);
+                }
+            }
+        }
+    }
 
-            } catch (Exception e) {
-                logger.error("Failed to save all cache data to database", e);
-                throw new RuntimeException("Failed to save cache data to database", e);
+    /**
+     * 把本地日志中的数据恢复为缓存中的脏数据，由下一轮持久化写入数据库
+     * 需在loadFromDatabase之后调用：已存在的记录按更新处理，不存在的按插入处理
+     *
+     * @param entities  需要写入的实体
+     * @param deleteIds 需要删除的实体ID
+     */
+    public void restoreDirty(List<T> entities, List<String> deleteIds) {
+        for (String idx : deleteIds) {
+            markDeleted(idx);
+        }
+        for (T entity : entities) {
+            if (entity.getIdx() == null) {
+                continue;
+            }
+            synchronized (lock) {
+                if (cacheMap.containsKey(entity.getIdx())) {
+                    add(entity, PersistType.UPDATE);
+                } else {
+                    add(entity, PersistType.INSERT);
+                }
             }
         }
+    }
+
+    /**
+     * 获取缓存的实体类型
+     */
+    @SuppressWarnings("unchecked")
+    public Class<T> getEntityClass() {
+        Class<?> type = getClass();
+        while (type.getSuperclass() != BaseCache.class) {
+            type = type.getSuperclass();
+        }
+        return (Class<T>) ((ParameterizedType) type.getGenericSuperclass()).getActualTypeArguments()[0];
+    }
+
+    /**
+     * 计算实体ID所属的槽位
+     * 数字ID先做一次乘法散列，避免ID生成器的低位规律导致槽位分布不均
+     *
+     * @param idx       实体ID
+     * @param slotCount 槽位总数
+     * @return 槽位序号
+     */
+    public static int slotOf(String idx, int slotCount) {
+        if (slotCount <= 1 || idx == null) {
+            return 0;
+        }
+        long hash;
+        try {
+            hash = Long.parseLong(idx) * 0x9E3779B97F4A7C15L;
+        } catch (NumberFormatException e) {
+            hash = idx.hashCode() * 0x9E3779B97F4A7C15L;
+        }
+        return (int) Math.floorMod(hash ^ (hash >>> 32), (long) slotCount);
+    }
+
+    /**
+     * 获取待持久化的记录数（插入+更新+删除）
+     */
+    public int getDirtySize() {
+        return insertMap.size() + updateMap.size() + deleteMap.size();
+    }
 
+    /**
+     * 保存缓存中的所有脏数据到数据库
+     * 只写入有脏标记的记录；停机时的并行批量写库见CacheManager.syncAllCachesToDatabase
+     */
+    public void saveAllToDatabase() {
+        syncAllDataToDatabase();
     }
 
     /**
-     * 分批处理删除操作
+     * 分批处理删除操作，删除失败的ID放入failed
      */
-    private int processBatchDeletes(List<String> deleteIds) {
+    private int processBatchDeletes(List<String> deleteIds, List<String> failed) {
         int deleteCount = 0;
         int errorCount = 0;
         for (int i = 0; i < deleteIds.size(); i += BATCH_SIZE) {
             int end = Math.min(i + BATCH_SIZE, deleteIds.size());
             List<String> batch = deleteIds.subList(i, end);
 
-            try {
-                // 处理一批删除操作
-                for (String idx : batch) {
-                    // 如果缓存中没有该记录且标记为删除，则从数据库删除
-                    if (!cacheMap.containsKey(idx)) {
-                        try {
-                            Long id = Long.parseLong(idx);
-                            if (id > 0) {
-                                dao.deleteById(id);
-                                deleteCount++;
-                            }
-                        } catch (NumberFormatException e) {
-                            logger.warn("Invalid ID format for deletion: {}", idx);
-                        }
+            // 处理一批删除操作
+            for (String idx : batch) {
+                // 如果缓存中没有该记录且标记为删除，则从数据库删除
+                if (cacheMap.containsKey(idx)) {
+                    continue;
+                }
+                try {
+                    Long id = Long.parseLong(idx);
+                    if (id > 0) {
+                        dao.deleteById(id);
+                        deleteCount++;
                     }
+                } catch (NumberFormatException e) {
+                    logger.warn("Invalid ID format for deletion: {}", idx);
+                } catch (Exception e) {
+                    errorCount++;
+                    failed.add(idx);
+                    logger.error("Failed to delete entity from database: {}", idx, e);
                 }
-            } catch (Exception e) {
-                errorCount++;
-                logger.error("Failed to delete batch of entities from database, batch size: {}", batch.size(), e);
             }
         }
         if (errorCount > 0) {
@@ -378,9 +570,10 @@ public abstract class BaseCache<T extends BaseEntity> {
     }
 
     /**
-     * 分批处理插入操作
+     * 分批处理插入操作，插入失败的实体放入failed
+     * 逐条写入并单独捕获异常，已插入的记录不会因同批其他记录失败而被重复插入
      */
-    private int processBatchInserts(List<T> insertEntities) {
+    private int processBatchInserts(List<T> insertEntities, List<T> failed) {
         int insertCount = 0;
         int errorCount = 0;
 
@@ -389,28 +582,17 @@ public abstract class BaseCache<T extends BaseEntity> {
             int end = Math.min(i + BATCH_SIZE, insertEntities.size());
             List<T> batch = insertEntities.subList(i, end);
 
-            try {
-                // 批量插入优化
-                for (T entity : batch) {
+            for (T entity : batch) {
+                try {
                     dao.insert(entity);
                     insertCount++;
-                }
-                logger.debug("Inserted batch of {} entities", batch.size());
-            } catch (Exception e) {
-                errorCount++;
-                logger.error("Failed to insert batch of entities to database, batch size: {}", batch.size(), e);
-
-                // 逐个重试
-                for (T entity : batch) {
-                    try {
-                        dao.insert(entity);
-                        insertCount++;
-                    } catch (Exception innerE) {
-                        errorCount++;
-                        logger.error("Failed to insert entity to database: {}", entity, innerE);
-                    }
+                } catch (Exception e) {
+                    errorCount++;
+                    failed.add(entity);
+                    logger.error("Failed to insert entity to database: {}", entity, e);
                 }
             }
+            logger.debug("Inserted batch of {} entities", batch.size());
         }
 
         if (errorCount > 0) {
@@ -420,37 +602,26 @@ public abstract class BaseCache<T extends BaseEntity> {
     }
 
     /**
-     * 分批处理更新操作
+     * 分批处理更新操作，更新失败的实体放入failed
      */
-    private int processBatchUpdates(List<T> updateEntities) {
+    private int processBatchUpdates(List<T> updateEntities, List<T> failed) {
         int updateCount = 0;
         int errorCount = 0;
         for (int i = 0; i < updateEntities.size(); i += BATCH_SIZE) {
             int end = Math.min(i + BATCH_SIZE, updateEntities.size());
             List<T> batch = updateEntities.subList(i, end);
 
-            try {
-                // 批量更新
-                for (T entity : batch) {
+            for (T entity : batch) {
+                try {
                     dao.update(entity);
                     updateCount++;
-                }
-                logger.debug("Updated batch of {} entities", batch.size());
-            } catch (Exception e) {
-                errorCount++;
-                logger.error("Failed to update batch of entities to database, batch size: {}", batch.size(), e);
-
-                // 如果批量更新失败，尝试逐个更新
-                for (T entity : batch) {
-                    try {
-                        dao.update(entity);
-                        updateCount++;
-                    } catch (Exception innerE) {
-                        errorCount++;
-                        logger.error("Failed to update entity to database: {}", entity, innerE);
-                    }
+                } catch (Exception e) {
+                    errorCount++;
+                    failed.add(entity);
+                    logger.error("Failed to update entity to database: {}", entity, e);
                 }
             }
+            logger.debug("Updated batch of {} entities", batch.size());
         }
         if (errorCount > 0) {
             logger.warn("Encountered {} errors during batch update operations", errorCount);
@@ -458,81 +629,6 @@ public abstract class BaseCache<T extends BaseEntity> {
         return updateCount;
     }
 
-    /**
-     * 处理缓存中剩余的记录
-     *
-     * @return 返回一个包含错误计数的数组，[0]为错误计数
-     */
-    private int[] processRemainingCacheEntities() {
-        int errorCount = 0;
-        // 收集未在insertMap和updateMap中的记录
-        List<T> remainingEntities = new ArrayList<>();
-        for (T entity : cacheMap.values()) {
-            String idx = entity.getIdx();
-            // 如果记录不在insertMap和updateMap中，说明是直接放入缓存的
-            if (!insertMap.containsKey(idx) && !updateMap.containsKey(idx)) {
-                remainingEntities.add(entity);
-            }
-        }
-
-        // 分批处理剩余记录
-        for (int i = 0; i < remainingEntities.size(); i += BATCH_SIZE) {
-            int end = Math.min(i + BATCH_SIZE, remainingEntities.size());
-            List<T> batch = remainingEntities.subList(i, end);
-
-            try {
-                // 处理一批剩余记录
-                for (T entity : batch) {
-                    try {
-                        processRemainingEntity(entity);
-                    } catch (Exception e) {
-                        errorCount++;
-                        logger.error("Failed to process remaining entity: {}", entity, e);
-                    }
-                }
-            } catch (Exception e) {
-                errorCount++;
-                logger.error("Failed to process batch of remaining entities, batch size: {}", batch.size(), e);
-            }
-        }
-
-        if (errorCount > 0) {
-            logger.warn("Encountered {} errors during processing of remaining cache entities", errorCount);
-        }
-        return new int[]{errorCount};
-    }
-
-    /**
-     * 处理单个剩余记录
-     */
-    private void processRemainingEntity(T entity) {
-        String idx = entity.getIdx();
-        // 检查实体是否已存在（通过ID判断）
-        if (idx != null && !idx.isEmpty()) {
-            try {
-                // 尝试将idx转换为数字ID来判断实体是否已存在
-                Long id = Long.parseLong(idx);
-
-                if (updateMap.containsKey(id)) {
-                    // 已存在的实体，执行更新
-                    dao.update(entity);
-                } else if (insertMap.containsKey(id)) {
-                    // 新实体，执行插入
-                    dao.insert(entity);
-                } else if (deleteMap.containsKey(id)) {
-                    // 删除实体
-                    dao.deleteById(id);
-                }
-            } catch (NumberFormatException e) {
-                // 如果idx不是数字，我们假设它是新实体
-                dao.insert(entity);
-            }
-        } else {
-            // idx为空，执行插入
-            dao.insert(entity);
-        }
-    }
-
     /**
      * 异步批量保存
      */
@@ -0,0 +1,82 @@
+package com.game.cache;
+
+import com.game.dao.entity.BaseEntity;
+import com.game.dao.mapper.BaseDao;
+import org.apache.ibatis.session.ExecutorType;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.function.BiConsumer;
+
+/**
+ * 缓存批量写库工具
+ * 使用MyBatis的BATCH执行器把同一个Mapper方法的多次调用合并为JDBC批量语句，
+ * 配合连接串上的rewriteBatchedStatements=true，MySQL驱动会改写为多值INSERT，大幅减少网络往返
+ */
+@Component
+public class CacheBatchWriter {
+
+    private static final Logger logger = LoggerFactory.getLogger(CacheBatchWriter.class);
+
+    @Autowired
+    private SqlSessionFactory sqlSessionFactory;
+
+    /**
+     * 以批量语句执行一组写操作
+     * 任何一条失败时整批回滚并抛出异常，由调用方决定是否逐条重试
+     *
+     * @param dao       缓存使用的Mapper
+     * @param rows      待写入的数据
+     * @param operation 对每条数据执行的Mapper方法，如 BaseDao::insert
+     * @param <T>       实体类型
+     * @param <R>       数据类型（实体或主键）
+     * @return 写入条数
+     */
+    @SuppressWarnings("unchecked")
+    public <T extends BaseEntity, R> int write(BaseDao<T> dao, List<R> rows, BiConsumer<BaseDao<T>, R> operation) {
+        if (rows.isEmpty()) {
+            return 0;
+        }
+        Class<?> mapperType = resolveMapperType(dao);
+        if (mapperType == null) {
+            // 不是MyBatis Mapper代理，只能逐条执行
+            for (R row : rows) {
+                operation.accept(dao, row);
+            }
+            return rows.size();
+        }
+
+        try (SqlSession session = sqlSessionFactory.openSession(ExecutorType.BATCH, false)) {
+            BaseDao<T> batchMapper = (BaseDao<T>) session.getMapper(mapperType);
+            try {
+                for (R row : rows) {
+                    operation.accept(batchMapper, row);
+                }
+                session.flushStatements();
+                session.commit();
+                return rows.size();
+            } catch (RuntimeException e) {
+                session.rollback();
+                throw e;
+            }
+        }
+    }
+
+    /**
+     * 从Mapper代理上找到具体的Mapper接口
+     */
+    private Class<?> resolveMapperType(BaseDao<?> dao) {
+        for (Class<?> type : dao.getClass().getInterfaces()) {
+            if (type != BaseDao.class && BaseDao.class.isAssignableFrom(type)) {
+                return type;
+            }
+        }
+        logger.debug("No mapper interface found on dao {}", dao.getClass().getName());
+        return null;
+    }
+}
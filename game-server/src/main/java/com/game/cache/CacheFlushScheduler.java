@@ -0,0 +1,249 @@
+package com.game.cache;
+
+import com.game.common.util.ScheduleUtil;
+import com.game.core.AbstractSystemShutdown;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * 缓存错峰持久化调度器
+ * <p>
+ * 把脏数据按实体ID散列到N个槽位，每隔 interval/N 只写入一个槽位，
+ * 一个完整的持久化周期仍为interval，但写库压力被平摊成连续的小流量，消除整点写入尖峰。
+ * <p>
+ * 自适应节奏：
+ * 1. 单条记录平均写入耗时超过阈值时，说明数据库变慢，拉长时间片（最多为基准的4倍）
+ * 2. 待写入记录积压超过阈值时，缩短时间片（最少为基准的1/4）加快消化
+ * 3. 两者都正常时，时间片逐步回到基准值
+ */
+@Component
+public class CacheFlushScheduler extends AbstractSystemShutdown {
+
+    private static final Logger logger = LoggerFactory.getLogger(CacheFlushScheduler.class);
+
+    /**
+     * 时间片下限（毫秒）
+     */
+    private static final long MIN_TICK_DELAY = 100;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    /**
+     * 完整持久化周期（毫秒）
+     */
+    @Value("${game.cache.persistence-interval:60000}")
+    private long persistenceInterval;
+
+    /**
+     * 槽位数量
+     */
+    @Value("${game.cache.flush-slots:12}")
+    private int slotCount;
+
+    /**
+     * 单条记录写入耗时阈值（毫秒），超过则放慢节奏
+     */
+    @Value("${game.cache.flush-slow-latency:20}")
+    private long slowLatencyMillis;
+
+    /**
+     * 积压阈值（条），超过则加快节奏
+     */
+    @Value("${game.cache.flush-backlog-threshold:5000}")
+    private int backlogThreshold;
+
+    /**
+     * 停止时等待当前一轮写库结束的最长时间（毫秒）
+     */
+    @Value("${game.cache.shutdown-flush-timeout:20000}")
+    private long stopTimeout;
+
+    private volatile boolean running;
+
+    /**
+     * 当前一轮写库任务，停止时等待其结束
+     */
+    private CompletableFuture<Integer> currentFlush;
+
+    /**
+     * 下一个要写入的槽位
+     */
+    private int currentSlot;
+
+    /**
+     * 当前时间片（毫秒）
+     */
+    private volatile long tickDelay;
+
+    /**
+     * 单条记录平均写入耗时（纳秒，指数移动平均）
+     */
+    private volatile double avgRowLatencyNanos;
+
+    /**
+     * 单轮写库耗时超过时间片的次数
+     */
+    private volatile long overrunCount;
+
+    /**
+     * 启动错峰持久化
+     */
+    public synchronized void start() {
+        if (running) {
+            return;
+        }
+        slotCount = Math.max(1, slotCount);
+        tickDelay = getBaseDelay();
+        running = true;
+        scheduleNext(tickDelay);
+        logger.info("Cache flush scheduler started, interval={}ms, slots={}, tick={}ms",
+                persistenceInterval, slotCount, tickDelay);
+    }
+
+    /**
+     * 停止调度并等待当前一轮写库结束，最后一次全量持久化由CacheManager在关闭时完成
+     * 不等待的话，本轮写入的旧数据可能晚于停机写库落库，覆盖更新的数据
+     */
+    public void stop() {
+        CompletableFuture<Integer> flush;
+        synchronized (this) {
+            running = false;
+            flush = currentFlush;
+        }
+        if (flush == null || flush.isDone()) {
+            return;
+        }
+        try {
+            flush.get(stopTimeout, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            logger.warn("Current cache slot flush did not finish within {}ms", stopTimeout);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            // 写库异常已在tick中记录
+        }
+    }
+
+    private void scheduleNext(long delay) {
+        try {
+            ScheduleUtil.schedule(this::tick, delay, TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+            // 调度线程池已关闭，说明系统正在停机
+            running = false;
+        }
+    }
+
+    /**
+     * 写入一个槽位，写库完成后再安排下一次执行
+     * 写库在持久化线程池中进行；本轮耗时超过时间片时下一轮立即开始而不会叠加，形成背压
+     */
+    private void tick() {
+        int slot = currentSlot;
+        long startTime = System.nanoTime();
+        try {
+            CompletableFuture<Integer> flush;
+            // 与stop互斥：要么本轮不再开始，要么stop能看到本轮的写库任务
+            synchronized (this) {
+                if (!running) {
+                    return;
+                }
+                currentSlot = (currentSlot + 1) % slotCount;
+                flush = cacheManager.syncSlotToDatabase(slot, slotCount);
+                currentFlush = flush;
+            }
+            flush.whenComplete((written, e) -> {
+                long elapsed = System.nanoTime() - startTime;
+                if (e != null) {
+                    logger.error("Error during cache slot flush", e);
+                } else {
+                    onSlotFlushed(slot, written, elapsed);
+                }
+                if (running) {
+                    long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(elapsed);
+                    if (elapsedMillis > tickDelay) {
+                        overrunCount++;
+                        logger.warn("Cache slot {} flush took {}ms, exceeding tick {}ms", slot, elapsedMillis, tickDelay);
+                    }
+                    scheduleNext(Math.max(0, tickDelay - elapsedMillis));
+                }
+            });
+        } catch (Exception e) {
+            logger.error("Error during cache slot flush", e);
+            if (running) {
+                scheduleNext(tickDelay);
+            }
+        }
+    }
+
+    private void onSlotFlushed(int slot, int written, long elapsed) {
+        if (written > 0) {
+            double rowLatency = (double) elapsed / written;
+            avgRowLatencyNanos = avgRowLatencyNanos == 0 ? rowLatency : avgRowLatencyNanos * 0.8 + rowLatency * 0.2;
+        }
+        adjustTickDelay();
+        if (written > 0) {
+            logger.debug("Flushed cache slot {}/{}: rows={}, cost={}ms, nextTick={}ms",
+                    slot, slotCount, written, TimeUnit.NANOSECONDS.toMillis(elapsed), tickDelay);
+        }
+    }
+
+    /**
+     * 根据写入耗时和积压量调整时间片
+     */
+    private void adjustTickDelay() {
+        long baseDelay = getBaseDelay();
+        long maxDelay = baseDelay * 4;
+        long minDelay = Math.max(MIN_TICK_DELAY, baseDelay / 4);
+        long delay = tickDelay;
+
+        if (avgRowLatencyNanos > TimeUnit.MILLISECONDS.toNanos(slowLatencyMillis)) {
+            delay = Math.min(maxDelay, delay + delay / 2);
+        } else if (getBacklog() > backlogThreshold) {
+            delay = Math.max(minDelay, delay / 2);
+        } else {
+            delay = (delay + baseDelay) / 2;
+        }
+        tickDelay = delay;
+    }
+
+    private long getBaseDelay() {
+        return Math.max(MIN_TICK_DELAY, persistenceInterval / slotCount);
+    }
+
+    /**
+     * 获取所有缓存的待写入记录数
+     */
+    public int getBacklog() {
+        int backlog = 0;
+        for (BaseCache<?> cache : cacheManager.getCacheList()) {
+            backlog += cache.getDirtySize();
+        }
+        return backlog;
+    }
+
+    public long getTickDelay() {
+        return tickDelay;
+    }
+
+    public double getAvgRowLatencyMillis() {
+        return avgRowLatencyNanos / TimeUnit.MILLISECONDS.toNanos(1);
+    }
+
+    public long getOverrunCount() {
+        return overrunCount;
+    }
+
+    @Override
+    public void shutdown() {
+        stop();
+    }
+}
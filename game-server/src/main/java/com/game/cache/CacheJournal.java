@@ -0,0 +1,176 @@
+package com.game.cache;
+
+import com.alibaba.fastjson.JSON;
+import com.game.dao.entity.BaseEntity;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * 缓存本地日志
+ * 停机写库在截止时间内未完成（或写库失败）的数据转存到本地文件，下次启动加载缓存后回放为脏数据并立即写库，
+ * 确认写入数据库后才把日志标记为已回放，保证停机超时不丢数据。
+ * <p>
+ * 文件格式：每个缓存一个文件，文件名为 缓存类名.时间戳.journal，每行一条记录：
+ * D\t实体ID      需要删除的记录
+ * U\tJSON        需要写入的记录（回放时根据缓存中是否存在决定插入或更新）
+ */
+@Component
+public class CacheJournal {
+
+    private static final Logger logger = LoggerFactory.getLogger(CacheJournal.class);
+
+    private static final String SUFFIX = ".journal";
+    private static final String REPLAYED_SUFFIX = ".replayed";
+    private static final String DELETE_FLAG = "D";
+    private static final String UPSERT_FLAG = "U";
+
+    @Value("${game.cache.journal-path:journal}")
+    private String journalPath;
+
+    /**
+     * 写入一个缓存未完成的数据
+     * 先写临时文件并刷盘，再原子改名，避免进程被强杀时留下半个文件
+     *
+     * @param cache 缓存实例
+     * @param dirty 未写入数据库的数据
+     * @return 日志文件，无数据时返回null
+     */
+    public <T extends BaseEntity> File write(BaseCache<T> cache, DirtyData<T> dirty) throws IOException {
+        if (dirty.isEmpty()) {
+            return null;
+        }
+        File dir = new File(journalPath);
+        if (!dir.exists() && !dir.mkdirs()) {
+            throw new IOException("Failed to create journal directory: " + dir.getAbsolutePath());
+        }
+        String name = cache.getClass().getSimpleName() + "." + new SimpleDateFormat("yyyyMMddHHmmssSSS").format(new Date());
+        File tmpFile = new File(dir, name + ".tmp");
+        File journalFile = new File(dir, name + SUFFIX);
+
+        try (FileOutputStream out = new FileOutputStream(tmpFile);
+             BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8))) {
+            for (String idx : dirty.getDeleteIds()) {
+                writer.write(DELETE_FLAG + "\t" + idx);
+                writer.newLine();
+            }
+            for (T entity : dirty.getInsertEntities()) {
+                writer.write(UPSERT_FLAG + "\t" + JSON.toJSONString(entity));
+                writer.newLine();
+            }
+            for (T entity : dirty.getUpdateEntities()) {
+                writer.write(UPSERT_FLAG + "\t" + JSON.toJSONString(entity));
+                writer.newLine();
+            }
+            writer.flush();
+            out.getFD().sync();
+        }
+        Files.move(tmpFile.toPath(), journalFile.toPath(), StandardCopyOption.ATOMIC_MOVE);
+        logger.warn("Wrote {} unflushed rows of cache {} to journal {}",
+                dirty.size(), cache.getClass().getSimpleName(), journalFile.getAbsolutePath());
+        return journalFile;
+    }
+
+    /**
+     * 回放本地日志到缓存
+     * 需在所有缓存从数据库加载完成后调用；回放只把数据恢复为缓存中的脏数据，
+     * 调用方确认已写入数据库后再调用{@link #markReplayed}，避免写库前崩溃丢失数据
+     *
+     * @param caches 已注册的缓存
+     * @return 回放的日志文件
+     */
+    public List<File> replay(List<BaseCache<?>> caches) {
+        File dir = new File(journalPath);
+        File[] files = dir.listFiles((d, name) -> name.endsWith(SUFFIX));
+        List<File> replayed = new ArrayList<>();
+        if (files == null || files.length == 0) {
+            return replayed;
+        }
+        // 文件名带时间戳，按名称排序即按写入先后回放
+        Arrays.sort(files);
+
+        int total = 0;
+        for (File file : files) {
+            BaseCache<?> cache = findCache(caches, file.getName());
+            if (cache == null) {
+                logger.error("No cache found for journal file {}, skip", file.getName());
+                continue;
+            }
+            try {
+                total += replayFile(cache, file);
+                replayed.add(file);
+            } catch (IOException e) {
+                throw new RuntimeException("Failed to replay cache journal: " + file.getAbsolutePath(), e);
+            }
+        }
+        logger.info("Replayed {} rows from {} cache journal files", total, replayed.size());
+        return replayed;
+    }
+
+    /**
+     * 回放的数据已写入数据库，把日志文件改名为 .replayed 保留备查，下次启动不再回放
+     *
+     * @param files 回放的日志文件
+     */
+    public void markReplayed(List<File> files) {
+        for (File file : files) {
+            try {
+                Files.move(file.toPath(), new File(file.getParentFile(), file.getName() + REPLAYED_SUFFIX).toPath(),
+                        StandardCopyOption.REPLACE_EXISTING);
+            } catch (IOException e) {
+                logger.error("Failed to mark cache journal {} as replayed", file.getAbsolutePath(), e);
+            }
+        }
+    }
+
+    private <T extends BaseEntity> int replayFile(BaseCache<T> cache, File file) throws IOException {
+        Class<T> entityClass = cache.getEntityClass();
+        List<T> entities = new ArrayList<>();
+        List<String> deleteIds = new ArrayList<>();
+        try (BufferedReader reader = Files.newBufferedReader(file.toPath(), StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                int tab = line.indexOf('\t');
+                if (tab <= 0) {
+                    continue;
+                }
+                String flag = line.substring(0, tab);
+                String content = line.substring(tab + 1);
+                if (DELETE_FLAG.equals(flag)) {
+                    deleteIds.add(content);
+                } else if (UPSERT_FLAG.equals(flag)) {
+                    entities.add(JSON.parseObject(content, entityClass));
+                }
+            }
+        }
+        cache.restoreDirty(entities, deleteIds);
+        logger.info("Replayed journal {}: upserts={}, deletes={}", file.getName(), entities.size(), deleteIds.size());
+        return entities.size() + deleteIds.size();
+    }
+
+    private BaseCache<?> findCache(List<BaseCache<?>> caches, String fileName) {
+        String cacheName = fileName.substring(0, fileName.indexOf('.'));
+        for (BaseCache<?> cache : caches) {
+            if (cache.getClass().getSimpleName().equals(cacheName)) {
+                return cache;
+            }
+        }
+        return null;
+    }
+}
@@ -1,17 +1,29 @@
 package com.game.cache;
 
 import com.game.core.AbstractSystemShutdown;
+import com.game.dao.entity.BaseEntity;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.ApplicationContext;
 import org.springframework.context.ApplicationContextAware;
 import org.springframework.stereotype.Component;
 
+import java.io.File;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
 
 /**
  * 缓存管理器
@@ -26,11 +38,45 @@ public class CacheManager extends AbstractSystemShutdown implements ApplicationC
      */
     private final List<BaseCache<?>> cacheList = new ArrayList<>();
 
+    /**
+     * 每个缓存当前正在执行的写库任务，保证同一缓存同一时刻只有一个写库任务
+     */
+    private final ConcurrentHashMap<BaseCache<?>, CompletableFuture<Integer>> inFlightFlushes = new ConcurrentHashMap<>();
+
+    /**
+     * 因上一次写库未完成而跳过的次数
+     */
+    private final AtomicLong skippedFlushCount = new AtomicLong();
+
+    /**
+     * 因持久化线程池满而被拒绝的次数
+     */
+    private final AtomicLong rejectedFlushCount = new AtomicLong();
+
     /**
      * Spring 应用上下文
      */
     private ApplicationContext applicationContext;
 
+    /**
+     * 缓存持久化专用线程池
+     */
+    @Autowired
+    @Qualifier("persistenceExecutor")
+    private ExecutorService persistenceExecutor;
+
+    @Autowired
+    private CacheBatchWriter cacheBatchWriter;
+
+    @Autowired
+    private CacheJournal cacheJournal;
+
+    /**
+     * 停机写库截止时间（毫秒），超时未写入的数据转存本地日志
+     */
+    @Value("${game.cache.shutdown-flush-timeout:20000}")
+    private long shutdownFlushTimeout;
+
     @Override
     public void setApplicationContext(ApplicationContext applicationContext) {
         this.applicationContext = applicationContext;
@@ -101,13 +147,19 @@ public class CacheManager extends AbstractSystemShutdown implements ApplicationC
 
             // 等待所有加载任务完成
             CompletableFuture<Void> allLoadTasks = CompletableFuture.allOf(
-                    loadTasks.toArray(new CompletableFuture[0])
+                    loadTasks.toArray(new CompletableFuture<?>[0])
             );
 
             // 设置超时时间防止无限等待
             allLoadTasks.get(30, TimeUnit.SECONDS);
 
             logger.info("All {} caches loaded successfully from database", cacheList.size());
+
+            // 回放上次停机未写入数据库的数据
+            List<File> journals = cacheJournal.replay(cacheList);
+            if (!journals.isEmpty()) {
+                flushReplayedJournals(journals);
+            }
         } catch (Exception e) {
             logger.error("Failed to load caches from database", e);
             throw new RuntimeException("Cache initialization failed", e);
@@ -115,18 +167,123 @@ public class CacheManager extends AbstractSystemShutdown implements ApplicationC
     }
 
     /**
-     * 同步所有缓存数据到数据库
+     * 把回放的日志数据写入数据库，全部写入后才把日志文件标记为已回放
+     * 写库超时或有记录写入失败时保留日志文件，数据仍作为脏数据由正常持久化流程写入，
+     * 进程在此之前崩溃时下次启动会再次回放，回放按缓存中是否存在决定插入或更新，重复回放不会出错
+     *
+     * @param journals 本次回放的日志文件
      */
-    public void syncAllDataToDatabase() {
-        logger.debug("Starting scheduled cache data sync");
+    private void flushReplayedJournals(List<File> journals) throws Exception {
         try {
-            for (BaseCache<?> cache : cacheList) {
-                cache.asyncSyncAllDataToDatabase();
+            syncAllDataToDatabase().get(shutdownFlushTimeout, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            logger.warn("Flushing replayed journal data did not finish within {}ms, keep journal files", shutdownFlushTimeout);
+            return;
+        }
+        int dirty = 0;
+        for (BaseCache<?> cache : cacheList) {
+            dirty += cache.getDirtySize();
+        }
+        if (dirty > 0) {
+            logger.warn("{} replayed rows are not yet in database, keep journal files", dirty);
+            return;
+        }
+        cacheJournal.markReplayed(journals);
+    }
+
+    /**
+     * 同步所有缓存数据到数据库
+     * 每个缓存作为一个独立任务提交到持久化线程池并行写库，上一次写库未完成的缓存本次跳过
+     *
+     * @return 所有已提交写库任务的完成结果
+     */
+    public CompletableFuture<Void> syncAllDataToDatabase() {
+        logger.debug("Starting cache data sync");
+        List<CompletableFuture<Integer>> futures = new ArrayList<>();
+        for (BaseCache<?> cache : cacheList) {
+            CompletableFuture<Integer> future = submitFlush(cache, cache::syncAllDataToDatabase);
+            if (future != null) {
+                futures.add(future);
             }
-            logger.debug("Cache data sync completed");
-        } catch (Exception e) {
-            logger.error("Error during cache data sync", e);
         }
+        return CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[0]));
+    }
+
+    /**
+     * 同步所有缓存指定槽位的脏数据到数据库
+     *
+     * @param slot      槽位序号
+     * @param slotCount 槽位总数
+     * @return 本次写入的总记录数（被跳过的缓存不计入）
+     */
+    public CompletableFuture<Integer> syncSlotToDatabase(int slot, int slotCount) {
+        List<CompletableFuture<Integer>> futures = new ArrayList<>();
+        for (BaseCache<?> cache : cacheList) {
+            CompletableFuture<Integer> future = submitFlush(cache, () -> cache.syncSlotToDatabase(slot, slotCount));
+            if (future != null) {
+                futures.add(future);
+            }
+        }
+        return CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[0]))
+                .thenApply(v -> {
+                    int total = 0;
+                    for (CompletableFuture<Integer> future : futures) {
+                        total += future.join();
+                    }
+                    return total;
+                });
+    }
+
+    /**
+     * 提交一个缓存的写库任务
+     * 同一缓存上一次写库尚未完成时直接跳过，脏数据保留到下一轮，避免同一张表的写入相互叠加
+     *
+     * @param cache 缓存实例
+     * @param task  写库任务，返回写入记录数
+     * @return 写库任务结果，被跳过或被拒绝时返回null
+     */
+    private CompletableFuture<Integer> submitFlush(BaseCache<?> cache, Supplier<Integer> task) {
+        CompletableFuture<Integer> future = new CompletableFuture<>();
+        CompletableFuture<Integer> running = inFlightFlushes.putIfAbsent(cache, future);
+        if (running != null) {
+            skippedFlushCount.incrementAndGet();
+            logger.warn("Previous flush of cache {} is still running, skip this round", cache.getClass().getSimpleName());
+            return null;
+        }
+        try {
+            persistenceExecutor.execute(() -> {
+                try {
+                    future.complete(task.get());
+                } catch (Throwable e) {
+                    logger.error("Failed to flush cache {}", cache.getClass().getSimpleName(), e);
+                    future.complete(0);
+                } finally {
+                    inFlightFlushes.remove(cache, future);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            inFlightFlushes.remove(cache, future);
+            rejectedFlushCount.incrementAndGet();
+            logger.warn("Persistence executor rejected flush of cache {}", cache.getClass().getSimpleName());
+            return null;
+        }
+        return future;
+    }
+
+    /**
+     * 获取持久化流水线统计信息
+     */
+    public Map<String, Object> getPersistenceStats() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("inFlight", inFlightFlushes.size());
+        stats.put("skipped", skippedFlushCount.get());
+        stats.put("rejected", rejectedFlushCount.get());
+        int dirty = 0;
+        for (BaseCache<?> cache : cacheList) {
+            dirty += cache.getDirtySize();
+        }
+        stats.put("dirty", dirty);
+        return stats;
     }
 
     /**
@@ -171,6 +328,9 @@ public class CacheManager extends AbstractSystemShutdown implements ApplicationC
      */
     public List<String> getCacheStats() {
         List<String> stats = new ArrayList<>();
+        for (BaseCache<?> cache : cacheList) {
+            stats.add(cache.getCacheStats());
+        }
         return stats;
     }
 
@@ -269,14 +429,163 @@ public class CacheManager extends AbstractSystemShutdown implements ApplicationC
 
     /**
      * 同步所有缓存数据到数据库（阻塞操作，用于系统关闭时）
+     * <p>
+     * 0. 先等待正在执行的错峰写库任务结束，避免其写入的旧数据晚于停机写库落库
+     * 1. 各缓存先摘取自己的脏数据，只写有脏标记的记录
+     * 2. 每个缓存一个任务，在持久化线程池中并行写库；单个缓存内部按 删除 -> 插入 -> 更新 顺序批量写入
+     * 3. 写库过程中按秒输出进度和预计剩余时间
+     * 4. 到达截止时间后不再开始新的批次，未写入和写入失败的数据转存本地日志，下次启动时回放
      */
     public void syncAllCachesToDatabase() {
+        long startTime = System.nanoTime();
+        long deadline = startTime + TimeUnit.MILLISECONDS.toNanos(shutdownFlushTimeout);
+        awaitInFlightFlushes(deadline);
+
+        List<ShutdownFlushTask<?>> tasks = new ArrayList<>();
         for (BaseCache<?> cache : cacheList) {
+            tasks.add(ShutdownFlushTask.of(cache));
+        }
+        ShutdownFlushProgress progress = new ShutdownFlushProgress(tasks.stream().mapToInt(t -> t.dirty.size()).sum());
+        logger.info("Shutdown flush started: caches={}, dirtyRows={}, timeout={}ms",
+                tasks.size(), progress.total, shutdownFlushTimeout);
+
+        for (ShutdownFlushTask<?> task : tasks) {
+            if (task.dirty.isEmpty()) {
+                continue;
+            }
+            try {
+                task.future = CompletableFuture.runAsync(() -> task.flush(cacheBatchWriter, deadline, progress), persistenceExecutor);
+            } catch (RejectedExecutionException e) {
+                // 线程池不可用时在当前线程写库
+                logger.warn("Persistence executor unavailable, flushing cache {} on shutdown thread",
+                        task.cache.getClass().getSimpleName());
+                task.flush(cacheBatchWriter, deadline, progress);
+            }
+        }
+
+        for (ShutdownFlushTask<?> task : tasks) {
+            if (task.future == null) {
+                continue;
+            }
+            try {
+                // 多等待一秒让正在执行的批次结束
+                long waitNanos = Math.max(0, deadline - System.nanoTime()) + TimeUnit.SECONDS.toNanos(1);
+                task.future.get(waitNanos, TimeUnit.NANOSECONDS);
+            } catch (TimeoutException e) {
+                logger.warn("Shutdown flush of cache {} did not finish before deadline", task.cache.getClass().getSimpleName());
+            } catch (Exception e) {
+                logger.error("Shutdown flush of cache {} failed", task.cache.getClass().getSimpleName(), e);
+            }
+        }
+
+        int journaled = 0;
+        for (ShutdownFlushTask<?> task : tasks) {
+            journaled += task.writeJournal(cacheJournal);
+        }
+        logger.info("Shutdown flush finished in {}ms: flushed={}/{}, journaled={}",
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime), progress.done.get(), progress.total, journaled);
+    }
+
+    /**
+     * 等待正在执行的写库任务结束，最多等到截止时间
+     * 写库失败的记录会重新标记为脏数据，随后由停机写库一并写入
+     *
+     * @param deadline 截止时间（System.nanoTime）
+     */
+    private void awaitInFlightFlushes(long deadline) {
+        List<CompletableFuture<Integer>> running = new ArrayList<>(inFlightFlushes.values());
+        if (running.isEmpty()) {
+            return;
+        }
+        logger.info("Waiting for {} in-flight cache flushes before shutdown flush", running.size());
+        try {
+            CompletableFuture.allOf(running.toArray(new CompletableFuture<?>[0]))
+                    .get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            logger.warn("{} in-flight cache flushes did not finish before deadline", inFlightFlushes.size());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            logger.error("Error waiting for in-flight cache flushes", e);
+        }
+    }
+
+    /**
+     * 单个缓存的停机写库任务
+     */
+    private static class ShutdownFlushTask<T extends BaseEntity> {
+        private final BaseCache<T> cache;
+        private final DirtyData<T> dirty;
+        private volatile DirtyData<T> failed;
+        private CompletableFuture<Void> future;
+
+        private ShutdownFlushTask(BaseCache<T> cache) {
+            this.cache = cache;
+            this.dirty = cache.drainAllDirty();
+        }
+
+        private static <T extends BaseEntity> ShutdownFlushTask<T> of(BaseCache<T> cache) {
+            return new ShutdownFlushTask<>(cache);
+        }
+
+        private void flush(CacheBatchWriter batchWriter, long deadline, ShutdownFlushProgress progress) {
+            failed = cache.flushForShutdown(dirty, batchWriter, deadline, progress::advance);
+        }
+
+        /**
+         * 把未写入和写入失败的数据转存本地日志
+         * 截止时仍在写库的批次也会被转存，回放时按缓存中是否存在决定插入或更新，重复写入不会出错
+         *
+         * @return 转存的记录数
+         */
+        private int writeJournal(CacheJournal journal) {
+            DirtyData<T> remaining = dirty.remaining();
+            DirtyData<T> failedData = failed;
+            if (failedData != null) {
+                remaining.getDeleteIds().addAll(failedData.getDeleteIds());
+                remaining.getInsertEntities().addAll(failedData.getInsertEntities());
+                remaining.getUpdateEntities().addAll(failedData.getUpdateEntities());
+            }
+            if (remaining.isEmpty()) {
+                return 0;
+            }
             try {
-                cache.saveAllToDatabase(); // 使用同步方法而不是异步方法
+                journal.write(cache, remaining);
+                return remaining.size();
             } catch (Exception e) {
-                logger.error("Failed to sync cache {} to database", cache.getClass().getSimpleName(), e);
+                logger.error("Failed to write journal for cache {}, {} rows lost",
+                        cache.getClass().getSimpleName(), remaining.size(), e);
+                return 0;
+            }
+        }
+    }
+
+    /**
+     * 停机写库进度，按秒输出已完成条数和预计剩余时间
+     */
+    private static class ShutdownFlushProgress {
+        private static final long REPORT_INTERVAL = TimeUnit.SECONDS.toNanos(1);
+
+        private final int total;
+        private final AtomicLong done = new AtomicLong();
+        private final long startTime = System.nanoTime();
+        private final AtomicLong lastReportTime = new AtomicLong(startTime);
+
+        private ShutdownFlushProgress(int total) {
+            this.total = total;
+        }
+
+        private void advance(int rows) {
+            long finished = done.addAndGet(rows);
+            long now = System.nanoTime();
+            long last = lastReportTime.get();
+            if (now - last < REPORT_INTERVAL || !lastReportTime.compareAndSet(last, now)) {
+                return;
             }
+            long elapsedMillis = Math.max(1, TimeUnit.NANOSECONDS.toMillis(now - startTime));
+            long etaMillis = finished == 0 ? -1 : (total - finished) * elapsedMillis / finished;
+            logger.info("Shutdown flush progress: {}/{} ({}%), elapsed={}ms, eta={}ms",
+                    finished, total, total == 0 ? 100 : finished * 100 / total, elapsedMillis, etaMillis);
         }
     }
 
@@ -0,0 +1,76 @@
+package com.game.cache;
+
+import com.game.dao.entity.BaseEntity;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 从缓存中摘取出来的一批待持久化数据
+ * 写库顺序固定为 删除 -> 插入 -> 更新，三个游标记录各自已经写入数据库的条数，
+ * 停机写库超时时可以据此取出尚未写入的部分转存到本地日志
+ *
+ * @param <T> 实体类型
+ */
+public class DirtyData<T extends BaseEntity> {
+
+    private final List<String> deleteIds;
+    private final List<T> insertEntities;
+    private final List<T> updateEntities;
+
+    /**
+     * 已写入的删除条数
+     */
+    volatile int deletedCursor;
+    /**
+     * 已写入的插入条数
+     */
+    volatile int insertedCursor;
+    /**
+     * 已写入的更新条数
+     */
+    volatile int updatedCursor;
+
+    public DirtyData(List<String> deleteIds, List<T> insertEntities, List<T> updateEntities) {
+        this.deleteIds = deleteIds;
+        this.insertEntities = insertEntities;
+        this.updateEntities = updateEntities;
+    }
+
+    public List<String> getDeleteIds() {
+        return deleteIds;
+    }
+
+    public List<T> getInsertEntities() {
+        return insertEntities;
+    }
+
+    public List<T> getUpdateEntities() {
+        return updateEntities;
+    }
+
+    public boolean isEmpty() {
+        return deleteIds.isEmpty() && insertEntities.isEmpty() && updateEntities.isEmpty();
+    }
+
+    public int size() {
+        return deleteIds.size() + insertEntities.size() + updateEntities.size();
+    }
+
+    /**
+     * 已写入数据库的条数
+     */
+    public int flushedSize() {
+        return deletedCursor + insertedCursor + updatedCursor;
+    }
+
+    /**
+     * 取出尚未写入数据库的部分
+     */
+    public DirtyData<T> remaining() {
+        return new DirtyData<>(
+                new ArrayList<>(deleteIds.subList(deletedCursor, deleteIds.size())),
+                new ArrayList<>(insertEntities.subList(insertedCursor, insertEntities.size())),
+                new ArrayList<>(updateEntities.subList(updatedCursor, updateEntities.size())));
+    }
+}
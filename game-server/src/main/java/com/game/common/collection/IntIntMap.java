@@ -0,0 +1,149 @@
+package com.game.common.collection;
+
+import com.alibaba.fastjson.JSONAware;
+
+import java.io.Serializable;
+import java.util.Arrays;
+
+/**
+ * 不可变int到int映射
+ * 键升序存放在int数组中，查询为二分查找，用于配置表的intIntMap字段。
+ * 条目通常只有几个到几十个，二分查找比HashMap少了装箱、Entry对象和哈希桶。
+ */
+public final class IntIntMap implements Serializable, JSONAware {
+
+    private static final long serialVersionUID = 1L;
+
+    public static final IntIntMap EMPTY = new IntIntMap(new int[0], new int[0]);
+
+    private final int[] keys;
+    private final int[] values;
+
+    private IntIntMap(int[] keys, int[] values) {
+        this.keys = keys;
+        this.values = values;
+    }
+
+    /**
+     * 由前size个键值对创建，键无需有序，重复的键以后出现的值为准
+     */
+    public static IntIntMap of(int[] keys, int[] values, int size) {
+        if (size == 0) {
+            return EMPTY;
+        }
+        // 高32位为键、低32位为原始下标，排序后相同键按出现顺序相邻
+        long[] packed = new long[size];
+        for (int i = 0; i < size; i++) {
+            packed[i] = ((long) keys[i] << 32) | i;
+        }
+        Arrays.sort(packed);
+        int[] sortedKeys = new int[size];
+        int[] sortedValues = new int[size];
+        int count = 0;
+        for (long entry : packed) {
+            int key = (int) (entry >> 32);
+            int value = values[(int) entry];
+            if (count > 0 && sortedKeys[count - 1] == key) {
+                sortedValues[count - 1] = value;
+            } else {
+                sortedKeys[count] = key;
+                sortedValues[count] = value;
+                count++;
+            }
+        }
+        if (count < size) {
+            sortedKeys = Arrays.copyOf(sortedKeys, count);
+            sortedValues = Arrays.copyOf(sortedValues, count);
+        }
+        return new IntIntMap(sortedKeys, sortedValues);
+    }
+
+    public int size() {
+        return keys.length;
+    }
+
+    public boolean isEmpty() {
+        return keys.length == 0;
+    }
+
+    public boolean containsKey(int key) {
+        return Arrays.binarySearch(keys, key) >= 0;
+    }
+
+    /**
+     * 获取键对应的值
+     *
+     * @throws IllegalArgumentException 键不存在
+     */
+    public int get(int key) {
+        int index = Arrays.binarySearch(keys, key);
+        if (index < 0) {
+            throw new IllegalArgumentException("Key not found: " + key);
+        }
+        return values[index];
+    }
+
+    public int getOrDefault(int key, int defaultValue) {
+        int index = Arrays.binarySearch(keys, key);
+        return index < 0 ? defaultValue : values[index];
+    }
+
+    /**
+     * 第index个键（按升序）
+     */
+    public int keyAt(int index) {
+        return keys[index];
+    }
+
+    /**
+     * 第index个值（与keyAt对应）
+     */
+    public int valueAt(int index) {
+        return values[index];
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof IntIntMap)) {
+            return false;
+        }
+        IntIntMap other = (IntIntMap) o;
+        return Arrays.equals(keys, other.keys) && Arrays.equals(values, other.values);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * Arrays.hashCode(keys) + Arrays.hashCode(values);
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder("{");
+        for (int i = 0; i < keys.length; i++) {
+            if (i > 0) {
+                sb.append(", ");
+            }
+            sb.append(keys[i]).append('=').append(values[i]);
+        }
+        return sb.append('}').toString();
+    }
+
+    @Override
+    public String toJSONString() {
+        StringBuilder sb = new StringBuilder("{");
+        for (int i = 0; i < keys.length; i++) {
+            if (i > 0) {
+                sb.append(',');
+            }
+            sb.append('"').append(keys[i]).append("\":").append(values[i]);
+        }
+        return sb.append('}').toString();
+    }
+
+    private Object readResolve() {
+        return keys.length == 0 ? EMPTY : this;
+    }
+}
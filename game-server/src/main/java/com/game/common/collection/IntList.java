@@ -0,0 +1,96 @@
+package com.game.common.collection;
+
+import com.alibaba.fastjson.JSONAware;
+
+import java.io.Serializable;
+import java.util.Arrays;
+
+/**
+ * 不可变int列表
+ * 元素直接存放在int数组中，用于配置表的intList字段，避免每个元素一个Integer对象常驻老年代。
+ */
+public final class IntList implements Serializable, JSONAware {
+
+    private static final long serialVersionUID = 1L;
+
+    public static final IntList EMPTY = new IntList(new int[0]);
+
+    private final int[] elements;
+
+    private IntList(int[] elements) {
+        this.elements = elements;
+    }
+
+    /**
+     * 复制数组创建列表
+     */
+    public static IntList of(int... elements) {
+        return elements.length == 0 ? EMPTY : new IntList(elements.clone());
+    }
+
+    /**
+     * 取数组前length个元素创建列表
+     */
+    public static IntList of(int[] elements, int length) {
+        return length == 0 ? EMPTY : new IntList(Arrays.copyOf(elements, length));
+    }
+
+    public int size() {
+        return elements.length;
+    }
+
+    public boolean isEmpty() {
+        return elements.length == 0;
+    }
+
+    public int get(int index) {
+        return elements[index];
+    }
+
+    public boolean contains(int value) {
+        return indexOf(value) >= 0;
+    }
+
+    public int indexOf(int value) {
+        for (int i = 0; i < elements.length; i++) {
+            if (elements[i] == value) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * 返回元素数组的副本
+     */
+    public int[] toArray() {
+        return elements.clone();
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        return o instanceof IntList && Arrays.equals(elements, ((IntList) o).elements);
+    }
+
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(elements);
+    }
+
+    @Override
+    public String toString() {
+        return Arrays.toString(elements);
+    }
+
+    @Override
+    public String toJSONString() {
+        return toString();
+    }
+
+    private Object readResolve() {
+        return elements.length == 0 ? EMPTY : this;
+    }
+}
@@ -0,0 +1,156 @@
+package com.game.common.collection;
+
+import com.alibaba.fastjson.JSONAware;
+
+import java.io.Serializable;
+import java.util.Arrays;
+
+/**
+ * 不可变二维int列表
+ * 所有行的元素按顺序展开到一个int数组，offsets[i]到offsets[i + 1]为第i行，用于配置表的intList2字段。
+ */
+public final class IntList2 implements Serializable, JSONAware {
+
+    private static final long serialVersionUID = 1L;
+
+    public static final IntList2 EMPTY = new IntList2(new int[0], new int[1]);
+
+    private final int[] data;
+    private final int[] offsets;
+
+    private IntList2(int[] data, int[] offsets) {
+        this.data = data;
+        this.offsets = offsets;
+    }
+
+    /**
+     * 由展开后的数据和行偏移创建，数组会被复制
+     *
+     * @param data    展开后的元素
+     * @param offsets 行偏移，长度为行数+1，首元素为0，末元素为data.length
+     */
+    public static IntList2 of(int[] data, int[] offsets) {
+        if (offsets.length == 0 || offsets[0] != 0 || offsets[offsets.length - 1] != data.length) {
+            throw new IllegalArgumentException("Invalid offsets for " + data.length + " elements: " + Arrays.toString(offsets));
+        }
+        for (int i = 1; i < offsets.length; i++) {
+            if (offsets[i] < offsets[i - 1]) {
+                throw new IllegalArgumentException("Offsets must be ascending: " + Arrays.toString(offsets));
+            }
+        }
+        return offsets.length == 1 ? EMPTY : new IntList2(data.clone(), offsets.clone());
+    }
+
+    /**
+     * 由二维数组创建
+     */
+    public static IntList2 of(int[][] rows) {
+        int total = 0;
+        for (int[] row : rows) {
+            total += row.length;
+        }
+        int[] data = new int[total];
+        int[] offsets = new int[rows.length + 1];
+        int position = 0;
+        for (int i = 0; i < rows.length; i++) {
+            System.arraycopy(rows[i], 0, data, position, rows[i].length);
+            position += rows[i].length;
+            offsets[i + 1] = position;
+        }
+        return rows.length == 0 ? EMPTY : new IntList2(data, offsets);
+    }
+
+    /**
+     * 行数
+     */
+    public int size() {
+        return offsets.length - 1;
+    }
+
+    public boolean isEmpty() {
+        return offsets.length == 1;
+    }
+
+    /**
+     * 第row行的元素个数
+     */
+    public int size(int row) {
+        checkRow(row);
+        return offsets[row + 1] - offsets[row];
+    }
+
+    public int get(int row, int column) {
+        checkRow(row);
+        int index = offsets[row] + column;
+        if (column < 0 || index >= offsets[row + 1]) {
+            throw new IndexOutOfBoundsException("Column: " + column + ", Size: " + (offsets[row + 1] - offsets[row]));
+        }
+        return data[index];
+    }
+
+    /**
+     * 第row行的元素副本
+     */
+    public int[] getRow(int row) {
+        checkRow(row);
+        return Arrays.copyOfRange(data, offsets[row], offsets[row + 1]);
+    }
+
+    /**
+     * 所有元素总数
+     */
+    public int totalSize() {
+        return data.length;
+    }
+
+    private void checkRow(int row) {
+        if (row < 0 || row >= offsets.length - 1) {
+            throw new IndexOutOfBoundsException("Row: " + row + ", Size: " + (offsets.length - 1));
+        }
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof IntList2)) {
+            return false;
+        }
+        IntList2 other = (IntList2) o;
+        return Arrays.equals(offsets, other.offsets) && Arrays.equals(data, other.data);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * Arrays.hashCode(offsets) + Arrays.hashCode(data);
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder("[");
+        for (int row = 0; row < offsets.length - 1; row++) {
+            if (row > 0) {
+                sb.append(", ");
+            }
+            sb.append('[');
+            for (int i = offsets[row]; i < offsets[row + 1]; i++) {
+                if (i > offsets[row]) {
+                    sb.append(", ");
+                }
+                sb.append(data[i]);
+            }
+            sb.append(']');
+        }
+        return sb.append(']').toString();
+    }
+
+    @Override
+    public String toJSONString() {
+        return toString();
+    }
+
+    private Object readResolve() {
+        return offsets.length == 1 ? EMPTY : this;
+    }
+}
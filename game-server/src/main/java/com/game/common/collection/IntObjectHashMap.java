@@ -0,0 +1,125 @@
+package com.game.common.collection;
+
+/**
+ * int键哈希表
+ * 开放寻址、线性探测，键直接存放在int数组中，查询时没有装箱和equals调用，适合配置表主键这类只读索引。
+ * 构建完成后只读使用；构建过程不是线程安全的，需通过final字段或volatile发布给其他线程。
+ *
+ * @param <V> 值类型
+ */
+public class IntObjectHashMap<V> {
+
+    private static final float LOAD_FACTOR = 0.5f;
+
+    private int[] keys;
+    private Object[] values;
+    private int size;
+    private int mask;
+
+    public IntObjectHashMap() {
+        this(16);
+    }
+
+    public IntObjectHashMap(int expectedSize) {
+        int capacity = tableSizeFor((int) Math.ceil(Math.max(expectedSize, 4) / LOAD_FACTOR));
+        keys = new int[capacity];
+        values = new Object[capacity];
+        mask = capacity - 1;
+    }
+
+    /**
+     * 放入键值对，值不能为null
+     *
+     * @return 之前的值，不存在时返回null
+     */
+    @SuppressWarnings("unchecked")
+    public V put(int key, V value) {
+        if (value == null) {
+            throw new IllegalArgumentException("null value is not supported");
+        }
+        int index = indexOf(key);
+        if (values[index] != null) {
+            V old = (V) values[index];
+            values[index] = value;
+            return old;
+        }
+        keys[index] = key;
+        values[index] = value;
+        if (++size > (mask + 1) * LOAD_FACTOR) {
+            rehash((mask + 1) << 1);
+        }
+        return null;
+    }
+
+    /**
+     * 只在键不存在时放入
+     *
+     * @return 已存在的值，放入成功时返回null
+     */
+    @SuppressWarnings("unchecked")
+    public V putIfAbsent(int key, V value) {
+        int index = indexOf(key);
+        if (values[index] != null) {
+            return (V) values[index];
+        }
+        return put(key, value);
+    }
+
+    @SuppressWarnings("unchecked")
+    public V get(int key) {
+        return (V) values[indexOf(key)];
+    }
+
+    public boolean containsKey(int key) {
+        return values[indexOf(key)] != null;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * 键所在的槽位：命中时为该键的槽位，未命中时为第一个空槽位
+     */
+    private int indexOf(int key) {
+        int index = mix(key) & mask;
+        while (values[index] != null && keys[index] != key) {
+            index = (index + 1) & mask;
+        }
+        return index;
+    }
+
+    private void rehash(int newCapacity) {
+        int[] oldKeys = keys;
+        Object[] oldValues = values;
+        keys = new int[newCapacity];
+        values = new Object[newCapacity];
+        mask = newCapacity - 1;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldValues[i] != null) {
+                int index = indexOf(oldKeys[i]);
+                keys[index] = oldKeys[i];
+                values[index] = oldValues[i];
+            }
+        }
+    }
+
+    private static int mix(int key) {
+        int h = key * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    private static int tableSizeFor(int capacity) {
+        int n = Integer.highestOneBit(Math.max(capacity - 1, 1)) << 1;
+        return Math.max(n, 8);
+    }
+
+    @Override
+    public String toString() {
+        return "IntObjectHashMap{size=" + size + ", capacity=" + keys.length + "}";
+    }
+}
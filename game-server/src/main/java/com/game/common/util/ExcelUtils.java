@@ -1,5 +1,8 @@
 package com.game.common.util;
 
+import com.game.common.collection.IntIntMap;
+import com.game.common.collection.IntList;
+import com.game.common.collection.IntList2;
 import org.apache.poi.ss.usermodel.*;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -268,6 +271,121 @@ public class ExcelUtils {
         }
     }
     
+    /**
+     * 根据字段类型转换单元格文本（流式读取Excel时使用）
+     * 文本与{@link #getCellValueAsString(Cell)}的结果一致：数字为不带科学计数法的十进制文本，空白单元格为空字符串
+     * 
+     * @param text 单元格文本
+     * @param fieldType 字段类型
+     * @return 转换后的值
+     */
+    public static Object getValueByType(String text, String fieldType) {
+        // 处理Map类型
+        if (fieldType.contains("Map")) {
+            return parseMapValue(text, fieldType);
+        }
+        
+        // 处理List类型
+        if (fieldType.contains("List")) {
+            return parseListValue(text, fieldType);
+        }
+        
+        // 处理基本类型
+        switch (fieldType.toLowerCase()) {
+            case "int":
+            case "integer":
+                return parseInteger(text);
+            case "long":
+                return parseLong(text);
+            case "float":
+                return (float) parseDouble(text);
+            case "double":
+                return parseDouble(text);
+            case "boolean":
+                return parseBoolean(text);
+            case "string":
+                return text;
+            case "bigdecimal":
+                try {
+                    return new BigDecimal(text.trim());
+                } catch (NumberFormatException e) {
+                    return BigDecimal.ZERO;
+                }
+            case "date":
+                return parseDate(text);
+            default:
+                return text;
+        }
+    }
+    
+    /**
+     * 文本转整数，小数按截断处理，无法解析时为0
+     */
+    public static int parseInteger(String text) {
+        try {
+            return Integer.parseInt(text.trim());
+        } catch (NumberFormatException e) {
+            return (int) parseDouble(text);
+        }
+    }
+    
+    /**
+     * 文本转长整数，小数按截断处理，无法解析时为0
+     */
+    public static long parseLong(String text) {
+        try {
+            return Long.parseLong(text.trim());
+        } catch (NumberFormatException e) {
+            return (long) parseDouble(text);
+        }
+    }
+    
+    /**
+     * 文本转浮点数，无法解析时为0
+     */
+    public static double parseDouble(String text) {
+        try {
+            return Double.parseDouble(text.trim());
+        } catch (NumberFormatException e) {
+            return 0.0;
+        }
+    }
+    
+    /**
+     * 文本转布尔值："true"（忽略大小写）或非0数字为true
+     */
+    public static boolean parseBoolean(String text) {
+        if ("true".equalsIgnoreCase(text.trim())) {
+            return true;
+        }
+        return parseDouble(text) != 0;
+    }
+    
+    /**
+     * 文本转日期，支持yyyy-MM-dd、Date.toString()格式和毫秒时间戳
+     */
+    public static java.util.Date parseDate(String text) {
+        String value = text.trim();
+        if (value.isEmpty()) {
+            return null;
+        }
+        try {
+            return new SimpleDateFormat("yyyy-MM-dd").parse(value);
+        } catch (Exception ignored) {
+            // 尝试其他格式
+        }
+        try {
+            return new SimpleDateFormat("EEE MMM dd HH:mm:ss zzz yyyy", Locale.US).parse(value);
+        } catch (Exception ignored) {
+            // 尝试时间戳
+        }
+        try {
+            return new java.util.Date((long) Double.parseDouble(value));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+    
     /**
      * 解析Map类型的值
      * 支持格式：{key1#value1,key2#value2,key3#value3}
@@ -277,7 +395,20 @@ public class ExcelUtils {
      * @return Map对象
      */
     public static Object parseMapValue(Cell cell, String fieldType) {
-        String cellValue = getCellValueAsString(cell);
+        return parseMapValue(getCellValueAsString(cell), fieldType);
+    }
+    
+    /**
+     * 解析Map类型的文本
+     * 
+     * @param cellValue 单元格文本
+     * @param fieldType 字段类型
+     * @return Map对象
+     */
+    public static Object parseMapValue(String cellValue, String fieldType) {
+        if (fieldType.contains("intIntMap")) {
+            return parseIntIntMap(cellValue);
+        }
         if (cellValue == null || cellValue.trim().isEmpty()) {
             return new HashMap<>();
         }
@@ -291,20 +422,7 @@ public class ExcelUtils {
         String[] pairs = cellValue.split(",");
         
         // 根据Map键值类型转换值
-        if (fieldType.contains("intIntMap")) {
-            for (String pair : pairs) {
-                String[] keyValue = pair.split("#");
-                if (keyValue.length == 2) {
-                    try {
-                        Object key = Integer.parseInt(keyValue[0].trim());
-                        Object value = Integer.parseInt(keyValue[1].trim());
-                        result.put(key, value);
-                    } catch (NumberFormatException e) {
-                        logger.error("Invalid intIntMap format: {}", pair);
-                    }
-                }
-            }
-        } else if (fieldType.contains("intStringMap")) {
+        if (fieldType.contains("intStringMap")) {
             for (String pair : pairs) {
                 String[] keyValue = pair.split("#");
                 if (keyValue.length == 2) {
@@ -345,6 +463,36 @@ public class ExcelUtils {
         return result;
     }
     
+    /**
+     * 解析intIntMap文本为按键排序的不可变映射
+     * 格式错误的键值对记录日志后跳过，重复的键以后出现的值为准
+     * 
+     * @param cellValue 单元格文本
+     * @return IntIntMap对象
+     */
+    public static IntIntMap parseIntIntMap(String cellValue) {
+        if (cellValue == null || cellValue.trim().isEmpty()) {
+            return IntIntMap.EMPTY;
+        }
+        String[] pairs = cellValue.trim().replace("{", "").replace("}", "").split(",");
+        int[] keys = new int[pairs.length];
+        int[] values = new int[pairs.length];
+        int size = 0;
+        for (String pair : pairs) {
+            String[] keyValue = pair.split("#");
+            if (keyValue.length == 2) {
+                try {
+                    keys[size] = Integer.parseInt(keyValue[0].trim());
+                    values[size] = Integer.parseInt(keyValue[1].trim());
+                    size++;
+                } catch (NumberFormatException e) {
+                    logger.error("Invalid intIntMap format: {}", pair);
+                }
+            }
+        }
+        return IntIntMap.of(keys, values, size);
+    }
+    
     /**
      * 解析List类型的值
      * 支持格式：{value1,value2,value3}
@@ -354,14 +502,26 @@ public class ExcelUtils {
      * @return List对象
      */
     public static Object parseListValue(Cell cell, String fieldType) {
-        String cellValue = getCellValueAsString(cell);
-        if (cellValue == null || cellValue.trim().isEmpty()) {
-            return new ArrayList<>();
-        }
-        
+        return parseListValue(getCellValueAsString(cell), fieldType);
+    }
+    
+    /**
+     * 解析List类型的文本
+     * 
+     * @param cellValue 单元格文本
+     * @param fieldType 字段类型
+     * @return List对象
+     */
+    public static Object parseListValue(String cellValue, String fieldType) {
         // 处理二维List类型（如stringList2）
         if (fieldType.contains("List2")) {
-            return parseList2Value(cell, fieldType);
+            return parseList2Value(cellValue, fieldType);
+        }
+        if (fieldType.contains("intList") || fieldType.contains("integerList")) {
+            return parseIntList(cellValue);
+        }
+        if (cellValue == null || cellValue.trim().isEmpty()) {
+            return new ArrayList<>();
         }
         
         // 移除大括号
@@ -372,15 +532,7 @@ public class ExcelUtils {
         List<Object> result = new ArrayList<>();
         
         // 根据List元素类型转换值
-        if (fieldType.contains("intList") || fieldType.contains("integerList")) {
-            for (String value : values) {
-                try {
-                    result.add(Integer.parseInt(value.trim()));
-                } catch (NumberFormatException e) {
-                    result.add(0);
-                }
-            }
-        } else if (fieldType.contains("longList")) {
+        if (fieldType.contains("longList")) {
             for (String value : values) {
                 try {
                     result.add(Long.parseLong(value.trim()));
@@ -418,6 +570,28 @@ public class ExcelUtils {
         return result;
     }
     
+    /**
+     * 解析intList文本为不可变int列表，无法解析的元素记为0
+     * 
+     * @param cellValue 单元格文本
+     * @return IntList对象
+     */
+    public static IntList parseIntList(String cellValue) {
+        if (cellValue == null || cellValue.trim().isEmpty()) {
+            return IntList.EMPTY;
+        }
+        String[] values = cellValue.trim().replace("{", "").replace("}", "").split(",");
+        int[] result = new int[values.length];
+        for (int i = 0; i < values.length; i++) {
+            try {
+                result[i] = Integer.parseInt(values[i].trim());
+            } catch (NumberFormatException e) {
+                result[i] = 0;
+            }
+        }
+        return IntList.of(result, result.length);
+    }
+    
     /**
      * 解析二维List类型的值
      * 支持格式：value1,value2}|{value3,value4}|{value5,value6
@@ -427,7 +601,20 @@ public class ExcelUtils {
      * @return 二维List对象
      */
     public static Object parseList2Value(Cell cell, String fieldType) {
-        String cellValue = getCellValueAsString(cell);
+        return parseList2Value(getCellValueAsString(cell), fieldType);
+    }
+    
+    /**
+     * 解析二维List类型的文本
+     * 
+     * @param cellValue 单元格文本
+     * @param fieldType 字段类型
+     * @return 二维List对象
+     */
+    public static Object parseList2Value(String cellValue, String fieldType) {
+        if (fieldType.contains("intList2") || fieldType.contains("integerList2")) {
+            return parseIntList2(cellValue);
+        }
         if (cellValue == null || cellValue.trim().isEmpty()) {
             return new ArrayList<>();
         }
@@ -452,15 +639,7 @@ public class ExcelUtils {
             List<Object> innerList = new ArrayList<>();
             
             // 根据List元素类型转换值
-            if (fieldType.contains("intList2") || fieldType.contains("integerList2")) {
-                for (String value : values) {
-                    try {
-                        innerList.add(Integer.parseInt(value.trim()));
-                    } catch (NumberFormatException e) {
-                        innerList.add(0);
-                    }
-                }
-            } else if (fieldType.contains("longList2")) {
+            if (fieldType.contains("longList2")) {
                 for (String value : values) {
                     try {
                         innerList.add(Long.parseLong(value.trim()));
@@ -501,6 +680,43 @@ public class ExcelUtils {
         return result;
     }
     
+    /**
+     * 解析intList2文本为展开存储的不可变二维int列表，无法解析的元素记为0
+     * 
+     * @param cellValue 单元格文本
+     * @return IntList2对象
+     */
+    public static IntList2 parseIntList2(String cellValue) {
+        if (cellValue == null || cellValue.trim().isEmpty()) {
+            return IntList2.EMPTY;
+        }
+        String[] array2D = cellValue.split("\\|\\{");
+        int[][] rows = new int[array2D.length][];
+        for (int i = 0; i < array2D.length; i++) {
+            String array1D = array2D[i];
+            
+            // 移除首尾的括号
+            if (i == 0 && array1D.startsWith("{")) {
+                array1D = array1D.substring(1);
+            }
+            if (i == array2D.length - 1 && array1D.endsWith("}")) {
+                array1D = array1D.substring(0, array1D.length() - 1);
+            }
+            
+            String[] values = array1D.split(",");
+            int[] row = new int[values.length];
+            for (int j = 0; j < values.length; j++) {
+                try {
+                    row[j] = Integer.parseInt(values[j].trim());
+                } catch (NumberFormatException e) {
+                    row[j] = 0;
+                }
+            }
+            rows[i] = row;
+        }
+        return IntList2.of(rows);
+    }
+    
     /**
      * 字段配置类
      */
@@ -508,6 +724,8 @@ public class ExcelUtils {
         private String name;
         private String type;
         private boolean isPrimaryKey;
+        private int columnIndex = -1;
+        private String indexFlags = "";
         
         public FieldConfig(String name, String type, boolean isPrimaryKey) {
             this.name = name;
@@ -515,6 +733,16 @@ public class ExcelUtils {
             this.isPrimaryKey = isPrimaryKey;
         }
         
+        public FieldConfig(String name, String type, boolean isPrimaryKey, int columnIndex) {
+            this(name, type, isPrimaryKey);
+            this.columnIndex = columnIndex;
+        }
+        
+        public FieldConfig(String name, String type, boolean isPrimaryKey, int columnIndex, String indexFlags) {
+            this(name, type, isPrimaryKey, columnIndex);
+            this.indexFlags = indexFlags == null ? "" : indexFlags;
+        }
+        
         public String getName() {
             return name;
         }
@@ -526,5 +754,31 @@ public class ExcelUtils {
         public boolean isPrimaryKey() {
             return isPrimaryKey;
         }
+        
+        /**
+         * 字段所在的Excel列下标，未知时为-1
+         */
+        public int getColumnIndex() {
+            return columnIndex;
+        }
+        
+        /**
+         * 服务端标记中声明的索引标记：'u'唯一索引、'g'分组索引、'r'范围索引
+         */
+        public String getIndexFlags() {
+            return indexFlags;
+        }
+        
+        public boolean isUniqueIndex() {
+            return indexFlags.indexOf('u') >= 0;
+        }
+        
+        public boolean isGroupIndex() {
+            return indexFlags.indexOf('g') >= 0;
+        }
+        
+        public boolean isRangeIndex() {
+            return indexFlags.indexOf('r') >= 0;
+        }
     }
 }
\ No newline at end of file
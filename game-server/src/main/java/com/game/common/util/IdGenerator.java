@@ -1,39 +1,65 @@
 package com.game.common.util;
 
 
-import com.game.model.player.login.PlayerLoginHandler;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
 
+/**
+ * 全局唯一ID生成器
+ * 全局只维护一个逻辑时钟游标（毫秒 << 序列号位数 | 序列号），每个线程一次CAS租用一段连续的序列号，
+ * 之后在本线程内直接发放，不加锁、不竞争。游标取max(游标, 当前时间)推进：
+ * 一毫秒内序列号用完时借用下一毫秒而不是自旋等待；系统时钟回拨时沿用游标继续发放，同样不自旋。
+ */
 public class IdGenerator {
 	private static final Logger logger = LoggerFactory.getLogger(IdGenerator.class);
 	private static IdGenerator INSTANCE = new IdGenerator();
 	private long machineId;
 
-	private AtomicLong lastId;
-
 	private long twepoch = 1519833600000L;   // 基准时间 2018-03-01 00:00:00
 
 	private long machineIdBits = 13L;
 	private long maxMachineId = -1L ^ (-1L << machineIdBits);
-	
+
 	private long sequenceBits = 12L;
 
 	private long machineIdShift = sequenceBits;
 	private long timestampLeftShift = sequenceBits + machineIdBits;
-	private long maxSequence = (-1L ^ (-1L << sequenceBits)) - 1L;// 序列号的最大值
 	private long sequenceMask = (-1L ^ (-1L << sequenceBits));
-    
+
+	/**
+	 * 每次租用的序列号数量
+	 */
+	private static final int BLOCK_SIZE = 64;
+	/**
+	 * 逻辑时钟最多领先系统时钟的毫秒数，持续超出每毫秒4096个的速率时短暂休眠等待系统时钟追上
+	 */
+	private static final long MAX_DRIFT_MILLIS = 1000L;
+
+	/**
+	 * 已租出的逻辑时钟位置：(毫秒 - twepoch) << sequenceBits | 序列号
+	 */
+	private final AtomicLong cursor = new AtomicLong();
+	/**
+	 * 所有线程观察到的最大系统时间（毫秒 - twepoch），用于识别超过漂移上限的时钟回拨
+	 */
+	private final AtomicLong maxSeenInterval = new AtomicLong();
+	/**
+	 * 线程持有的序列号段：[0]为下一个可用位置，[1]为段结束位置（不含），[2]为本线程上次租用时观察到的系统时间
+	 */
+	private final ThreadLocal<long[]> blocks = ThreadLocal.withInitial(() -> new long[3]);
+	private volatile long lastRollbackWarn;
+
 	private IdGenerator() {
-		
+
 	}
 	public static IdGenerator getInstance() {
 		return INSTANCE;
 	}
-	
+
 	public void init(long machineId) {
 		// sanity check for workerId
 		if (machineId > maxMachineId || machineId < 0) {
@@ -41,69 +67,78 @@ public class IdGenerator {
 					String.format("machine Id can't be greater than %d or less than 0", maxMachineId));
 		}
 		logger.info("ID generator starting. timestamp left shift " + timestampLeftShift + ", machine id bits "
-				+ machineIdBits + ", sequence bits " + sequenceBits + ", machineId " + machineId);
+				+ machineIdBits + ", sequence bits " + sequenceBits + ", machineId " + machineId + ", block size " + BLOCK_SIZE);
 		this.machineId = machineId;
-		lastId = new AtomicLong((timeGen() - twepoch) << timestampLeftShift | randStartSequence());
+		long nowBase = (timeGen() - twepoch) << sequenceBits;
+		cursor.accumulateAndGet(nowBase, Math::max);
 	}
-	
-    private long randStartSequence() {
-    	return ThreadLocalRandom.current().nextInt(10);// new Random().nextInt(10);
-    }
 
 	private IdGenerator(long machineId) {
 		init(machineId);
 	}
-    
+
     /**
      * 最高位固定为0
      * +------------------------+---------------------------+-----------------+
      * | 38bits timestamp in ms | 13bits worker(machine) ID | 12bits sequence |
      * +------------------------+---------------------------+-----------------+
+     * 同一线程内ID严格递增；不同线程持有不同的序列号段，ID唯一但不保证跨线程的发放顺序
      * @return
      */
-	public synchronized long generateId() {
+	public long generateId() {
+		long[] block = blocks.get();
+		long nowInterval = timeGen() - twepoch;
+		// 段内剩余序列号属于已经过去的毫秒时丢弃，保持ID的时间戳贴近发放时间
+		if (block[0] >= block[1] || (block[0] >>> sequenceBits) < nowInterval) {
+			lease(block, nowInterval);
+		}
+		long position = block[0]++;
+		long interval = position >>> sequenceBits;
+		long sequence = position & sequenceMask;
+		return (interval << timestampLeftShift) | (machineId << machineIdShift) | sequence;
+	}
+
+	/**
+	 * 从全局游标租用一段序列号
+	 */
+	private void lease(long[] block, long nowInterval) {
 		while (true) {
-			long now = timeGen();
-			long oldId = lastId.get();
-			long lastTimeInterval = oldId >>> timestampLeftShift;
-			long nowInterval = now - twepoch;
-			long sequence;
-			if (nowInterval < lastTimeInterval) {
-				Thread.yield();
+			long lastSeen = block[2];
+			block[2] = Math.max(lastSeen, nowInterval);
+			long seen = maxSeenInterval.accumulateAndGet(nowInterval, Math::max);
+			long old = cursor.get();
+			long start = Math.max(old, nowInterval << sequenceBits);
+			long drift = (start >>> sequenceBits) - nowInterval;
+			// 其他线程先进入下一毫秒是正常情况，只有本线程看到时间倒退，
+			// 或落后全局最大值超过漂移上限时才判定为时钟回拨
+			if (nowInterval < lastSeen || seen - nowInterval > MAX_DRIFT_MILLIS) {
+				// 系统时钟回拨，沿用游标继续发放
+				warnRollback(Math.max(lastSeen, seen) - nowInterval);
+			} else if (drift > MAX_DRIFT_MILLIS) {
+				// 发号速率持续超出上限，等待系统时钟追上
+				LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(1));
+				nowInterval = timeGen() - twepoch;
 				continue;
-			} else if (nowInterval == lastTimeInterval) {
-				sequence = oldId & sequenceMask;
-				if (sequence >= maxSequence) {
-					now = tillNextMillis(now);
-					nowInterval = now - twepoch;
-					sequence = randStartSequence();
-				} else {
-					sequence = sequence + 1;
-				}
-			} else {
-				sequence = randStartSequence();
 			}
-			long newId = (nowInterval << timestampLeftShift) | (machineId << machineIdShift) | sequence;
-			if (!lastId.compareAndSet(oldId, newId)) {
-				Thread.yield();
-				continue;
+			long end = start + BLOCK_SIZE;
+			if (cursor.compareAndSet(old, end)) {
+				block[0] = start;
+				block[1] = end;
+				return;
 			}
-			return newId;
 		}
 	}
-	
-	private long tillNextMillis(long lastTimestamp) {
-		long timestamp = timeGen();
-		while (timestamp <= lastTimestamp) {
-			Thread.yield();
-			timestamp = timeGen();
+
+	private void warnRollback(long backwards) {
+		long now = timeGen();
+		if (now - lastRollbackWarn > 60000L) {
+			lastRollbackWarn = now;
+			logger.warn("System clock moved backwards by {}ms, ID generator continues from its logical clock", backwards);
 		}
-		return timestamp;
 	}
 
     private long timeGen(){
         return System.currentTimeMillis();
     }
-    
-}
 
+}
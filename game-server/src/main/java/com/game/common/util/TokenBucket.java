@@ -0,0 +1,76 @@
+package com.game.common.util;
+
+/**
+ * 令牌桶
+ * 按固定速率补充令牌，最多积累capacity个。acquire允许透支：令牌不足时仍然扣除，
+ * 返回还清欠账需要等待的纳秒数，由调用方决定是否暂停；tryAcquire不足时不扣除。
+ * 时间由调用方传入（System.nanoTime()），非线程安全，应只在一个线程（如连接所属的EventLoop）上使用。
+ */
+public final class TokenBucket {
+
+    private final double tokensPerNano;
+    private final double capacity;
+    private double tokens;
+    private long lastNanos;
+
+    /**
+     * @param ratePerSecond 每秒补充的令牌数
+     * @param capacity      桶容量，即允许的突发数量
+     * @param nowNanos      当前时间
+     */
+    public TokenBucket(double ratePerSecond, double capacity, long nowNanos) {
+        if (ratePerSecond <= 0 || capacity <= 0) {
+            throw new IllegalArgumentException("ratePerSecond and capacity must be > 0");
+        }
+        this.tokensPerNano = ratePerSecond / 1_000_000_000d;
+        this.capacity = capacity;
+        this.tokens = capacity;
+        this.lastNanos = nowNanos;
+    }
+
+    /**
+     * 取一个令牌，不足时不扣除
+     *
+     * @return 是否取到
+     */
+    public boolean tryAcquire(long nowNanos) {
+        refill(nowNanos);
+        if (tokens < 1) {
+            return false;
+        }
+        tokens -= 1;
+        return true;
+    }
+
+    /**
+     * 取一个令牌，不足时透支
+     *
+     * @return 令牌余额恢复到0需要的纳秒数，没有透支时返回0
+     */
+    public long acquire(long nowNanos) {
+        return acquire(nowNanos, 1);
+    }
+
+    /**
+     * 取permits个令牌，不足时透支
+     *
+     * @return 令牌余额恢复到0需要的纳秒数，没有透支时返回0
+     */
+    public long acquire(long nowNanos, int permits) {
+        refill(nowNanos);
+        tokens -= permits;
+        return tokens >= 0 ? 0 : (long) Math.ceil(-tokens / tokensPerNano);
+    }
+
+    public double getTokens() {
+        return tokens;
+    }
+
+    private void refill(long nowNanos) {
+        long elapsed = nowNanos - lastNanos;
+        if (elapsed > 0) {
+            tokens = Math.min(capacity, tokens + elapsed * tokensPerNano);
+            lastNanos = nowNanos;
+        }
+    }
+}
@@ -0,0 +1,282 @@
+package com.game.config;
+
+import com.game.common.collection.IntIntMap;
+import com.game.common.collection.IntList;
+import com.game.common.collection.IntList2;
+import com.game.common.util.ExcelUtils;
+
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+/**
+ * 二进制配置包格式
+ * <pre>
+ * 文件头: magic(int) formatVersion(int) createTime(long) tableCount(int)
+ * 每张表: name(str) configClass(str) primaryKey(str) schemaHash(long) sourceCrc(long)
+ *         columnCount(int) [columnName(str) columnType(str) indexFlags(str)]... rowCount(int) [value...]...
+ * 值:     tag(byte) + 按类型的数据，str为 长度(int，-1表示null) + UTF-8字节
+ * </pre>
+ * 配置包由{@link ConfigBundleCompiler}在构建时生成；服务器启动时按表比对源Excel的CRC和配置类的结构哈希，
+ * 一致时直接从配置包反序列化，否则该表回退为解析Excel。
+ */
+public final class ConfigBundle {
+
+    public static final int MAGIC = 0x47434647;
+    public static final int FORMAT_VERSION = 3;
+    public static final String DEFAULT_FILE_NAME = "config.bundle";
+
+    private static final byte TAG_NULL = 0;
+    private static final byte TAG_INT = 1;
+    private static final byte TAG_LONG = 2;
+    private static final byte TAG_FLOAT = 3;
+    private static final byte TAG_DOUBLE = 4;
+    private static final byte TAG_BOOLEAN = 5;
+    private static final byte TAG_STRING = 6;
+    private static final byte TAG_LIST = 7;
+    private static final byte TAG_MAP = 8;
+    private static final byte TAG_DECIMAL = 9;
+    private static final byte TAG_DATE = 10;
+    private static final byte TAG_INT_LIST = 11;
+    private static final byte TAG_INT_LIST2 = 12;
+    private static final byte TAG_INT_INT_MAP = 13;
+
+    private ConfigBundle() {
+    }
+
+    /**
+     * 计算表结构哈希：配置类名、每列的名称与Excel类型、配置类中对应setter的参数类型
+     * 配置类字段或Excel表头变化后哈希随之变化，旧配置包中的该表视为过期
+     */
+    public static long schemaHash(Class<?> configClass, List<ExcelUtils.FieldConfig> fields) {
+        StringBuilder sb = new StringBuilder();
+        sb.append(FORMAT_VERSION).append('|').append(configClass == null ? "-" : configClass.getName());
+        for (ExcelUtils.FieldConfig field : fields) {
+            sb.append('|').append(field.getName()).append(':').append(field.getType());
+            if (configClass != null) {
+                sb.append(':').append(setterSignature(configClass, field.getName()));
+            }
+        }
+        byte[] bytes = sb.toString().getBytes(StandardCharsets.UTF_8);
+        // FNV-1a 64位
+        long hash = 0xcbf29ce484222325L;
+        for (byte b : bytes) {
+            hash ^= (b & 0xff);
+            hash *= 0x100000001b3L;
+        }
+        return hash;
+    }
+
+    private static String setterSignature(Class<?> configClass, String fieldName) {
+        String setterName = "set" + Character.toUpperCase(fieldName.charAt(0)) + fieldName.substring(1);
+        for (Method method : configClass.getMethods()) {
+            if (method.getName().equals(setterName) && method.getParameterCount() == 1
+                    && !Modifier.isStatic(method.getModifiers())) {
+                return method.getGenericParameterTypes()[0].getTypeName();
+            }
+        }
+        return "-";
+    }
+
+    /**
+     * 计算源文件CRC32
+     */
+    public static long crc32(File file) throws IOException {
+        CRC32 crc = new CRC32();
+        byte[] buffer = new byte[64 * 1024];
+        try (InputStream in = new FileInputStream(file)) {
+            int read;
+            while ((read = in.read(buffer)) > 0) {
+                crc.update(buffer, 0, read);
+            }
+        }
+        return crc.getValue();
+    }
+
+    static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    static String readString(ByteBuffer buffer) {
+        int length = buffer.getInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * 写入一个配置值，支持ExcelUtils解析出的全部类型
+     */
+    static void writeValue(DataOutputStream out, Object value) throws IOException {
+        if (value == null) {
+            out.writeByte(TAG_NULL);
+        } else if (value instanceof Integer) {
+            out.writeByte(TAG_INT);
+            out.writeInt((Integer) value);
+        } else if (value instanceof Long) {
+            out.writeByte(TAG_LONG);
+            out.writeLong((Long) value);
+        } else if (value instanceof Float) {
+            out.writeByte(TAG_FLOAT);
+            out.writeFloat((Float) value);
+        } else if (value instanceof Double) {
+            out.writeByte(TAG_DOUBLE);
+            out.writeDouble((Double) value);
+        } else if (value instanceof Boolean) {
+            out.writeByte(TAG_BOOLEAN);
+            out.writeBoolean((Boolean) value);
+        } else if (value instanceof String) {
+            out.writeByte(TAG_STRING);
+            writeString(out, (String) value);
+        } else if (value instanceof IntList) {
+            IntList list = (IntList) value;
+            out.writeByte(TAG_INT_LIST);
+            out.writeInt(list.size());
+            for (int i = 0; i < list.size(); i++) {
+                out.writeInt(list.get(i));
+            }
+        } else if (value instanceof IntList2) {
+            IntList2 list = (IntList2) value;
+            out.writeByte(TAG_INT_LIST2);
+            out.writeInt(list.size());
+            for (int row = 0; row < list.size(); row++) {
+                int size = list.size(row);
+                out.writeInt(size);
+                for (int i = 0; i < size; i++) {
+                    out.writeInt(list.get(row, i));
+                }
+            }
+        } else if (value instanceof IntIntMap) {
+            IntIntMap map = (IntIntMap) value;
+            out.writeByte(TAG_INT_INT_MAP);
+            out.writeInt(map.size());
+            for (int i = 0; i < map.size(); i++) {
+                out.writeInt(map.keyAt(i));
+                out.writeInt(map.valueAt(i));
+            }
+        } else if (value instanceof List) {
+            List<?> list = (List<?>) value;
+            out.writeByte(TAG_LIST);
+            out.writeInt(list.size());
+            for (Object element : list) {
+                writeValue(out, element);
+            }
+        } else if (value instanceof Map) {
+            Map<?, ?> map = (Map<?, ?>) value;
+            out.writeByte(TAG_MAP);
+            out.writeInt(map.size());
+            for (Map.Entry<?, ?> entry : map.entrySet()) {
+                writeValue(out, entry.getKey());
+                writeValue(out, entry.getValue());
+            }
+        } else if (value instanceof BigDecimal) {
+            out.writeByte(TAG_DECIMAL);
+            writeString(out, value.toString());
+        } else if (value instanceof Date) {
+            out.writeByte(TAG_DATE);
+            out.writeLong(((Date) value).getTime());
+        } else {
+            throw new IllegalArgumentException("不支持写入配置包的值类型: " + value.getClass().getName());
+        }
+    }
+
+    /**
+     * 读取一个配置值，集合类型与ExcelUtils解析结果一致（ArrayList/HashMap，int类集合为IntList/IntList2/IntIntMap）
+     */
+    static Object readValue(ByteBuffer buffer) {
+        byte tag = buffer.get();
+        switch (tag) {
+            case TAG_NULL:
+                return null;
+            case TAG_INT:
+                return buffer.getInt();
+            case TAG_LONG:
+                return buffer.getLong();
+            case TAG_FLOAT:
+                return buffer.getFloat();
+            case TAG_DOUBLE:
+                return buffer.getDouble();
+            case TAG_BOOLEAN:
+                return buffer.get() != 0;
+            case TAG_STRING:
+                return readString(buffer);
+            case TAG_LIST: {
+                int size = buffer.getInt();
+                List<Object> list = new ArrayList<>(size);
+                for (int i = 0; i < size; i++) {
+                    list.add(readValue(buffer));
+                }
+                return list;
+            }
+            case TAG_MAP: {
+                int size = buffer.getInt();
+                Map<Object, Object> map = new HashMap<>();
+                for (int i = 0; i < size; i++) {
+                    Object key = readValue(buffer);
+                    map.put(key, readValue(buffer));
+                }
+                return map;
+            }
+            case TAG_DECIMAL:
+                return new BigDecimal(readString(buffer));
+            case TAG_DATE:
+                return new Date(buffer.getLong());
+            case TAG_INT_LIST: {
+                int[] elements = new int[buffer.getInt()];
+                buffer.asIntBuffer().get(elements);
+                buffer.position(buffer.position() + elements.length * 4);
+                return IntList.of(elements, elements.length);
+            }
+            case TAG_INT_LIST2: {
+                int[] offsets = new int[buffer.getInt() + 1];
+                int[] data = new int[16];
+                for (int row = 1; row < offsets.length; row++) {
+                    int size = buffer.getInt();
+                    offsets[row] = offsets[row - 1] + size;
+                    if (offsets[row] > data.length) {
+                        data = Arrays.copyOf(data, Math.max(offsets[row], data.length * 2));
+                    }
+                    for (int i = offsets[row - 1]; i < offsets[row]; i++) {
+                        data[i] = buffer.getInt();
+                    }
+                }
+                return IntList2.of(Arrays.copyOf(data, offsets[offsets.length - 1]), offsets);
+            }
+            case TAG_INT_INT_MAP: {
+                int size = buffer.getInt();
+                int[] keys = new int[size];
+                int[] values = new int[size];
+                for (int i = 0; i < size; i++) {
+                    keys[i] = buffer.getInt();
+                    values[i] = buffer.getInt();
+                }
+                return IntIntMap.of(keys, values, size);
+            }
+            default:
+                throw new IllegalStateException("配置包数据损坏，未知的值类型: " + tag);
+        }
+    }
+}
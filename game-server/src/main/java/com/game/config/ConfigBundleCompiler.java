@@ -0,0 +1,104 @@
+package com.game.config;
+
+import com.game.common.util.ExcelUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 配置包编译器
+ * 构建时把配置目录下的全部Excel编译为一个二进制配置包，服务器启动时直接映射加载，不再经过POI。
+ * 用法: mvn -P config-bundle package，或 java -cp ... com.game.config.ConfigBundleCompiler &lt;配置目录&gt; [输出文件]
+ */
+public class ConfigBundleCompiler {
+
+    private static final Logger logger = LoggerFactory.getLogger(ConfigBundleCompiler.class);
+
+    public static void main(String[] args) throws IOException {
+        File configDir = new File(args.length > 0 ? args[0] : "config");
+        File output = args.length > 1 ? new File(args[1]) : new File(configDir, ConfigBundle.DEFAULT_FILE_NAME);
+        if (!configDir.isDirectory()) {
+            throw new IllegalArgumentException("配置目录不存在: " + configDir.getAbsolutePath());
+        }
+        compile(configDir, output);
+    }
+
+    /**
+     * 编译配置目录
+     *
+     * @param configDir 配置目录
+     * @param output    输出的配置包文件
+     * @return 编译的配置表数量
+     */
+    public static int compile(File configDir, File output) throws IOException {
+        long startTime = System.currentTimeMillis();
+        File[] excelFiles = configDir.listFiles((dir, name) -> ExcelConfigManager.isConfigFile(name));
+        if (excelFiles == null) {
+            excelFiles = new File[0];
+        }
+        Arrays.sort(excelFiles);
+
+        ExcelConfigManager parser = new ExcelConfigManager();
+        List<ConfigTable> tables = new ArrayList<>();
+        List<Long> sourceCrcs = new ArrayList<>();
+        for (File excelFile : excelFiles) {
+            // 编译失败直接中断构建，不生成不完整的配置包
+            ConfigTable table = parser.loadConfigDataFromFile(excelFile, true);
+            if (table != null) {
+                tables.add(table);
+                sourceCrcs.add(ConfigBundle.crc32(excelFile));
+            }
+        }
+
+        File tmpFile = new File(output.getAbsolutePath() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tmpFile), 64 * 1024))) {
+            out.writeInt(ConfigBundle.MAGIC);
+            out.writeInt(ConfigBundle.FORMAT_VERSION);
+            out.writeLong(System.currentTimeMillis());
+            out.writeInt(tables.size());
+            for (int i = 0; i < tables.size(); i++) {
+                writeTable(out, tables.get(i), sourceCrcs.get(i));
+            }
+        }
+        Files.move(tmpFile.toPath(), output.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+        logger.info("Compiled {} config tables into {} ({} bytes) in {}ms",
+                tables.size(), output.getAbsolutePath(), output.length(), System.currentTimeMillis() - startTime);
+        return tables.size();
+    }
+
+    private static void writeTable(DataOutputStream out, ConfigTable table, long sourceCrc) throws IOException {
+        List<ExcelUtils.FieldConfig> fields = table.getFields();
+        ConfigBundle.writeString(out, table.getName());
+        ConfigBundle.writeString(out, table.getConfigClass() == null ? null : table.getConfigClass().getName());
+        ConfigBundle.writeString(out, table.getPrimaryKey());
+        out.writeLong(ConfigBundle.schemaHash(table.getConfigClass(), fields));
+        out.writeLong(sourceCrc);
+
+        out.writeInt(fields.size());
+        for (ExcelUtils.FieldConfig field : fields) {
+            ConfigBundle.writeString(out, field.getName());
+            ConfigBundle.writeString(out, field.getType());
+            ConfigBundle.writeString(out, field.getIndexFlags());
+        }
+
+        out.writeInt(table.size());
+        for (Object row : table.getRows()) {
+            Map<?, ?> values = (Map<?, ?>) row;
+            for (ExcelUtils.FieldConfig field : fields) {
+                ConfigBundle.writeValue(out, values.get(field.getName()));
+            }
+        }
+    }
+}
@@ -0,0 +1,190 @@
+package com.game.config;
+
+import com.game.common.util.ExcelUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 配置包加载器
+ * 以内存映射方式读取{@link ConfigBundleCompiler}生成的配置包。源Excel的CRC与配置类结构哈希都一致的表直接反序列化，
+ * 其余的表（配置包缺失、损坏、Excel已修改、配置类已变更或新增的Excel）交回调用方按Excel解析。
+ */
+@Component
+public class ConfigBundleLoader {
+
+    private static final Logger logger = LoggerFactory.getLogger(ConfigBundleLoader.class);
+
+    /**
+     * 是否启用配置包
+     */
+    @Value("${game.config.bundle-enabled:true}")
+    private boolean bundleEnabled = true;
+
+    /**
+     * 配置包文件名（位于配置目录下）
+     */
+    @Value("${game.config.bundle:" + ConfigBundle.DEFAULT_FILE_NAME + "}")
+    private String bundleFileName = ConfigBundle.DEFAULT_FILE_NAME;
+
+    /**
+     * 加载结果
+     */
+    public static class Result {
+        private final Map<String, ConfigTable> tables;
+        private final List<File> staleFiles;
+
+        Result(Map<String, ConfigTable> tables, List<File> staleFiles) {
+            this.tables = tables;
+            this.staleFiles = staleFiles;
+        }
+
+        /**
+         * 从配置包加载的配置表
+         */
+        public Map<String, ConfigTable> getTables() {
+            return tables;
+        }
+
+        /**
+         * 需要重新解析的Excel文件
+         */
+        public List<File> getStaleFiles() {
+            return staleFiles;
+        }
+    }
+
+    /**
+     * 从配置包加载配置
+     *
+     * @param configDir  配置目录
+     * @param excelFiles 配置目录下的全部Excel文件
+     * @return 加载结果
+     */
+    public Result load(File configDir, Collection<File> excelFiles) {
+        Map<String, File> sourceFiles = new LinkedHashMap<>();
+        for (File excelFile : excelFiles) {
+            String fileName = excelFile.getName();
+            sourceFiles.put(fileName.substring(0, fileName.lastIndexOf('.')), excelFile);
+        }
+
+        File bundleFile = new File(configDir, bundleFileName);
+        if (!bundleEnabled || !bundleFile.isFile()) {
+            return new Result(new HashMap<>(), new ArrayList<>(sourceFiles.values()));
+        }
+
+        long startTime = System.currentTimeMillis();
+        Map<String, ConfigTable> tables = new HashMap<>();
+        try (FileChannel channel = FileChannel.open(bundleFile.toPath(), StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            readBundle(buffer, sourceFiles, tables);
+        } catch (IOException | RuntimeException e) {
+            logger.warn("Config bundle is unreadable, falling back to Excel: {}", bundleFile.getAbsolutePath(), e);
+            tables.clear();
+        }
+
+        List<File> staleFiles = new ArrayList<>();
+        for (Map.Entry<String, File> entry : sourceFiles.entrySet()) {
+            if (!tables.containsKey(entry.getKey())) {
+                staleFiles.add(entry.getValue());
+            }
+        }
+        logger.info("Loaded {} config tables from bundle in {}ms, {} tables need Excel parsing: {}",
+                tables.size(), System.currentTimeMillis() - startTime, staleFiles.size(), staleFiles);
+        return new Result(tables, staleFiles);
+    }
+
+    private void readBundle(ByteBuffer buffer, Map<String, File> sourceFiles, Map<String, ConfigTable> tables) throws IOException {
+        if (buffer.getInt() != ConfigBundle.MAGIC) {
+            throw new IllegalStateException("not a config bundle");
+        }
+        int formatVersion = buffer.getInt();
+        if (formatVersion != ConfigBundle.FORMAT_VERSION) {
+            logger.warn("Config bundle format version {} does not match {}, ignored", formatVersion, ConfigBundle.FORMAT_VERSION);
+            return;
+        }
+        buffer.getLong();
+        int tableCount = buffer.getInt();
+        for (int i = 0; i < tableCount; i++) {
+            ConfigTable table = readTable(buffer, sourceFiles);
+            if (table != null) {
+                tables.put(table.getName(), table);
+            }
+        }
+    }
+
+    /**
+     * 读取一张表，过期时跳过数据并返回null
+     */
+    private ConfigTable readTable(ByteBuffer buffer, Map<String, File> sourceFiles) throws IOException {
+        String name = ConfigBundle.readString(buffer);
+        ConfigBundle.readString(buffer);
+        String primaryKey = ConfigBundle.readString(buffer);
+        long schemaHash = buffer.getLong();
+        long sourceCrc = buffer.getLong();
+
+        int columnCount = buffer.getInt();
+        List<ExcelUtils.FieldConfig> fields = new ArrayList<>(columnCount);
+        for (int i = 0; i < columnCount; i++) {
+            String fieldName = ConfigBundle.readString(buffer);
+            String fieldType = ConfigBundle.readString(buffer);
+            String indexFlags = ConfigBundle.readString(buffer);
+            fields.add(new ExcelUtils.FieldConfig(fieldName, fieldType, fieldName.equals(primaryKey), i, indexFlags));
+        }
+
+        Class<?> configClass = ExcelConfigManager.resolveConfigClass(name);
+        File sourceFile = sourceFiles.get(name);
+        boolean fresh = sourceFile != null
+                && ConfigBundle.crc32(sourceFile) == sourceCrc
+                && ConfigBundle.schemaHash(configClass, fields) == schemaHash;
+
+        int rowCount = buffer.getInt();
+        if (!fresh) {
+            // 值是变长编码，过期的表也要顺序读过才能定位到下一张表
+            for (int i = 0, values = rowCount * columnCount; i < values; i++) {
+                ConfigBundle.readValue(buffer);
+            }
+            return null;
+        }
+
+        ConfigRowBinder binder = ConfigRowBinder.create(name, configClass, fields, primaryKey);
+        ConfigRowBinder.ColumnBinding[] byPosition = new ConfigRowBinder.ColumnBinding[columnCount];
+        for (ConfigRowBinder.ColumnBinding binding : binder.getColumns()) {
+            byPosition[binding.getColumnIndex()] = binding;
+        }
+        int primaryKeyPosition = binder.getPrimaryKeyIndex() < 0 ? -1
+                : binder.getColumns()[binder.getPrimaryKeyIndex()].getColumnIndex();
+
+        ConfigTable.Builder builder = new ConfigTable.Builder(name, configClass, primaryKey).fields(fields);
+        for (int row = 0; row < rowCount; row++) {
+            Object obj = binder.newInstance();
+            Object primaryKeyValue = null;
+            for (int column = 0; column < columnCount; column++) {
+                Object value = ConfigBundle.readValue(buffer);
+                if (value == null || byPosition[column] == null) {
+                    continue;
+                }
+                byPosition[column].apply(obj, value);
+                if (column == primaryKeyPosition) {
+                    primaryKeyValue = value;
+                }
+            }
+            builder.addRow(obj, primaryKeyValue);
+        }
+        return builder.build();
+    }
+}
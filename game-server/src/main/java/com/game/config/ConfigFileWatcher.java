@@ -0,0 +1,131 @@
+package com.game.config;
+
+import com.game.core.AbstractSystemShutdown;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 配置文件变更监听
+ * 开启后监听配置目录，Excel文件保存后等待一个静默期（策划一次保存多张表时合并为一批），
+ * 再调用{@link ExcelConfigManager#reloadConfigs}原子地发布新快照。默认关闭，线上一般通过管理接口触发。
+ */
+@Component
+public class ConfigFileWatcher extends AbstractSystemShutdown {
+
+    private static final Logger logger = LoggerFactory.getLogger(ConfigFileWatcher.class);
+
+    @Autowired
+    private ExcelConfigManager excelConfigManager;
+
+    /**
+     * 是否开启配置文件监听
+     */
+    @Value("${game.config.watch:false}")
+    private boolean watchEnabled;
+
+    /**
+     * 静默期（毫秒），最后一次文件变更后等待这么久才触发重载
+     */
+    @Value("${game.config.watch-debounce:1000}")
+    private long debounceMillis;
+
+    private volatile WatchService watchService;
+    private Thread watchThread;
+
+    /**
+     * 开始监听配置目录，未开启时直接返回
+     *
+     * @param configDir 配置目录
+     */
+    public synchronized void start(File configDir) {
+        if (!watchEnabled || watchService != null) {
+            return;
+        }
+        try {
+            WatchService service = FileSystems.getDefault().newWatchService();
+            configDir.toPath().register(service, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+            watchService = service;
+        } catch (IOException e) {
+            logger.error("配置目录监听启动失败: {}", configDir.getAbsolutePath(), e);
+            return;
+        }
+        watchThread = new Thread(() -> watchLoop(configDir), "config-watcher");
+        watchThread.setDaemon(true);
+        watchThread.start();
+        logger.info("配置目录监听已开启: {}, 静默期 {}ms", configDir.getAbsolutePath(), debounceMillis);
+    }
+
+    private void watchLoop(File configDir) {
+        Set<String> pending = new LinkedHashSet<>();
+        WatchService service = watchService;
+        try {
+            while (!Thread.currentThread().isInterrupted()) {
+                // 有待处理的文件时按静默期轮询，否则一直等待
+                WatchKey key = pending.isEmpty() ? service.take() : service.poll(debounceMillis, TimeUnit.MILLISECONDS);
+                if (key == null) {
+                    reload(configDir, pending);
+                    pending.clear();
+                    continue;
+                }
+                for (WatchEvent<?> event : key.pollEvents()) {
+                    if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                        continue;
+                    }
+                    String fileName = ((Path) event.context()).getFileName().toString();
+                    if (ExcelConfigManager.isConfigFile(fileName)) {
+                        pending.add(fileName);
+                    }
+                }
+                if (!key.reset()) {
+                    logger.warn("配置目录不再可用，停止监听: {}", configDir.getAbsolutePath());
+                    return;
+                }
+            }
+        } catch (InterruptedException | ClosedWatchServiceException e) {
+            // 停机
+        }
+    }
+
+    private void reload(File configDir, Set<String> fileNames) {
+        try {
+            ConfigSnapshot snapshot = excelConfigManager.reloadConfigs(configDir, new ArrayList<>(fileNames));
+            logger.info("配置文件变更已生效: {}, 快照版本 {}", fileNames, snapshot.getVersion());
+        } catch (Exception e) {
+            logger.error("配置文件变更重载失败，继续使用旧配置: {}", fileNames, e);
+        }
+    }
+
+    @Override
+    public synchronized void shutdown() {
+        WatchService service = watchService;
+        if (service == null) {
+            return;
+        }
+        watchService = null;
+        try {
+            service.close();
+        } catch (IOException e) {
+            logger.warn("关闭配置目录监听失败", e);
+        }
+        if (watchThread != null) {
+            watchThread.interrupt();
+        }
+    }
+}
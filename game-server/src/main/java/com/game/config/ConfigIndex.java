@@ -0,0 +1,370 @@
+package com.game.config;
+
+import com.game.common.collection.IntObjectHashMap;
+import com.game.common.util.ExcelUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 配置表的二级索引
+ * 在Excel服务端标记行中声明，加载时与主键索引一起建好，之后只读：
+ * <ul>
+ *     <li>'u' 唯一索引：值到行，重复的值只保留第一行</li>
+ *     <li>'g' 分组索引：值到该值的全部行，列表按Excel顺序排列，查询返回共享的只读列表</li>
+ *     <li>'r' 范围索引：数值列按值升序排列，范围查询二分定位后返回排序结果的只读子视图</li>
+ * </ul>
+ * 只支持标量列，值为null的行不进入索引。
+ */
+public final class ConfigIndex {
+
+    private static final Logger logger = LoggerFactory.getLogger(ConfigIndex.class);
+
+    public enum Type {
+        UNIQUE, GROUP, RANGE
+    }
+
+    private final String field;
+    private final Type type;
+    /**
+     * 唯一/分组索引，值全部为int时使用
+     */
+    private final IntObjectHashMap<Object> intMap;
+    /**
+     * 唯一/分组索引，整数值统一转为Long
+     */
+    private final Map<Object, Object> objectMap;
+    /**
+     * 范围索引，整数列的排序值
+     */
+    private final long[] longKeys;
+    /**
+     * 范围索引，浮点列的排序值
+     */
+    private final double[] doubleKeys;
+    /**
+     * 范围索引，按值排序的数据行
+     */
+    private final List<Object> sortedRows;
+
+    private ConfigIndex(String field, Type type, IntObjectHashMap<Object> intMap, Map<Object, Object> objectMap,
+                        long[] longKeys, double[] doubleKeys, List<Object> sortedRows) {
+        this.field = field;
+        this.type = type;
+        this.intMap = intMap;
+        this.objectMap = objectMap;
+        this.longKeys = longKeys;
+        this.doubleKeys = doubleKeys;
+        this.sortedRows = sortedRows;
+    }
+
+    public String getField() {
+        return field;
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    /**
+     * 唯一索引查询
+     *
+     * @return 数据行，不存在时返回null
+     */
+    public Object getUnique(Object value) {
+        return lookup(value);
+    }
+
+    /**
+     * 分组索引查询
+     *
+     * @return 共享的只读列表，不存在时返回空列表
+     */
+    @SuppressWarnings("unchecked")
+    public List<Object> getGroup(Object value) {
+        Object rows = lookup(value);
+        return rows == null ? Collections.emptyList() : (List<Object>) rows;
+    }
+
+    /**
+     * 范围索引查询，闭区间[from, to]
+     *
+     * @return 按值升序的只读子视图
+     */
+    public List<Object> range(long from, long to) {
+        if (longKeys == null) {
+            return range((double) from, (double) to);
+        }
+        if (from > to) {
+            return Collections.emptyList();
+        }
+        int low = lowerBound(longKeys, from);
+        int high = upperBound(longKeys, to);
+        return low >= high ? Collections.emptyList() : sortedRows.subList(low, high);
+    }
+
+    /**
+     * 范围索引查询，闭区间[from, to]
+     *
+     * @return 按值升序的只读子视图
+     */
+    public List<Object> range(double from, double to) {
+        if (doubleKeys == null) {
+            return range((long) Math.ceil(from), (long) Math.floor(to));
+        }
+        if (!(from <= to)) {
+            return Collections.emptyList();
+        }
+        int low = 0;
+        int high = doubleKeys.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (doubleKeys[mid] < from) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        int start = low;
+        high = doubleKeys.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (doubleKeys[mid] <= to) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return start >= low ? Collections.emptyList() : sortedRows.subList(start, low);
+    }
+
+    private Object lookup(Object value) {
+        if (value == null) {
+            return null;
+        }
+        if (intMap != null) {
+            if (value instanceof Integer || value instanceof Short || value instanceof Byte) {
+                return intMap.get(((Number) value).intValue());
+            }
+            if (value instanceof Long) {
+                long longValue = (Long) value;
+                return longValue == (int) longValue ? intMap.get((int) longValue) : null;
+            }
+            return null;
+        }
+        return objectMap.get(ConfigTable.normalizeKey(value));
+    }
+
+    private static int lowerBound(long[] keys, long value) {
+        int low = 0;
+        int high = keys.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (keys[mid] < value) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private static int upperBound(long[] keys, long value) {
+        int low = 0;
+        int high = keys.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (keys[mid] <= value) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * 建立唯一索引
+     */
+    static ConfigIndex unique(String tableName, ExcelUtils.FieldConfig fieldConfig, List<Object> rows, Object[] values) {
+        String field = fieldConfig.getName();
+        if (allInt(values)) {
+            IntObjectHashMap<Object> index = new IntObjectHashMap<>(rows.size());
+            for (int i = 0; i < values.length; i++) {
+                if (values[i] != null && index.putIfAbsent((Integer) values[i], rows.get(i)) != null) {
+                    logDuplicate(tableName, field, values[i]);
+                }
+            }
+            return new ConfigIndex(field, Type.UNIQUE, index, null, null, null, null);
+        }
+        Map<Object, Object> index = new HashMap<>(Math.max(16, rows.size() * 2));
+        for (int i = 0; i < values.length; i++) {
+            if (values[i] != null && index.putIfAbsent(ConfigTable.normalizeKey(values[i]), rows.get(i)) != null) {
+                logDuplicate(tableName, field, values[i]);
+            }
+        }
+        return new ConfigIndex(field, Type.UNIQUE, null, index, null, null, null);
+    }
+
+    /**
+     * 建立分组索引
+     */
+    static ConfigIndex group(ExcelUtils.FieldConfig fieldConfig, List<Object> rows, Object[] values) {
+        String field = fieldConfig.getName();
+        Map<Object, List<Object>> groups = new HashMap<>();
+        for (int i = 0; i < values.length; i++) {
+            if (values[i] != null) {
+                groups.computeIfAbsent(ConfigTable.normalizeKey(values[i]), k -> new ArrayList<>()).add(rows.get(i));
+            }
+        }
+        boolean intValues = allInt(values);
+        IntObjectHashMap<Object> intMap = intValues ? new IntObjectHashMap<>(groups.size()) : null;
+        Map<Object, Object> objectMap = intValues ? null : new HashMap<>(Math.max(16, groups.size() * 2));
+        for (Map.Entry<Object, List<Object>> entry : groups.entrySet()) {
+            List<Object> group = Collections.unmodifiableList(new ArrayList<>(entry.getValue()));
+            if (intValues) {
+                intMap.put(((Long) entry.getKey()).intValue(), group);
+            } else {
+                objectMap.put(entry.getKey(), group);
+            }
+        }
+        return new ConfigIndex(field, Type.GROUP, intMap, objectMap, null, null, null);
+    }
+
+    /**
+     * 建立范围索引，只支持数值列
+     */
+    static ConfigIndex range(String tableName, ExcelUtils.FieldConfig fieldConfig, List<Object> rows, Object[] values) {
+        String field = fieldConfig.getName();
+        boolean integral;
+        switch (fieldConfig.getType().toLowerCase()) {
+            case "int":
+            case "integer":
+            case "long":
+                integral = true;
+                break;
+            case "float":
+            case "double":
+            case "bigdecimal":
+                integral = false;
+                break;
+            default:
+                throw new IllegalArgumentException("范围索引只支持数值列: " + tableName + "." + field + " (" + fieldConfig.getType() + ")");
+        }
+
+        Integer[] order = new Integer[values.length];
+        int count = 0;
+        for (int i = 0; i < values.length; i++) {
+            if (values[i] != null) {
+                order[count++] = i;
+            }
+        }
+        order = Arrays.copyOf(order, count);
+        Object[] sorted = new Object[count];
+        if (integral) {
+            // 稳定排序，值相同的行保持Excel顺序
+            Arrays.sort(order, (a, b) -> Long.compare(((Number) values[a]).longValue(), ((Number) values[b]).longValue()));
+            long[] keys = new long[count];
+            for (int i = 0; i < count; i++) {
+                keys[i] = ((Number) values[order[i]]).longValue();
+                sorted[i] = rows.get(order[i]);
+            }
+            return new ConfigIndex(field, Type.RANGE, null, null, keys, null,
+                    Collections.unmodifiableList(Arrays.asList(sorted)));
+        }
+        Arrays.sort(order, (a, b) -> Double.compare(((Number) values[a]).doubleValue(), ((Number) values[b]).doubleValue()));
+        double[] keys = new double[count];
+        for (int i = 0; i < count; i++) {
+            keys[i] = ((Number) values[order[i]]).doubleValue();
+            sorted[i] = rows.get(order[i]);
+        }
+        return new ConfigIndex(field, Type.RANGE, null, null, null, keys,
+                Collections.unmodifiableList(Arrays.asList(sorted)));
+    }
+
+    /**
+     * 读取每一行中索引列的值，只在加载时调用一次
+     */
+    @SuppressWarnings("unchecked")
+    static Object[] readValues(String tableName, Class<?> configClass, String field, List<Object> rows) {
+        Object[] values = new Object[rows.size()];
+        // 编译配置包时数据行为Map，不绑定配置类
+        if (configClass == null || (!rows.isEmpty() && rows.get(0) instanceof Map)) {
+            for (int i = 0; i < values.length; i++) {
+                values[i] = ((Map<String, Object>) rows.get(i)).get(field);
+            }
+        } else {
+            readFieldValues(tableName, configClass, field, rows, values);
+        }
+        for (Object value : values) {
+            if (value != null && !(value instanceof Number || value instanceof String || value instanceof Boolean)) {
+                throw new IllegalArgumentException("索引只支持标量列: " + tableName + "." + field);
+            }
+        }
+        return values;
+    }
+
+    private static void readFieldValues(String tableName, Class<?> configClass, String field, List<Object> rows, Object[] values) {
+        try {
+            Method getter = findGetter(configClass, field);
+            Field target = getter == null ? findField(configClass, field) : null;
+            if (getter == null && target == null) {
+                throw new IllegalArgumentException("索引列在配置类中不存在: " + tableName + "." + field);
+            }
+            for (int i = 0; i < values.length; i++) {
+                values[i] = getter != null ? getter.invoke(rows.get(i)) : target.get(rows.get(i));
+            }
+        } catch (ReflectiveOperationException e) {
+            throw new RuntimeException("读取索引列失败: " + tableName + "." + field, e);
+        }
+    }
+
+    private static Method findGetter(Class<?> configClass, String field) {
+        String suffix = Character.toUpperCase(field.charAt(0)) + field.substring(1);
+        for (String name : new String[]{"get" + suffix, "is" + suffix}) {
+            try {
+                Method method = configClass.getMethod(name);
+                if (method.getReturnType() != void.class) {
+                    return method;
+                }
+            } catch (NoSuchMethodException ignored) {
+                // 尝试下一个命名
+            }
+        }
+        return null;
+    }
+
+    private static Field findField(Class<?> configClass, String field) {
+        for (Class<?> type = configClass; type != null && type != Object.class; type = type.getSuperclass()) {
+            try {
+                Field target = type.getDeclaredField(field);
+                target.setAccessible(true);
+                return target;
+            } catch (NoSuchFieldException ignored) {
+                // 继续查找父类
+            }
+        }
+        return null;
+    }
+
+    private static boolean allInt(Object[] values) {
+        for (Object value : values) {
+            if (value != null && !(value instanceof Integer)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static void logDuplicate(String tableName, String field, Object value) {
+        logger.warn("Duplicate unique index value in config {}: {}={}, keep the first row", tableName, field, value);
+    }
+}
@@ -0,0 +1,157 @@
+package com.game.config;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 配置加载报告
+ * 记录一批Excel文件并行解析时每个文件的耗时、行数、执行线程和失败原因
+ */
+public class ConfigLoadReport {
+
+    /**
+     * 单个文件的解析结果
+     */
+    public static class Entry {
+        private final String fileName;
+        private final long fileSize;
+        private final long duration;
+        private final String thread;
+        private final ConfigTable table;
+        private final Throwable error;
+
+        Entry(String fileName, long fileSize, long duration, String thread, ConfigTable table, Throwable error) {
+            this.fileName = fileName;
+            this.fileSize = fileSize;
+            this.duration = duration;
+            this.thread = thread;
+            this.table = table;
+            this.error = error;
+        }
+
+        public String getFileName() {
+            return fileName;
+        }
+
+        /**
+         * 解析耗时（毫秒）
+         */
+        public long getDuration() {
+            return duration;
+        }
+
+        /**
+         * 解析出的配置表，失败或工作表为空时为null
+         */
+        public ConfigTable getTable() {
+            return table;
+        }
+
+        public Throwable getError() {
+            return error;
+        }
+
+        public boolean isFailed() {
+            return error != null;
+        }
+
+        Map<String, Object> toMap() {
+            Map<String, Object> map = new LinkedHashMap<>();
+            map.put("file", fileName);
+            map.put("size", fileSize);
+            map.put("rows", table == null ? 0 : table.size());
+            map.put("duration", duration);
+            map.put("thread", thread);
+            if (error != null) {
+                map.put("error", error.getClass().getSimpleName() + ": " + error.getMessage());
+            }
+            return map;
+        }
+    }
+
+    private final List<Entry> entries;
+    private final long totalDuration;
+    private final int parallelism;
+
+    ConfigLoadReport(List<Entry> entries, long totalDuration, int parallelism) {
+        this.entries = Collections.unmodifiableList(entries);
+        this.totalDuration = totalDuration;
+        this.parallelism = parallelism;
+    }
+
+    public List<Entry> getEntries() {
+        return entries;
+    }
+
+    /**
+     * 实际耗时（毫秒）
+     */
+    public long getTotalDuration() {
+        return totalDuration;
+    }
+
+    /**
+     * 失败的文件
+     */
+    public List<Entry> getFailures() {
+        List<Entry> failures = new ArrayList<>();
+        for (Entry entry : entries) {
+            if (entry.isFailed()) {
+                failures.add(entry);
+            }
+        }
+        return failures;
+    }
+
+    /**
+     * 成功解析的配置表
+     */
+    public Map<String, ConfigTable> getTables() {
+        Map<String, ConfigTable> tables = new LinkedHashMap<>();
+        for (Entry entry : entries) {
+            if (entry.table != null) {
+                tables.put(entry.table.getName(), entry.table);
+            }
+        }
+        return tables;
+    }
+
+    /**
+     * 转换为HTTP接口返回结构
+     */
+    public Map<String, Object> toMap() {
+        Map<String, Object> map = new LinkedHashMap<>();
+        map.put("totalDuration", totalDuration);
+        map.put("parallelism", parallelism);
+        map.put("failures", getFailures().size());
+        List<Map<String, Object>> files = new ArrayList<>();
+        for (Entry entry : entries) {
+            files.add(entry.toMap());
+        }
+        map.put("files", files);
+        return map;
+    }
+
+    /**
+     * 格式化为日志输出的表格，按耗时降序
+     */
+    public String format() {
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format("%n%-36s %8s %10s %8s  %s%n", "file", "rows", "size", "cost", "thread"));
+        List<Entry> sorted = new ArrayList<>(entries);
+        sorted.sort((a, b) -> Long.compare(b.duration, a.duration));
+        long serial = 0;
+        for (Entry entry : sorted) {
+            serial += entry.duration;
+            sb.append(String.format("%-36s %8s %10d %6dms  %s%n", entry.fileName,
+                    entry.isFailed() ? "FAILED" : String.valueOf(entry.table == null ? 0 : entry.table.size()),
+                    entry.fileSize, entry.duration, entry.thread));
+        }
+        sb.append(String.format("files=%d, failures=%d, parallelism=%d, total=%dms, serial=%dms",
+                entries.size(), getFailures().size(), parallelism, totalDuration, serial));
+        return sb.toString();
+    }
+}
@@ -0,0 +1,287 @@
+package com.game.config;
+
+import com.game.common.util.ExcelUtils;
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.Row;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.invoke.CallSite;
+import java.lang.invoke.LambdaMetafactory;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiConsumer;
+import java.util.function.Supplier;
+
+/**
+ * 配置表行绑定器
+ * 每张表只在加载开始时解析一次列与字段的对应关系，把每列编译成一个setter（LambdaMetafactory生成，
+ * 与直接调用setXxx等价），物化数据行时只按列数组循环取值、赋值，不再有反射查找和表头解析。
+ * 没有配置类的表绑定为按字段名写入Map。
+ */
+public class ConfigRowBinder {
+
+    private static final Logger logger = LoggerFactory.getLogger(ConfigRowBinder.class);
+
+    private static final MethodType SETTER_TYPE = MethodType.methodType(void.class, Object.class, Object.class);
+
+    /**
+     * 单列绑定
+     */
+    public static class ColumnBinding {
+        private final int columnIndex;
+        private final ExcelUtils.FieldConfig fieldConfig;
+        private final BiConsumer<Object, Object> setter;
+
+        ColumnBinding(int columnIndex, ExcelUtils.FieldConfig fieldConfig, BiConsumer<Object, Object> setter) {
+            this.columnIndex = columnIndex;
+            this.fieldConfig = fieldConfig;
+            this.setter = setter;
+        }
+
+        public int getColumnIndex() {
+            return columnIndex;
+        }
+
+        public String getName() {
+            return fieldConfig.getName();
+        }
+
+        public String getType() {
+            return fieldConfig.getType();
+        }
+
+        /**
+         * 把值写入数据行对象
+         */
+        public void apply(Object target, Object value) {
+            setter.accept(target, value);
+        }
+    }
+
+    private final Class<?> configClass;
+    private final Supplier<Object> factory;
+    private final ColumnBinding[] columns;
+    /**
+     * 主键列在columns中的下标，没有主键时为-1
+     */
+    private final int primaryKeyIndex;
+
+    private ConfigRowBinder(Class<?> configClass, Supplier<Object> factory, ColumnBinding[] columns, int primaryKeyIndex) {
+        this.configClass = configClass;
+        this.factory = factory;
+        this.columns = columns;
+        this.primaryKeyIndex = primaryKeyIndex;
+    }
+
+    /**
+     * 为一张表创建绑定器
+     *
+     * @param configName   配置名称
+     * @param configClass  配置类，为null时数据行为Map
+     * @param fieldConfigs 服务端字段配置（需带列下标）
+     * @param primaryKey   主键字段名，可为null
+     * @return 绑定器
+     */
+    public static ConfigRowBinder create(String configName, Class<?> configClass,
+                                         Collection<ExcelUtils.FieldConfig> fieldConfigs, String primaryKey) {
+        MethodHandles.Lookup lookup = MethodHandles.lookup();
+        List<ColumnBinding> bindings = new ArrayList<>(fieldConfigs.size());
+        for (ExcelUtils.FieldConfig fieldConfig : fieldConfigs) {
+            if (fieldConfig.getColumnIndex() < 0) {
+                continue;
+            }
+            BiConsumer<Object, Object> setter = configClass == null
+                    ? mapSetter(fieldConfig.getName())
+                    : createSetter(lookup, configClass, fieldConfig.getName());
+            if (setter == null) {
+                logger.warn("Field not found in class: {} -> {}", configName, fieldConfig.getName());
+                continue;
+            }
+            bindings.add(new ColumnBinding(fieldConfig.getColumnIndex(), fieldConfig, setter));
+        }
+        bindings.sort((a, b) -> Integer.compare(a.columnIndex, b.columnIndex));
+        int primaryKeyIndex = -1;
+        for (int i = 0; i < bindings.size(); i++) {
+            if (bindings.get(i).getName().equals(primaryKey)) {
+                primaryKeyIndex = i;
+                break;
+            }
+        }
+        Supplier<Object> factory = configClass == null ? HashMap::new : createFactory(lookup, configClass);
+        return new ConfigRowBinder(configClass, factory, bindings.toArray(new ColumnBinding[0]), primaryKeyIndex);
+    }
+
+    public Class<?> getConfigClass() {
+        return configClass;
+    }
+
+    public ColumnBinding[] getColumns() {
+        return columns;
+    }
+
+    public int getPrimaryKeyIndex() {
+        return primaryKeyIndex;
+    }
+
+    /**
+     * 创建一个空的数据行对象
+     */
+    public Object newInstance() {
+        return factory.get();
+    }
+
+    /**
+     * 物化一行数据并加入配置表
+     *
+     * @param dataRow Excel数据行
+     * @param builder 配置表构建器
+     */
+    public void bindRow(Row dataRow, ConfigTable.Builder builder) {
+        Object obj = factory.get();
+        Object primaryKeyValue = null;
+        ColumnBinding[] bindings = columns;
+        for (int i = 0; i < bindings.length; i++) {
+            ColumnBinding binding = bindings[i];
+            Cell cell = dataRow.getCell(binding.columnIndex);
+            if (cell == null) {
+                continue;
+            }
+            Object value = ExcelUtils.getCellValueByType(cell, binding.getType());
+            binding.setter.accept(obj, value);
+            if (i == primaryKeyIndex) {
+                primaryKeyValue = value;
+            }
+        }
+        builder.addRow(obj, primaryKeyValue);
+    }
+
+    /**
+     * 物化一行流式读取的数据并加入配置表
+     *
+     * @param cells   按列下标排列的单元格文本，不存在的单元格为null
+     * @param length  本行有效列数
+     * @param builder 配置表构建器
+     */
+    public void bindRow(String[] cells, int length, ConfigTable.Builder builder) {
+        Object obj = factory.get();
+        Object primaryKeyValue = null;
+        ColumnBinding[] bindings = columns;
+        for (int i = 0; i < bindings.length; i++) {
+            ColumnBinding binding = bindings[i];
+            String text = binding.columnIndex < length ? cells[binding.columnIndex] : null;
+            if (text == null) {
+                continue;
+            }
+            Object value = ExcelUtils.getValueByType(text, binding.getType());
+            binding.setter.accept(obj, value);
+            if (i == primaryKeyIndex) {
+                primaryKeyValue = value;
+            }
+        }
+        builder.addRow(obj, primaryKeyValue);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static BiConsumer<Object, Object> mapSetter(String fieldName) {
+        return (target, value) -> ((Map<String, Object>) target).put(fieldName, value);
+    }
+
+    /**
+     * 编译字段setter：优先使用公共的setXxx方法，没有时退化为字段句柄
+     */
+    private static BiConsumer<Object, Object> createSetter(MethodHandles.Lookup lookup, Class<?> configClass, String fieldName) {
+        try {
+            Method method = findSetterMethod(configClass, fieldName);
+            if (method != null) {
+                MethodHandle target = lookup.unreflect(method);
+                Class<?> paramType = method.getParameterTypes()[0];
+                if (!paramType.isPrimitive() && method.getReturnType() == void.class) {
+                    return metafactorySetter(lookup, configClass, target, paramType);
+                }
+                return handleSetter(target);
+            }
+            Field field = findField(configClass, fieldName);
+            if (field == null || Modifier.isFinal(field.getModifiers())) {
+                return null;
+            }
+            field.setAccessible(true);
+            return handleSetter(lookup.unreflectSetter(field));
+        } catch (Throwable e) {
+            throw new RuntimeException("编译配置字段setter失败: " + configClass.getSimpleName() + "." + fieldName, e);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static BiConsumer<Object, Object> metafactorySetter(MethodHandles.Lookup lookup, Class<?> configClass,
+                                                                MethodHandle target, Class<?> paramType) throws Throwable {
+        CallSite site = LambdaMetafactory.metafactory(lookup, "accept",
+                MethodType.methodType(BiConsumer.class),
+                SETTER_TYPE,
+                target,
+                MethodType.methodType(void.class, configClass, paramType));
+        return (BiConsumer<Object, Object>) site.getTarget().invokeExact();
+    }
+
+    /**
+     * 基本类型参数或带返回值的setter使用方法句柄，由asType完成拆箱和返回值丢弃
+     */
+    private static BiConsumer<Object, Object> handleSetter(MethodHandle target) {
+        MethodHandle handle = target.asType(SETTER_TYPE);
+        return (obj, value) -> {
+            try {
+                handle.invokeExact(obj, value);
+            } catch (RuntimeException e) {
+                throw e;
+            } catch (Throwable e) {
+                throw new RuntimeException(e);
+            }
+        };
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Supplier<Object> createFactory(MethodHandles.Lookup lookup, Class<?> configClass) {
+        try {
+            MethodHandle constructor = lookup.findConstructor(configClass, MethodType.methodType(void.class));
+            CallSite site = LambdaMetafactory.metafactory(lookup, "get",
+                    MethodType.methodType(Supplier.class),
+                    MethodType.methodType(Object.class),
+                    constructor,
+                    MethodType.methodType(configClass));
+            return (Supplier<Object>) site.getTarget().invokeExact();
+        } catch (Throwable e) {
+            throw new RuntimeException("配置类缺少公共无参构造: " + configClass.getName(), e);
+        }
+    }
+
+    private static Method findSetterMethod(Class<?> configClass, String fieldName) {
+        String setterName = "set" + Character.toUpperCase(fieldName.charAt(0)) + fieldName.substring(1);
+        for (Method method : configClass.getMethods()) {
+            if (method.getName().equals(setterName) && method.getParameterCount() == 1
+                    && !Modifier.isStatic(method.getModifiers())) {
+                return method;
+            }
+        }
+        return null;
+    }
+
+    private static Field findField(Class<?> configClass, String fieldName) {
+        for (Class<?> type = configClass; type != null && type != Object.class; type = type.getSuperclass()) {
+            try {
+                return type.getDeclaredField(fieldName);
+            } catch (NoSuchFieldException ignored) {
+                // 继续查找父类
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,96 @@
+package com.game.config;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 配置快照
+ * 某一时刻全部配置表的不可变视图。热更新时先构建完整的新快照、校验通过后整体替换，
+ * 读取方拿到的快照引用永远不会看到半更新状态；需要跨表一致读取时应先取一次快照再查询。
+ */
+public final class ConfigSnapshot {
+
+    /**
+     * 尚未加载任何配置时的空快照
+     */
+    public static final ConfigSnapshot EMPTY = new ConfigSnapshot(0, Collections.emptyMap(), Collections.emptySet());
+
+    /**
+     * 快照版本号，每次发布加一
+     */
+    private final long version;
+    /**
+     * 发布时间
+     */
+    private final long publishTime;
+    private final Map<String, ConfigTable> tables;
+    /**
+     * 相对上一个快照发生变化的配置名称
+     */
+    private final Set<String> changedTables;
+
+    private ConfigSnapshot(long version, Map<String, ConfigTable> tables, Set<String> changedTables) {
+        this.version = version;
+        this.publishTime = System.currentTimeMillis();
+        this.tables = tables;
+        this.changedTables = changedTables;
+    }
+
+    /**
+     * 在当前快照基础上替换部分配置表，生成下一版本的快照（当前快照不变）
+     *
+     * @param changed 新解析的配置表
+     * @return 新快照
+     */
+    public ConfigSnapshot with(Map<String, ConfigTable> changed) {
+        Map<String, ConfigTable> merged = new HashMap<>(tables);
+        merged.putAll(changed);
+        return new ConfigSnapshot(version + 1, Collections.unmodifiableMap(merged),
+                Collections.unmodifiableSet(new HashSet<>(changed.keySet())));
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public long getPublishTime() {
+        return publishTime;
+    }
+
+    /**
+     * 获取配置表
+     *
+     * @param configName 配置名称
+     * @return 配置表，不存在时返回null
+     */
+    public ConfigTable getTable(String configName) {
+        return tables.get(configName);
+    }
+
+    public Map<String, ConfigTable> getTables() {
+        return tables;
+    }
+
+    public Set<String> getTableNames() {
+        return tables.keySet();
+    }
+
+    public Set<String> getChangedTables() {
+        return changedTables;
+    }
+
+    /**
+     * 本快照中指定配置是否相对上一版本发生了变化
+     */
+    public boolean isChanged(String configName) {
+        return changedTables.contains(configName);
+    }
+
+    @Override
+    public String toString() {
+        return "ConfigSnapshot{version=" + version + ", tables=" + tables.size() + ", changed=" + changedTables + "}";
+    }
+}
@@ -0,0 +1,25 @@
+package com.game.config;
+
+/**
+ * 配置快照监听器
+ * 实现为Spring bean即可参与配置热更新：发布前校验候选快照（跨表引用等），发布后重建依赖配置的派生数据。
+ */
+public interface ConfigSnapshotListener {
+
+    /**
+     * 发布前校验候选快照，抛出异常则本次更新整体放弃，线上继续使用旧快照
+     *
+     * @param candidate 候选快照
+     */
+    default void validate(ConfigSnapshot candidate) {
+    }
+
+    /**
+     * 新快照发布后回调
+     *
+     * @param previous 旧快照
+     * @param current  新快照
+     */
+    default void onPublished(ConfigSnapshot previous, ConfigSnapshot current) {
+    }
+}
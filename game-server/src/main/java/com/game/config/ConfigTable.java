@@ -0,0 +1,306 @@
+package com.game.config;
+
+import com.game.common.collection.IntObjectHashMap;
+import com.game.common.util.ExcelUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 一张配置表的内存数据
+ * 加载完成后只读：数据行列表不可修改，主键索引在加载时一次性建好。
+ * 主键列取Excel服务端标记行中带'k'的列；全部为int时使用int键哈希表，按主键查询不装箱、不反射。
+ * 服务端标记中带'u'/'g'/'r'的列同时建立唯一、分组、范围二级索引，见{@link ConfigIndex}。
+ */
+public class ConfigTable {
+
+    private static final Logger logger = LoggerFactory.getLogger(ConfigTable.class);
+
+    /**
+     * 配置名称（Excel文件名）
+     */
+    private final String name;
+    /**
+     * 配置类，未生成配置类时为null，数据行为Map
+     */
+    private final Class<?> configClass;
+    /**
+     * 主键字段名，没有主键时为null
+     */
+    private final String primaryKey;
+    /**
+     * 服务端字段定义，按列顺序排列
+     */
+    private final List<ExcelUtils.FieldConfig> fields;
+    /**
+     * 数据行，按Excel中的顺序排列
+     */
+    private final List<Object> rows;
+    /**
+     * int主键索引
+     */
+    private final IntObjectHashMap<Object> intIndex;
+    /**
+     * 非int主键索引，整数键统一转为Long
+     */
+    private final Map<Object, Object> objectIndex;
+    /**
+     * 重复主键的行数（只保留了第一行）
+     */
+    private final int duplicateKeyCount;
+    /**
+     * 唯一索引，字段名到索引
+     */
+    private final Map<String, ConfigIndex> uniqueIndexes;
+    /**
+     * 分组索引，字段名到索引
+     */
+    private final Map<String, ConfigIndex> groupIndexes;
+    /**
+     * 范围索引，字段名到索引
+     */
+    private final Map<String, ConfigIndex> rangeIndexes;
+
+    private ConfigTable(Builder builder) {
+        this.name = builder.name;
+        this.configClass = builder.configClass;
+        this.primaryKey = builder.primaryKey;
+        this.fields = Collections.unmodifiableList(builder.fields);
+        this.rows = Collections.unmodifiableList(builder.rows);
+        this.intIndex = builder.intKeys ? builder.buildIntIndex() : null;
+        this.objectIndex = builder.intKeys ? null : builder.buildObjectIndex();
+        this.duplicateKeyCount = builder.duplicateKeyCount;
+        this.uniqueIndexes = new HashMap<>();
+        this.groupIndexes = new HashMap<>();
+        this.rangeIndexes = new HashMap<>();
+        builder.buildSecondaryIndexes(this);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public Class<?> getConfigClass() {
+        return configClass;
+    }
+
+    public String getPrimaryKey() {
+        return primaryKey;
+    }
+
+    public List<ExcelUtils.FieldConfig> getFields() {
+        return fields;
+    }
+
+    public List<Object> getRows() {
+        return rows;
+    }
+
+    public int size() {
+        return rows.size();
+    }
+
+    public int getDuplicateKeyCount() {
+        return duplicateKeyCount;
+    }
+
+    /**
+     * 按int主键查询
+     */
+    public Object get(int id) {
+        if (intIndex != null) {
+            return intIndex.get(id);
+        }
+        return objectIndex.get((long) id);
+    }
+
+    /**
+     * 按主键查询
+     */
+    public Object get(Object id) {
+        if (id == null) {
+            return null;
+        }
+        if (intIndex != null) {
+            if (id instanceof Integer || id instanceof Short || id instanceof Byte) {
+                return intIndex.get(((Number) id).intValue());
+            }
+            if (id instanceof Long) {
+                long value = (Long) id;
+                return value == (int) value ? intIndex.get((int) value) : null;
+            }
+            return null;
+        }
+        return objectIndex.get(normalizeKey(id));
+    }
+
+    /**
+     * 按唯一索引查询
+     *
+     * @param field 带'u'标记的字段名
+     * @param value 字段值
+     * @return 数据行，不存在时返回null
+     * @throws IllegalArgumentException 字段没有声明唯一索引
+     */
+    public Object getByUnique(String field, Object value) {
+        return requireIndex(uniqueIndexes, field, "unique").getUnique(value);
+    }
+
+    /**
+     * 按分组索引查询，返回加载时建好的共享只读列表，不扫描、不分配
+     *
+     * @param field 带'g'标记的字段名
+     * @param value 字段值
+     * @return 按Excel顺序排列的数据行，不存在时返回空列表
+     * @throws IllegalArgumentException 字段没有声明分组索引
+     */
+    public List<Object> getByGroup(String field, Object value) {
+        return requireIndex(groupIndexes, field, "group").getGroup(value);
+    }
+
+    /**
+     * 按范围索引查询闭区间[from, to]，二分定位后返回排序结果的只读子视图
+     *
+     * @param field 带'r'标记的数值字段名
+     * @return 按字段值升序排列的数据行
+     * @throws IllegalArgumentException 字段没有声明范围索引
+     */
+    public List<Object> getByRange(String field, long from, long to) {
+        return requireIndex(rangeIndexes, field, "range").range(from, to);
+    }
+
+    /**
+     * 按范围索引查询闭区间[from, to]，用于浮点列
+     */
+    public List<Object> getByRange(String field, double from, double to) {
+        return requireIndex(rangeIndexes, field, "range").range(from, to);
+    }
+
+    /**
+     * 已声明索引的字段名
+     */
+    public Set<String> getIndexedFields(ConfigIndex.Type type) {
+        switch (type) {
+            case UNIQUE:
+                return Collections.unmodifiableSet(uniqueIndexes.keySet());
+            case GROUP:
+                return Collections.unmodifiableSet(groupIndexes.keySet());
+            default:
+                return Collections.unmodifiableSet(rangeIndexes.keySet());
+        }
+    }
+
+    private ConfigIndex requireIndex(Map<String, ConfigIndex> indexes, String field, String type) {
+        ConfigIndex index = indexes.get(field);
+        if (index == null) {
+            throw new IllegalArgumentException("No " + type + " index on " + name + "." + field);
+        }
+        return index;
+    }
+
+    /**
+     * 整数类型的键统一转为Long，避免Integer与Long查询不一致
+     */
+    static Object normalizeKey(Object key) {
+        if (key instanceof Integer || key instanceof Short || key instanceof Byte) {
+            return ((Number) key).longValue();
+        }
+        return key;
+    }
+
+    /**
+     * 配置表构建器，加载过程中逐行添加数据
+     */
+    public static class Builder {
+        private final String name;
+        private final Class<?> configClass;
+        private final String primaryKey;
+        private final List<ExcelUtils.FieldConfig> fields = new ArrayList<>();
+        private final List<Object> rows = new ArrayList<>();
+        private final List<Object> keys = new ArrayList<>();
+        private boolean intKeys = true;
+        private int duplicateKeyCount;
+
+        public Builder(String name, Class<?> configClass, String primaryKey) {
+            this.name = name;
+            this.configClass = configClass;
+            this.primaryKey = primaryKey;
+        }
+
+        /**
+         * 设置字段定义
+         */
+        public Builder fields(Collection<ExcelUtils.FieldConfig> fieldConfigs) {
+            fields.addAll(fieldConfigs);
+            return this;
+        }
+
+        /**
+         * 添加一行数据
+         *
+         * @param row 数据行
+         * @param key 主键值，没有主键或主键为空时为null
+         */
+        public Builder addRow(Object row, Object key) {
+            rows.add(row);
+            keys.add(key);
+            if (key != null && !(key instanceof Integer)) {
+                intKeys = false;
+            }
+            return this;
+        }
+
+        public ConfigTable build() {
+            return new ConfigTable(this);
+        }
+
+        private void buildSecondaryIndexes(ConfigTable table) {
+            for (ExcelUtils.FieldConfig field : fields) {
+                if (field.getIndexFlags().isEmpty()) {
+                    continue;
+                }
+                Object[] values = ConfigIndex.readValues(name, configClass, field.getName(), table.rows);
+                if (field.isUniqueIndex()) {
+                    table.uniqueIndexes.put(field.getName(), ConfigIndex.unique(name, field, table.rows, values));
+                }
+                if (field.isGroupIndex()) {
+                    table.groupIndexes.put(field.getName(), ConfigIndex.group(field, table.rows, values));
+                }
+                if (field.isRangeIndex()) {
+                    table.rangeIndexes.put(field.getName(), ConfigIndex.range(name, field, table.rows, values));
+                }
+            }
+        }
+
+        private IntObjectHashMap<Object> buildIntIndex() {
+            IntObjectHashMap<Object> index = new IntObjectHashMap<>(rows.size());
+            for (int i = 0; i < rows.size(); i++) {
+                Object key = keys.get(i);
+                if (key != null && index.putIfAbsent((Integer) key, rows.get(i)) != null) {
+                    duplicateKeyCount++;
+                    logger.warn("Duplicate primary key in config {}: {}={}, keep the first row", name, primaryKey, key);
+                }
+            }
+            return index;
+        }
+
+        private Map<Object, Object> buildObjectIndex() {
+            Map<Object, Object> index = new HashMap<>(Math.max(16, rows.size() * 2));
+            for (int i = 0; i < rows.size(); i++) {
+                Object key = keys.get(i);
+                if (key != null && index.putIfAbsent(normalizeKey(key), rows.get(i)) != null) {
+                    duplicateKeyCount++;
+                    logger.warn("Duplicate primary key in config {}: {}={}, keep the first row", name, primaryKey, key);
+                }
+            }
+            return index;
+        }
+    }
+}
@@ -4,17 +4,19 @@ import org.apache.poi.ss.usermodel.*;
 import org.apache.poi.xssf.usermodel.XSSFWorkbook;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
-import java.lang.reflect.Field;
-import java.lang.reflect.Method;
 import java.math.BigDecimal;
 import java.util.*;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.atomic.AtomicInteger;
 
 // 添加导入ExcelUtils
 import com.game.common.util.ExcelUtils;
@@ -22,7 +24,9 @@ import com.game.common.util.ExcelUtils;
 /**
  * Excel配置数据管理器
  * 负责将Excel配置文件转换为内存数据对象
- * 支持热加载和动态更新
+ * 支持热加载和动态更新：所有配置表保存在不可变的{@link ConfigSnapshot}中，
+ * 热更新时在调用线程上解析变更的文件、构建并校验新快照，再通过一次volatile写整体替换，
+ * 读取方不加锁，也不会看到表被移除或只更新了一半的状态。
  */
 @Component
 public class ExcelConfigManager {
@@ -31,13 +35,36 @@ public class ExcelConfigManager {
 
     // 单例实例
     private static volatile ExcelConfigManager instance;
-    // 存储所有配置数据的映射表
-    private final Map<String, List<Object>> configDataMap = new ConcurrentHashMap<>();
-    // 存储配置类的映射表
-    private final Map<String, Class<?>> configClassMap = new ConcurrentHashMap<>();
+    // 当前生效的配置快照
+    private volatile ConfigSnapshot snapshot = ConfigSnapshot.EMPTY;
+    // 快照发布锁，保证并发的热更新依次合并，不会互相覆盖
+    private final Object publishLock = new Object();
+    // 最近一次批量解析的报告
+    private volatile ConfigLoadReport lastLoadReport;
+    // 快照监听器
+    @Autowired(required = false)
+    private List<ConfigSnapshotListener> snapshotListeners = Collections.emptyList();
     // 配置文件路径
     @Value("${game.config.path:config}")
     private String configPath;
+    // 超过该大小（字节）的xlsx使用流式读取，0表示全部流式，负数表示不使用
+    @Value("${game.config.streaming-threshold:8388608}")
+    private long streamingThreshold = 8L * 1024 * 1024;
+    // 并行解析配置文件的线程数，0表示取CPU核数
+    @Value("${game.config.load-threads:0}")
+    private int loadThreads;
+
+    // 配置解析线程工厂
+    private static final ForkJoinPool.ForkJoinWorkerThreadFactory LOADER_THREAD_FACTORY = new ForkJoinPool.ForkJoinWorkerThreadFactory() {
+        private final AtomicInteger threadNumber = new AtomicInteger(1);
+
+        @Override
+        public ForkJoinWorkerThread newThread(ForkJoinPool pool) {
+            ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+            thread.setName("config-loader-" + threadNumber.getAndIncrement());
+            return thread;
+        }
+    };
 
     /**
      * 获取配置文件路径
@@ -71,39 +98,146 @@ public class ExcelConfigManager {
         return configPath;
     }
 
+    /**
+     * 设置流式读取的文件大小阈值
+     *
+     * @param streamingThreshold 字节数，0表示全部流式，负数表示不使用
+     */
+    void setStreamingThreshold(long streamingThreshold) {
+        this.streamingThreshold = streamingThreshold;
+    }
+
     /**
      * 加载单个配置文件
      *
      * @param excelFile Excel文件
      */
     public void loadConfig(File excelFile) {
+        loadConfigs(Collections.singletonList(excelFile));
+    }
+
+    /**
+     * 加载一批配置文件，全部解析完成后发布为一个快照
+     * 启动加载时单个文件失败只记录日志，不影响其他配置
+     *
+     * @param excelFiles Excel文件
+     * @return 成功加载的配置数量
+     */
+    public int loadConfigs(Collection<File> excelFiles) {
+        return loadConfigs(excelFiles, Collections.emptyMap());
+    }
+
+    /**
+     * 加载一批配置文件，与已加载好的配置表（如来自配置包）一起发布为一个快照
+     *
+     * @param excelFiles 需要解析的Excel文件
+     * @param preloaded  已加载的配置表
+     * @return 发布的配置数量
+     */
+    public int loadConfigs(Collection<File> excelFiles, Map<String, ConfigTable> preloaded) {
+        Map<String, ConfigTable> tables = new HashMap<>(preloaded);
+        if (!excelFiles.isEmpty()) {
+            ConfigLoadReport report = parseAll(excelFiles);
+            tables.putAll(report.getTables());
+            logger.info("Config load report:{}", report.format());
+            for (ConfigLoadReport.Entry failure : report.getFailures()) {
+                logger.error("Failed to load config data from file: {}", failure.getFileName(), failure.getError());
+            }
+        }
+        if (!tables.isEmpty()) {
+            publish(tables, false);
+        }
+        return tables.size();
+    }
+
+    /**
+     * 并行解析一批Excel文件
+     * 每个文件的解析互不依赖且是CPU密集的，使用有界的ForkJoinPool分发，全部完成后汇总为一份报告
+     *
+     * @param excelFiles Excel文件
+     * @return 加载报告
+     */
+    private ConfigLoadReport parseAll(Collection<File> excelFiles) {
+        long startTime = System.currentTimeMillis();
+        int parallelism = loadThreads > 0 ? loadThreads : Runtime.getRuntime().availableProcessors();
+        parallelism = Math.max(1, Math.min(parallelism, excelFiles.size()));
+
+        List<ConfigLoadReport.Entry> entries = new ArrayList<>(excelFiles.size());
+        if (parallelism == 1) {
+            for (File excelFile : excelFiles) {
+                entries.add(parseTimed(excelFile));
+            }
+        } else {
+            ForkJoinPool pool = new ForkJoinPool(parallelism, LOADER_THREAD_FACTORY, null, false);
+            try {
+                List<ForkJoinTask<ConfigLoadReport.Entry>> tasks = new ArrayList<>(excelFiles.size());
+                for (File excelFile : excelFiles) {
+                    tasks.add(pool.submit(() -> parseTimed(excelFile)));
+                }
+                for (ForkJoinTask<ConfigLoadReport.Entry> task : tasks) {
+                    entries.add(task.join());
+                }
+            } finally {
+                pool.shutdown();
+            }
+        }
+        ConfigLoadReport report = new ConfigLoadReport(entries, System.currentTimeMillis() - startTime, parallelism);
+        lastLoadReport = report;
+        return report;
+    }
+
+    /**
+     * 解析单个文件并记录耗时，异常记录在结果中不向外抛出
+     */
+    private ConfigLoadReport.Entry parseTimed(File excelFile) {
+        long startTime = System.currentTimeMillis();
+        ConfigTable configTable = null;
+        Throwable error = null;
         try {
-            loadConfigDataFromFile(excelFile);
-        } catch (Exception e) {
-            logger.error("Failed to load config data from file: {}", excelFile.getName(), e);
+            configTable = loadConfigDataFromFile(excelFile);
+        } catch (Exception | LinkageError e) {
+            error = e;
         }
+        return new ConfigLoadReport.Entry(excelFile.getName(), excelFile.length(), System.currentTimeMillis() - startTime,
+                Thread.currentThread().getName(), configTable, error);
+    }
+
+    /**
+     * 从Excel文件加载配置数据
+     *
+     * @param excelFile Excel文件
+     * @return 配置表，工作表为空时返回null
+     * @throws IOException IO异常
+     */
+    private ConfigTable loadConfigDataFromFile(File excelFile) throws IOException {
+        return loadConfigDataFromFile(excelFile, false);
     }
 
     /**
      * 从Excel文件加载配置数据
      *
      * @param excelFile Excel文件
-     * @throws IOException            IO异常
-     * @throws IllegalAccessException 非法访问异常
-     * @throws InstantiationException 实例化异常
+     * @param rawRows   为true时数据行保存为字段名到值的Map（供编译配置包使用），不绑定到配置类
+     * @return 配置表，工作表为空时返回null
+     * @throws IOException IO异常
      */
-    private void loadConfigDataFromFile(File excelFile)
-            throws IOException, IllegalAccessException, InstantiationException {
+    ConfigTable loadConfigDataFromFile(File excelFile, boolean rawRows) throws IOException {
         String fileName = excelFile.getName();
         String configName = fileName.substring(0, fileName.lastIndexOf('.'));
 
+        // 大表走流式读取，不构建整个工作簿
+        if (streamingThreshold >= 0 && excelFile.length() > streamingThreshold
+                && fileName.toLowerCase().endsWith(".xlsx")) {
+            return loadConfigDataStreaming(excelFile, configName, rawRows);
+        }
+
         try (FileInputStream fis = new FileInputStream(excelFile);
              Workbook workbook = new XSSFWorkbook(fis)) {
 
             Sheet sheet = workbook.getSheetAt(0); // 只处理第一个工作表
             if (sheet == null) {
                 logger.warn("Excel file is empty: {}", fileName);
-                return;
+                return null;
             }
 
             // 获取字段配置信息
@@ -111,13 +245,131 @@ public class ExcelConfigManager {
 
             // 动态创建配置类
             Class<?> configClass = createConfigClass(configName, fieldConfigs);
-            configClassMap.put(configName, configClass);
 
-            // 获取数据行并转换为对象
-            List<Object> configData = parseDataRows(sheet, configClass, fieldConfigs);
-            configDataMap.put(configName, configData);
+            // 获取数据行并转换为对象，同时建立主键索引
+            ConfigTable configTable = parseDataRows(sheet, configName, configClass, fieldConfigs, rawRows);
 
-            logger.info("Successfully loaded {} records from {}", configData.size(), fileName);
+            logger.info("Successfully loaded {} records from {}, primary key: {}",
+                    configTable.size(), fileName, configTable.getPrimaryKey());
+            return configTable;
+        }
+    }
+
+    /**
+     * 流式读取Excel文件加载配置数据
+     * 表头三行与{@link #parseFieldConfig(Sheet)}规则相同，数据行逐行绑定，峰值内存为共享字符串表加一行数据
+     *
+     * @param excelFile  Excel文件
+     * @param configName 配置名称
+     * @param rawRows    数据行是否保存为Map
+     * @return 配置表
+     * @throws IOException IO异常
+     */
+    private ConfigTable loadConfigDataStreaming(File excelFile, String configName, boolean rawRows) throws IOException {
+        StreamingTableBuilder tableBuilder = new StreamingTableBuilder(configName, rawRows);
+        StreamingSheetReader.read(excelFile, tableBuilder);
+        ConfigTable configTable = tableBuilder.build();
+
+        logger.info("Successfully streamed {} records from {} ({} bytes), primary key: {}",
+                configTable.size(), excelFile.getName(), excelFile.length(), configTable.getPrimaryKey());
+        return configTable;
+    }
+
+    /**
+     * 流式读取时逐行构建配置表：先收集表头三行，遇到第一条数据行时建立列绑定
+     */
+    private class StreamingTableBuilder implements StreamingSheetReader.RowHandler {
+        private final String configName;
+        private final boolean rawRows;
+        private final String[][] headerRows = new String[3][];
+        private ConfigRowBinder binder;
+        private ConfigTable.Builder builder;
+
+        StreamingTableBuilder(String configName, boolean rawRows) {
+            this.configName = configName;
+            this.rawRows = rawRows;
+        }
+
+        @Override
+        public void onRow(int rowIndex, String[] cells, int length) {
+            if (rowIndex >= 2 && rowIndex <= 4) {
+                headerRows[rowIndex - 2] = Arrays.copyOf(cells, length);
+                return;
+            }
+            // 从第6行开始是数据行（索引5）
+            if (rowIndex < 5 || isEmptyRow(cells, length)) {
+                return;
+            }
+            if (binder == null) {
+                init();
+            }
+            binder.bindRow(cells, length, builder);
+        }
+
+        private void init() {
+            Map<String, ExcelUtils.FieldConfig> fieldConfigs = parseFieldConfig(headerRows[0], headerRows[1], headerRows[2]);
+            Class<?> configClass = createConfigClass(configName, fieldConfigs);
+            String primaryKey = findPrimaryKey(fieldConfigs);
+            builder = new ConfigTable.Builder(configName, configClass, primaryKey).fields(fieldConfigs.values());
+            binder = ConfigRowBinder.create(configName, rawRows ? null : configClass, fieldConfigs.values(), primaryKey);
+        }
+
+        ConfigTable build() {
+            if (binder == null) {
+                init();
+            }
+            return builder.build();
+        }
+
+        private boolean isEmptyRow(String[] cells, int length) {
+            for (int i = 0; i < length; i++) {
+                if (cells[i] != null && !cells[i].isEmpty()) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    /**
+     * 发布新快照
+     *
+     * @param changed 变更的配置表
+     * @param strict  是否严格校验（热更新时为true）
+     * @return 新快照
+     */
+    private ConfigSnapshot publish(Map<String, ConfigTable> changed, boolean strict) {
+        synchronized (publishLock) {
+            ConfigSnapshot previous = snapshot;
+            ConfigSnapshot candidate = previous.with(changed);
+            if (strict) {
+                validate(candidate);
+            }
+            snapshot = candidate;
+            logger.info("Published config snapshot v{}, changed tables: {}", candidate.getVersion(), candidate.getChangedTables());
+            for (ConfigSnapshotListener listener : snapshotListeners) {
+                try {
+                    listener.onPublished(previous, candidate);
+                } catch (Exception e) {
+                    logger.error("Config snapshot listener failed: {}", listener.getClass().getSimpleName(), e);
+                }
+            }
+            return candidate;
+        }
+    }
+
+    /**
+     * 校验候选快照：变更的表不能有重复主键，再交给各监听器做业务校验
+     */
+    private void validate(ConfigSnapshot candidate) {
+        for (String configName : candidate.getChangedTables()) {
+            ConfigTable configTable = candidate.getTable(configName);
+            if (configTable.getDuplicateKeyCount() > 0) {
+                throw new IllegalStateException("配置 " + configName + " 存在 " + configTable.getDuplicateKeyCount() + " 个重复主键");
+            }
+        }
+        for (ConfigSnapshotListener listener : snapshotListeners) {
+            listener.validate(candidate);
         }
     }
 
@@ -128,50 +380,53 @@ public class ExcelConfigManager {
      * @return 字段配置映射
      */
     private Map<String, ExcelUtils.FieldConfig> parseFieldConfig(Sheet sheet) { // 使用公共的FieldConfig
-        Map<String, ExcelUtils.FieldConfig> fieldConfigs = new HashMap<>(); // 使用公共的FieldConfig
+        // 标题行（第3行，索引2）、服务端标记行（第4行，索引3，含k为主键）、类型行（第5行，索引4）
+        return parseFieldConfig(rowTexts(sheet.getRow(2)), rowTexts(sheet.getRow(3)), rowTexts(sheet.getRow(4)));
+    }
 
-        // 获取标题行（第3行，索引2）
-        Row headerRow = sheet.getRow(2);
-        if (headerRow == null) {
-            return fieldConfigs;
+    /**
+     * 把一行单元格转为文本数组，不存在的单元格为null
+     */
+    private static String[] rowTexts(Row row) {
+        if (row == null) {
+            return null;
         }
-
-        // 获取服务端标记行（第4行，索引3）
-        Row serverFlagRow = sheet.getRow(3);
-        if (serverFlagRow == null) {
-            return fieldConfigs;
+        String[] texts = new String[Math.max(row.getLastCellNum(), 0)];
+        for (int i = 0; i < texts.length; i++) {
+            texts[i] = ExcelUtils.getCellValueAsString(row.getCell(i)); // 使用工具类方法
         }
+        return texts;
+    }
 
-        // 获取主键标记行（第4行，索引3，查找包含k的字段）
-        // 获取类型行（第5行，索引4）
-        Row typeRow = sheet.getRow(4);
-        if (typeRow == null) {
+    /**
+     * 根据标题行、服务端标记行和类型行的文本解析字段配置
+     *
+     * @param headers     标题行
+     * @param serverFlags 服务端标记行
+     * @param types       类型行
+     * @return 字段配置映射，按列顺序保存，绑定器直接使用列下标
+     */
+    private static Map<String, ExcelUtils.FieldConfig> parseFieldConfig(String[] headers, String[] serverFlags, String[] types) {
+        Map<String, ExcelUtils.FieldConfig> fieldConfigs = new LinkedHashMap<>(); // 使用公共的FieldConfig
+        if (headers == null || serverFlags == null || types == null) {
             return fieldConfigs;
         }
 
         // 遍历所有列
-        for (int i = 0; i < headerRow.getLastCellNum(); i++) {
-            Cell headerCell = headerRow.getCell(i);
-            Cell serverFlagCell = serverFlagRow.getCell(i);
-            Cell typeCell = typeRow.getCell(i);
-
-            if (headerCell == null) {
-                continue;
-            }
-
-            String fieldName = ExcelUtils.getCellValueAsString(headerCell); // 使用工具类方法
+        for (int i = 0; i < headers.length; i++) {
+            String fieldName = headers[i];
             if (fieldName == null || fieldName.trim().isEmpty()) {
                 continue;
             }
 
             // 检查是否为服务端字段（标记为's'）
-            String serverFlag = ExcelUtils.getCellValueAsString(serverFlagCell); // 使用工具类方法
+            String serverFlag = i < serverFlags.length ? serverFlags[i] : null;
             if (serverFlag == null || !serverFlag.toLowerCase().contains("s")) {
                 continue;
             }
 
             // 获取字段类型
-            String fieldType = ExcelUtils.getCellValueAsString(typeCell); // 使用工具类方法
+            String fieldType = i < types.length ? types[i] : null;
             if (fieldType == null || fieldType.trim().isEmpty()) {
                 continue;
             }
@@ -179,7 +434,15 @@ public class ExcelConfigManager {
             // 检查是否为主键字段（标记为'k'）
             boolean isPrimaryKey = serverFlag.toLowerCase().contains("k");
 
-            fieldConfigs.put(fieldName, new ExcelUtils.FieldConfig(fieldName, fieldType, isPrimaryKey)); // 使用公共的FieldConfig
+            // 二级索引标记：'u'唯一、'g'分组、'r'范围
+            StringBuilder indexFlags = new StringBuilder();
+            for (char flag : serverFlag.toLowerCase().toCharArray()) {
+                if ((flag == 'u' || flag == 'g' || flag == 'r') && indexFlags.indexOf(String.valueOf(flag)) < 0) {
+                    indexFlags.append(flag);
+                }
+            }
+
+            fieldConfigs.put(fieldName, new ExcelUtils.FieldConfig(fieldName, fieldType, isPrimaryKey, i, indexFlags.toString())); // 使用公共的FieldConfig
         }
 
         return fieldConfigs;
@@ -192,175 +455,141 @@ public class ExcelConfigManager {
      * @param fieldConfigs 字段配置映射
      * @return 配置类
      */
-    private Class<?> createConfigClass(String configName, Map<String, ExcelUtils.FieldConfig> fieldConfigs) { // 使用公共的FieldConfig
+    Class<?> createConfigClass(String configName, Map<String, ExcelUtils.FieldConfig> fieldConfigs) { // 使用公共的FieldConfig
         // 在实际项目中，我们可以通过字节码技术动态生成类
         // 这里简化处理，假设已经存在对应的类
+        Class<?> configClass = resolveConfigClass(configName);
+        if (configClass == null) {
+            logger.warn("Config class not found: {}, using generic map-based approach", configName);
+        }
+        return configClass;
+    }
+
+    /**
+     * 是否为Excel配置文件，排除Excel打开时生成的~$临时文件
+     *
+     * @param fileName 文件名
+     * @return 是否为配置文件
+     */
+    public static boolean isConfigFile(String fileName) {
+        String lower = fileName.toLowerCase();
+        return !fileName.startsWith("~$") && (lower.endsWith(".xlsx") || lower.endsWith(".xls"));
+    }
+
+    /**
+     * 按配置名称查找配置类
+     *
+     * @param configName 配置名称
+     * @return 配置类，不存在时返回null
+     */
+    static Class<?> resolveConfigClass(String configName) {
         try {
             return Class.forName("com.game.config.data." + configName);
         } catch (ClassNotFoundException e) {
-            logger.warn("Config class not found: {}, using generic map-based approach", configName);
             return null;
         }
     }
 
+    /**
+     * 查找主键字段
+     * 优先使用服务端标记行中带'k'的列，没有标记时兼容名为id的列
+     *
+     * @param fieldConfigs 字段配置映射
+     * @return 主键字段名，没有主键时返回null
+     */
+    private String findPrimaryKey(Map<String, ExcelUtils.FieldConfig> fieldConfigs) {
+        String idField = null;
+        for (ExcelUtils.FieldConfig fieldConfig : fieldConfigs.values()) {
+            if (fieldConfig.isPrimaryKey()) {
+                return fieldConfig.getName();
+            }
+            if ("id".equalsIgnoreCase(fieldConfig.getName())) {
+                idField = fieldConfig.getName();
+            }
+        }
+        return idField;
+    }
+
     /**
      * 解析数据行并转换为Java对象
+     * 列与字段的绑定在表级别解析一次，逐行只做取值和赋值
      *
      * @param sheet        Excel工作表
+     * @param configName   配置名称
      * @param configClass  配置类
      * @param fieldConfigs 字段配置映射
-     * @return Java对象列表
-     * @throws IllegalAccessException 非法访问异常
-     * @throws InstantiationException 实例化异常
+     * @param rawRows      数据行是否保存为Map
+     * @return 配置表
      */
-    private List<Object> parseDataRows(Sheet sheet, Class<?> configClass, Map<String, ExcelUtils.FieldConfig> fieldConfigs) // 使用公共的FieldConfig
-            throws IllegalAccessException, InstantiationException {
-        List<Object> result = new ArrayList<>();
+    private ConfigTable parseDataRows(Sheet sheet, String configName, Class<?> configClass,
+                                      Map<String, ExcelUtils.FieldConfig> fieldConfigs, boolean rawRows) { // 使用公共的FieldConfig
+        String primaryKey = findPrimaryKey(fieldConfigs);
+        ConfigTable.Builder result = new ConfigTable.Builder(configName, configClass, primaryKey).fields(fieldConfigs.values());
+        ConfigRowBinder binder = ConfigRowBinder.create(configName, rawRows ? null : configClass, fieldConfigs.values(), primaryKey);
 
         // 从第6行开始是数据行（索引5）
         for (int i = 5; i <= sheet.getLastRowNum(); i++) {
             Row dataRow = sheet.getRow(i);
-            if (dataRow == null) {
-                continue;
-            }
-
-            // 检查是否为空行
-            boolean isEmptyRow = true;
-            for (int j = 0; j < dataRow.getLastCellNum(); j++) {
-                Cell cell = dataRow.getCell(j);
-                if (cell != null && cell.getCellType() != CellType.BLANK) {
-                    isEmptyRow = false;
-                    break;
-                }
-            }
-
-            if (isEmptyRow) {
+            if (dataRow == null || isEmptyRow(dataRow)) {
                 continue;
             }
+            binder.bindRow(dataRow, result);
+        }
 
-            // 如果没有配置类，使用Map存储数据
-            if (configClass == null) {
-                Map<String, Object> dataMap = new HashMap<>();
-
-                // 获取标题行用于字段映射
-                Row headerRow = sheet.getRow(2);
-                if (headerRow == null) {
-                    continue;
-                }
-
-                // 遍历所有列并设置字段值
-                for (int j = 0; j < headerRow.getLastCellNum(); j++) {
-                    Cell headerCell = headerRow.getCell(j);
-                    if (headerCell == null) {
-                        continue;
-                    }
-
-                    String fieldName = ExcelUtils.getCellValueAsString(headerCell); // 使用工具类方法
-                    if (fieldName == null || fieldName.trim().isEmpty()) {
-                        continue;
-                    }
-
-                    // 检查是否为服务端字段
-                    if (!fieldConfigs.containsKey(fieldName)) {
-                        continue;
-                    }
-
-                    // 获取数据单元格
-                    Cell dataCell = dataRow.getCell(j);
-                    if (dataCell == null) {
-                        continue;
-                    }
-
-                    // 获取字段配置
-                    ExcelUtils.FieldConfig fieldConfig = fieldConfigs.get(fieldName); // 使用公共的FieldConfig
-
-                    // 设置字段值
-                    Object value = ExcelUtils.getCellValueByType(dataCell, fieldConfig.getType()); // 使用工具类方法
-                    dataMap.put(fieldName, value);
-                }
-
-                result.add(dataMap);
-            } else {
-                // 创建对象实例
-                Object obj = configClass.newInstance();
-
-                // 获取标题行用于字段映射
-                Row headerRow = sheet.getRow(2);
-                if (headerRow == null) {
-                    continue;
-                }
-
-                // 遍历所有列并设置字段值
-                for (int j = 0; j < headerRow.getLastCellNum(); j++) {
-                    Cell headerCell = headerRow.getCell(j);
-                    if (headerCell == null) {
-                        continue;
-                    }
-
-                    String fieldName = ExcelUtils.getCellValueAsString(headerCell); // 使用工具类方法
-                    if (fieldName == null || fieldName.trim().isEmpty()) {
-                        continue;
-                    }
-
-                    // 检查是否为服务端字段
-                    if (!fieldConfigs.containsKey(fieldName)) {
-                        continue;
-                    }
-
-                    // 获取数据单元格
-                    Cell dataCell = dataRow.getCell(j);
-                    if (dataCell == null) {
-                        continue;
-                    }
-
-                    // 获取字段配置
-                    ExcelUtils.FieldConfig fieldConfig = fieldConfigs.get(fieldName); // 使用公共的FieldConfig
-
-                    // 设置字段值
-                    setFieldValue(obj, fieldName, dataCell, fieldConfig);
-                }
+        return result.build();
+    }
 
-                result.add(obj);
+    /**
+     * 检查是否为空行
+     */
+    private boolean isEmptyRow(Row dataRow) {
+        for (int j = 0; j < dataRow.getLastCellNum(); j++) {
+            Cell cell = dataRow.getCell(j);
+            if (cell != null && cell.getCellType() != CellType.BLANK) {
+                return false;
             }
         }
-
-        return result;
+        return true;
     }
 
     /**
-     * 设置对象字段值
+     * 获取配置表
      *
-     * @param obj         对象实例
-     * @param fieldName   字段名
-     * @param cell        Excel单元格
-     * @param fieldConfig 字段配置
-     * @throws IllegalAccessException 非法访问异常
+     * @param configName 配置名称
+     * @return 配置表，不存在时返回null
      */
-    private void setFieldValue(Object obj, String fieldName, Cell cell, ExcelUtils.FieldConfig fieldConfig) // 使用公共的FieldConfig
-            throws IllegalAccessException {
-        try {
-            // 获取对象的字段
-            Field field = obj.getClass().getDeclaredField(fieldName);
-            field.setAccessible(true);
+    public ConfigTable getConfigTable(String configName) {
+        return snapshot.getTable(configName);
+    }
 
-            // 根据字段类型设置值
-            String fieldType = fieldConfig.getType();
-            Object value = ExcelUtils.getCellValueByType(cell, fieldType); // 使用工具类方法
+    /**
+     * 获取当前配置快照
+     * 需要在一次逻辑中读取多张相互关联的表时，应先取快照再从快照中查询
+     *
+     * @return 当前快照
+     */
+    public ConfigSnapshot getSnapshot() {
+        return snapshot;
+    }
 
-            field.set(obj, value);
-        } catch (NoSuchFieldException e) {
-            logger.warn("Field not found in class: {} -> {}", obj.getClass().getSimpleName(), fieldName);
-        }
+    /**
+     * 获取最近一次批量解析Excel的报告，尚未解析过时返回null
+     *
+     * @return 加载报告
+     */
+    public ConfigLoadReport getLastLoadReport() {
+        return lastLoadReport;
     }
 
     /**
      * 获取指定配置的所有数据
      *
      * @param configName 配置名称
-     * @return 配置数据列表
+     * @return 配置数据列表（只读）
      */
     public List<Object> getConfigData(String configName) {
-        return configDataMap.getOrDefault(configName, new ArrayList<>());
+        ConfigTable configTable = snapshot.getTable(configName);
+        return configTable == null ? Collections.emptyList() : configTable.getRows();
     }
 
     /**
@@ -368,46 +597,82 @@ public class ExcelConfigManager {
      *
      * @param entityType 实体类型（对应Excel文件名，如"AdditionConfig"）
      * @param <T>        实体类型
-     * @return 配置数据列表
+     * @return 配置数据列表（只读）
      */
     @SuppressWarnings("unchecked")
     public <T> List<T> getAllConfigData(String entityType) {
-        List<Object> dataList = configDataMap.getOrDefault(entityType, new ArrayList<>());
-        return (List<T>) dataList;
+        return (List<T>) getConfigData(entityType);
     }
 
     /**
      * 获取指定配置的指定ID数据
+     * 通过加载时建立的主键索引查询，O(1)
      *
      * @param configName 配置名称
      * @param id         数据ID
      * @return 配置数据对象
      */
     public Object getConfigDataById(String configName, Object id) {
-        List<Object> dataList = getConfigData(configName);
-        for (Object data : dataList) {
-            if (data instanceof Map) {
-                Map<?, ?> dataMap = (Map<?, ?>) data;
-                if (dataMap.containsKey("id") && id.equals(dataMap.get("id"))) {
-                    return data;
-                }
-            } else {
-                // 尝试通过反射获取ID字段
-                try {
-                    Method getIdMethod = data.getClass().getMethod("getId");
-                    if (id.equals(getIdMethod.invoke(data))) {
-                        return data;
-                    }
-                } catch (Exception e) {
-                    // 忽略异常
-                }
-            }
-        }
-        return null;
+        ConfigTable configTable = snapshot.getTable(configName);
+        return configTable == null ? null : configTable.get(id);
+    }
+
+    /**
+     * 获取指定配置的指定ID数据（int主键，查询过程不装箱）
+     *
+     * @param configName 配置名称
+     * @param id         数据ID
+     * @return 配置数据对象
+     */
+    public Object getConfigDataById(String configName, int id) {
+        ConfigTable configTable = snapshot.getTable(configName);
+        return configTable == null ? null : configTable.get(id);
+    }
+
+    /**
+     * 按唯一索引查询配置数据，字段需在Excel服务端标记中声明'u'
+     *
+     * @param configName 配置名称
+     * @param field      字段名
+     * @param value      字段值
+     * @return 配置数据对象，不存在时返回null
+     */
+    public Object getConfigDataByUnique(String configName, String field, Object value) {
+        ConfigTable configTable = snapshot.getTable(configName);
+        return configTable == null ? null : configTable.getByUnique(field, value);
+    }
+
+    /**
+     * 按分组索引查询配置数据，字段需在Excel服务端标记中声明'g'
+     * 返回加载时建好的共享只读列表，代替按字段值的getConfigDataByFilter
+     *
+     * @param configName 配置名称
+     * @param field      字段名
+     * @param value      字段值
+     * @return 配置数据列表（只读）
+     */
+    public List<Object> getConfigDataByGroup(String configName, String field, Object value) {
+        ConfigTable configTable = snapshot.getTable(configName);
+        return configTable == null ? Collections.emptyList() : configTable.getByGroup(field, value);
+    }
+
+    /**
+     * 按范围索引查询配置数据，字段需在Excel服务端标记中声明'r'
+     *
+     * @param configName 配置名称
+     * @param field      数值字段名
+     * @param from       下界（含）
+     * @param to         上界（含）
+     * @return 按字段值升序排列的配置数据列表（只读）
+     */
+    public List<Object> getConfigDataByRange(String configName, String field, long from, long to) {
+        ConfigTable configTable = snapshot.getTable(configName);
+        return configTable == null ? Collections.emptyList() : configTable.getByRange(field, from, to);
     }
 
     /**
      * 根据条件过滤配置数据
+     * 每次调用都会扫描整张表并创建结果列表，按字段值查询时应优先声明索引
      *
      * @param configName 配置名称
      * @param filter     过滤条件
@@ -430,34 +695,71 @@ public class ExcelConfigManager {
      * @param configFileName 配置文件名
      */
     public void reloadConfig(String configFileName) {
-        // 使用智能检测后的配置路径
-        File configFile = new File(getConfigPath(), configFileName);
-        if (!configFile.exists()) {
-            logger.warn("Config file not found: {}", configFile.getAbsolutePath());
-            return;
-        }
-
         try {
-            // 移除旧的配置数据
-            String configName = configFileName.substring(0, configFileName.lastIndexOf('.'));
-            configDataMap.remove(configName);
-            configClassMap.remove(configName);
-
-            // 重新加载配置数据
-            loadConfigDataFromFile(configFile);
-            logger.info("Reloaded config: {}", configFileName);
+            reloadConfigs(Collections.singletonList(configFileName));
         } catch (Exception e) {
             logger.error("Failed to reload config: {}", configFileName, e);
         }
     }
 
+    /**
+     * 原子地重新加载一批配置文件
+     * 全部文件解析成功且校验通过后才发布新快照；任一文件失败时整体放弃，线上配置保持不变
+     *
+     * @param configFileNames 配置文件名
+     * @return 发布的新快照
+     * @throws IllegalStateException 文件不存在、解析失败或校验不通过
+     */
+    public ConfigSnapshot reloadConfigs(Collection<String> configFileNames) {
+        // 使用智能检测后的配置路径
+        return reloadConfigs(new File(getConfigPath()), configFileNames);
+    }
+
+    /**
+     * 原子地重新加载指定目录下的一批配置文件
+     *
+     * @param configDir       配置目录
+     * @param configFileNames 配置文件名
+     * @return 发布的新快照
+     */
+    public ConfigSnapshot reloadConfigs(File configDir, Collection<String> configFileNames) {
+        List<File> configFiles = new ArrayList<>();
+        for (String configFileName : configFileNames) {
+            File configFile = new File(configDir, configFileName);
+            if (!configFile.exists()) {
+                throw new IllegalStateException("Config file not found: " + configFile.getAbsolutePath());
+            }
+            configFiles.add(configFile);
+        }
+        if (configFiles.isEmpty()) {
+            return snapshot;
+        }
+
+        ConfigLoadReport report = parseAll(configFiles);
+        List<ConfigLoadReport.Entry> failures = report.getFailures();
+        if (!failures.isEmpty()) {
+            ConfigLoadReport.Entry failure = failures.get(0);
+            throw new IllegalStateException("Failed to parse " + failures.size() + " config(s), first: " + failure.getFileName(),
+                    failure.getError());
+        }
+        for (ConfigLoadReport.Entry entry : report.getEntries()) {
+            if (entry.getTable() == null) {
+                throw new IllegalStateException("Config file is empty: " + entry.getFileName());
+            }
+        }
+
+        ConfigSnapshot published = publish(report.getTables(), true);
+        logger.info("Reloaded configs: {} in {}ms", configFileNames, report.getTotalDuration());
+        return published;
+    }
+
     /**
      * 获取所有配置名称
      *
      * @return 配置名称列表
      */
     public Set<String> getAllConfigNames() {
-        return configDataMap.keySet();
+        return snapshot.getTableNames();
     }
 
     /**
@@ -0,0 +1,232 @@
+package com.game.config;
+
+import org.apache.poi.openxml4j.opc.OPCPackage;
+import org.apache.poi.openxml4j.opc.PackageAccess;
+import org.apache.poi.ss.usermodel.DateUtil;
+import org.apache.poi.ss.util.CellReference;
+import org.apache.poi.util.XMLHelper;
+import org.apache.poi.xssf.eventusermodel.ReadOnlySharedStringsTable;
+import org.apache.poi.xssf.eventusermodel.XSSFReader;
+import org.apache.poi.xssf.model.StylesTable;
+import org.apache.poi.xssf.usermodel.XSSFCellStyle;
+import org.xml.sax.Attributes;
+import org.xml.sax.InputSource;
+import org.xml.sax.XMLReader;
+import org.xml.sax.helpers.DefaultHandler;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.Iterator;
+
+/**
+ * 流式XLSX读取器
+ * 基于POI事件API（XSSFReader + SAX）逐行读取第一个工作表，不构建整个工作簿的DOM，
+ * 内存占用只有共享字符串表和当前一行。单元格按{@code ExcelUtils.getCellValueAsString}的规则转为文本：
+ * 数字为不带科学计数法的十进制文本，日期格式为Date.toString()，布尔为true/false，公式取公式文本，
+ * 空白单元格为空字符串，不存在的单元格为null。
+ */
+public class StreamingSheetReader {
+
+    /**
+     * 行回调
+     */
+    public interface RowHandler {
+        /**
+         * 处理一行
+         *
+         * @param rowIndex 行下标（从0开始）
+         * @param cells    按列下标排列的单元格文本，不存在的单元格为null；数组在下一行会被复用
+         * @param length   本行有效列数
+         */
+        void onRow(int rowIndex, String[] cells, int length);
+    }
+
+    private StreamingSheetReader() {
+    }
+
+    /**
+     * 读取Excel文件的第一个工作表
+     *
+     * @param excelFile Excel文件
+     * @param handler   行回调
+     */
+    public static void read(File excelFile, RowHandler handler) throws IOException {
+        try (OPCPackage pkg = OPCPackage.open(excelFile, PackageAccess.READ)) {
+            XSSFReader reader = new XSSFReader(pkg);
+            ReadOnlySharedStringsTable sharedStrings = new ReadOnlySharedStringsTable(pkg);
+            StylesTable styles = reader.getStylesTable();
+            Iterator<InputStream> sheets = reader.getSheetsData();
+            if (!sheets.hasNext()) {
+                return;
+            }
+            try (InputStream sheet = sheets.next()) {
+                XMLReader parser = XMLHelper.newXMLReader();
+                parser.setContentHandler(new SheetHandler(sharedStrings, styles, handler));
+                parser.parse(new InputSource(sheet));
+            }
+        } catch (IOException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new IOException("Failed to stream excel file: " + excelFile.getName(), e);
+        }
+    }
+
+    /**
+     * 工作表XML处理器，只关心row/c/v/f/is元素
+     */
+    private static class SheetHandler extends DefaultHandler {
+        private final ReadOnlySharedStringsTable sharedStrings;
+        private final StylesTable styles;
+        private final RowHandler handler;
+
+        private String[] cells = new String[64];
+        private int length;
+        private int rowIndex = -1;
+        private int nextRowIndex;
+
+        private int column;
+        private int nextColumn;
+        private String cellType;
+        private int styleIndex;
+        private final StringBuilder value = new StringBuilder();
+        private final StringBuilder formula = new StringBuilder();
+        private boolean hasValue;
+        private boolean inValue;
+        private boolean inFormula;
+
+        SheetHandler(ReadOnlySharedStringsTable sharedStrings, StylesTable styles, RowHandler handler) {
+            this.sharedStrings = sharedStrings;
+            this.styles = styles;
+            this.handler = handler;
+        }
+
+        @Override
+        public void startElement(String uri, String localName, String qName, Attributes attributes) {
+            switch (localName) {
+                case "row": {
+                    String r = attributes.getValue("r");
+                    rowIndex = r == null ? nextRowIndex : Integer.parseInt(r) - 1;
+                    nextRowIndex = rowIndex + 1;
+                    nextColumn = 0;
+                    if (length > 0) {
+                        Arrays.fill(cells, 0, length, null);
+                    }
+                    length = 0;
+                    break;
+                }
+                case "c": {
+                    String r = attributes.getValue("r");
+                    column = r == null ? nextColumn : new CellReference(r).getCol();
+                    nextColumn = column + 1;
+                    cellType = attributes.getValue("t");
+                    String s = attributes.getValue("s");
+                    styleIndex = s == null ? -1 : Integer.parseInt(s);
+                    value.setLength(0);
+                    formula.setLength(0);
+                    hasValue = false;
+                    break;
+                }
+                case "v":
+                case "t":
+                    // <is><t>为内联字符串，共享字符串表中的<t>不会出现在工作表里
+                    inValue = true;
+                    hasValue = true;
+                    break;
+                case "f":
+                    inFormula = true;
+                    break;
+                default:
+                    break;
+            }
+        }
+
+        @Override
+        public void characters(char[] ch, int start, int len) {
+            if (inValue) {
+                value.append(ch, start, len);
+            } else if (inFormula) {
+                formula.append(ch, start, len);
+            }
+        }
+
+        @Override
+        public void endElement(String uri, String localName, String qName) {
+            switch (localName) {
+                case "v":
+                case "t":
+                    inValue = false;
+                    break;
+                case "f":
+                    inFormula = false;
+                    break;
+                case "c":
+                    setCell(column, cellText());
+                    break;
+                case "row":
+                    handler.onRow(rowIndex, cells, length);
+                    break;
+                default:
+                    break;
+            }
+        }
+
+        /**
+         * 按ExcelUtils.getCellValueAsString的规则生成单元格文本
+         */
+        private String cellText() {
+            if (formula.length() > 0) {
+                return formula.toString();
+            }
+            if (!hasValue) {
+                return "";
+            }
+            String raw = value.toString();
+            if (cellType == null || "n".equals(cellType)) {
+                return numericText(raw);
+            }
+            switch (cellType) {
+                case "s":
+                    return sharedStrings.getItemAt(Integer.parseInt(raw.trim())).getString();
+                case "b":
+                    return String.valueOf("1".equals(raw.trim()));
+                case "inlineStr":
+                case "str":
+                    return raw;
+                default:
+                    // 错误值等
+                    return "";
+            }
+        }
+
+        private String numericText(String raw) {
+            double number;
+            try {
+                number = Double.parseDouble(raw);
+            } catch (NumberFormatException e) {
+                return raw;
+            }
+            if (styleIndex >= 0 && styles != null) {
+                XSSFCellStyle style = styles.getStyleAt(styleIndex);
+                if (style != null && DateUtil.isADateFormat(style.getDataFormat(), style.getDataFormatString())
+                        && DateUtil.isValidExcelDate(number)) {
+                    return DateUtil.getJavaDate(number).toString();
+                }
+            }
+            // 避免科学计数法
+            return new BigDecimal(number).toPlainString();
+        }
+
+        private void setCell(int index, String text) {
+            if (index >= cells.length) {
+                cells = Arrays.copyOf(cells, Math.max(index + 1, cells.length * 2));
+            }
+            cells[index] = text;
+            if (index + 1 > length) {
+                length = index + 1;
+            }
+        }
+    }
+}
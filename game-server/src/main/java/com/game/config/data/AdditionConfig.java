@@ -1,5 +1,7 @@
 package com.game.config.data;
 
+import com.game.common.collection.*;
+
 import java.io.Serializable;
 import java.util.*;
 import java.math.BigDecimal;
@@ -13,10 +15,10 @@ public class AdditionConfig implements Serializable {
     private static final long serialVersionUID = 1L;
 
     /** intIntMap */
-    private Map<Integer, Integer> mapValue;
+    private IntIntMap mapValue;
 
     /** intList */
-    private List<Integer> listValue;
+    private IntList listValue;
 
     /** int */
     private Integer effectId;
@@ -35,19 +37,19 @@ public class AdditionConfig implements Serializable {
 
     public AdditionConfig() {}
 
-    public Map<Integer, Integer> getMapValue() {
+    public IntIntMap getMapValue() {
         return mapValue;
     }
 
-    public void setMapValue(Map<Integer, Integer> mapValue) {
+    public void setMapValue(IntIntMap mapValue) {
         this.mapValue = mapValue;
     }
 
-    public List<Integer> getListValue() {
+    public IntList getListValue() {
         return listValue;
     }
 
-    public void setListValue(List<Integer> listValue) {
+    public void setListValue(IntList listValue) {
         this.listValue = listValue;
     }
 
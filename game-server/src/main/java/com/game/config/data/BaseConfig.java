@@ -1,5 +1,7 @@
 package com.game.config.data;
 
+import com.game.common.collection.*;
+
 import java.io.Serializable;
 import java.util.*;
 import java.math.BigDecimal;
@@ -13,10 +15,10 @@ public class BaseConfig implements Serializable {
     private static final long serialVersionUID = 1L;
 
     /** intList2 */
-    private List<List<Integer>> pIntList2;
+    private IntList2 pIntList2;
 
     /** intIntMap */
-    private Map<Integer, Integer> pIntIntMap;
+    private IntIntMap pIntIntMap;
 
     /** string */
     private String pStr;
@@ -40,26 +42,26 @@ public class BaseConfig implements Serializable {
     private Integer pInt;
 
     /** intList */
-    private List<Integer> pIntList;
+    private IntList pIntList;
 
     /** stringList2 */
     private List<List<String>> pStrList2;
 
     public BaseConfig() {}
 
-    public List<List<Integer>> getPIntList2() {
+    public IntList2 getPIntList2() {
         return pIntList2;
     }
 
-    public void setPIntList2(List<List<Integer>> pIntList2) {
+    public void setPIntList2(IntList2 pIntList2) {
         this.pIntList2 = pIntList2;
     }
 
-    public Map<Integer, Integer> getPIntIntMap() {
+    public IntIntMap getPIntIntMap() {
         return pIntIntMap;
     }
 
-    public void setPIntIntMap(Map<Integer, Integer> pIntIntMap) {
+    public void setPIntIntMap(IntIntMap pIntIntMap) {
         this.pIntIntMap = pIntIntMap;
     }
 
@@ -119,11 +121,11 @@ public class BaseConfig implements Serializable {
         this.pInt = pInt;
     }
 
-    public List<Integer> getPIntList() {
+    public IntList getPIntList() {
         return pIntList;
     }
 
-    public void setPIntList(List<Integer> pIntList) {
+    public void setPIntList(IntList pIntList) {
         this.pIntList = pIntList;
     }
 
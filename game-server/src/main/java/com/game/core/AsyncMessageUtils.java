@@ -6,6 +6,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
 import javax.annotation.PostConstruct;
@@ -13,7 +14,10 @@ import java.util.concurrent.ExecutorService;
 
 /**
  * 异步消息工具类
- * 提供异步消息发送功能，避免阻塞Netty IO线程
+ * 提供异步消息发送功能，避免阻塞Netty IO线程。
+ * 消息在调用线程上构建后直接投递到连接所属的EventLoop，不经过业务线程池；
+ * 开启netty.server.writeBatching时同一EventLoop上的消息合并为一次任务、每个连接一次flush。
+ * 业务线程池只用于实际的计算任务。
  */
 @Component
 public class AsyncMessageUtils {
@@ -29,13 +33,15 @@ public class AsyncMessageUtils {
     @Qualifier("systemMessageExecutor")
     private ExecutorService systemMessageExecutor;
     
-    private static ExecutorService playerExecutor;
-    private static ExecutorService systemExecutor;
+    // 是否按EventLoop合并出站写
+    @Value("${netty.server.writeBatching:true}")
+    private boolean writeBatching;
+
+    private static volatile boolean batching = true;
 
     @PostConstruct
     public void init() {
-        playerExecutor = playerMessageExecutor;
-        systemExecutor = systemMessageExecutor;
+        batching = writeBatching;
     }
     
     /**
@@ -57,7 +63,7 @@ public class AsyncMessageUtils {
     }
     
     /**
-     * 使用玩家消息线程池异步发送单播消息
+     * 异步发送玩家消息
      * 
      * @param ctx ChannelHandlerContext
      * @param msgId 消息类型
@@ -66,32 +72,34 @@ public class AsyncMessageUtils {
      */
     public static void sendPlayerMsgAsync(ChannelHandlerContext ctx, int msgId, int sequence,
                                        com.google.protobuf.ByteString data) {
-        sendUnicastAsync(ctx, msgId, sequence, data, playerExecutor);
+        sendUnicastAsync(ctx, msgId, sequence, data);
     }
     
     /**
-     * 使用指定线程池异步发送单播消息
+     * 异步发送单播消息，直接投递到连接所属的EventLoop
      * 
      * @param ctx ChannelHandlerContext
      * @param msgId 消息类型
      * @param sequence 序列号
      * @param data 消息数据
-     * @param executor 执行线程池
      */
     private static void sendUnicastAsync(ChannelHandlerContext ctx, int msgId, int sequence,
-                                       com.google.protobuf.ByteString data, ExecutorService executor) {
-        executor.submit(() -> {
-            GameMessage response = GameMessage.newBuilder()
-                    .setMsgId(msgId)
-                    .setSequence(sequence)
-                    .setData(data)
-                    .build();
+                                       com.google.protobuf.ByteString data) {
+        GameMessage response = GameMessage.newBuilder()
+                .setMsgId(msgId)
+                .setSequence(sequence)
+                .setData(data)
+                .build();
+        if (batching) {
+            EventLoopWriteBatcher.write(ctx, response);
+        } else {
+            // 非IO线程调用时由Netty提交一次写任务到EventLoop
             ctx.writeAndFlush(response);
-        });
+        }
     }
     
     /**
-     * 使用系统消息线程池异步发送单播消息
+     * 异步发送系统消息
      * 
      * @param ctx ChannelHandlerContext
      * @param msgId 消息类型
@@ -100,6 +108,6 @@ public class AsyncMessageUtils {
      */
     public static void sendSystemMsgAsync(ChannelHandlerContext ctx, int msgId, int sequence,
                                              com.google.protobuf.ByteString data) {
-        sendUnicastAsync(ctx, msgId, sequence, data, systemExecutor);
+        sendUnicastAsync(ctx, msgId, sequence, data);
     }
 }
\ No newline at end of file
@@ -0,0 +1,122 @@
+package com.game.core;
+
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.util.concurrent.EventExecutor;
+import io.netty.util.internal.PlatformDependent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 按EventLoop合并的出站写队列
+ * 业务线程发给同一个EventLoop上各连接的消息先进入该EventLoop的无锁队列，队列为空转非空时才提交一次排空任务：
+ * 排空任务在EventLoop线程上依次write，结束后每个涉及的连接只flush一次。
+ * 与直接ctx.writeAndFlush相比，突发发送时省去每条消息一次的任务提交和系统调用。
+ */
+public final class EventLoopWriteBatcher {
+
+    private static final Logger logger = LoggerFactory.getLogger(EventLoopWriteBatcher.class);
+
+    /**
+     * 单次排空最多处理的消息数，超出部分重新提交，避免长时间占用IO线程
+     */
+    private static final int MAX_DRAIN = 1024;
+
+    private static final ConcurrentMap<EventExecutor, Batch> BATCHES = new ConcurrentHashMap<>();
+
+    private EventLoopWriteBatcher() {
+    }
+
+    /**
+     * 将消息放入连接所属EventLoop的写队列
+     *
+     * @param ctx ChannelHandlerContext
+     * @param msg 出站消息
+     */
+    public static void write(ChannelHandlerContext ctx, Object msg) {
+        EventExecutor loop = ctx.executor();
+        if (loop.inEventLoop()) {
+            // 已经在IO线程上：队列中还有待写出的消息时排在其后，保证同一连接的消息顺序；否则直接写出
+            // 队列只在本线程上消费，此处看到队列为空说明之前入队的消息都已写出
+            Batch batch = BATCHES.get(loop);
+            if (batch != null && !batch.queue.isEmpty()) {
+                batch.offer(ctx, msg);
+            } else {
+                ctx.writeAndFlush(msg);
+            }
+            return;
+        }
+        BATCHES.computeIfAbsent(loop, Batch::new).offer(ctx, msg);
+    }
+
+    private static final class PendingWrite {
+        private final ChannelHandlerContext ctx;
+        private final Object msg;
+
+        private PendingWrite(ChannelHandlerContext ctx, Object msg) {
+            this.ctx = ctx;
+            this.msg = msg;
+        }
+    }
+
+    private static final class Batch implements Runnable {
+        private final EventExecutor loop;
+        private final Queue<PendingWrite> queue = PlatformDependent.newMpscQueue();
+        private final AtomicBoolean scheduled = new AtomicBoolean();
+        /**
+         * 本轮写过的连接，只在EventLoop线程上访问
+         */
+        private final Set<ChannelHandlerContext> touched = Collections.newSetFromMap(new IdentityHashMap<>());
+
+        private Batch(EventExecutor loop) {
+            this.loop = loop;
+        }
+
+        private void offer(ChannelHandlerContext ctx, Object msg) {
+            queue.offer(new PendingWrite(ctx, msg));
+            schedule();
+        }
+
+        private void schedule() {
+            if (scheduled.compareAndSet(false, true)) {
+                try {
+                    loop.execute(this);
+                } catch (RejectedExecutionException e) {
+                    // EventLoop已关闭，连接随之关闭，丢弃排队的消息
+                    scheduled.set(false);
+                    queue.clear();
+                    BATCHES.remove(loop, this);
+                    logger.debug("Event loop rejected batched writes, dropped pending messages", e);
+                }
+            }
+        }
+
+        @Override
+        public void run() {
+            // 先清标记再排空，排空期间新入队的消息会触发下一次提交，不会遗漏
+            scheduled.set(false);
+            PendingWrite pending;
+            int count = 0;
+            while (count < MAX_DRAIN && (pending = queue.poll()) != null) {
+                pending.ctx.write(pending.msg);
+                touched.add(pending.ctx);
+                count++;
+            }
+            for (ChannelHandlerContext ctx : touched) {
+                ctx.flush();
+            }
+            touched.clear();
+            if (!queue.isEmpty()) {
+                schedule();
+            }
+        }
+    }
+}
@@ -1,6 +1,8 @@
 package com.game.core;
 
 import com.game.model.heartbeat.HeartBeatManager;
+import com.game.model.player.resume.SessionResumeManager;
+import com.game.netty.kcp.KcpServer;
 import org.springframework.beans.BeansException;
 import org.springframework.context.ApplicationContext;
 import org.springframework.context.ApplicationContextAware;
@@ -16,6 +18,10 @@ public class GameEventManager implements ApplicationContextAware {
     private ApplicationContext applicationContext;
     
     private HeartBeatManager heartBeatManager;
+
+    private KcpServer kcpServer;
+
+    private SessionResumeManager sessionResumeManager;
     
     @Override
     public void setApplicationContext(ApplicationContext applicationContext) throws BeansException {
@@ -34,6 +40,32 @@ public class GameEventManager implements ApplicationContextAware {
         }
         return heartBeatManager;
     }
+
+    /**
+     * 获取KcpServer实例
+     * 延迟初始化以避免循环依赖
+     *
+     * @return KcpServer实例
+     */
+    private KcpServer getKcpServer() {
+        if (kcpServer == null) {
+            kcpServer = applicationContext.getBean(KcpServer.class);
+        }
+        return kcpServer;
+    }
+
+    /**
+     * 获取SessionResumeManager实例
+     * 延迟初始化以避免循环依赖
+     *
+     * @return SessionResumeManager实例
+     */
+    private SessionResumeManager getSessionResumeManager() {
+        if (sessionResumeManager == null) {
+            sessionResumeManager = applicationContext.getBean(SessionResumeManager.class);
+        }
+        return sessionResumeManager;
+    }
     
     /**
      * 处理玩家注销事件
@@ -43,6 +75,8 @@ public class GameEventManager implements ApplicationContextAware {
      */
     public void handlePlayerUnregistered(Long playerId) {
         getHeartBeatManager().unregisterPlayerHeartbeat(playerId);
+        getKcpServer().unbind(playerId);
+        getSessionResumeManager().close(playerId);
     }
     
     /**
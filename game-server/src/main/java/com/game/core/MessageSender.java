@@ -1,6 +1,10 @@
 package com.game.core;
 
 import com.game.model.player.login.PlayerSessionManager;
+import com.game.model.player.resume.SessionResumeManager;
+import com.game.netty.kcp.KcpServer;
+import com.game.proto.GameMessage;
+import com.google.protobuf.GeneratedMessageV3;
 import io.netty.channel.ChannelHandlerContext;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -22,6 +26,10 @@ public class MessageSender implements ApplicationContextAware {
 
     private PlayerSessionManager playerSessionManager;
 
+    private KcpServer kcpServer;
+
+    private SessionResumeManager sessionResumeManager;
+
     @Override
     public void setApplicationContext(ApplicationContext applicationContext) throws BeansException {
         this.applicationContext = applicationContext;
@@ -40,6 +48,32 @@ public class MessageSender implements ApplicationContextAware {
         return playerSessionManager;
     }
 
+    /**
+     * 获取KcpServer实例
+     * 延迟初始化以避免循环依赖
+     *
+     * @return KcpServer实例
+     */
+    private KcpServer getKcpServer() {
+        if (kcpServer == null) {
+            kcpServer = applicationContext.getBean(KcpServer.class);
+        }
+        return kcpServer;
+    }
+
+    /**
+     * 获取SessionResumeManager实例
+     * 延迟初始化以避免循环依赖
+     *
+     * @return SessionResumeManager实例
+     */
+    private SessionResumeManager getSessionResumeManager() {
+        if (sessionResumeManager == null) {
+            sessionResumeManager = applicationContext.getBean(SessionResumeManager.class);
+        }
+        return sessionResumeManager;
+    }
+
     /**
      * 向指定玩家发送消息
      *
@@ -61,12 +95,39 @@ public class MessageSender implements ApplicationContextAware {
             return false;
         }
 
+        // 连接已断开：会话等待恢复时缓存消息，已经恢复到新连接时改从新连接发出
+        if (!ctx.channel().isActive()) {
+            GameMessage message = GameMessage.newBuilder()
+                    .setMsgId(msgId)
+                    .setSequence(sequence)
+                    .setData(data.build().toByteString())
+                    .build();
+            return getSessionResumeManager().deliver(playerId, ctx.channel(), message);
+        }
+
         // 发送消息
         AsyncMessageUtils.sendPlayerMsgAsync(ctx, msgId, sequence, data.build().toByteString());
 //        MessageUtils.sendResponse(ctx, msgId, sequence, data.build().toByteString());
         return true;
     }
 
+    /**
+     * 向指定玩家发送实时消息（战斗、移动等），玩家绑定了可靠UDP时走UDP，否则走TCP
+     *
+     * @param playerId 玩家ID
+     * @param msgId    消息ID
+     * @param data     消息数据
+     * @return 发送是否成功
+     */
+    public boolean sendRealtimeToPlayer(long playerId, int msgId, GeneratedMessageV3.Builder<?> data) {
+        // UDP会话在消息排队期间关闭时同样改走TCP
+        if (getKcpServer().send(playerId, msgId, 0, data.build().toByteString(),
+                () -> sendMessageToPlayer(playerId, msgId, 0, data))) {
+            return true;
+        }
+        return sendMessageToPlayer(playerId, msgId, 0, data);
+    }
+
     /**
      * 检查玩家是否在线
      *
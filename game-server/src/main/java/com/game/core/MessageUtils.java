@@ -2,6 +2,7 @@ package com.game.core;
 
 import com.game.proto.ErrorMessage;
 import com.game.proto.GameMessage;
+import com.game.netty.handler.WriteCoalescingHandler;
 import com.game.proto.msgid.MsgIdEnum;
 import io.netty.channel.ChannelHandlerContext;
 
@@ -29,6 +30,25 @@ public class MessageUtils {
         ctx.writeAndFlush(response);
     }
     
+    /**
+     * 发送延迟敏感的单播消息，跳过flush合并立即写出，可以在任意线程调用
+     * 
+     * @param ctx ChannelHandlerContext
+     * @param msgId 消息类型
+     * @param sequence 序列号
+     * @param data 消息数据
+     */
+    public static void sendUrgent(ChannelHandlerContext ctx, int msgId, int sequence, com.google.protobuf.ByteString data) {
+        GameMessage response = GameMessage.newBuilder()
+                .setMsgId(msgId)
+                .setSequence(sequence)
+                .setData(data)
+                .build();
+        
+        ctx.write(response);
+        WriteCoalescingHandler.flushNow(ctx.channel());
+    }
+    
     /**
      * 发送广播消息
      * 
@@ -2,6 +2,7 @@ package com.game.core;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
@@ -33,6 +34,36 @@ public class ThreadPoolConfig {
      */
     private ExecutorService systemMessageExecutorService;
 
+    /**
+     * 缓存持久化线程池
+     * 专用于缓存写库，与JVM公共线程池（并行流、启动加载等）隔离
+     */
+    private ExecutorService persistenceExecutorService;
+
+    /**
+     * 登录线程池
+     * 登录的数据准备阶段（加载/创建玩家）在这里执行，不占用IO线程和玩家消息线程池
+     */
+    private ExecutorService loginExecutorService;
+
+    /**
+     * 数据库连接池大小，持久化线程数据此推算
+     */
+    @Value("${spring.datasource.hikari.maximum-pool-size:10}")
+    private int dbPoolSize;
+
+    /**
+     * 持久化线程数，0表示按连接池大小自动推算
+     */
+    @Value("${game.cache.persistence-threads:0}")
+    private int persistenceThreads;
+
+    /**
+     * 同时处理的登录数上限，登录线程数与之相同
+     */
+    @Value("${game.login.max-concurrent:16}")
+    private int loginThreads;
+
     /**
      * 玩家消息处理线程池
      * 用于处理玩家相关的消息，如移动、战斗、聊天等
@@ -69,6 +100,48 @@ public class ThreadPoolConfig {
         return systemMessageExecutorService;
     }
     
+    /**
+     * 缓存持久化线程池
+     * 线程数默认取数据库连接池的一半，写库最多占用一半连接，剩余连接留给登录、缓存未命中等请求路径。
+     * 每个缓存同一时刻最多一个写库任务（由CacheManager保证），所以队列只需容纳缓存数量级的任务；
+     * 队列满时直接拒绝，由调用方视为背压处理，不在调用线程上同步写库。
+     *
+     * @return ExecutorService线程池实例
+     */
+    @Bean(name = "persistenceExecutor")
+    public ExecutorService persistenceExecutor() {
+        int threads = persistenceThreads > 0 ? persistenceThreads : Math.max(1, dbPoolSize / 2);
+        persistenceExecutorService = new ThreadPoolExecutor(
+                threads,
+                threads,
+                60L, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(256),
+                new CustomizableThreadFactory("persistence-pool-%d"),
+                new ThreadPoolExecutor.AbortPolicy());
+        logger.info("Persistence executor created with {} threads (db pool size: {})", threads, dbPoolSize);
+        return persistenceExecutorService;
+    }
+
+    /**
+     * 登录线程池
+     * 同时进行的登录数由LoginAdmissionController控制在线程数以内，超出的登录在控制器中排队，
+     * 线程池队列只作兜底，满时直接拒绝。
+     *
+     * @return ExecutorService线程池实例
+     */
+    @Bean(name = "loginExecutor")
+    public ExecutorService loginExecutor() {
+        int threads = Math.max(1, loginThreads);
+        loginExecutorService = new ThreadPoolExecutor(
+                threads,
+                threads,
+                60L, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(threads),
+                new CustomizableThreadFactory("login-pool-%d"),
+                new ThreadPoolExecutor.AbortPolicy());
+        return loginExecutorService;
+    }
+
     /**
      * 优雅关闭所有线程池
      */
@@ -104,6 +177,34 @@ public class ThreadPoolConfig {
             }
         }
         
+        // 关闭缓存持久化线程池（关闭前的最后一次写库由CacheManager完成，此处只等待收尾）
+        if (persistenceExecutorService != null) {
+            persistenceExecutorService.shutdown();
+            try {
+                if (!persistenceExecutorService.awaitTermination(30, TimeUnit.SECONDS)) {
+                    logger.warn("Persistence executor did not terminate in 30 seconds, forcing shutdown");
+                    persistenceExecutorService.shutdownNow();
+                }
+            } catch (InterruptedException e) {
+                persistenceExecutorService.shutdownNow();
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        // 关闭登录线程池
+        if (loginExecutorService != null) {
+            loginExecutorService.shutdown();
+            try {
+                if (!loginExecutorService.awaitTermination(30, TimeUnit.SECONDS)) {
+                    logger.warn("Login executor did not terminate in 30 seconds, forcing shutdown");
+                    loginExecutorService.shutdownNow();
+                }
+            } catch (InterruptedException e) {
+                loginExecutorService.shutdownNow();
+                Thread.currentThread().interrupt();
+            }
+        }
+
         logger.info("Thread pools shut down completed");
     }
 }
\ No newline at end of file
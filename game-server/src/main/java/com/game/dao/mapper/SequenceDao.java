@@ -0,0 +1,29 @@
+package com.game.dao.mapper;
+
+import org.apache.ibatis.annotations.Insert;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+import org.apache.ibatis.annotations.Update;
+
+/**
+ * 号段序列数据访问接口
+ */
+@Mapper
+public interface SequenceDao {
+
+    /**
+     * 序列不存在时以初始值创建
+     */
+    @Insert("INSERT IGNORE INTO sequence (name, nextval, updatetime) VALUES (#{name}, #{initial}, #{now})")
+    int insertIfAbsent(@Param("name") String name, @Param("initial") long initial, @Param("now") long now);
+
+    /**
+     * 原子地租出一段号码
+     */
+    @Update("UPDATE sequence SET nextval = nextval + #{blockSize}, updatetime = #{now} WHERE name = #{name}")
+    int advance(@Param("name") String name, @Param("blockSize") int blockSize, @Param("now") long now);
+
+    @Select("SELECT nextval FROM sequence WHERE name = #{name}")
+    Long selectNext(@Param("name") String name);
+}
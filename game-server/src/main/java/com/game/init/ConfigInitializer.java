@@ -1,5 +1,7 @@
 package com.game.init;
 
+import com.game.config.ConfigBundleLoader;
+import com.game.config.ConfigFileWatcher;
 import com.game.config.ExcelConfigManager;
 import com.game.constant.SystemInitializeOrder;
 import com.game.model.config.ConfigManager;
@@ -9,6 +11,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
 import java.io.File;
+import java.util.Arrays;
 
 /**
  * 配置初始化类
@@ -25,6 +28,12 @@ public class ConfigInitializer implements SystemInitializer {
     @Autowired
     private ExcelConfigManager excelConfigManager;
 
+    @Autowired
+    private ConfigBundleLoader configBundleLoader;
+
+    @Autowired
+    private ConfigFileWatcher configFileWatcher;
+
     @Override
     public int getOrder() {
         return SystemInitializeOrder.CONFIG;
@@ -61,20 +70,21 @@ public class ConfigInitializer implements SystemInitializer {
             }
             
             // 获取所有Excel文件
-            File[] excelFiles = configDir.listFiles((dir, name) -> 
-                name.toLowerCase().endsWith(".xlsx") || name.toLowerCase().endsWith(".xls"));
+            File[] excelFiles = configDir.listFiles((dir, name) -> ExcelConfigManager.isConfigFile(name));
             
             if (excelFiles == null || excelFiles.length == 0) {
                 logger.warn("配置目录中没有找到Excel文件: {}", configDir.getAbsolutePath());
                 return;
             }
             
-            // 加载每个Excel文件
-            for (File excelFile : excelFiles) {
-                excelConfigManager.loadConfig(excelFile);
-            }
+            // 优先从配置包加载，配置包缺失或过期的表再解析Excel，全部作为一个快照发布
+            ConfigBundleLoader.Result bundle = configBundleLoader.load(configDir, Arrays.asList(excelFiles));
+            int loaded = excelConfigManager.loadConfigs(bundle.getStaleFiles(), bundle.getTables());
             
-            logger.info("配置文件初始化完成，共加载了 {} 个配置文件", excelFiles.length);
+            logger.info("配置文件初始化完成，共加载了 {} 个配置文件", loaded);
+
+            // 按配置开启文件变更监听
+            configFileWatcher.start(configDir);
         } catch (Exception e) {
             logger.error("初始化配置文件时发生错误", e);
             throw e;
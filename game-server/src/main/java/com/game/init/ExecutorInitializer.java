@@ -21,7 +21,7 @@ public class ExecutorInitializer implements SystemInitializer {
 
     @Override
     public int getOrder() {
-        return SystemInitializeOrder.CACHE;
+        return SystemInitializeOrder.EXECUTOR;
     }
 
     @Override
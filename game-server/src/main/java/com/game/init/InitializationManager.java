@@ -3,19 +3,34 @@ package com.game.init;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.ApplicationArguments;
 import org.springframework.boot.ApplicationRunner;
 import org.springframework.context.ApplicationContext;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
 import org.springframework.stereotype.Component;
+import org.springframework.util.ClassUtils;
 
 import java.util.ArrayList;
 import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 
 /**
  * 系统初始化管理器
  * 负责在系统启动时统一执行所有实现了SystemInitializer接口的初始化逻辑
+ * <p>
+ * 初始化器按声明的依赖关系组成有向无环图，在有界线程池中执行：
+ * 依赖全部成功后立即提交，互不依赖的阶段（如配置解析、缓存加载、ID生成器）并行执行；
+ * 任一初始化器失败时，依赖它的初始化器不再执行，启动失败。
  */
 @Component
 public class InitializationManager implements ApplicationRunner {
@@ -25,6 +40,17 @@ public class InitializationManager implements ApplicationRunner {
     @Autowired
     private ApplicationContext applicationContext;
 
+    /**
+     * 初始化线程数，0表示取CPU核数
+     */
+    @Value("${game.init.threads:0}")
+    private int initThreads;
+
+    /**
+     * 最近一次启动的耗时报告
+     */
+    private volatile InitializationReport report;
+
     /**
      * 系统启动后自动执行初始化
      */
@@ -41,25 +67,143 @@ public class InitializationManager implements ApplicationRunner {
      * 执行所有初始化器的初始化逻辑
      */
     private void initializeAll() throws Exception {
-        // 获取所有实现了SystemInitializer接口的bean
-        Map<String, SystemInitializer> initializerMap = applicationContext.getBeansOfType(SystemInitializer.class);
-
-        // 按照顺序排序
-        List<SystemInitializer> sortedInitializers = new ArrayList<>(initializerMap.values());
-        sortedInitializers.sort(Comparator.comparingInt(SystemInitializer::getOrder));
-
-        // 依次执行初始化
-        for (SystemInitializer initializer : sortedInitializers) {
-            try {
-                initializer.initialize();
-            } catch (Exception e) {
-                throw new Exception("初始化器执行失败", e);
+        // 获取所有实现了SystemInitializer接口的bean，按order排序作为同层提交顺序
+        List<SystemInitializer> initializers = new ArrayList<>(applicationContext.getBeansOfType(SystemInitializer.class).values());
+        initializers.sort(Comparator.comparingInt(SystemInitializer::getOrder));
+
+        Map<SystemInitializer, List<SystemInitializer>> dependencyMap = resolveDependencies(initializers);
+        List<SystemInitializer> sorted = topologicalSort(initializers, dependencyMap);
+
+        InitializationReport currentReport = new InitializationReport();
+        this.report = currentReport;
+
+        int threads = initThreads > 0 ? initThreads : Runtime.getRuntime().availableProcessors();
+        threads = Math.max(1, Math.min(threads, sorted.size()));
+        ExecutorService initExecutor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(), new CustomizableThreadFactory("system-init-"));
+
+        long startTime = System.currentTimeMillis();
+        Map<SystemInitializer, CompletableFuture<Void>> futures = new LinkedHashMap<>();
+        try {
+            // 拓扑序保证依赖的future先创建
+            for (SystemInitializer initializer : sorted) {
+                List<SystemInitializer> dependencies = dependencyMap.get(initializer);
+                List<String> dependencyNames = new ArrayList<>();
+                CompletableFuture<?>[] dependencyFutures = new CompletableFuture<?>[dependencies.size()];
+                for (int i = 0; i < dependencies.size(); i++) {
+                    dependencyNames.add(getName(dependencies.get(i)));
+                    dependencyFutures[i] = futures.get(dependencies.get(i));
+                }
+
+                InitializationReport.Phase phase = currentReport.addPhase(getName(initializer), dependencyNames);
+                CompletableFuture<Void> future = CompletableFuture.allOf(dependencyFutures)
+                        .whenComplete((v, e) -> {
+                            if (e != null) {
+                                phase.skip();
+                            }
+                        })
+                        .thenRunAsync(() -> runInitializer(initializer, phase, startTime), initExecutor);
+                futures.put(initializer, future);
+            }
+
+            CompletableFuture.allOf(futures.values().toArray(new CompletableFuture<?>[0])).join();
+        } catch (CompletionException e) {
+            throw new Exception("初始化器执行失败", e.getCause());
+        } finally {
+            currentReport.finish(System.currentTimeMillis() - startTime);
+            initExecutor.shutdown();
+            logger.info("系统初始化耗时报告:{}", currentReport.format());
+        }
+    }
+
+    /**
+     * 执行单个初始化器并记录耗时
+     */
+    private void runInitializer(SystemInitializer initializer, InitializationReport.Phase phase, long startTime) {
+        long phaseStart = System.currentTimeMillis();
+        phase.start(phaseStart - startTime);
+        try {
+            initializer.initialize();
+            phase.finish(System.currentTimeMillis() - phaseStart, null);
+        } catch (Exception e) {
+            phase.finish(System.currentTimeMillis() - phaseStart, e);
+            logger.error("初始化器 {} 执行失败", getName(initializer), e);
+            throw new CompletionException(e);
+        }
+    }
+
+    /**
+     * 把声明的依赖类型解析为初始化器实例
+     */
+    private Map<SystemInitializer, List<SystemInitializer>> resolveDependencies(List<SystemInitializer> initializers) {
+        Map<SystemInitializer, List<SystemInitializer>> dependencyMap = new HashMap<>();
+        for (SystemInitializer initializer : initializers) {
+            List<SystemInitializer> dependencies = new ArrayList<>();
+            for (Class<? extends SystemInitializer> dependencyType : initializer.getDependencies()) {
+                SystemInitializer dependency = null;
+                for (SystemInitializer candidate : initializers) {
+                    if (dependencyType.isInstance(candidate)) {
+                        dependency = candidate;
+                        break;
+                    }
+                }
+                if (dependency == null) {
+                    throw new IllegalStateException("初始化器 " + getName(initializer) + " 依赖的 "
+                            + dependencyType.getSimpleName() + " 不存在");
+                }
+                dependencies.add(dependency);
             }
+            dependencyMap.put(initializer, dependencies);
         }
+        return dependencyMap;
+    }
+
+    /**
+     * 拓扑排序，同时检查循环依赖
+     */
+    private List<SystemInitializer> topologicalSort(List<SystemInitializer> initializers,
+                                                    Map<SystemInitializer, List<SystemInitializer>> dependencyMap) {
+        List<SystemInitializer> sorted = new ArrayList<>();
+        // 0未访问，1访问中，2已完成
+        Map<SystemInitializer, Integer> visitState = new HashMap<>();
+        for (SystemInitializer initializer : initializers) {
+            visit(initializer, dependencyMap, visitState, sorted, new ArrayList<>());
+        }
+        return sorted;
+    }
+
+    private void visit(SystemInitializer initializer, Map<SystemInitializer, List<SystemInitializer>> dependencyMap,
+                       Map<SystemInitializer, Integer> visitState, List<SystemInitializer> sorted, List<String> path) {
+        int state = visitState.getOrDefault(initializer, 0);
+        if (state == 2) {
+            return;
+        }
+        path.add(getName(initializer));
+        if (state == 1) {
+            throw new IllegalStateException("初始化器存在循环依赖: " + String.join(" -> ", path));
+        }
+        visitState.put(initializer, 1);
+        for (SystemInitializer dependency : dependencyMap.get(initializer)) {
+            visit(dependency, dependencyMap, visitState, sorted, path);
+        }
+        visitState.put(initializer, 2);
+        path.remove(path.size() - 1);
+        sorted.add(initializer);
+    }
+
+    private String getName(SystemInitializer initializer) {
+        return ClassUtils.getUserClass(initializer).getSimpleName();
+    }
+
+    /**
+     * 获取最近一次启动的耗时报告，尚未启动时返回null
+     */
+    public InitializationReport getReport() {
+        return report;
     }
 
     @Override
     public void run(ApplicationArguments args) throws Exception {
         init();
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,192 @@
+package com.game.init;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 启动耗时报告
+ * 记录每个初始化器的开始时间、耗时、执行线程和结果，用于追踪启动耗时的变化
+ */
+public class InitializationReport {
+
+    /**
+     * 初始化器执行结果
+     */
+    public enum Status {
+        /** 等待依赖完成 */
+        PENDING,
+        /** 执行中 */
+        RUNNING,
+        /** 执行成功 */
+        SUCCESS,
+        /** 执行失败 */
+        FAILED,
+        /** 因依赖失败而未执行 */
+        SKIPPED
+    }
+
+    /**
+     * 单个初始化器的执行记录
+     */
+    public static class Phase {
+        private final String name;
+        private final List<String> dependencies;
+        private volatile Status status = Status.PENDING;
+        private volatile long startOffset;
+        private volatile long duration;
+        private volatile String thread;
+        private volatile String error;
+
+        Phase(String name, List<String> dependencies) {
+            this.name = name;
+            this.dependencies = dependencies;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public List<String> getDependencies() {
+            return dependencies;
+        }
+
+        public Status getStatus() {
+            return status;
+        }
+
+        /**
+         * 相对于启动开始的偏移（毫秒）
+         */
+        public long getStartOffset() {
+            return startOffset;
+        }
+
+        /**
+         * 执行耗时（毫秒）
+         */
+        public long getDuration() {
+            return duration;
+        }
+
+        public String getThread() {
+            return thread;
+        }
+
+        public String getError() {
+            return error;
+        }
+
+        void start(long offset) {
+            this.startOffset = offset;
+            this.thread = Thread.currentThread().getName();
+            this.status = Status.RUNNING;
+        }
+
+        void finish(long duration, Throwable e) {
+            this.duration = duration;
+            if (e == null) {
+                this.status = Status.SUCCESS;
+            } else {
+                this.status = Status.FAILED;
+                this.error = e.getClass().getSimpleName() + ": " + e.getMessage();
+            }
+        }
+
+        void skip() {
+            this.status = Status.SKIPPED;
+        }
+
+        Map<String, Object> toMap() {
+            Map<String, Object> map = new LinkedHashMap<>();
+            map.put("name", name);
+            map.put("dependencies", dependencies);
+            map.put("status", status);
+            map.put("startOffset", startOffset);
+            map.put("duration", duration);
+            map.put("thread", thread);
+            if (error != null) {
+                map.put("error", error);
+            }
+            return map;
+        }
+    }
+
+    private final List<Phase> phases = new ArrayList<>();
+    private final long startTime = System.currentTimeMillis();
+    private volatile long totalDuration;
+
+    Phase addPhase(String name, List<String> dependencies) {
+        Phase phase = new Phase(name, dependencies);
+        phases.add(phase);
+        return phase;
+    }
+
+    void finish(long totalDuration) {
+        this.totalDuration = totalDuration;
+    }
+
+    public List<Phase> getPhases() {
+        return Collections.unmodifiableList(phases);
+    }
+
+    /**
+     * 启动开始时间戳
+     */
+    public long getStartTime() {
+        return startTime;
+    }
+
+    /**
+     * 全部初始化的实际耗时（毫秒）
+     */
+    public long getTotalDuration() {
+        return totalDuration;
+    }
+
+    /**
+     * 各阶段耗时之和，与实际耗时的差值即并行节省的时间
+     */
+    public long getSerialDuration() {
+        long sum = 0;
+        for (Phase phase : phases) {
+            sum += phase.duration;
+        }
+        return sum;
+    }
+
+    /**
+     * 转换为HTTP接口返回结构
+     */
+    public Map<String, Object> toMap() {
+        Map<String, Object> map = new LinkedHashMap<>();
+        map.put("startTime", startTime);
+        map.put("totalDuration", totalDuration);
+        map.put("serialDuration", getSerialDuration());
+        List<Map<String, Object>> phaseList = new ArrayList<>();
+        for (Phase phase : phases) {
+            phaseList.add(phase.toMap());
+        }
+        map.put("phases", phaseList);
+        return map;
+    }
+
+    /**
+     * 格式化为日志输出的表格
+     */
+    public String format() {
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format("%n%-28s %-8s %8s %8s  %-24s %s%n", "initializer", "status", "start", "cost", "thread", "dependencies"));
+        List<Phase> sorted = new ArrayList<>(phases);
+        sorted.sort((a, b) -> Long.compare(a.startOffset, b.startOffset));
+        for (Phase phase : sorted) {
+            sb.append(String.format("%-28s %-8s %6dms %6dms  %-24s %s%n",
+                    phase.name, phase.status, phase.startOffset, phase.duration,
+                    phase.thread == null ? "-" : phase.thread, phase.dependencies));
+        }
+        sb.append(String.format("total=%dms, serial=%dms", totalDuration, getSerialDuration()));
+        return sb.toString();
+    }
+}
@@ -7,6 +7,9 @@ import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
+import java.util.Arrays;
+import java.util.List;
+
 /**
  * 接口初始化器
  * 在系统启动时初始化所有接口
@@ -24,6 +27,11 @@ public class InterfaceInitializer implements SystemInitializer {
         return SystemInitializeOrder.INTERFACE;
     }
 
+    @Override
+    public List<Class<? extends SystemInitializer>> getDependencies() {
+        return Arrays.asList(ConfigInitializer.class, CacheInitializer.class, ExecutorInitializer.class, IdGeneratorInitializer.class);
+    }
+
     @Override
     public void initialize() throws Exception {
         //玩家登录接口
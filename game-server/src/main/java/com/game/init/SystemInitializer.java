@@ -1,8 +1,14 @@
 package com.game.init;
 
+import java.util.Collections;
+import java.util.List;
+
 /**
  * 系统初始化接口
  * 所有需要在系统启动时执行初始化逻辑的类都应该实现此接口
+ * <p>
+ * 初始化器之间按getDependencies声明的依赖关系组成有向无环图并行执行，
+ * 没有依赖关系的初始化器可能同时执行，实现时不能依赖getOrder隐含的先后顺序
  */
 public interface SystemInitializer {
     
@@ -15,11 +21,21 @@ public interface SystemInitializer {
     
     /**
      * 获取初始化顺序
-     * 数字越小优先级越高，越早执行
+     * 仅决定依赖都已满足的初始化器之间的提交顺序，数字越小越先提交
      * 
      * @return 初始化顺序
      */
     default int getOrder() {
         return 0;
     }
-}
\ No newline at end of file
+
+    /**
+     * 获取依赖的初始化器
+     * 所有依赖执行成功后才会执行本初始化器
+     *
+     * @return 依赖的初始化器类型
+     */
+    default List<Class<? extends SystemInitializer>> getDependencies() {
+        return Collections.emptyList();
+    }
+}
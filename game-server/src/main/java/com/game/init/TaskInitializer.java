@@ -1,6 +1,6 @@
 package com.game.init;
 
-import com.game.cache.CacheManager;
+import com.game.cache.CacheFlushScheduler;
 import com.game.common.constant.GameConstants;
 import com.game.common.util.ScheduleUtil;
 import com.game.constant.SystemInitializeOrder;
@@ -10,6 +10,8 @@ import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
+import java.util.Collections;
+import java.util.List;
 import java.util.concurrent.TimeUnit;
 
 /**
@@ -22,7 +24,7 @@ public class TaskInitializer implements SystemInitializer {
     private static final Logger logger = LoggerFactory.getLogger(TaskInitializer.class);
 
     @Autowired
-    private CacheManager cacheManager;
+    private CacheFlushScheduler cacheFlushScheduler;
 
     @Autowired
     private HeartBeatManager heartBeatManager;
@@ -32,13 +34,15 @@ public class TaskInitializer implements SystemInitializer {
         return SystemInitializeOrder.TASK;
     }
 
+    @Override
+    public List<Class<? extends SystemInitializer>> getDependencies() {
+        return Collections.singletonList(CacheInitializer.class);
+    }
+
     @Override
     public void initialize() throws Exception {
-        ScheduleUtil.scheduleAtFixedRate(() -> cacheManager.syncAllDataToDatabase(),
-                GameConstants.Cache.PERSISTENCE_INTERVAL,
-                GameConstants.Cache.PERSISTENCE_INTERVAL,
-                TimeUnit.MILLISECONDS
-        );
+        // 缓存按槽位错峰持久化，避免每个周期集中写库
+        cacheFlushScheduler.start();
 
         ScheduleUtil.scheduleAtFixedRate(() -> heartBeatManager.checkHeartbeatTimeouts(),
                 GameConstants.Heartbeat.HEARTBEAT_CHECK_INTERVAL,
@@ -0,0 +1,28 @@
+package com.game.model.activity;
+
+import com.game.config.data.PrivateActivityConfig;
+
+/**
+ * 活动开启/结束监听器
+ * 实现为Spring bean即可，由ActivityManager在活动边界（开启当天零点、结束次日零点）准时回调，回调在调度线程执行
+ */
+public interface ActivityListener {
+
+    /**
+     * 活动开启
+     *
+     * @param day    开服第几天
+     * @param config 活动配置
+     */
+    default void onActivityStart(int day, PrivateActivityConfig config) {
+    }
+
+    /**
+     * 活动结束
+     *
+     * @param day    开服第几天（活动最后一天的次日）
+     * @param config 活动配置
+     */
+    default void onActivityEnd(int day, PrivateActivityConfig config) {
+    }
+}
@@ -0,0 +1,213 @@
+package com.game.model.activity;
+
+import com.game.common.util.ScheduleUtil;
+import com.game.config.ConfigSnapshot;
+import com.game.config.ConfigSnapshotListener;
+import com.game.config.ConfigTable;
+import com.game.config.data.PrivateActivityConfig;
+import com.game.model.CommonManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 活动管理器
+ * PrivateActivityConfig加载或热更新后重建时间窗口索引，按开服天数查询开启中的活动；
+ * 同时只挂一个定时任务，在下一个活动边界（某活动开启当天零点或结束次日零点）准时触发并通知ActivityListener，
+ * 不轮询。热更新只重建索引并重新定时，不补发已经过去的边界。
+ */
+@Component
+public class ActivityManager extends CommonManager implements ConfigSnapshotListener {
+
+    private static final Logger logger = LoggerFactory.getLogger(ActivityManager.class);
+
+    private static final String CONFIG_NAME = PrivateActivityConfig.class.getSimpleName();
+
+    /**
+     * 开服日期（yyyy-MM-dd），只有本地开发（未指定profile或dev）允许为空，此时取本次启动日期；
+     * 其他环境为空时拒绝启动，否则每次重启都会回到开服第1天
+     */
+    @Value("${game.server.open-date:}")
+    private String openDateText;
+
+    @Autowired
+    private Environment environment;
+
+    @Autowired(required = false)
+    private List<ActivityListener> listeners = Collections.emptyList();
+
+    private final ZoneId zone = ZoneId.systemDefault();
+    private LocalDate openDate = LocalDate.now();
+
+    private volatile ActivityTimeIndex index = ActivityTimeIndex.EMPTY;
+
+    private final Object scheduleLock = new Object();
+    private ScheduledFuture<?> boundaryTask;
+    /**
+     * 已经通知过边界的开服天数
+     */
+    private int notifiedDay;
+
+    @PostConstruct
+    public void init() {
+        if (openDateText != null && !openDateText.trim().isEmpty()) {
+            openDate = LocalDate.parse(openDateText.trim());
+        } else if (isLocalDevelopment()) {
+            logger.warn("game.server.open-date is not set, using today {} as the server open date", openDate);
+        } else {
+            throw new IllegalStateException("game.server.open-date must be set for profiles "
+                    + String.join(",", environment.getActiveProfiles()));
+        }
+        notifiedDay = getOpenDay();
+    }
+
+    private boolean isLocalDevelopment() {
+        String[] profiles = environment.getActiveProfiles();
+        return profiles.length == 0 || Arrays.asList(profiles).contains("dev");
+    }
+
+    @Override
+    public void onPublished(ConfigSnapshot previous, ConfigSnapshot current) {
+        if (!current.isChanged(CONFIG_NAME)) {
+            return;
+        }
+        ConfigTable table = current.getTable(CONFIG_NAME);
+        List<PrivateActivityConfig> configs = new ArrayList<>();
+        if (table != null) {
+            for (Object row : table.getRows()) {
+                if (row instanceof PrivateActivityConfig) {
+                    configs.add((PrivateActivityConfig) row);
+                }
+            }
+        }
+        index = new ActivityTimeIndex(configs);
+        logger.info("Activity time index rebuilt, activities={}, open day={}", index.size(), getOpenDay());
+        scheduleNextBoundary();
+    }
+
+    /**
+     * 当前开服天数，开服当天为1
+     */
+    public int getOpenDay() {
+        return getOpenDay(System.currentTimeMillis());
+    }
+
+    /**
+     * 指定时刻的开服天数，开服当天为1
+     */
+    public int getOpenDay(long timeMillis) {
+        LocalDate date = Instant.ofEpochMilli(timeMillis).atZone(zone).toLocalDate();
+        return (int) ChronoUnit.DAYS.between(openDate, date) + 1;
+    }
+
+    /**
+     * 当前开启中的活动
+     *
+     * @return 共享只读列表
+     */
+    public List<PrivateActivityConfig> getActiveActivities() {
+        return index.getActive(getOpenDay());
+    }
+
+    /**
+     * 开服第day天开启的活动
+     *
+     * @return 共享只读列表
+     */
+    public List<PrivateActivityConfig> getActiveActivities(int day) {
+        return index.getActive(day);
+    }
+
+    /**
+     * 未来days天内（不含今天）将要开启的活动
+     */
+    public List<PrivateActivityConfig> getUpcomingActivities(int days) {
+        int today = getOpenDay();
+        return index.getStarting(today + 1, today + days);
+    }
+
+    /**
+     * 未来days天内（含今天）最后一天开启、即将结束的活动
+     */
+    public List<PrivateActivityConfig> getEndingActivities(int days) {
+        int today = getOpenDay();
+        return index.getEnding(today, today + days - 1);
+    }
+
+    public ActivityTimeIndex getIndex() {
+        return index;
+    }
+
+    /**
+     * 取消旧任务，定时到下一个活动边界
+     */
+    private void scheduleNextBoundary() {
+        synchronized (scheduleLock) {
+            if (boundaryTask != null) {
+                boundaryTask.cancel(false);
+                boundaryTask = null;
+            }
+            int nextDay = index.nextBoundary(notifiedDay);
+            if (nextDay < 0) {
+                return;
+            }
+            long boundaryTime = openDate.plusDays(nextDay - 1L).atStartOfDay(zone).toInstant().toEpochMilli();
+            long delay = Math.max(0, boundaryTime - System.currentTimeMillis());
+            boundaryTask = ScheduleUtil.schedule(this::onBoundary, delay, TimeUnit.MILLISECONDS);
+            logger.info("Next activity boundary scheduled at open day {} (in {}ms)", nextDay, delay);
+        }
+    }
+
+    /**
+     * 到达活动边界：通知自上次通知以来开启和结束的活动，再定时到下一个边界
+     */
+    private void onBoundary() {
+        ActivityTimeIndex current = index;
+        int today = getOpenDay();
+        int from;
+        synchronized (scheduleLock) {
+            if (today <= notifiedDay) {
+                // 定时器比系统时钟略早触发，重新定时
+                scheduleNextBoundary();
+                return;
+            }
+            from = notifiedDay + 1;
+            notifiedDay = today;
+        }
+        for (PrivateActivityConfig config : current.getEnding(from - 1, today - 1)) {
+            for (ActivityListener listener : listeners) {
+                try {
+                    listener.onActivityEnd(today, config);
+                } catch (Exception e) {
+                    logger.error("Activity listener failed on end: {}, activity={}", listener.getClass().getSimpleName(), config.getId(), e);
+                }
+            }
+        }
+        for (PrivateActivityConfig config : current.getStarting(from, today)) {
+            for (ActivityListener listener : listeners) {
+                try {
+                    listener.onActivityStart(today, config);
+                } catch (Exception e) {
+                    logger.error("Activity listener failed on start: {}, activity={}", listener.getClass().getSimpleName(), config.getId(), e);
+                }
+            }
+        }
+        logger.info("Activity boundary reached at open day {}, active={}", today, current.getActive(today).size());
+        scheduleNextBoundary();
+    }
+}
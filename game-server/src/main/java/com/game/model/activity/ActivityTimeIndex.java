@@ -0,0 +1,149 @@
+package com.game.model.activity;
+
+import com.game.config.data.PrivateActivityConfig;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.TreeSet;
+
+/**
+ * 活动时间窗口索引
+ * 活动在开服第starTimeDay天到第endTimeDay天（含）开启。把所有活动的开始天和结束次日作为边界排序，
+ * 相邻边界之间的开启活动集合不变，加载时为每一段预先算好只读列表：
+ * 查询某天开启的活动为一次二分查找，直接返回共享列表；
+ * 查询一段时间内开始/结束的活动在按开始天、结束天排序的数组上二分，返回子视图。
+ * 构建后只读，可以在线程间共享。缺少开始天或结束天、或结束早于开始的活动不进入索引。
+ */
+public final class ActivityTimeIndex {
+
+    public static final ActivityTimeIndex EMPTY = new ActivityTimeIndex(Collections.emptyList());
+
+    /**
+     * 分段起点（天），升序
+     */
+    private final int[] boundaries;
+    /**
+     * 第i段[boundaries[i], boundaries[i+1])内开启的活动
+     */
+    private final List<List<PrivateActivityConfig>> segments;
+    private final int[] startDays;
+    private final List<PrivateActivityConfig> byStart;
+    private final int[] endDays;
+    private final List<PrivateActivityConfig> byEnd;
+
+    public ActivityTimeIndex(List<PrivateActivityConfig> configs) {
+        List<PrivateActivityConfig> valid = new ArrayList<>(configs.size());
+        for (PrivateActivityConfig config : configs) {
+            if (config.getStarTimeDay() != null && config.getEndTimeDay() != null
+                    && config.getEndTimeDay() >= config.getStarTimeDay()) {
+                valid.add(config);
+            }
+        }
+
+        List<PrivateActivityConfig> sortedByStart = new ArrayList<>(valid);
+        sortedByStart.sort(Comparator.comparingInt(PrivateActivityConfig::getStarTimeDay));
+        List<PrivateActivityConfig> sortedByEnd = new ArrayList<>(valid);
+        sortedByEnd.sort(Comparator.comparingInt(PrivateActivityConfig::getEndTimeDay));
+        this.byStart = Collections.unmodifiableList(sortedByStart);
+        this.byEnd = Collections.unmodifiableList(sortedByEnd);
+        this.startDays = new int[valid.size()];
+        this.endDays = new int[valid.size()];
+        for (int i = 0; i < valid.size(); i++) {
+            startDays[i] = sortedByStart.get(i).getStarTimeDay();
+            endDays[i] = sortedByEnd.get(i).getEndTimeDay();
+        }
+
+        TreeSet<Integer> points = new TreeSet<>();
+        for (PrivateActivityConfig config : valid) {
+            points.add(config.getStarTimeDay());
+            points.add(config.getEndTimeDay() + 1);
+        }
+        this.boundaries = new int[points.size()];
+        int n = 0;
+        for (int point : points) {
+            boundaries[n++] = point;
+        }
+        List<List<PrivateActivityConfig>> segmentList = new ArrayList<>(boundaries.length);
+        for (int i = 0; i < boundaries.length; i++) {
+            List<PrivateActivityConfig> active = new ArrayList<>();
+            // 同一段内开启状态不变，取段起点判断即可
+            for (PrivateActivityConfig config : sortedByStart) {
+                if (config.getStarTimeDay() > boundaries[i]) {
+                    break;
+                }
+                if (config.getEndTimeDay() >= boundaries[i]) {
+                    active.add(config);
+                }
+            }
+            segmentList.add(active.isEmpty() ? Collections.emptyList() : Collections.unmodifiableList(active));
+        }
+        this.segments = segmentList;
+    }
+
+    /**
+     * 第day天开启的活动
+     *
+     * @param day 开服第几天（开服当天为1）
+     * @return 按开始天排序的共享只读列表
+     */
+    public List<PrivateActivityConfig> getActive(int day) {
+        int segment = floorIndex(boundaries, day);
+        return segment < 0 ? Collections.emptyList() : segments.get(segment);
+    }
+
+    /**
+     * 在[fromDay, toDay]内开始的活动
+     */
+    public List<PrivateActivityConfig> getStarting(int fromDay, int toDay) {
+        return slice(startDays, byStart, fromDay, toDay);
+    }
+
+    /**
+     * 在[fromDay, toDay]内结束（该天为最后一天）的活动
+     */
+    public List<PrivateActivityConfig> getEnding(int fromDay, int toDay) {
+        return slice(endDays, byEnd, fromDay, toDay);
+    }
+
+    /**
+     * day之后最近一个开启状态发生变化的天，即某个活动的开始天或结束次日
+     *
+     * @return 天数，之后没有变化时返回-1
+     */
+    public int nextBoundary(int day) {
+        int index = floorIndex(boundaries, day) + 1;
+        return index < boundaries.length ? boundaries[index] : -1;
+    }
+
+    public int size() {
+        return byStart.size();
+    }
+
+    private static List<PrivateActivityConfig> slice(int[] days, List<PrivateActivityConfig> sorted, int fromDay, int toDay) {
+        if (fromDay > toDay) {
+            return Collections.emptyList();
+        }
+        int low = floorIndex(days, fromDay - 1) + 1;
+        int high = floorIndex(days, toDay) + 1;
+        return low >= high ? Collections.emptyList() : sorted.subList(low, high);
+    }
+
+    /**
+     * 最后一个不大于value的下标，没有时返回-1
+     */
+    private static int floorIndex(int[] sorted, int value) {
+        int low = 0;
+        int high = sorted.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (sorted[mid] <= value) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low - 1;
+    }
+}
@@ -29,6 +29,21 @@ public class ConfigManager {
         return (T) excelConfigManager.getConfigDataById(entityType, id);
     }
     
+    /**
+     * 根据实体类型和int主键查询某一个配置中的某一条数据
+     * 走主键索引，查询过程不装箱、不反射
+     *
+     * @param entityClass 实体类（对应Excel文件名，如AdditionConfig.class）
+     * @param id 主键值
+     * @param <T> 实体类型
+     * @return 配置数据实体
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T getConfigDataById(Class<T> entityClass, int id) {
+        String entityType = entityClass.getSimpleName();
+        return (T) excelConfigManager.getConfigDataById(entityType, id);
+    }
+
     /**
      * 根据实体类型返回这个配置所有List数据
      * 
@@ -0,0 +1,24 @@
+package com.game.model.handshake;
+
+import com.game.core.GameHandler;
+import com.game.core.GameMessageHandler;
+import com.game.proto.HandshakeRequest;
+import com.game.proto.msgid.MsgIdEnum;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+/**
+ * 连接能力协商处理器
+ */
+@Component
+@GameHandler(msgId = MsgIdEnum.MSG_SYSTEM_HANDSHAKE_REQ_VALUE)
+public class HandshakeHandler extends GameMessageHandler<HandshakeRequest> {
+
+    @Autowired
+    private HandshakeManager handshakeManager;
+
+    @Override
+    public void handleMessage(HandshakeRequest msg) throws Exception {
+        handshakeManager.handshake(getCtx(), msg, getSequence());
+    }
+}
@@ -0,0 +1,84 @@
+package com.game.model.handshake;
+
+import com.game.core.MessageUtils;
+import com.game.netty.ChannelCapabilities;
+import com.game.netty.PayloadCompression;
+import com.game.proto.HandshakeRequest;
+import com.game.proto.HandshakeResponse;
+import com.game.proto.msgid.MsgIdEnum;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelHandler;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.handler.codec.http.websocketx.extensions.WebSocketExtensionEncoder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.Map;
+
+/**
+ * 连接能力协商管理器
+ * 取客户端声明的能力与服务器开启的能力的交集，先回复再写入连接属性，
+ * 保证响应本身仍按旧协议下发，客户端收到响应后再按新协议解析。
+ */
+@Service
+public class HandshakeManager {
+
+    private static final Logger logger = LoggerFactory.getLogger(HandshakeManager.class);
+
+    @Value("${netty.server.messageBatching:true}")
+    private boolean messageBatching;
+
+    @Autowired
+    private PayloadCompression payloadCompression;
+
+    /**
+     * 服务器开启的能力位
+     */
+    public int getServerCapabilities() {
+        int capabilities = 0;
+        if (messageBatching) {
+            capabilities |= ChannelCapabilities.BATCH;
+        }
+        if (payloadCompression.isEnabled()) {
+            capabilities |= ChannelCapabilities.COMPRESSION;
+        }
+        return capabilities;
+    }
+
+    /**
+     * 处理能力协商请求
+     *
+     * @param ctx      ChannelHandlerContext
+     * @param request  协商请求
+     * @param sequence 序列号
+     */
+    public void handshake(ChannelHandlerContext ctx, HandshakeRequest request, int sequence) {
+        int capabilities = request.getCapabilities() & getServerCapabilities();
+        if (isTransportCompressed(ctx.channel())) {
+            // WebSocket已经协商了permessage-deflate，不再重复压缩消息体
+            capabilities &= ~ChannelCapabilities.COMPRESSION;
+        }
+        HandshakeResponse response = HandshakeResponse.newBuilder()
+                .setCapabilities(capabilities)
+                .build();
+        MessageUtils.sendResponse(ctx, MsgIdEnum.MSG_SYSTEM_HANDSHAKE_RES_VALUE, sequence, response.toByteString());
+        ChannelCapabilities.set(ctx.channel(), capabilities);
+        logger.debug("Handshake from {}, client version {}, requested {}, enabled {}",
+                ctx.channel().remoteAddress(), request.getClientVersion(), request.getCapabilities(), capabilities);
+    }
+
+    /**
+     * 连接是否启用了WebSocket压缩扩展
+     */
+    private boolean isTransportCompressed(Channel channel) {
+        for (Map.Entry<String, ChannelHandler> entry : channel.pipeline()) {
+            if (entry.getValue() instanceof WebSocketExtensionEncoder) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
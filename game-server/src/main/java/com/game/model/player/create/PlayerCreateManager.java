@@ -6,7 +6,9 @@ import com.game.constant.CounterConstant;
 import com.game.dao.entity.Player;
 import com.game.model.CommonManager;
 import com.game.model.counter.CounterManager;
+import com.game.model.player.login.LoginAdmissionController;
 import com.game.model.player.login.PlayerLoginManager;
+import com.game.model.sequence.SequenceManager;
 import com.game.proto.login.CS_player_login;
 import io.netty.channel.ChannelHandlerContext;
 import org.slf4j.Logger;
@@ -23,40 +25,56 @@ public class PlayerCreateManager extends CommonManager {
 
     private static final Logger logger = LoggerFactory.getLogger(PlayerCreateManager.class);
 
+    /**
+     * 角色编号序列名前缀，按服务器索引区分
+     */
+    private static final String CREATE_NUM_SEQUENCE = "createnum_";
+
     @Autowired
     private PlayerCacheEnhancer playerCacheEnhancer;
 
     @Autowired
     private PlayerLoginManager playerLoginManager;
 
+    @Autowired
+    private LoginAdmissionController loginAdmissionController;
+
     @Autowired
     private CounterManager counterManager;
 
+    @Autowired
+    private SequenceManager sequenceManager;
+
     @Value("${game.serverIndex:0}")
     private int serverIndex;
     @Value("${game.createnum:0}")
     private int initCreatenum;
 
     /**
-     * 处理用户创角请求
+     * 处理用户创角请求，创角和随后的登录与普通登录一起经过准入控制排队，在登录线程上执行
      *
      * @param ctx      网络连接上下文
      * @param request  登录请求消息
      * @param sequence 消息序列号
      */
     public void handleCreate(ChannelHandlerContext ctx, CS_player_login request, int sequence) {
+        loginAdmissionController.submit(ctx, request, sequence, this::createPlayer);
+    }
+
+    /**
+     * 角色不存在时创建角色，再按登录流程加载玩家
+     *
+     * @param request 登录请求消息
+     * @return 登录的玩家，请求不属于本服时返回null
+     */
+    private Player createPlayer(CS_player_login request) {
         logger.info("Processing login request for userId: {}", request.getUserId());
 
         Player player = playerCacheEnhancer.getPlayer(request.getUserId(), serverIndex);
         if (player == null) {
             player = new Player();
             player.setPlayerid(IdGenerator.getInstance().generateId());
-            int createnum = (int) counterManager.getGlobalCounterValue(CounterConstant.GlobalCounter.CREATE_NUM);
-            if (createnum == 0) {
-                createnum = initCreatenum;
-            }
-            counterManager.setGlobalCounter(CounterConstant.GlobalCounter.CREATE_NUM, createnum);
-            player.setCreatenum(createnum);
+            player.setCreatenum((int) sequenceManager.next(CREATE_NUM_SEQUENCE + serverIndex, this::initialCreatenum));
             player.setUserid(request.getUserId());
             player.setName(request.getName());
             player.setServerindex(serverIndex);
@@ -64,6 +82,14 @@ public class PlayerCreateManager extends CommonManager {
             playerCacheEnhancer.addPlayer(player);
         }
 
-        playerLoginManager.handleLogin(ctx, request, sequence);
+        return playerLoginManager.loadLoginPlayer(request);
+    }
+
+    /**
+     * 角色编号序列的起始值：配置的起始编号，已经用全局计数器发过号的服务器从计数器之后继续
+     */
+    private long initialCreatenum() {
+        long counterValue = counterManager.getGlobalCounterValue(CounterConstant.GlobalCounter.CREATE_NUM);
+        return counterValue > 0 ? Math.max(initCreatenum, counterValue + 1) : initCreatenum;
     }
 }
\ No newline at end of file
@@ -0,0 +1,320 @@
+package com.game.model.player.login;
+
+import com.game.common.util.ScheduleUtil;
+import com.game.core.AsyncMessageUtils;
+import com.game.dao.entity.Player;
+import com.game.proto.login.CS_player_login;
+import com.game.proto.login.SC_login_queue;
+import com.game.proto.msgid.MsgIdEnum;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.util.AttributeKey;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * 登录准入控制器
+ * 停服维护后大量客户端同时登录时，限制同时进行的登录数，超出的登录按到达顺序排队，
+ * 并定期给排队的客户端下发排队位置和预计等待时间。
+ * 加载/创建玩家、绑定会话和所有IPlayerLogin登录后处理都在独立的登录线程池执行，
+ * 只有开启可恢复会话和下发登录响应回到连接的EventLoop，
+ * 登录高峰不占用IO线程和玩家消息线程池，已在线玩家不受影响。创角登录同样经过这里排队。
+ * 并发上限由{@link LoginConcurrencyLimit}按实际登录耗时自适应调整。
+ */
+@Service
+public class LoginAdmissionController {
+
+    private static final Logger logger = LoggerFactory.getLogger(LoginAdmissionController.class);
+
+    /**
+     * 连接上有登录正在排队或处理中，重复的登录请求直接忽略
+     */
+    private static final AttributeKey<Boolean> LOGIN_PENDING = AttributeKey.valueOf("game.loginPending");
+
+    @Autowired
+    private PlayerLoginManager playerLoginManager;
+
+    @Autowired
+    @Qualifier("loginExecutor")
+    private ExecutorService loginExecutor;
+
+    @Value("${game.login.admission-enabled:true}")
+    private boolean enabled;
+
+    @Value("${game.login.min-concurrent:2}")
+    private int minConcurrent;
+
+    @Value("${game.login.max-concurrent:16}")
+    private int maxConcurrent;
+
+    @Value("${game.login.target-latency:500}")
+    private long targetLatency;
+
+    @Value("${game.login.queue-size:10000}")
+    private int queueSize;
+
+    @Value("${game.login.queue-notify-interval:2000}")
+    private long notifyInterval;
+
+    private LoginConcurrencyLimit limit;
+
+    /**
+     * 以下状态由this锁保护
+     */
+    private final ArrayDeque<PendingLogin> queue = new ArrayDeque<>();
+    private int inFlight;
+    private boolean notifyScheduled;
+
+    private final AtomicLong admitted = new AtomicLong();
+    private final AtomicLong queued = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+    private final AtomicLong abandoned = new AtomicLong();
+
+    private static final class PendingLogin {
+        private final ChannelHandlerContext ctx;
+        private final CS_player_login request;
+        private final int sequence;
+        private final Function<CS_player_login, Player> loader;
+
+        private PendingLogin(ChannelHandlerContext ctx, CS_player_login request, int sequence,
+                             Function<CS_player_login, Player> loader) {
+            this.ctx = ctx;
+            this.request = request;
+            this.sequence = sequence;
+            this.loader = loader;
+        }
+    }
+
+    @PostConstruct
+    public void init() {
+        limit = new LoginConcurrencyLimit(Math.min(minConcurrent, maxConcurrent), maxConcurrent, targetLatency);
+    }
+
+    /**
+     * 提交登录请求，有空闲名额时立即开始，否则排队
+     *
+     * @param ctx      网络连接上下文
+     * @param request  登录请求消息
+     * @param sequence 消息序列号
+     */
+    public void submit(ChannelHandlerContext ctx, CS_player_login request, int sequence) {
+        submit(ctx, request, sequence, playerLoginManager::loadLoginPlayer);
+    }
+
+    /**
+     * 提交登录请求，玩家数据由loader准备（如创角后登录），有空闲名额时立即开始，否则排队
+     *
+     * @param ctx      网络连接上下文
+     * @param request  登录请求消息
+     * @param sequence 消息序列号
+     * @param loader   在登录线程上加载或创建玩家，返回null表示不登录
+     */
+    public void submit(ChannelHandlerContext ctx, CS_player_login request, int sequence,
+                       Function<CS_player_login, Player> loader) {
+        if (!enabled) {
+            Player player = loader.apply(request);
+            if (player != null) {
+                playerLoginManager.prepareLogin(ctx, player);
+                playerLoginManager.completeLogin(ctx, player);
+            }
+            return;
+        }
+        if (ctx.channel().attr(LOGIN_PENDING).setIfAbsent(Boolean.TRUE) != null) {
+            logger.debug("Duplicate login request ignored: userId={}", request.getUserId());
+            return;
+        }
+
+        PendingLogin login = new PendingLogin(ctx, request, sequence, loader);
+        int position;
+        long estimatedWait = 0;
+        synchronized (this) {
+            if (queue.isEmpty() && inFlight < limit.getLimit()) {
+                inFlight++;
+                position = 0;
+            } else if (queue.size() >= queueSize) {
+                position = -1;
+            } else {
+                queue.addLast(login);
+                position = queue.size();
+                estimatedWait = estimateWait(position);
+                scheduleNotify();
+            }
+        }
+
+        if (position == 0) {
+            start(login);
+        } else if (position < 0) {
+            rejected.incrementAndGet();
+            ctx.channel().attr(LOGIN_PENDING).set(null);
+            logger.warn("Login queue full, rejected userId={}", request.getUserId());
+            sendQueueStatus(login, 0, 0, true);
+        } else {
+            queued.incrementAndGet();
+            sendQueueStatus(login, position, estimatedWait, false);
+        }
+    }
+
+    private void start(PendingLogin login) {
+        admitted.incrementAndGet();
+        long startTime = System.currentTimeMillis();
+        try {
+            loginExecutor.execute(() -> load(login, startTime));
+        } catch (RejectedExecutionException e) {
+            logger.error("Login executor rejected login: userId={}", login.request.getUserId(), e);
+            finish(login, startTime);
+        }
+    }
+
+    /**
+     * 在登录线程上准备玩家数据、绑定会话并执行登录后处理，完成后回到连接的EventLoop下发登录响应
+     */
+    private void load(PendingLogin login, long startTime) {
+        Player player = null;
+        try {
+            player = login.loader.apply(login.request);
+            if (player != null && login.ctx.channel().isActive()) {
+                playerLoginManager.prepareLogin(login.ctx, player);
+            }
+        } catch (Exception e) {
+            logger.error("Error loading login player: userId={}", login.request.getUserId(), e);
+            player = null;
+        }
+        if (player == null) {
+            finish(login, startTime);
+            return;
+        }
+        // 连接在准备期间断开时由completeLogin在EventLoop上撤销会话绑定
+        Player loaded = player;
+        try {
+            login.ctx.executor().execute(() -> {
+                try {
+                    playerLoginManager.completeLogin(login.ctx, loaded);
+                } catch (Exception e) {
+                    logger.error("Error completing login: playerId={}", loaded.getPlayerid(), e);
+                } finally {
+                    finish(login, startTime);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            finish(login, startTime);
+        }
+    }
+
+    /**
+     * 一次登录结束，按耗时调整上限并放行排队的登录
+     */
+    private void finish(PendingLogin login, long startTime) {
+        login.ctx.channel().attr(LOGIN_PENDING).set(null);
+        long now = System.currentTimeMillis();
+        List<PendingLogin> next = new ArrayList<>();
+        synchronized (this) {
+            inFlight--;
+            limit.onSample(now - startTime, now);
+            while (inFlight < limit.getLimit() && !queue.isEmpty()) {
+                PendingLogin pending = queue.pollFirst();
+                if (!pending.ctx.channel().isActive()) {
+                    abandoned.incrementAndGet();
+                    continue;
+                }
+                inFlight++;
+                next.add(pending);
+            }
+        }
+        for (PendingLogin pending : next) {
+            start(pending);
+        }
+    }
+
+    /**
+     * 排在position位置的登录预计还要等待的时间，调用方持有锁
+     */
+    private long estimateWait(int position) {
+        long latency = limit.getAverageLatency() > 0 ? limit.getAverageLatency() : targetLatency;
+        return position * latency / Math.max(1, limit.getLimit());
+    }
+
+    /**
+     * 队列非空时保持一个定期通知任务，调用方持有锁
+     */
+    private void scheduleNotify() {
+        if (notifyScheduled) {
+            return;
+        }
+        try {
+            ScheduleUtil.schedule(this::notifyQueue, notifyInterval, TimeUnit.MILLISECONDS);
+            notifyScheduled = true;
+        } catch (RejectedExecutionException e) {
+            // 调度线程池已关闭，说明系统正在停机
+            logger.debug("Login queue notify rejected", e);
+        }
+    }
+
+    /**
+     * 清理已断开的排队连接，给其余排队的客户端下发最新位置
+     */
+    private void notifyQueue() {
+        List<PendingLogin> waiting;
+        long[] waits;
+        synchronized (this) {
+            notifyScheduled = false;
+            for (Iterator<PendingLogin> it = queue.iterator(); it.hasNext(); ) {
+                if (!it.next().ctx.channel().isActive()) {
+                    it.remove();
+                    abandoned.incrementAndGet();
+                }
+            }
+            waiting = new ArrayList<>(queue);
+            waits = new long[waiting.size()];
+            for (int i = 0; i < waits.length; i++) {
+                waits[i] = estimateWait(i + 1);
+            }
+            if (!queue.isEmpty()) {
+                scheduleNotify();
+            }
+        }
+        for (int i = 0; i < waiting.size(); i++) {
+            sendQueueStatus(waiting.get(i), i + 1, waits[i], false);
+        }
+    }
+
+    private void sendQueueStatus(PendingLogin login, int position, long estimatedWait, boolean full) {
+        SC_login_queue status = SC_login_queue.newBuilder()
+                .setPosition(position)
+                .setEstimatedWait(estimatedWait)
+                .setRejected(full)
+                .build();
+        AsyncMessageUtils.sendSystemMsgAsync(login.ctx, MsgIdEnum.SC_login_queue_VALUE, login.sequence, status.toByteString());
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("enabled", enabled);
+        synchronized (this) {
+            stats.put("limit", limit.getLimit());
+            stats.put("inFlight", inFlight);
+            stats.put("waiting", queue.size());
+            stats.put("avgLatency", limit.getAverageLatency());
+        }
+        stats.put("admitted", admitted.get());
+        stats.put("queued", queued.get());
+        stats.put("rejected", rejected.get());
+        stats.put("abandoned", abandoned.get());
+        return stats;
+    }
+}
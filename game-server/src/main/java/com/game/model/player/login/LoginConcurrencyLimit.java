@@ -0,0 +1,62 @@
+package com.game.model.player.login;
+
+/**
+ * 按登录耗时自适应的并发登录上限（AIMD）
+ * 平均耗时不超过目标值时每完成一次登录上限增加1/上限（约每一轮并发加1），
+ * 超过目标值时上限乘以0.75，每个目标耗时周期内最多下调一次，避免同一批慢登录连续下调。
+ * 从下限起步，重启后数据库缓存还是冷的，先用小并发探路。
+ * 非线程安全，由调用方同步。
+ */
+public class LoginConcurrencyLimit {
+
+    private static final double DECREASE_FACTOR = 0.75;
+
+    private final int min;
+    private final int max;
+    private final long targetLatency;
+
+    private double limit;
+    private double avgLatency;
+    private long lastDecrease;
+
+    public LoginConcurrencyLimit(int min, int max, long targetLatency) {
+        if (min <= 0 || max < min) {
+            throw new IllegalArgumentException("Invalid login concurrency range: " + min + "-" + max);
+        }
+        this.min = min;
+        this.max = max;
+        this.targetLatency = targetLatency;
+        this.limit = min;
+        this.lastDecrease = Long.MIN_VALUE / 2;
+    }
+
+    /**
+     * 当前允许同时进行的登录数
+     */
+    public int getLimit() {
+        return (int) limit;
+    }
+
+    /**
+     * 平均登录耗时（毫秒），还没有样本时返回0
+     */
+    public long getAverageLatency() {
+        return (long) avgLatency;
+    }
+
+    /**
+     * 记录一次登录耗时并调整上限
+     *
+     * @param latency 本次登录耗时（毫秒）
+     * @param now     当前时间（毫秒）
+     */
+    public void onSample(long latency, long now) {
+        avgLatency = avgLatency == 0 ? latency : avgLatency * 0.8 + latency * 0.2;
+        if (avgLatency <= targetLatency) {
+            limit = Math.min(max, limit + 1.0 / limit);
+        } else if (now - lastDecrease >= targetLatency) {
+            limit = Math.max(min, limit * DECREASE_FACTOR);
+            lastDecrease = now;
+        }
+    }
+}
@@ -19,15 +19,15 @@ public class PlayerLoginHandler extends GameMessageHandler<CS_player_login> {
 
     private static final Logger logger = LoggerFactory.getLogger(PlayerLoginHandler.class);
 
-    // 注入用户业务逻辑管理器
+    // 注入登录准入控制器
     @Autowired
-    private PlayerLoginManager playerLoginManager;
+    private LoginAdmissionController loginAdmissionController;
 
     @Override
     public void handleMessage(CS_player_login msg) throws Exception {
         logger.info("Login request from {}: userId={}", getCtx().channel().remoteAddress(), msg.getUserId());
 
-        // 调用业务逻辑管理器处理登录请求
-        playerLoginManager.handleLogin(getCtx(), msg, getSequence());
+        // 经准入控制排队后处理登录请求
+        loginAdmissionController.submit(getCtx(), msg, getSequence());
     }
 }
\ No newline at end of file
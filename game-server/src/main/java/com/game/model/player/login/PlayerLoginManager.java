@@ -6,6 +6,7 @@ import com.game.common.util.IdGenerator;
 import com.game.core.MessageUtils;
 import com.game.dao.entity.Player;
 import com.game.model.CommonManager;
+import com.game.model.player.resume.SessionResumeManager;
 import com.game.proto.ResponseStatus;
 import com.game.proto.login.*;
 import com.game.proto.msgid.MsgIdEnum;
@@ -42,6 +43,9 @@ public class PlayerLoginManager extends CommonManager {
     @Autowired
     private PlayerSessionManager playerSessionManager;
 
+    @Autowired
+    private SessionResumeManager sessionResumeManager;
+
     private List<IPlayerLogin> playerLoginHandlers = new ArrayList<>();
 
     @Value("${game.serverIndex:0}")
@@ -65,10 +69,24 @@ public class PlayerLoginManager extends CommonManager {
      * @param sequence 消息序列号
      */
     public void handleLogin(ChannelHandlerContext ctx, CS_player_login request, int sequence) {
+        Player player = loadLoginPlayer(request);
+        if (player != null) {
+            prepareLogin(ctx, player);
+            completeLogin(ctx, player);
+        }
+    }
+
+    /**
+     * 登录的数据准备阶段：加载或创建玩家并更新缓存，可能访问数据库，可以在任意线程调用
+     *
+     * @param request 登录请求消息
+     * @return 登录的玩家，请求不属于本服时返回null
+     */
+    public Player loadLoginPlayer(CS_player_login request) {
         logger.info("Processing login request for userId: {}", request.getUserId());
 
         if (request.getServerIndex() != serverIndex) {
-            return;
+            return null;
         }
 
         // TODO: 实现实际的登录逻辑，如验证用户名和密码、查询数据库等
@@ -82,7 +100,16 @@ public class PlayerLoginManager extends CommonManager {
         player.setLogintime(System.currentTimeMillis());
         // 更新玩家信息到缓存和数据库
         playerCache.add(player);
+        return player;
+    }
 
+    /**
+     * 登录的会话准备阶段：绑定会话并执行所有登录后处理，可以在任意线程调用
+     *
+     * @param ctx    网络连接上下文
+     * @param player 登录的玩家
+     */
+    public void prepareLogin(ChannelHandlerContext ctx, Player player) {
         // 注意：心跳注册现在通过PlayerSessionManager的bindPlayerSession方法自动完成
         // 当调用bindPlayerSession时，会触发GameEventManager中的handlePlayerRegistered事件
         // 该事件会调用HeartBeatManager.registerPlayerHeartbeat方法
@@ -90,12 +117,33 @@ public class PlayerLoginManager extends CommonManager {
 
         // 执行所有玩家登录后处理逻辑
         executeLoginHandlers(player);
+    }
 
+    /**
+     * 登录的响应阶段：开启可恢复会话并下发登录响应，需要在连接的EventLoop上调用，
+     * 保证登录响应是会话计数的第一条消息
+     * 准备阶段在登录线程上执行期间连接可能已经断开，此时不再开启会话并撤销准备阶段的会话绑定
+     *
+     * @param ctx    网络连接上下文
+     * @param player 登录的玩家
+     */
+    public void completeLogin(ChannelHandlerContext ctx, Player player) {
+        // 在EventLoop上连接仍然活跃时，channelInactive一定在本次调用之后执行，会正常挂起新开启的会话
+        if (!ctx.channel().isActive()) {
+            logger.info("Connection closed before login completed, playerId: {}", player.getPlayerid());
+            ChannelHandlerContext bound = playerSessionManager.getPlayerContext(player.getPlayerid());
+            if (bound != null && bound.channel() == ctx.channel()) {
+                playerSessionManager.unbindPlayerSession(player.getPlayerid());
+            }
+            return;
+        }
         SC_player_login.Builder login = SC_player_login.newBuilder();
         login.setPlayerId(player.getPlayerid());
         login.setCreatenum(player.getCreatenum());
         login.setServerIndex(player.getServerindex());
         login.setName(player.getName());
+        // 在发送登录响应之前开启可恢复会话，登录响应计为会话的第一条消息
+        login.setResumeToken(sessionResumeManager.open(player.getPlayerid(), ctx));
 
         messageSender.sendMessageToPlayer(player.getPlayerid(), MsgIdEnum.SC_player_login_VALUE, login);
     }
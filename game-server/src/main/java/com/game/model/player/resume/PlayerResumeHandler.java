@@ -0,0 +1,25 @@
+package com.game.model.player.resume;
+
+import com.game.core.GameHandler;
+import com.game.core.GameMessageHandler;
+import com.game.proto.login.CS_player_resume;
+import com.game.proto.msgid.MsgIdEnum;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+/**
+ * 会话恢复处理器
+ * 断线重连的客户端带恢复令牌直接接回原会话，跳过完整登录
+ */
+@Component
+@GameHandler(msgId = MsgIdEnum.CS_player_resume_VALUE)
+public class PlayerResumeHandler extends GameMessageHandler<CS_player_resume> {
+
+    @Autowired
+    private SessionResumeManager sessionResumeManager;
+
+    @Override
+    public void handleMessage(CS_player_resume msg) throws Exception {
+        sessionResumeManager.resume(getCtx(), msg, getSequence());
+    }
+}
@@ -0,0 +1,179 @@
+package com.game.model.player.resume;
+
+import com.game.proto.GameMessage;
+import io.netty.channel.Channel;
+import io.netty.util.AttributeKey;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 可恢复的玩家会话
+ * 记录会话开始以来发给玩家的消息总数，并在环形缓冲区中保留最近的消息（按条数和字节数限制）。
+ * 连接意外断开后会话转为挂起，期间发给玩家的消息继续写入缓冲区；
+ * 客户端带着令牌和已收到的消息数重连时，补发缓冲区中对方没有收到的部分。
+ * 记录发生在连接的EventLoop上，挂起期间的写入来自业务线程，统一用对象锁同步。
+ */
+public class ResumableSession {
+
+    /**
+     * 连接上当前附着的会话，没有附着的连接发出的消息不计数
+     */
+    public static final AttributeKey<ResumableSession> KEY = AttributeKey.valueOf("game.resumableSession");
+
+    private final long playerId;
+    private final int capacity;
+    private final long maxBytes;
+
+    private final GameMessage[] ring;
+    /**
+     * 环中最旧一条消息的下标
+     */
+    private int head;
+    private int size;
+    private long bytes;
+    /**
+     * 会话开始以来发出（或挂起期间缓存）的消息总数
+     */
+    private long sentCount;
+
+    private long token;
+    private Channel channel;
+    private boolean suspended;
+    /**
+     * 每次挂起加一，过期任务只处理自己那一次挂起
+     */
+    private int generation;
+
+    public ResumableSession(long playerId, long token, int capacity, long maxBytes) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Resume buffer size must be > 0");
+        }
+        this.playerId = playerId;
+        this.token = token;
+        this.capacity = capacity;
+        this.maxBytes = maxBytes;
+        this.ring = new GameMessage[capacity];
+    }
+
+    public long getPlayerId() {
+        return playerId;
+    }
+
+    public synchronized long getToken() {
+        return token;
+    }
+
+    public synchronized Channel getChannel() {
+        return channel;
+    }
+
+    public synchronized boolean isSuspended() {
+        return suspended;
+    }
+
+    public synchronized int getGeneration() {
+        return generation;
+    }
+
+    public synchronized long getSentCount() {
+        return sentCount;
+    }
+
+    /**
+     * 决定从连接from发出的一条消息实际走哪个连接，需要计数的消息同时写入缓冲区
+     *
+     * @return from：从from发出并已计数；null：会话挂起，消息已缓存等待补发；
+     * 其他连接：会话已经恢复到新连接，应改从新连接发出（由新连接计数）
+     */
+    public synchronized Channel route(Channel from, GameMessage msg) {
+        if (suspended) {
+            record(msg);
+            return null;
+        }
+        if (channel == from) {
+            record(msg);
+        }
+        return channel;
+    }
+
+    /**
+     * 记录一条已经发出或需要在恢复后补发的消息
+     */
+    synchronized void record(GameMessage msg) {
+        int tail = (head + size) % capacity;
+        if (size == capacity) {
+            evictOldest();
+        }
+        ring[tail] = msg;
+        size++;
+        bytes += msg.getData().size();
+        sentCount++;
+        while (size > 1 && bytes > maxBytes) {
+            evictOldest();
+        }
+    }
+
+    private void evictOldest() {
+        bytes -= ring[head].getData().size();
+        ring[head] = null;
+        head = (head + 1) % capacity;
+        size--;
+    }
+
+    /**
+     * 校验令牌和对方的计数，成功时附着到新连接并换发令牌
+     *
+     * @return 需要补发的消息，失败时返回null
+     */
+    public synchronized List<GameMessage> resume(Channel newChannel, long resumeToken, long receivedCount, long newToken) {
+        if (resumeToken != token) {
+            return null;
+        }
+        List<GameMessage> missed = missedSince(receivedCount);
+        if (missed != null) {
+            attach(newChannel, newToken);
+        }
+        return missed;
+    }
+
+    /**
+     * 附着到连接：新会话或恢复成功
+     */
+    public synchronized void attach(Channel channel, long newToken) {
+        this.channel = channel;
+        this.token = newToken;
+        this.suspended = false;
+        channel.attr(KEY).set(this);
+    }
+
+    /**
+     * 连接意外断开，转为挂起
+     *
+     * @return 本次挂起的编号，连接已经不是当前连接时返回-1
+     */
+    public synchronized int suspend(Channel closed) {
+        if (channel != closed || suspended) {
+            return -1;
+        }
+        suspended = true;
+        return ++generation;
+    }
+
+    /**
+     * 对方已收到receivedCount条消息时需要补发的消息
+     *
+     * @return 需要补发的消息，对方的计数不合法或缺失的消息已经被挤出缓冲区时返回null
+     */
+    synchronized List<GameMessage> missedSince(long receivedCount) {
+        long missed = sentCount - receivedCount;
+        if (missed < 0 || missed > size) {
+            return null;
+        }
+        List<GameMessage> messages = new ArrayList<>((int) missed);
+        for (int i = size - (int) missed; i < size; i++) {
+            messages.add(ring[(head + i) % capacity]);
+        }
+        return messages;
+    }
+}
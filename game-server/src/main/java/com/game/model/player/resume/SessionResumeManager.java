@@ -0,0 +1,235 @@
+package com.game.model.player.resume;
+
+import com.game.core.MessageUtils;
+import com.game.model.player.login.PlayerSessionManager;
+import com.game.netty.handler.ResumeRecordHandler;
+import com.game.netty.kcp.KcpServer;
+import com.game.proto.GameMessage;
+import com.game.proto.login.CS_player_resume;
+import com.game.proto.login.SC_player_resume;
+import com.game.proto.msgid.MsgIdEnum;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelHandlerContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.security.SecureRandom;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 会话快速恢复管理器
+ * 登录成功时为玩家开启可恢复会话并下发恢复令牌；连接意外断开后会话保留resume-grace毫秒，
+ * 期间客户端用令牌和已收到的消息数发起CS_player_resume，校验通过后直接绑定到新连接并补发缺失的消息，
+ * 不再走完整登录流程。超时未恢复的会话按下线处理。
+ */
+@Service
+public class SessionResumeManager {
+
+    private static final Logger logger = LoggerFactory.getLogger(SessionResumeManager.class);
+
+    @Autowired
+    private PlayerSessionManager playerSessionManager;
+
+    @Autowired
+    private KcpServer kcpServer;
+
+    @Value("${game.session.resume-enabled:true}")
+    private boolean enabled;
+
+    @Value("${game.session.resume-grace:60000}")
+    private long graceMillis;
+
+    @Value("${game.session.resume-buffer-size:512}")
+    private int bufferSize;
+
+    @Value("${game.session.resume-buffer-bytes:262144}")
+    private long bufferBytes;
+
+    private final Map<Long, ResumableSession> sessions = new ConcurrentHashMap<>();
+
+    private final SecureRandom random = new SecureRandom();
+
+    private final AtomicLong suspended = new AtomicLong();
+    private final AtomicLong resumed = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+    private final AtomicLong expired = new AtomicLong();
+    private final AtomicLong replayed = new AtomicLong();
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * 登录成功后为玩家开启新的可恢复会话，之前的会话作废
+     * 必须在发送SC_player_login之前调用，登录响应是会话计数的第一条消息
+     *
+     * @param playerId 玩家ID
+     * @param ctx      登录所在连接
+     * @return 恢复令牌，未开启时返回0
+     */
+    public long open(long playerId, ChannelHandlerContext ctx) {
+        if (!enabled) {
+            return 0L;
+        }
+        long token = nextToken();
+        ResumableSession session = new ResumableSession(playerId, token, bufferSize, bufferBytes);
+        session.attach(ctx.channel(), token);
+        ResumableSession previous = sessions.put(playerId, session);
+        if (previous != null) {
+            previous.getChannel().attr(ResumableSession.KEY).compareAndSet(previous, null);
+        }
+        return token;
+    }
+
+    /**
+     * 连接断开时调用，附着了会话的连接转为挂起，超过宽限时间未恢复则下线
+     */
+    public void onDisconnect(Channel channel) {
+        ResumableSession session = channel.attr(ResumableSession.KEY).get();
+        if (session == null || sessions.get(session.getPlayerId()) != session) {
+            return;
+        }
+        int generation = session.suspend(channel);
+        if (generation < 0) {
+            return;
+        }
+        suspended.incrementAndGet();
+        logger.debug("Session suspended: playerId={}, sent={}", session.getPlayerId(), session.getSentCount());
+        channel.eventLoop().schedule(() -> expire(session, generation), graceMillis, TimeUnit.MILLISECONDS);
+    }
+
+    private void expire(ResumableSession session, int generation) {
+        synchronized (session) {
+            if (!session.isSuspended() || session.getGeneration() != generation
+                    || !sessions.remove(session.getPlayerId(), session)) {
+                return;
+            }
+        }
+        expired.incrementAndGet();
+        long playerId = session.getPlayerId();
+        ChannelHandlerContext ctx = playerSessionManager.getPlayerContext(playerId);
+        // 玩家已经在别的连接上重新登录时不能把新会话下线
+        if (ctx != null && ctx.channel() == session.getChannel()) {
+            logger.info("Session resume grace expired, player offline: playerId={}", playerId);
+            playerSessionManager.unbindPlayerSession(playerId);
+        }
+    }
+
+    /**
+     * 处理会话恢复请求，在新连接的EventLoop上执行
+     *
+     * @param ctx      新连接
+     * @param request  恢复请求
+     * @param sequence 请求序列号
+     */
+    public void resume(ChannelHandlerContext ctx, CS_player_resume request, int sequence) {
+        long playerId = request.getPlayerId();
+        ResumableSession session = enabled ? sessions.get(playerId) : null;
+        Channel previous = session != null ? session.getChannel() : null;
+        long newToken = nextToken();
+        List<GameMessage> missed = null;
+        if (session != null && previous != ctx.channel()) {
+            synchronized (session) {
+                if (sessions.get(playerId) == session) {
+                    missed = session.resume(ctx.channel(), request.getResumeToken(), request.getReceivedCount(), newToken);
+                }
+            }
+        }
+        if (missed == null) {
+            rejected.incrementAndGet();
+            logger.info("Session resume rejected: playerId={}, remoteAddress={}", playerId, ctx.channel().remoteAddress());
+            SC_player_resume response = SC_player_resume.newBuilder().setSuccess(false).build();
+            MessageUtils.sendResponse(ctx, MsgIdEnum.SC_player_resume_VALUE, sequence, response.toByteString());
+            return;
+        }
+
+        // 旧连接可能还没有被对端察觉断开（半开连接），恢复后不再需要
+        if (previous.isActive()) {
+            previous.close();
+        }
+
+        // 恢复响应和补发的消息不再计数：客户端恢复后从SC_player_resume之后重新计数
+        SC_player_resume response = SC_player_resume.newBuilder()
+                .setSuccess(true)
+                .setResumeToken(newToken)
+                .setReplayCount(missed.size())
+                .build();
+        ctx.write(ResumeRecordHandler.replay(GameMessage.newBuilder()
+                .setMsgId(MsgIdEnum.SC_player_resume_VALUE)
+                .setSequence(sequence)
+                .setData(response.toByteString())
+                .build()));
+        for (GameMessage message : missed) {
+            ctx.write(ResumeRecordHandler.replay(message));
+        }
+        ctx.flush();
+
+        resumed.incrementAndGet();
+        replayed.addAndGet(missed.size());
+        logger.info("Session resumed: playerId={}, replayed={}, remoteAddress={}",
+                playerId, missed.size(), ctx.channel().remoteAddress());
+
+        playerSessionManager.bindPlayerSession(playerId, ctx);
+        if (kcpServer.isEnabled()) {
+            kcpServer.offer(playerId, ctx);
+        }
+    }
+
+    /**
+     * 把一条发往已断开连接的消息交给会话：挂起中则缓存等待补发，已恢复则改从新连接发出
+     *
+     * @param playerId 玩家ID
+     * @param from     玩家会话中记录的（已断开的）连接
+     * @param message  消息
+     * @return 会话接管了这条消息时返回true
+     */
+    public boolean deliver(long playerId, Channel from, GameMessage message) {
+        ResumableSession session = sessions.get(playerId);
+        if (session == null) {
+            return false;
+        }
+        Channel target = session.route(from, message);
+        if (target != null && target != from) {
+            target.writeAndFlush(message);
+        }
+        return true;
+    }
+
+    /**
+     * 玩家正常下线，会话不再可恢复
+     */
+    public void close(long playerId) {
+        ResumableSession session = sessions.remove(playerId);
+        if (session != null) {
+            session.getChannel().attr(ResumableSession.KEY).compareAndSet(session, null);
+        }
+    }
+
+    private long nextToken() {
+        long token;
+        do {
+            token = random.nextLong();
+        } while (token == 0L);
+        return token;
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("enabled", enabled);
+        stats.put("sessions", sessions.size());
+        stats.put("suspended", suspended.get());
+        stats.put("resumed", resumed.get());
+        stats.put("rejected", rejected.get());
+        stats.put("expired", expired.get());
+        stats.put("replayed", replayed.get());
+        return stats;
+    }
+}
@@ -0,0 +1,88 @@
+package com.game.model.sequence;
+
+import com.game.dao.mapper.SequenceDao;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.LongSupplier;
+
+/**
+ * 号段序列管理器
+ * 每个命名序列一次从sequence表租用block-size个号码（一条原子UPDATE），之后在内存中发放，
+ * 发放过程不访问数据库。进程崩溃时已租出未发放的号码直接跳过，号码保证唯一、递增，但不保证连续。
+ */
+@Service
+public class SequenceManager {
+
+    private static final Logger logger = LoggerFactory.getLogger(SequenceManager.class);
+
+    @Autowired
+    private SequenceDao sequenceDao;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Value("${game.sequence.block-size:100}")
+    private int blockSize;
+
+    private final ConcurrentMap<String, Segment> segments = new ConcurrentHashMap<>();
+
+    /**
+     * 内存中的号段，[next, end)
+     */
+    private static class Segment {
+        private long next;
+        private long end;
+    }
+
+    /**
+     * 获取序列的下一个号码
+     *
+     * @param name    序列名称，如 createnum_1
+     * @param initial 序列在数据库中不存在时的起始号码，只在首次创建时取值
+     * @return 号码
+     */
+    public long next(String name, LongSupplier initial) {
+        Segment segment = segments.computeIfAbsent(name, k -> new Segment());
+        synchronized (segment) {
+            if (segment.next >= segment.end) {
+                lease(name, segment, initial);
+            }
+            return segment.next++;
+        }
+    }
+
+    /**
+     * 获取序列的下一个号码，序列不存在时从1开始
+     */
+    public long next(String name) {
+        return next(name, () -> 1L);
+    }
+
+    private void lease(String name, Segment segment, LongSupplier initial) {
+        int size = Math.max(1, blockSize);
+        long now = System.currentTimeMillis();
+        Long end = transactionTemplate.execute(status -> {
+            if (sequenceDao.advance(name, size, now) == 0) {
+                sequenceDao.insertIfAbsent(name, initial.getAsLong(), now);
+                if (sequenceDao.advance(name, size, now) == 0) {
+                    throw new IllegalStateException("Failed to create sequence: " + name);
+                }
+            }
+            // UPDATE持有行锁直到提交，读到的是本事务租出后的值
+            return sequenceDao.selectNext(name);
+        });
+        if (end == null) {
+            throw new IllegalStateException("Sequence not found after lease: " + name);
+        }
+        segment.next = end - size;
+        segment.end = end;
+        logger.info("Leased sequence {} block [{}, {})", name, segment.next, segment.end);
+    }
+}
@@ -0,0 +1,43 @@
+package com.game.netty;
+
+import io.netty.channel.Channel;
+import io.netty.util.AttributeKey;
+
+/**
+ * 连接能力位
+ * 连接建立后客户端发送MSG_SYSTEM_HANDSHAKE_REQ声明支持的能力，服务器取交集回复并记录在连接属性上，
+ * 编解码器按连接属性决定是否启用对应的协议扩展。未握手的连接能力为0，协议与旧版本完全一致。
+ */
+public final class ChannelCapabilities {
+
+    /**
+     * 批量帧：服务器把一次flush中的多条消息合并为一个MSG_BATCH帧下发
+     */
+    public static final int BATCH = 1;
+
+    /**
+     * 消息体压缩：双方都可以发送msgId带{@link PayloadCompression#FLAG_COMPRESSED}的压缩消息
+     */
+    public static final int COMPRESSION = 2;
+
+    private static final AttributeKey<Integer> KEY = AttributeKey.valueOf("game.capabilities");
+
+    private ChannelCapabilities() {
+    }
+
+    /**
+     * 连接已启用的能力位
+     */
+    public static int get(Channel channel) {
+        Integer capabilities = channel.attr(KEY).get();
+        return capabilities == null ? 0 : capabilities;
+    }
+
+    public static boolean has(Channel channel, int capability) {
+        return (get(channel) & capability) != 0;
+    }
+
+    public static void set(Channel channel, int capabilities) {
+        channel.attr(KEY).set(capabilities);
+    }
+}
@@ -0,0 +1,121 @@
+package com.game.netty;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 出站消息策略
+ * 连接不可写（出站缓冲超过高水位）时按消息ID决定如何处理后续消息：
+ * <ul>
+ *     <li>DROP 低优先级消息直接丢弃，如聊天广播</li>
+ *     <li>CONFLATE 状态类消息每个消息ID只保留最新一条，恢复可写后再发送，如位置、属性刷新</li>
+ *     <li>PASS 其他消息照常写入</li>
+ * </ul>
+ * 出站积压持续超过硬上限时断开连接。丢弃、合并和断开次数为全服累计值。
+ */
+@Component
+public class OutboundPolicy {
+
+    private static final Logger logger = LoggerFactory.getLogger(OutboundPolicy.class);
+
+    public enum Action {
+        PASS, DROP, CONFLATE
+    }
+
+    @Value("${netty.server.outboundDropMsgIds:}")
+    private String dropMsgIdsText;
+
+    @Value("${netty.server.outboundConflateMsgIds:}")
+    private String conflateMsgIdsText;
+
+    @Value("${netty.server.outboundHardCap:1048576}")
+    private long hardCapBytes;
+
+    @Value("${netty.server.outboundHardCapTimeout:10000}")
+    private long hardCapTimeoutMillis;
+
+    /**
+     * 升序消息ID，二分查找
+     */
+    private int[] dropMsgIds = new int[0];
+    private int[] conflateMsgIds = new int[0];
+
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder conflated = new LongAdder();
+    private final LongAdder disconnected = new LongAdder();
+
+    @PostConstruct
+    public void init() {
+        dropMsgIds = parseMsgIds(dropMsgIdsText);
+        conflateMsgIds = parseMsgIds(conflateMsgIdsText);
+        logger.info("Outbound policy loaded, drop={}, conflate={}, hardCap={}B, hardCapTimeout={}ms",
+                Arrays.toString(dropMsgIds), Arrays.toString(conflateMsgIds), hardCapBytes, hardCapTimeoutMillis);
+    }
+
+    /**
+     * 连接不可写时对该消息的处理方式
+     */
+    public Action action(int msgId) {
+        if (Arrays.binarySearch(dropMsgIds, msgId) >= 0) {
+            return Action.DROP;
+        }
+        if (Arrays.binarySearch(conflateMsgIds, msgId) >= 0) {
+            return Action.CONFLATE;
+        }
+        return Action.PASS;
+    }
+
+    public long getHardCapBytes() {
+        return hardCapBytes;
+    }
+
+    public long getHardCapTimeoutMillis() {
+        return hardCapTimeoutMillis;
+    }
+
+    public void recordDropped() {
+        dropped.increment();
+    }
+
+    public void recordConflated() {
+        conflated.increment();
+    }
+
+    public void recordDisconnected() {
+        disconnected.increment();
+    }
+
+    /**
+     * 出站策略统计
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("dropped", dropped.sum());
+        stats.put("conflated", conflated.sum());
+        stats.put("disconnected", disconnected.sum());
+        stats.put("hardCapBytes", hardCapBytes);
+        stats.put("hardCapTimeoutMillis", hardCapTimeoutMillis);
+        return stats;
+    }
+
+    static int[] parseMsgIds(String text) {
+        if (text == null || text.trim().isEmpty()) {
+            return new int[0];
+        }
+        return Arrays.stream(text.split(","))
+                .map(String::trim)
+                .filter(s -> !s.isEmpty())
+                .mapToInt(Integer::parseInt)
+                .sorted()
+                .distinct()
+                .toArray();
+    }
+}
@@ -0,0 +1,149 @@
+package com.game.netty;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.handler.codec.CorruptedFrameException;
+import net.jpountz.lz4.LZ4Compressor;
+import net.jpountz.lz4.LZ4Exception;
+import net.jpountz.lz4.LZ4Factory;
+import net.jpountz.lz4.LZ4SafeDecompressor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.ByteBuffer;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 消息体LZ4压缩
+ * 协商了{@link ChannelCapabilities#COMPRESSION}的连接，消息体不小于阈值时压缩，
+ * 压缩后没有达到最低压缩比则原样发送。压缩的消息在头部msgId上置{@link #FLAG_COMPRESSED}，
+ * 消息体为4字节原始长度+LZ4块。压缩直接写入编码器的池化输出缓冲区，不分配中间数组。
+ * 按msgId统计压缩次数、节省的字节数和耗时。
+ */
+@Component
+public class PayloadCompression {
+
+    /**
+     * 头部msgId的最高位表示消息体已压缩
+     */
+    public static final int FLAG_COMPRESSED = 0x8000;
+    public static final int MSG_ID_MASK = 0x7FFF;
+
+    private static final LZ4Factory FACTORY = LZ4Factory.fastestInstance();
+
+    @Value("${netty.server.compression:true}")
+    private boolean enabled;
+
+    @Value("${netty.server.compressionThreshold:1024}")
+    private int threshold;
+
+    @Value("${netty.server.compressionMinRatio:0.9}")
+    private double minRatio;
+
+    @Value("${netty.server.compressionMaxInflated:4194304}")
+    private int maxInflatedBytes;
+
+    private final LZ4Compressor compressor = FACTORY.fastCompressor();
+    private final LZ4SafeDecompressor decompressor = FACTORY.safeDecompressor();
+
+    private final ConcurrentMap<Integer, Stat> stats = new ConcurrentHashMap<>();
+
+    private static final class Stat {
+        private final LongAdder compressed = new LongAdder();
+        private final LongAdder skipped = new LongAdder();
+        private final LongAdder rawBytes = new LongAdder();
+        private final LongAdder savedBytes = new LongAdder();
+        private final LongAdder nanos = new LongAdder();
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * 尝试把消息体压缩写入out：写入4字节原始长度和LZ4块
+     *
+     * @return 是否写入了压缩数据，false时out不变，调用方原样写入消息体
+     */
+    public boolean compress(int msgId, ByteBuffer data, ByteBuf out) {
+        int rawLength = data.remaining();
+        if (rawLength < threshold) {
+            return false;
+        }
+        long start = System.nanoTime();
+        int maxLength = compressor.maxCompressedLength(rawLength);
+        out.ensureWritable(4 + maxLength);
+        int writerIndex = out.writerIndex();
+        ByteBuffer target = out.nioBuffer(writerIndex + 4, maxLength);
+        int compressedLength = compressor.compress(data, data.position(), rawLength, target, target.position(), maxLength);
+        Stat stat = stat(msgId);
+        stat.nanos.add(System.nanoTime() - start);
+        if (4 + compressedLength > rawLength * minRatio) {
+            stat.skipped.increment();
+            return false;
+        }
+        out.setInt(writerIndex, rawLength);
+        out.writerIndex(writerIndex + 4 + compressedLength);
+        stat.compressed.increment();
+        stat.rawBytes.add(rawLength);
+        stat.savedBytes.add(rawLength - 4 - compressedLength);
+        return true;
+    }
+
+    /**
+     * 解压从in当前位置开始、长度为length的压缩消息体
+     */
+    public byte[] decompress(ByteBuf in, int length) {
+        if (length < 4) {
+            throw new CorruptedFrameException("Compressed payload too short: " + length);
+        }
+        int rawLength = in.readInt();
+        if (rawLength < 0 || rawLength > maxInflatedBytes) {
+            throw new CorruptedFrameException("Compressed payload inflates to " + rawLength + " bytes, limit " + maxInflatedBytes);
+        }
+        byte[] raw = new byte[rawLength];
+        ByteBuffer source = in.nioBuffer(in.readerIndex(), length - 4);
+        try {
+            int written = decompressor.decompress(source, source.position(), length - 4, ByteBuffer.wrap(raw), 0, rawLength);
+            if (written != rawLength) {
+                throw new CorruptedFrameException("Compressed payload length mismatch: " + written + " != " + rawLength);
+            }
+        } catch (LZ4Exception e) {
+            throw new CorruptedFrameException("Malformed compressed payload", e);
+        }
+        in.skipBytes(length - 4);
+        return raw;
+    }
+
+    /**
+     * 按msgId的压缩统计
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("enabled", enabled);
+        result.put("threshold", threshold);
+        result.put("minRatio", minRatio);
+        Map<Integer, Map<String, Object>> byMsgId = new TreeMap<>();
+        for (Map.Entry<Integer, Stat> entry : stats.entrySet()) {
+            Stat stat = entry.getValue();
+            Map<String, Object> item = new LinkedHashMap<>();
+            item.put("compressed", stat.compressed.sum());
+            item.put("skipped", stat.skipped.sum());
+            item.put("rawBytes", stat.rawBytes.sum());
+            item.put("savedBytes", stat.savedBytes.sum());
+            item.put("cpuMicros", stat.nanos.sum() / 1000);
+            byMsgId.put(entry.getKey(), item);
+        }
+        result.put("msgIds", byMsgId);
+        return result;
+    }
+
+    private Stat stat(int msgId) {
+        Stat stat = stats.get(msgId);
+        return stat != null ? stat : stats.computeIfAbsent(msgId, k -> new Stat());
+    }
+}
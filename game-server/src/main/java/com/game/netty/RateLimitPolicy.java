@@ -0,0 +1,181 @@
+package com.game.netty;
+
+import com.game.common.collection.IntIntMap;
+import com.game.common.util.TokenBucket;
+import io.netty.channel.EventLoopGroup;
+import io.netty.util.concurrent.EventExecutor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 入站限流策略
+ * <ul>
+ *     <li>每个连接一个令牌桶，按帧计数，超出后暂停读取直到欠账还清</li>
+ *     <li>可按消息ID配置每个连接的独立预算，超出的帧直接丢弃</li>
+ *     <li>全服上限平均分到每个Worker EventLoop，每个EventLoop一个桶，只在本线程访问，没有竞争</li>
+ * </ul>
+ * 连接在时间窗口内被限流（或丢帧）的次数达到上限时断开。
+ */
+@Component
+public class RateLimitPolicy {
+
+    private static final Logger logger = LoggerFactory.getLogger(RateLimitPolicy.class);
+
+    @Value("${netty.server.rateLimitEnabled:true}")
+    private boolean enabled;
+
+    @Value("${netty.server.rateLimitRate:50}")
+    private int rate;
+
+    @Value("${netty.server.rateLimitBurst:100}")
+    private int burst;
+
+    @Value("${netty.server.rateLimitMsgBudgets:}")
+    private String msgBudgetsText;
+
+    @Value("${netty.server.rateLimitGlobalRate:0}")
+    private int globalRate;
+
+    @Value("${netty.server.rateLimitMaxStrikes:10}")
+    private int maxStrikes;
+
+    @Value("${netty.server.rateLimitStrikeWindow:10000}")
+    private long strikeWindowMillis;
+
+    @Autowired
+    @Qualifier("workerGroup")
+    private EventLoopGroup workerGroup;
+
+    /**
+     * 消息ID到每秒预算
+     */
+    private IntIntMap msgBudgets = IntIntMap.EMPTY;
+    private double loopRate;
+    private final ConcurrentMap<EventExecutor, TokenBucket> loopBuckets = new ConcurrentHashMap<>();
+
+    private final LongAdder throttled = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder disconnected = new LongAdder();
+
+    @PostConstruct
+    public void init() {
+        msgBudgets = parseMsgBudgets(msgBudgetsText);
+        int loops = 0;
+        for (Iterator<EventExecutor> it = workerGroup.iterator(); it.hasNext(); it.next()) {
+            loops++;
+        }
+        loopRate = globalRate > 0 ? (double) globalRate / Math.max(1, loops) : 0;
+        logger.info("Rate limit policy loaded, enabled={}, rate={}/s, burst={}, msgBudgets={}, globalRate={}/s over {} loops",
+                enabled, rate, burst, msgBudgets, globalRate, loops);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * 新连接的令牌桶
+     */
+    public TokenBucket newConnectionBucket(long nowNanos) {
+        return new TokenBucket(rate, Math.max(burst, 1), nowNanos);
+    }
+
+    /**
+     * 新连接某个消息ID的令牌桶，该消息没有单独预算时返回null
+     */
+    public TokenBucket newMsgBucket(int msgId, long nowNanos) {
+        int budget = msgBudgets.getOrDefault(msgId, 0);
+        return budget > 0 ? new TokenBucket(budget, budget, nowNanos) : null;
+    }
+
+    public boolean hasMsgBudget(int msgId) {
+        return msgBudgets.containsKey(msgId);
+    }
+
+    /**
+     * EventLoop分到的全服令牌桶，未配置全服上限时返回null。只能在该EventLoop线程上使用
+     */
+    public TokenBucket loopBucket(EventExecutor loop) {
+        if (loopRate <= 0) {
+            return null;
+        }
+        return loopBuckets.computeIfAbsent(loop, k -> new TokenBucket(loopRate, loopRate, System.nanoTime()));
+    }
+
+    public int getMaxStrikes() {
+        return maxStrikes;
+    }
+
+    public long getStrikeWindowMillis() {
+        return strikeWindowMillis;
+    }
+
+    public void recordThrottled() {
+        throttled.increment();
+    }
+
+    public void recordDropped() {
+        dropped.increment();
+    }
+
+    public void recordDisconnected() {
+        disconnected.increment();
+    }
+
+    /**
+     * 限流统计
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", enabled);
+        stats.put("throttled", throttled.sum());
+        stats.put("dropped", dropped.sum());
+        stats.put("disconnected", disconnected.sum());
+        stats.put("rate", rate);
+        stats.put("burst", burst);
+        stats.put("globalRate", globalRate);
+        return stats;
+    }
+
+    /**
+     * 解析"msgId:每秒次数"列表，逗号分隔
+     */
+    static IntIntMap parseMsgBudgets(String text) {
+        if (text == null || text.trim().isEmpty()) {
+            return IntIntMap.EMPTY;
+        }
+        String[] entries = text.split(",");
+        int[] keys = new int[entries.length];
+        int[] values = new int[entries.length];
+        int size = 0;
+        for (String entry : entries) {
+            String trimmed = entry.trim();
+            if (trimmed.isEmpty()) {
+                continue;
+            }
+            int colon = trimmed.indexOf(':');
+            if (colon <= 0) {
+                throw new IllegalArgumentException("Invalid rate limit budget, expected msgId:rate: " + trimmed);
+            }
+            keys[size] = Integer.parseInt(trimmed.substring(0, colon).trim());
+            values[size] = Integer.parseInt(trimmed.substring(colon + 1).trim());
+            if (values[size] <= 0) {
+                throw new IllegalArgumentException("Rate limit budget must be > 0: " + trimmed);
+            }
+            size++;
+        }
+        return IntIntMap.of(keys, values, size);
+    }
+}
@@ -0,0 +1,107 @@
+package com.game.netty.codec;
+
+import com.game.netty.ChannelCapabilities;
+import com.game.proto.msgid.MsgIdEnum;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.CompositeByteBuf;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelOutboundHandlerAdapter;
+import io.netty.channel.ChannelPromise;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 批量帧编码器
+ * 放在flush合并处理器之后（靠近网络一侧），只处理已经编码好的帧。
+ * 连接协商了{@link ChannelCapabilities#BATCH}时，两次flush之间写入的多个帧合并为一个MSG_BATCH帧：
+ * 4字节(总长度)+2字节(MSG_BATCH)+4字节(子帧数量)+子帧1+子帧2+...，子帧原样拼接，不复制数据。
+ * 只有一个帧时原样写出；单个批量帧超过maxBatchBytes时先写出已合并的部分。
+ * 只在EventLoop线程上访问，不需要同步。
+ */
+public class BatchFrameEncoder extends ChannelOutboundHandlerAdapter {
+
+    public static final String NAME = "batchFrameEncoder";
+
+    private static final int HEADER_LENGTH = 4 + 2 + 4;
+
+    private final int maxBatchBytes;
+
+    private final List<ByteBuf> frames = new ArrayList<>();
+    private final List<ChannelPromise> promises = new ArrayList<>();
+    private int pendingBytes;
+
+    public BatchFrameEncoder(int maxBatchBytes) {
+        this.maxBatchBytes = maxBatchBytes;
+    }
+
+    @Override
+    public void write(ChannelHandlerContext ctx, Object msg, ChannelPromise promise) {
+        if (!(msg instanceof ByteBuf) || !ChannelCapabilities.has(ctx.channel(), ChannelCapabilities.BATCH)) {
+            writePending(ctx);
+            ctx.write(msg, promise);
+            return;
+        }
+        ByteBuf frame = (ByteBuf) msg;
+        if (!frames.isEmpty() && pendingBytes + frame.readableBytes() > maxBatchBytes) {
+            writePending(ctx);
+        }
+        frames.add(frame);
+        promises.add(promise);
+        pendingBytes += frame.readableBytes();
+    }
+
+    @Override
+    public void flush(ChannelHandlerContext ctx) {
+        writePending(ctx);
+        ctx.flush();
+    }
+
+    @Override
+    public void close(ChannelHandlerContext ctx, ChannelPromise promise) {
+        writePending(ctx);
+        ctx.flush();
+        ctx.close(promise);
+    }
+
+    @Override
+    public void handlerRemoved(ChannelHandlerContext ctx) {
+        writePending(ctx);
+    }
+
+    private void writePending(ChannelHandlerContext ctx) {
+        if (frames.isEmpty()) {
+            return;
+        }
+        if (frames.size() == 1) {
+            ctx.write(frames.get(0), promises.get(0));
+        } else {
+            writeBatch(ctx);
+        }
+        frames.clear();
+        promises.clear();
+        pendingBytes = 0;
+    }
+
+    private void writeBatch(ChannelHandlerContext ctx) {
+        ByteBuf header = ctx.alloc().buffer(HEADER_LENGTH);
+        header.writeInt(2 + 4 + pendingBytes);
+        header.writeShort(MsgIdEnum.MSG_BATCH_VALUE);
+        header.writeInt(frames.size());
+        CompositeByteBuf batch = ctx.alloc().compositeBuffer(frames.size() + 1);
+        batch.addComponent(true, header);
+        for (ByteBuf frame : frames) {
+            batch.addComponent(true, frame);
+        }
+        List<ChannelPromise> batched = new ArrayList<>(promises);
+        ctx.write(batch).addListener(future -> {
+            for (ChannelPromise promise : batched) {
+                if (future.isSuccess()) {
+                    promise.trySuccess();
+                } else if (!promise.isVoid()) {
+                    promise.tryFailure(future.cause());
+                }
+            }
+        });
+    }
+}
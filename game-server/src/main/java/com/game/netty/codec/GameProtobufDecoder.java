@@ -1,8 +1,14 @@
 package com.game.netty.codec;
 
+import com.game.netty.ChannelCapabilities;
+import com.game.netty.PayloadCompression;
 import com.game.proto.GameMessage;
+import com.game.proto.msgid.MsgIdEnum;
+import com.google.protobuf.ByteString;
+import com.google.protobuf.UnsafeByteOperations;
 import io.netty.buffer.ByteBuf;
 import io.netty.channel.ChannelHandlerContext;
+import io.netty.handler.codec.CorruptedFrameException;
 import io.netty.handler.codec.MessageToMessageDecoder;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -12,10 +18,25 @@ import java.util.List;
 /**
  * Protobuf解码器
  * 协议格式：4字节(总长度)+2字节(msgId)+4字节(序列号)+data
+ * msgId为MSG_BATCH时data是若干个同样格式的完整子帧，序列号为子帧数量；
+ * msgId最高位为1时data为压缩后的消息体，见{@link PayloadCompression}；只有握手时协商了压缩的连接才接受压缩消息
  */
 public class GameProtobufDecoder extends MessageToMessageDecoder<ByteBuf> {
     
     private static final Logger logger = LoggerFactory.getLogger(GameProtobufDecoder.class);
+
+    private final PayloadCompression compression;
+
+    public GameProtobufDecoder() {
+        this(null);
+    }
+
+    /**
+     * @param compression 消息体压缩，为null或连接未协商压缩时收到压缩消息按错误处理
+     */
+    public GameProtobufDecoder(PayloadCompression compression) {
+        this.compression = compression;
+    }
     
     @Override
     protected void decode(ChannelHandlerContext ctx, ByteBuf msg, List<Object> out) throws Exception {
@@ -26,28 +47,70 @@ public class GameProtobufDecoder extends MessageToMessageDecoder<ByteBuf> {
                 return;
             }
             int length = msg.readInt();
-            short msgId = msg.readShort();   // 2字节msgId
+            int msgId = msg.readUnsignedShort();   // 2字节msgId，最高位为压缩标记
             int sequence = msg.readInt(); // 4字节序列号
+
+            boolean compressionEnabled = compression != null && ChannelCapabilities.has(ctx.channel(), ChannelCapabilities.COMPRESSION);
+            if (msgId == MsgIdEnum.MSG_BATCH_VALUE) {
+                // 批量帧：序列号为子消息数量，其后是依次拼接的完整子帧，一次解码全部交给后续处理器
+                decodeBatch(msg, sequence, compressionEnabled, out);
+                return;
+            }
             
-            // 读取剩余的数据作为protobuf数据
-            byte[] data = new byte[msg.readableBytes()];
-            msg.readBytes(data);
-            
-            // 构造GameMessage对象
-            GameMessage gameMessage = GameMessage.newBuilder()
-                    .setMsgId(msgId)
-                    .setSequence(sequence)
-                    .setData(com.google.protobuf.ByteString.copyFrom(data))
-                    .build();
-            
-            out.add(gameMessage);
-            
-            logger.debug("Decoded message: msgId={}, sequence={}, size={}",
-                    gameMessage.getMsgId(), gameMessage.getSequence(), data.length + 6);
+            out.add(readMessage(msg, msgId, sequence, msg.readableBytes(), compressionEnabled));
                     
         } catch (Exception e) {
             logger.error("Failed to decode message from channel: {}", ctx.channel(), e);
             ctx.fireExceptionCaught(e);
         }
     }
+
+    private void decodeBatch(ByteBuf msg, int count, boolean compressionEnabled, List<Object> out) {
+        for (int i = 0; i < count; i++) {
+            if (msg.readableBytes() < 10) {
+                throw new CorruptedFrameException("Batch frame truncated at sub message " + i + " of " + count);
+            }
+            int length = msg.readInt();
+            if (length < 6 || length > msg.readableBytes()) {
+                throw new CorruptedFrameException("Invalid sub message length in batch frame: " + length);
+            }
+            int msgId = msg.readUnsignedShort();
+            int sequence = msg.readInt();
+            if ((msgId & PayloadCompression.MSG_ID_MASK) == MsgIdEnum.MSG_BATCH_VALUE) {
+                throw new CorruptedFrameException("Nested batch frame is not allowed");
+            }
+            out.add(readMessage(msg, msgId, sequence, length - 6, compressionEnabled));
+        }
+        if (msg.isReadable()) {
+            throw new CorruptedFrameException("Batch frame has " + msg.readableBytes() + " trailing bytes");
+        }
+    }
+
+    private GameMessage readMessage(ByteBuf msg, int msgId, int sequence, int dataLength, boolean compressionEnabled) {
+        ByteString data;
+        if ((msgId & PayloadCompression.FLAG_COMPRESSED) != 0) {
+            if (!compressionEnabled) {
+                throw new CorruptedFrameException("Compression is not negotiated on this channel: msgId=" + (msgId & PayloadCompression.MSG_ID_MASK));
+            }
+            msgId &= PayloadCompression.MSG_ID_MASK;
+            // 解压结果不再修改，直接包装避免再复制一次
+            data = UnsafeByteOperations.unsafeWrap(compression.decompress(msg, dataLength));
+        } else {
+            // 读取剩余的数据作为protobuf数据
+            byte[] bytes = new byte[dataLength];
+            msg.readBytes(bytes);
+            data = UnsafeByteOperations.unsafeWrap(bytes);
+        }
+        
+        // 构造GameMessage对象
+        GameMessage gameMessage = GameMessage.newBuilder()
+                .setMsgId((short) msgId)
+                .setSequence(sequence)
+                .setData(data)
+                .build();
+        
+        logger.debug("Decoded message: msgId={}, sequence={}, size={}",
+                gameMessage.getMsgId(), gameMessage.getSequence(), dataLength + 6);
+        return gameMessage;
+    }
 }
\ No newline at end of file
@@ -1,41 +1,67 @@
 package com.game.netty.codec;
 
+import com.game.netty.ChannelCapabilities;
+import com.game.netty.PayloadCompression;
 import com.game.proto.GameMessage;
+import com.google.protobuf.ByteString;
 import io.netty.buffer.ByteBuf;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.handler.codec.MessageToByteEncoder;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.nio.ByteBuffer;
+
 /**
  * Protobuf编码器
  * 协议格式：4字节(总长度)+2字节(msgId)+4字节(序列号)+data
+ * 连接协商了{@link ChannelCapabilities#COMPRESSION}时，大消息体由{@link PayloadCompression}压缩，msgId置压缩标记
  */
 public class GameProtobufEncoder extends MessageToByteEncoder<GameMessage> {
     
     private static final Logger logger = LoggerFactory.getLogger(GameProtobufEncoder.class);
+
+    private final PayloadCompression compression;
+
+    public GameProtobufEncoder() {
+        this(null);
+    }
+
+    /**
+     * @param compression 消息体压缩，为null时不压缩
+     */
+    public GameProtobufEncoder(PayloadCompression compression) {
+        this.compression = compression;
+    }
     
     @Override
     protected void encode(ChannelHandlerContext ctx, GameMessage msg, ByteBuf out) throws Exception {
         try {
             // 获取protobuf数据
-            byte[] data = msg.getData().toByteArray();
+            ByteString data = msg.getData();
+            int start = out.writerIndex();
             
-            // 计算总长度（不包括长度字段本身）
+            // 先写头部，总长度和msgId在写完消息体后回填
             // 2字节msgId + 4字节序列号 + data长度
-            int totalLength = 2 + 4 + data.length;
-            
-            // 写入总长度（4字节）
-            out.writeInt(totalLength);
-            
-            // 写入msgId（2字节）
-            out.writeShort((short) msg.getMsgId());
-            
-            // 写入序列号（4字节）
+            out.writeInt(0);
+            out.writeShort(0);
             out.writeInt(msg.getSequence());
             
-            // 写入protobuf数据
-            out.writeBytes(data);
+            int msgId = msg.getMsgId() & PayloadCompression.MSG_ID_MASK;
+            if (compression != null && compression.isEnabled()
+                    && ChannelCapabilities.has(ctx.channel(), ChannelCapabilities.COMPRESSION)
+                    && compression.compress(msgId, data.asReadOnlyByteBuffer(), out)) {
+                msgId |= PayloadCompression.FLAG_COMPRESSED;
+            } else {
+                // 写入protobuf数据
+                for (ByteBuffer chunk : data.asReadOnlyByteBufferList()) {
+                    out.writeBytes(chunk);
+                }
+            }
+            
+            int totalLength = out.writerIndex() - start - 4;
+            out.setInt(start, totalLength);
+            out.setShort(start + 4, msgId);
             
             logger.debug("Encoded message: msgId={}, sequence={}, totalSize={}",
                     msg.getMsgId(), msg.getSequence(), totalLength + 4);
@@ -45,4 +71,4 @@ public class GameProtobufEncoder extends MessageToByteEncoder<GameMessage> {
             throw e;
         }
     }
-}
\ No newline at end of file
+}
@@ -8,6 +8,7 @@ package com.game.netty.codec;
 
 import io.netty.buffer.ByteBuf;
 import io.netty.channel.ChannelHandlerContext;
+import io.netty.handler.codec.CorruptedFrameException;
 import io.netty.handler.codec.MessageToMessageCodec;
 import io.netty.handler.codec.http.websocketx.BinaryWebSocketFrame;
 import io.netty.handler.codec.http.websocketx.CloseWebSocketFrame;
@@ -17,10 +18,26 @@ import java.util.List;
 
 /**
  * 简化的WebSocket帧转换器
- * 直接处理二进制帧，无需格式转换
+ * 直接处理二进制帧，无需格式转换。
+ * 帧模式下每个二进制帧必须恰好是一个完整的游戏消息帧（4字节长度与帧大小一致），
+ * 管道中不再需要长度字段解码器，帧内容原样交给解码器就地读取头部；
+ * 流模式下帧内容当作TCP字节流，由后面的长度字段解码器重新分帧。
  */
 public class SimpleWebSocketFrameConverter extends MessageToMessageCodec<WebSocketFrame, ByteBuf> {
 
+    private final boolean frameMode;
+
+    public SimpleWebSocketFrameConverter() {
+        this(false);
+    }
+
+    /**
+     * @param frameMode 每个二进制帧是否恰好是一个游戏消息帧
+     */
+    public SimpleWebSocketFrameConverter(boolean frameMode) {
+        this.frameMode = frameMode;
+    }
+
     @Override
     protected void encode(ChannelHandlerContext ctx, ByteBuf msg, List<Object> out) throws Exception {
         // 将ByteBuf包装成BinaryWebSocketFrame
@@ -30,8 +47,14 @@ public class SimpleWebSocketFrameConverter extends MessageToMessageCodec<WebSock
     @Override
     protected void decode(ChannelHandlerContext ctx, WebSocketFrame frame, List<Object> out) throws Exception {
         if (frame instanceof BinaryWebSocketFrame) {
+            ByteBuf content = frame.content();
+            if (frameMode && (content.readableBytes() < 4
+                    || content.getInt(content.readerIndex()) != content.readableBytes() - 4)) {
+                throw new CorruptedFrameException("WebSocket frame is not a single game message: "
+                        + content.readableBytes() + " bytes");
+            }
             // 将BinaryWebSocketFrame中的内容转换为ByteBuf
-            out.add(frame.content().retain());
+            out.add(content.retain());
         } else if (frame instanceof CloseWebSocketFrame) {
             ctx.close();
         } else {
@@ -36,6 +36,27 @@ public class NettyConfig {
     @Value("${netty.server.tcpNoDelay:true}")
     private boolean tcpNoDelay;
 
+    @Value("${netty.server.flushCoalescing:true}")
+    private boolean flushCoalescing;
+
+    @Value("${netty.server.flushMaxDelay:5}")
+    private long flushMaxDelay;
+
+    @Value("${netty.server.flushMaxBytes:16384}")
+    private int flushMaxBytes;
+
+    @Value("${netty.server.batchMaxBytes:65536}")
+    private int batchMaxBytes;
+
+    @Value("${netty.server.webSocketFrameMode:true}")
+    private boolean webSocketFrameMode;
+
+    @Value("${netty.server.webSocketDeflate:true}")
+    private boolean webSocketDeflate;
+
+    @Value("${netty.server.webSocketDeflateLevel:6}")
+    private int webSocketDeflateLevel;
+
     /**
      * Boss线程组
      */
@@ -101,4 +122,53 @@ public class NettyConfig {
     public int getWorkerThreads() {
         return workerThreads == 0 ? Runtime.getRuntime().availableProcessors() * 2 : workerThreads;
     }
-}
\ No newline at end of file
+
+    /**
+     * 是否合并出站flush
+     */
+    public boolean isFlushCoalescing() {
+        return flushCoalescing;
+    }
+
+    /**
+     * flush最多推迟的毫秒数
+     */
+    public long getFlushMaxDelay() {
+        return flushMaxDelay;
+    }
+
+    /**
+     * 未flush数据达到该字节数时立即flush
+     */
+    public int getFlushMaxBytes() {
+        return flushMaxBytes;
+    }
+
+    /**
+     * 单个批量帧的最大字节数
+     */
+    public int getBatchMaxBytes() {
+        return batchMaxBytes;
+    }
+
+    /**
+     * WebSocket每个二进制帧是否恰好是一个完整的游戏消息帧
+     */
+    public boolean isWebSocketFrameMode() {
+        return webSocketFrameMode;
+    }
+
+    /**
+     * 是否允许协商WebSocket permessage-deflate扩展
+     */
+    public boolean isWebSocketDeflate() {
+        return webSocketDeflate;
+    }
+
+    /**
+     * permessage-deflate压缩级别(0-9)
+     */
+    public int getWebSocketDeflateLevel() {
+        return webSocketDeflateLevel;
+    }
+}
@@ -0,0 +1,196 @@
+package com.game.netty.handler;
+
+import com.game.netty.OutboundPolicy;
+import com.game.proto.GameMessage;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelDuplexHandler;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelOutboundBuffer;
+import io.netty.channel.ChannelPromise;
+import io.netty.util.concurrent.ScheduledFuture;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 慢速客户端出站背压处理器
+ * 放在编码器之后（靠近业务一侧），按GameMessage的消息ID执行{@link OutboundPolicy}：
+ * 连接可写时直接写入；不可写时丢弃低优先级消息，状态类消息按消息ID只保留最新一条，
+ * 恢复可写后再写出（合并的消息排在不可写期间的其他消息之后）。
+ * 不可写期间定期检查出站积压，持续超过硬上限时断开连接，避免堆外内存被单个连接耗尽。
+ * 被丢弃、被更新的消息替换或连接断开时仍未写出的合并消息，写入的promise以{@link MessageDroppedException}失败，
+ * 调用方可以据此区分消息是否真正交给了网络层。
+ * 只在EventLoop线程上访问，不需要同步。
+ */
+public class OutboundPolicyHandler extends ChannelDuplexHandler {
+
+    private static final Logger logger = LoggerFactory.getLogger(OutboundPolicyHandler.class);
+
+    public static final String NAME = "outboundPolicy";
+
+    /**
+     * 不可写期间检查积压的间隔
+     */
+    private static final long CHECK_INTERVAL_MILLIS = 500;
+
+    /**
+     * 消息被出站策略丢弃，所有连接共享同一个无堆栈实例
+     */
+    public static final class MessageDroppedException extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        private MessageDroppedException() {
+            super("Message dropped by outbound policy", null, false, false);
+        }
+    }
+
+    private static final MessageDroppedException DROPPED = new MessageDroppedException();
+
+    private final OutboundPolicy policy;
+
+    /**
+     * 不可写期间合并的消息，消息ID到最新一条
+     */
+    private final Map<Integer, PendingMessage> conflated = new LinkedHashMap<>();
+    private ScheduledFuture<?> backlogCheck;
+    /**
+     * 积压开始超过硬上限的时间，0表示未超过
+     */
+    private long overCapSince;
+
+    private static final class PendingMessage {
+        private final Object msg;
+        private final ChannelPromise promise;
+
+        private PendingMessage(Object msg, ChannelPromise promise) {
+            this.msg = msg;
+            this.promise = promise;
+        }
+    }
+
+    public OutboundPolicyHandler(OutboundPolicy policy) {
+        this.policy = policy;
+    }
+
+    @Override
+    public void write(ChannelHandlerContext ctx, Object msg, ChannelPromise promise) {
+        if (ctx.channel().isWritable() || !(msg instanceof GameMessage)) {
+            writeConflated(ctx);
+            ctx.write(msg, promise);
+            return;
+        }
+        int msgId = ((GameMessage) msg).getMsgId();
+        switch (policy.action(msgId)) {
+            case DROP:
+                policy.recordDropped();
+                fail(promise);
+                break;
+            case CONFLATE:
+                PendingMessage previous = conflated.put(msgId, new PendingMessage(msg, promise));
+                if (previous != null) {
+                    policy.recordConflated();
+                    fail(previous.promise);
+                }
+                break;
+            default:
+                ctx.write(msg, promise);
+                break;
+        }
+    }
+
+    @Override
+    public void channelWritabilityChanged(ChannelHandlerContext ctx) {
+        if (ctx.channel().isWritable()) {
+            cancelBacklogCheck();
+            if (!conflated.isEmpty()) {
+                writeConflated(ctx);
+                ctx.flush();
+            }
+        } else if (backlogCheck == null) {
+            backlogCheck = ctx.executor().scheduleAtFixedRate(() -> checkBacklog(ctx),
+                    CHECK_INTERVAL_MILLIS, CHECK_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+        }
+        ctx.fireChannelWritabilityChanged();
+    }
+
+    @Override
+    public void channelInactive(ChannelHandlerContext ctx) {
+        cancelBacklogCheck();
+        discardConflated();
+        ctx.fireChannelInactive();
+    }
+
+    @Override
+    public void handlerRemoved(ChannelHandlerContext ctx) {
+        cancelBacklogCheck();
+        discardConflated();
+    }
+
+    private void checkBacklog(ChannelHandlerContext ctx) {
+        Channel channel = ctx.channel();
+        if (channel.isWritable() || !channel.isActive()) {
+            overCapSince = 0;
+            cancelBacklogCheck();
+            return;
+        }
+        long pending = pendingBytes(channel);
+        if (pending <= policy.getHardCapBytes()) {
+            overCapSince = 0;
+            return;
+        }
+        long now = System.currentTimeMillis();
+        if (overCapSince == 0) {
+            overCapSince = now;
+        } else if (now - overCapSince >= policy.getHardCapTimeoutMillis()) {
+            logger.warn("Closing slow consumer {}, outbound backlog {}B over hard cap {}B for {}ms",
+                    channel.remoteAddress(), pending, policy.getHardCapBytes(), now - overCapSince);
+            policy.recordDisconnected();
+            cancelBacklogCheck();
+            ctx.close();
+        }
+    }
+
+    private static long pendingBytes(Channel channel) {
+        ChannelOutboundBuffer buffer = channel.unsafe().outboundBuffer();
+        return buffer == null ? 0 : buffer.totalPendingWriteBytes();
+    }
+
+    private void writeConflated(ChannelHandlerContext ctx) {
+        if (conflated.isEmpty()) {
+            return;
+        }
+        List<PendingMessage> pending = new ArrayList<>(conflated.values());
+        conflated.clear();
+        for (PendingMessage message : pending) {
+            ctx.write(message.msg, message.promise);
+        }
+    }
+
+    private void discardConflated() {
+        for (PendingMessage message : conflated.values()) {
+            policy.recordDropped();
+            fail(message.promise);
+        }
+        conflated.clear();
+    }
+
+    private static void fail(ChannelPromise promise) {
+        // void promise失败会触发exceptionCaught并导致断开，这里只是丢弃消息
+        if (!promise.isVoid()) {
+            promise.tryFailure(DROPPED);
+        }
+    }
+
+    private void cancelBacklogCheck() {
+        if (backlogCheck != null) {
+            backlogCheck.cancel(false);
+            backlogCheck = null;
+        }
+        overCapSince = 0;
+    }
+}
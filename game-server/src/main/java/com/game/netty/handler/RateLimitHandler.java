@@ -0,0 +1,162 @@
+package com.game.netty.handler;
+
+import com.game.common.collection.IntObjectHashMap;
+import com.game.common.util.TokenBucket;
+import com.game.netty.PayloadCompression;
+import com.game.netty.RateLimitPolicy;
+import com.game.proto.msgid.MsgIdEnum;
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.util.ReferenceCountUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 入站防刷处理器
+ * 放在拆帧之后、protobuf解码之前，每帧只做令牌桶计算，不解析消息体：
+ * 连接或全服令牌不足时照常放行当前帧，关闭autoRead直到欠账还清；
+ * 批量帧按子帧数量扣除令牌，有单独预算的消息ID超出预算时丢弃该帧（批量帧整帧丢弃）。连接自身超限和丢帧都记一次违规，
+ * 时间窗口内违规次数达到上限时断开。全服上限触发的暂停不记违规。
+ * 只在EventLoop线程上访问，不需要同步。
+ */
+public class RateLimitHandler extends ChannelInboundHandlerAdapter {
+
+    private static final Logger logger = LoggerFactory.getLogger(RateLimitHandler.class);
+
+    public static final String NAME = "rateLimiter";
+
+    private static final int NONE = Integer.MIN_VALUE;
+
+    private final RateLimitPolicy policy;
+
+    private TokenBucket bucket;
+    private TokenBucket loopBucket;
+    /**
+     * 有单独预算的消息ID的令牌桶，首次收到时创建
+     */
+    private IntObjectHashMap<TokenBucket> msgBuckets;
+
+    private boolean paused;
+    private int strikes;
+    private long lastStrikeNanos;
+
+    public RateLimitHandler(RateLimitPolicy policy) {
+        this.policy = policy;
+    }
+
+    @Override
+    public void handlerAdded(ChannelHandlerContext ctx) {
+        long now = System.nanoTime();
+        bucket = policy.newConnectionBucket(now);
+        loopBucket = policy.loopBucket(ctx.executor());
+    }
+
+    @Override
+    public void channelRead(ChannelHandlerContext ctx, Object msg) {
+        if (!(msg instanceof ByteBuf)) {
+            ctx.fireChannelRead(msg);
+            return;
+        }
+        long now = System.nanoTime();
+        ByteBuf frame = (ByteBuf) msg;
+        int permits = 1;
+        if (frame.readableBytes() >= 10) {
+            // 4字节长度之后是2字节msgId，批量帧按子帧数量计数，子帧至少10字节
+            int index = frame.readerIndex();
+            if (frame.getShort(index + 4) == MsgIdEnum.MSG_BATCH_VALUE) {
+                permits = Math.max(1, Math.min(frame.getInt(index + 6), frame.readableBytes() / 10));
+            }
+            int rejected = overBudgetMsgId(frame, now);
+            if (rejected != NONE) {
+                ReferenceCountUtil.release(msg);
+                policy.recordDropped();
+                strike(ctx, now, "msgId " + rejected + " over budget");
+                return;
+            }
+        }
+
+        long wait = bucket.acquire(now, permits);
+        long loopWait = loopBucket == null ? 0 : loopBucket.acquire(now, permits);
+        ctx.fireChannelRead(msg);
+        // 同一次暂停只记一次违规，暂停前已读入的帧不重复计
+        if ((wait > 0 || loopWait > 0) && pause(ctx, Math.max(wait, loopWait)) && wait > 0) {
+            strike(ctx, now, "connection rate exceeded");
+        }
+    }
+
+    /**
+     * 检查帧（批量帧为每个子帧）的消息预算，头部不完整的子帧留给解码器报错
+     *
+     * @return 超出预算的msgId，都在预算内时返回NONE
+     */
+    private int overBudgetMsgId(ByteBuf frame, long now) {
+        int index = frame.readerIndex();
+        int end = frame.writerIndex();
+        if (frame.getShort(index + 4) == MsgIdEnum.MSG_BATCH_VALUE) {
+            index += 10;
+        } else {
+            end = index + 10;
+        }
+        while (index + 10 <= end) {
+            int length = frame.getInt(index);
+            int msgId = frame.getUnsignedShort(index + 4) & PayloadCompression.MSG_ID_MASK;
+            if (policy.hasMsgBudget(msgId) && !acquireMsgBudget(msgId, now)) {
+                return msgId;
+            }
+            if (length < 6) {
+                break;
+            }
+            index += 4 + length;
+        }
+        return NONE;
+    }
+
+    private boolean acquireMsgBudget(int msgId, long now) {
+        if (msgBuckets == null) {
+            msgBuckets = new IntObjectHashMap<>();
+        }
+        TokenBucket msgBucket = msgBuckets.get(msgId);
+        if (msgBucket == null) {
+            msgBucket = policy.newMsgBucket(msgId, now);
+            msgBuckets.put(msgId, msgBucket);
+        }
+        return msgBucket.tryAcquire(now);
+    }
+
+    /**
+     * 暂停读取
+     *
+     * @return 是否新开始一次暂停
+     */
+    private boolean pause(ChannelHandlerContext ctx, long waitNanos) {
+        if (paused || !ctx.channel().isActive()) {
+            return false;
+        }
+        paused = true;
+        policy.recordThrottled();
+        ctx.channel().config().setAutoRead(false);
+        ctx.executor().schedule(() -> {
+            paused = false;
+            if (ctx.channel().isActive()) {
+                ctx.channel().config().setAutoRead(true);
+            }
+        }, waitNanos, TimeUnit.NANOSECONDS);
+        return true;
+    }
+
+    private void strike(ChannelHandlerContext ctx, long now, String reason) {
+        if (now - lastStrikeNanos > TimeUnit.MILLISECONDS.toNanos(policy.getStrikeWindowMillis())) {
+            strikes = 0;
+        }
+        strikes++;
+        lastStrikeNanos = now;
+        if (strikes >= policy.getMaxStrikes() && ctx.channel().isActive()) {
+            logger.warn("Closing flooding connection {}, {} strikes, last: {}", ctx.channel().remoteAddress(), strikes, reason);
+            policy.recordDisconnected();
+            ctx.close();
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package com.game.netty.handler;
+
+import com.game.model.player.resume.ResumableSession;
+import com.game.model.player.resume.SessionResumeManager;
+import com.game.proto.GameMessage;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelDuplexHandler;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelPromise;
+
+/**
+ * 会话恢复记录处理器
+ * 放在出站背压之后、编码器之前，真正交给编码器的消息才计入连接附着的{@link ResumableSession}，
+ * 被背压丢弃的消息不计数。会话已经恢复到新连接时，旧连接上迟到的消息改从新连接发出。
+ * 连接断开时通知{@link SessionResumeManager}把会话转为挂起。
+ */
+public class ResumeRecordHandler extends ChannelDuplexHandler {
+
+    public static final String NAME = "resumeRecorder";
+
+    private final SessionResumeManager manager;
+
+    /**
+     * 恢复时补发的消息，已经计过数，原样写出不再记录
+     */
+    private static final class Replay {
+        private final GameMessage msg;
+
+        private Replay(GameMessage msg) {
+            this.msg = msg;
+        }
+    }
+
+    public ResumeRecordHandler(SessionResumeManager manager) {
+        this.manager = manager;
+    }
+
+    /**
+     * 包装一条不需要计数的消息（恢复响应和补发的消息）
+     */
+    public static Object replay(GameMessage msg) {
+        return new Replay(msg);
+    }
+
+    @Override
+    public void write(ChannelHandlerContext ctx, Object msg, ChannelPromise promise) throws Exception {
+        if (msg instanceof Replay) {
+            ctx.write(((Replay) msg).msg, promise);
+            return;
+        }
+        ResumableSession session = msg instanceof GameMessage ? ctx.channel().attr(ResumableSession.KEY).get() : null;
+        if (session == null) {
+            ctx.write(msg, promise);
+            return;
+        }
+        Channel target = session.route(ctx.channel(), (GameMessage) msg);
+        if (target == ctx.channel()) {
+            ctx.write(msg, promise);
+            return;
+        }
+        // 会话挂起时消息已经缓存，恢复后补发；已经恢复到新连接时转过去
+        if (target != null) {
+            target.writeAndFlush(msg);
+        }
+        promise.trySuccess();
+    }
+
+    @Override
+    public void channelInactive(ChannelHandlerContext ctx) throws Exception {
+        manager.onDisconnect(ctx.channel());
+        super.channelInactive(ctx);
+    }
+}
@@ -1,9 +1,15 @@
 package com.game.netty.handler;
 
 import com.game.common.util.SpringUtils;
+import com.game.model.player.resume.SessionResumeManager;
+import com.game.netty.OutboundPolicy;
+import com.game.netty.PayloadCompression;
+import com.game.netty.RateLimitPolicy;
+import com.game.netty.codec.BatchFrameEncoder;
 import com.game.netty.codec.GameProtobufDecoder;
 import com.game.netty.codec.GameProtobufEncoder;
 import com.game.netty.codec.SimpleWebSocketFrameConverter;
+import com.game.netty.config.NettyConfig;
 import io.netty.buffer.ByteBuf;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.channel.ChannelPipeline;
@@ -11,13 +17,16 @@ import io.netty.handler.codec.ByteToMessageDecoder;
 import io.netty.handler.codec.LengthFieldBasedFrameDecoder;
 import io.netty.handler.codec.http.HttpObjectAggregator;
 import io.netty.handler.codec.http.HttpServerCodec;
+import io.netty.handler.codec.http.websocketx.WebSocketFrameAggregator;
+import io.netty.handler.codec.http.websocketx.WebSocketServerProtocolConfig;
 import io.netty.handler.codec.http.websocketx.WebSocketServerProtocolHandler;
+import io.netty.handler.codec.http.websocketx.extensions.WebSocketServerExtensionHandler;
+import io.netty.handler.codec.http.websocketx.extensions.compression.PerMessageDeflateServerExtensionHandshaker;
 import io.netty.handler.timeout.IdleStateHandler;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Component;
 
-import java.nio.charset.StandardCharsets;
 import java.util.List;
 import java.util.concurrent.TimeUnit;
 
@@ -29,20 +38,30 @@ import java.util.concurrent.TimeUnit;
 public class SocketChooseHandler extends ByteToMessageDecoder {
 
     private static final Logger logger = LoggerFactory.getLogger(SocketChooseHandler.class);
-    private static final String WEBSOCKET_PREFIX = "GET /";
-    private static final int MIN_LENGTH_FOR_DETECTION = WEBSOCKET_PREFIX.length(); // 应该是5
-    private static final int MAX_LENGTH_FOR_CHECK = 23;
+
+    /**
+     * WebSocket握手请求行的开头 "GET /"
+     */
+    private static final byte[] WEBSOCKET_PREFIX = {'G', 'E', 'T', ' ', '/'};
+
+    /**
+     * 单个游戏消息帧的最大长度
+     */
+    private static final int MAX_FRAME_LENGTH = 1024 * 1024;
+
+    /**
+     * 握手请求的最大长度，握手完成后聚合器由Netty移除
+     */
+    private static final int MAX_HANDSHAKE_LENGTH = 8 * 1024;
 
     @Override
     protected void decode(ChannelHandlerContext ctx, ByteBuf in, List<Object> out) throws Exception {
         // 如果可读字节数不足，等待更多数据
-        if (in.readableBytes() < MIN_LENGTH_FOR_DETECTION) {
+        if (in.readableBytes() < WEBSOCKET_PREFIX.length) {
             return;
         }
 
-        String beginning = getBufStart(in);
-
-        if (beginning.startsWith(WEBSOCKET_PREFIX)) {
+        if (isWebSocket(in)) {
             // WebSocket连接
             configureWebSocketPipeline(ctx);
         } else {
@@ -53,57 +72,110 @@ public class SocketChooseHandler extends ByteToMessageDecoder {
         // 移除协议选择器自身
         ctx.pipeline().remove(this);
 
-        // 将当前读取的数据传递给下一个处理器
+        // 将当前读取的数据传递给下一个处理器，共享同一块内存不复制
         if (in.readableBytes() > 0) {
-            out.add(in.readBytes(in.readableBytes()));
+            out.add(in.readRetainedSlice(in.readableBytes()));
         }
     }
 
-    private String getBufStart(ByteBuf in) {
-        int length = Math.min(in.readableBytes(), MAX_LENGTH_FOR_CHECK);
-        in.markReaderIndex();
-        byte[] content = new byte[length];
-        in.readBytes(content);
-        in.resetReaderIndex();
-        return new String(content, StandardCharsets.US_ASCII);
+    /**
+     * 就地比较开头的字节，不分配数组和字符串
+     */
+    private static boolean isWebSocket(ByteBuf in) {
+        int index = in.readerIndex();
+        for (int i = 0; i < WEBSOCKET_PREFIX.length; i++) {
+            if (in.getByte(index + i) != WEBSOCKET_PREFIX[i]) {
+                return false;
+            }
+        }
+        return true;
     }
 
     private void configureTcpPipeline(ChannelHandlerContext ctx) {
         ChannelPipeline pipeline = ctx.pipeline();
 
-        addCommonPipeline(pipeline);
+        addCommonPipeline(pipeline, true);
     }
 
     private void configureWebSocketPipeline(ChannelHandlerContext ctx) {
         ChannelPipeline pipeline = ctx.pipeline();
+        NettyConfig nettyConfig = SpringUtils.getBean(NettyConfig.class);
 
         // 添加WebSocket协议相关的处理器
         pipeline.addLast("http-codec", new HttpServerCodec());
-        pipeline.addLast("aggregator", new HttpObjectAggregator(256 * 1024));
-        pipeline.addLast("websocket-handler", new WebSocketServerProtocolHandler("/ws", null, true));
+        pipeline.addLast("aggregator", new HttpObjectAggregator(MAX_HANDSHAKE_LENGTH));
+        if (nettyConfig.isWebSocketDeflate()) {
+            // permessage-deflate扩展，客户端请求时启用，每个连接一个压缩上下文
+            pipeline.addLast("websocket-deflate", new WebSocketServerExtensionHandler(
+                    new PerMessageDeflateServerExtensionHandshaker(nettyConfig.getWebSocketDeflateLevel(),
+                            false, PerMessageDeflateServerExtensionHandshaker.MAX_WINDOW_SIZE, false, false)));
+        }
+        pipeline.addLast("websocket-handler", new WebSocketServerProtocolHandler(WebSocketServerProtocolConfig.newBuilder()
+                .websocketPath("/ws")
+                .allowExtensions(true)
+                .maxFramePayloadLength(MAX_FRAME_LENGTH)
+                .build()));
+
+        boolean frameMode = nettyConfig.isWebSocketFrameMode();
+        if (frameMode) {
+            // 分片的消息合并为一个完整帧，未分片时不复制
+            pipeline.addLast("websocket-frame-aggregator", new WebSocketFrameAggregator(MAX_FRAME_LENGTH));
+        }
 
         // 由于消息格式相同，可以使用简化的WebSocket帧转换器
-        pipeline.addLast("websocket-frame-converter", new SimpleWebSocketFrameConverter());
+        pipeline.addLast("websocket-frame-converter", new SimpleWebSocketFrameConverter(frameMode));
 
-        // 添加共享的业务处理器
-        addCommonPipeline(pipeline);
+        // 添加共享的业务处理器，帧模式下每个WebSocket帧就是一个消息帧，不需要再按长度字段分帧
+        addCommonPipeline(pipeline, !frameMode);
     }
 
-    private void addCommonPipeline(ChannelPipeline pipeline) {
+    /**
+     * @param lengthFraming 是否需要按长度字段从字节流中分帧
+     */
+    private void addCommonPipeline(ChannelPipeline pipeline, boolean lengthFraming) {
+        NettyConfig nettyConfig = SpringUtils.getBean(NettyConfig.class);
+
+        // 批量帧 - 协商了批量能力的连接，每次实际flush的多个帧合并为一个MSG_BATCH帧
+        pipeline.addLast(BatchFrameEncoder.NAME, new BatchFrameEncoder(nettyConfig.getBatchMaxBytes()));
+
+        // 出站flush合并 - 放在编码器之后（靠近网络一侧），按编码后的字节数判断是否立即flush
+        if (nettyConfig.isFlushCoalescing()) {
+            pipeline.addLast(WriteCoalescingHandler.NAME, new WriteCoalescingHandler(
+                    nettyConfig.getFlushMaxDelay(), nettyConfig.getFlushMaxBytes()));
+        }
+
         // 空闲状态检测 - 60秒读空闲，120秒写空闲，180秒总空闲
         pipeline.addLast("idleStateHandler", new IdleStateHandler(60, 120, 180, TimeUnit.SECONDS));
 
         // 长度字段解码器 - 解决粘包/拆包问题
         // 根据协议格式：4字节(总长度)+2字节(msgId)+4字节(序列号)+data
         // 最大帧长度1MB，长度字段偏移0，长度字段4字节，长度调整0，初始跳过字节数0
-        pipeline.addLast("frameDecoder", new LengthFieldBasedFrameDecoder(
-                1024 * 1024, 0, 4, 0, 0));
+        if (lengthFraming) {
+            pipeline.addLast("frameDecoder", new LengthFieldBasedFrameDecoder(
+                    MAX_FRAME_LENGTH, 0, 4, 0, 0));
+        }
+
+        // 入站限流 - 按帧计数，在protobuf解码之前拦截刷包的连接
+        RateLimitPolicy rateLimitPolicy = SpringUtils.getBean(RateLimitPolicy.class);
+        if (rateLimitPolicy.isEnabled()) {
+            pipeline.addLast(RateLimitHandler.NAME, new RateLimitHandler(rateLimitPolicy));
+        }
 
-        // 自定义解码器处理msgId和序列号
-        pipeline.addLast("protobufDecoder", new GameProtobufDecoder());
+        // 自定义解码器处理msgId和序列号，协商了压缩的连接解压消息体
+        PayloadCompression compression = SpringUtils.getBean(PayloadCompression.class);
+        pipeline.addLast("protobufDecoder", new GameProtobufDecoder(compression));
 
         // Protobuf编码器
-        pipeline.addLast("protobufEncoder", new GameProtobufEncoder());
+        pipeline.addLast("protobufEncoder", new GameProtobufEncoder(compression));
+
+        // 会话恢复 - 记录实际写出的消息，断线后保留会话等待客户端恢复
+        SessionResumeManager sessionResumeManager = SpringUtils.getBean(SessionResumeManager.class);
+        if (sessionResumeManager.isEnabled()) {
+            pipeline.addLast(ResumeRecordHandler.NAME, new ResumeRecordHandler(sessionResumeManager));
+        }
+
+        // 出站背压 - 连接不可写时按消息ID丢弃或合并，积压持续超限时断开
+        pipeline.addLast(OutboundPolicyHandler.NAME, new OutboundPolicyHandler(SpringUtils.getBean(OutboundPolicy.class)));
 
         // 游戏消息处理器
         pipeline.addLast("gameMessageHandler", SpringUtils.getBean(GameMessageHandler.class));
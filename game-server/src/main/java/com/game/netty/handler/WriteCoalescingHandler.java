@@ -0,0 +1,170 @@
+package com.game.netty.handler;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufHolder;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelDuplexHandler;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelPromise;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 出站flush合并处理器
+ * 上层每条消息都会writeAndFlush，这里把flush延后合并，一个连接在一个窗口内只flush（系统调用）一次：
+ * <ul>
+ *     <li>读事件处理期间请求的flush推迟到channelReadComplete，一批请求的响应一起写出</li>
+ *     <li>其他时间请求的flush最多推迟maxDelay毫秒，0表示推迟到本轮EventLoop任务结束</li>
+ *     <li>未flush的数据超过maxBytes时立即flush</li>
+ * </ul>
+ * 对延迟敏感的消息调用{@link #flushNow(Channel)}立即写出。
+ * 连接关闭、异常、不可写时先把已请求的flush写出。只在EventLoop线程上访问，不需要同步。
+ */
+public class WriteCoalescingHandler extends ChannelDuplexHandler {
+
+    public static final String NAME = "writeCoalescer";
+
+    private final long maxDelayNanos;
+    private final int maxBytes;
+
+    private ChannelHandlerContext ctx;
+    private boolean readInProgress;
+    /**
+     * 有被推迟的flush请求
+     */
+    private boolean flushPending;
+    private boolean flushScheduled;
+    /**
+     * 上次flush之后写入的字节数
+     */
+    private long pendingBytes;
+
+    private final Runnable scheduledFlush = () -> {
+        flushScheduled = false;
+        if (flushPending && !readInProgress) {
+            forceFlush();
+        }
+    };
+
+    /**
+     * @param maxDelayMillis flush最多推迟的毫秒数，0表示推迟到本轮EventLoop任务结束
+     * @param maxBytes       未flush数据达到该字节数时立即flush
+     */
+    public WriteCoalescingHandler(long maxDelayMillis, int maxBytes) {
+        if (maxDelayMillis < 0 || maxBytes <= 0) {
+            throw new IllegalArgumentException("maxDelayMillis must be >= 0 and maxBytes must be > 0");
+        }
+        this.maxDelayNanos = TimeUnit.MILLISECONDS.toNanos(maxDelayMillis);
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * 立即写出连接上所有待发送的数据，可以在任意线程调用。
+     * 在此之前从同一线程发出的write会先于本次flush执行。
+     */
+    public static void flushNow(Channel channel) {
+        ChannelHandlerContext context = channel.pipeline().context(NAME);
+        if (context == null) {
+            channel.flush();
+            return;
+        }
+        WriteCoalescingHandler handler = (WriteCoalescingHandler) context.handler();
+        if (context.executor().inEventLoop()) {
+            handler.forceFlush();
+        } else {
+            context.executor().execute(handler::forceFlush);
+        }
+    }
+
+    @Override
+    public void handlerAdded(ChannelHandlerContext ctx) {
+        this.ctx = ctx;
+    }
+
+    @Override
+    public void handlerRemoved(ChannelHandlerContext ctx) {
+        flushIfPending();
+    }
+
+    @Override
+    public void channelRead(ChannelHandlerContext ctx, Object msg) {
+        readInProgress = true;
+        ctx.fireChannelRead(msg);
+    }
+
+    @Override
+    public void channelReadComplete(ChannelHandlerContext ctx) {
+        readInProgress = false;
+        flushIfPending();
+        ctx.fireChannelReadComplete();
+    }
+
+    @Override
+    public void write(ChannelHandlerContext ctx, Object msg, ChannelPromise promise) {
+        pendingBytes += sizeOf(msg);
+        ctx.write(msg, promise);
+    }
+
+    @Override
+    public void flush(ChannelHandlerContext ctx) {
+        flushPending = true;
+        if (pendingBytes >= maxBytes) {
+            forceFlush();
+        } else if (!readInProgress && !flushScheduled) {
+            flushScheduled = true;
+            if (maxDelayNanos > 0) {
+                ctx.executor().schedule(scheduledFlush, maxDelayNanos, TimeUnit.NANOSECONDS);
+            } else {
+                ctx.executor().execute(scheduledFlush);
+            }
+        }
+    }
+
+    @Override
+    public void channelWritabilityChanged(ChannelHandlerContext ctx) {
+        if (!ctx.channel().isWritable()) {
+            flushIfPending();
+        }
+        ctx.fireChannelWritabilityChanged();
+    }
+
+    @Override
+    public void exceptionCaught(ChannelHandlerContext ctx, Throwable cause) {
+        flushIfPending();
+        ctx.fireExceptionCaught(cause);
+    }
+
+    @Override
+    public void disconnect(ChannelHandlerContext ctx, ChannelPromise promise) {
+        flushIfPending();
+        ctx.disconnect(promise);
+    }
+
+    @Override
+    public void close(ChannelHandlerContext ctx, ChannelPromise promise) {
+        flushIfPending();
+        ctx.close(promise);
+    }
+
+    private void flushIfPending() {
+        if (flushPending) {
+            forceFlush();
+        }
+    }
+
+    private void forceFlush() {
+        flushPending = false;
+        pendingBytes = 0;
+        ctx.flush();
+    }
+
+    private static int sizeOf(Object msg) {
+        if (msg instanceof ByteBuf) {
+            return ((ByteBuf) msg).readableBytes();
+        }
+        if (msg instanceof ByteBufHolder) {
+            return ((ByteBufHolder) msg).content().readableBytes();
+        }
+        return 0;
+    }
+}
@@ -0,0 +1,27 @@
+package com.game.netty.kcp;
+
+import com.game.dao.entity.Player;
+import com.game.model.player.login.IPlayerLogin;
+import com.game.model.player.login.PlayerSessionManager;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+/**
+ * 玩家登录后下发可靠UDP绑定信息
+ */
+@Component
+public class KcpLoginBinder implements IPlayerLogin {
+
+    @Autowired
+    private KcpServer kcpServer;
+
+    @Autowired
+    private PlayerSessionManager playerSessionManager;
+
+    @Override
+    public void login(Player player) {
+        if (kcpServer.isEnabled()) {
+            kcpServer.offer(player.getPlayerid(), playerSessionManager.getPlayerContext(player.getPlayerid()));
+        }
+    }
+}
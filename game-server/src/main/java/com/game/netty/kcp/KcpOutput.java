@@ -0,0 +1,14 @@
+package com.game.netty.kcp;
+
+import io.netty.buffer.ByteBuf;
+
+/**
+ * KCP会话的UDP包输出
+ */
+public interface KcpOutput {
+
+    /**
+     * 发出一个UDP包，实现方负责释放datagram
+     */
+    void output(ByteBuf datagram);
+}
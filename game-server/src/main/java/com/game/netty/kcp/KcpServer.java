@@ -0,0 +1,502 @@
+package com.game.netty.kcp;
+
+import com.game.common.util.TokenBucket;
+import com.game.core.MessageUtils;
+import com.game.model.MessageDispatcher;
+import com.game.netty.ChannelCapabilities;
+import com.game.netty.PayloadCompression;
+import com.game.netty.RateLimitPolicy;
+import com.game.proto.GameMessage;
+import com.game.proto.KcpBindOffer;
+import com.game.proto.KcpBindRequest;
+import com.game.proto.KcpBindResponse;
+import com.game.proto.msgid.MsgIdEnum;
+import com.google.protobuf.ByteString;
+import com.google.protobuf.InvalidProtocolBufferException;
+import com.google.protobuf.UnsafeByteOperations;
+import io.netty.bootstrap.Bootstrap;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.SimpleChannelInboundHandler;
+import io.netty.channel.socket.DatagramPacket;
+import io.netty.channel.socket.nio.NioDatagramChannel;
+import io.netty.handler.codec.CorruptedFrameException;
+import io.netty.util.concurrent.ScheduledFuture;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.security.SecureRandom;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 可靠UDP服务
+ * 玩家通过TCP登录后服务器下发{@link KcpBindOffer}（会话号、端口、令牌），客户端用该会话号建立KCP会话，
+ * 第一条消息必须是携带令牌的MSG_KCP_BIND_REQ，验证通过后会话绑定到玩家。
+ * KCP消息与TCP使用相同的帧格式：4字节(总长度)+2字节(msgId)+4字节(序列号)+data，
+ * TCP连接协商了压缩时同样接受msgId带{@link PayloadCompression#FLAG_COMPRESSED}的压缩消息，
+ * 收到的消息交给玩家TCP连接所在的EventLoop，按TCP连接上下文走同一套{@link MessageDispatcher}分发；
+ * 业务通过{@link #send}把实时消息走UDP下发，未绑定时由调用方回退到TCP。
+ * 所有KCP会话只在UDP通道的EventLoop上访问。
+ */
+@Component
+public class KcpServer {
+
+    private static final Logger logger = LoggerFactory.getLogger(KcpServer.class);
+
+    private static final int HEADER_LENGTH = 4 + 2 + 4;
+
+    @Value("${netty.server.kcpEnabled:false}")
+    private boolean enabled;
+
+    @Value("${netty.server.kcpPort:9997}")
+    private int port;
+
+    @Value("${netty.server.kcpSndWnd:128}")
+    private int sndWnd;
+
+    @Value("${netty.server.kcpRcvWnd:128}")
+    private int rcvWnd;
+
+    @Value("${netty.server.kcpNodelay:true}")
+    private boolean nodelay;
+
+    @Value("${netty.server.kcpInterval:10}")
+    private int interval;
+
+    @Value("${netty.server.kcpResend:2}")
+    private int resend;
+
+    @Value("${netty.server.kcpMtu:1200}")
+    private int mtu;
+
+    @Value("${netty.server.kcpDeadLink:20}")
+    private int deadLink;
+
+    @Value("${netty.server.kcpBindTimeout:30000}")
+    private long bindTimeoutMillis;
+
+    @Value("${netty.server.kcpIdleTimeout:60000}")
+    private long idleTimeoutMillis;
+
+    @Autowired
+    @Qualifier("workerGroup")
+    private EventLoopGroup workerGroup;
+
+    @Autowired
+    private MessageDispatcher messageDispatcher;
+
+    @Autowired
+    private RateLimitPolicy rateLimitPolicy;
+
+    @Autowired
+    private PayloadCompression payloadCompression;
+
+    private final SecureRandom random = new SecureRandom();
+
+    /**
+     * 已下发、客户端尚未绑定的会话号
+     */
+    private final ConcurrentMap<Integer, Binding> pending = new ConcurrentHashMap<>();
+
+    /**
+     * 已绑定的玩家会话，业务线程通过它找到会话
+     */
+    private final ConcurrentMap<Long, Session> players = new ConcurrentHashMap<>();
+
+    /**
+     * 所有会话，只在UDP通道的EventLoop上访问
+     */
+    private final Map<Integer, Session> sessions = new HashMap<>();
+
+    private Channel channel;
+    private ScheduledFuture<?> updateTask;
+
+    private final LongAdder bound = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder retransmits = new LongAdder();
+    private final LongAdder redirected = new LongAdder();
+
+    private static final class Binding {
+        private final long playerId;
+        private final long token;
+        private final ChannelHandlerContext ctx;
+        private final long expireAt;
+
+        private Binding(long playerId, long token, ChannelHandlerContext ctx, long expireAt) {
+            this.playerId = playerId;
+            this.token = token;
+            this.ctx = ctx;
+            this.expireAt = expireAt;
+        }
+    }
+
+    private final class Session {
+        private final Binding binding;
+        private final KcpSession kcp;
+        private final TokenBucket bucket;
+        private InetSocketAddress remote;
+        private boolean authenticated;
+        private long lastReceive;
+        private long lastRetransmits;
+
+        private Session(int conv, Binding binding, InetSocketAddress remote, long now) {
+            this.binding = binding;
+            this.remote = remote;
+            this.lastReceive = now;
+            this.bucket = rateLimitPolicy.isEnabled() ? rateLimitPolicy.newConnectionBucket(System.nanoTime()) : null;
+            this.kcp = new KcpSession(conv, datagram -> channel.write(new DatagramPacket(datagram, this.remote)), channel.alloc());
+            kcp.setNodelay(nodelay, interval, resend);
+            kcp.setWindow(sndWnd, rcvWnd);
+            kcp.setMtu(mtu);
+            kcp.setDeadLink(deadLink);
+        }
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            channel = new Bootstrap()
+                    .group(workerGroup)
+                    .channel(NioDatagramChannel.class)
+                    .handler(new SimpleChannelInboundHandler<DatagramPacket>() {
+                        @Override
+                        protected void channelRead0(ChannelHandlerContext ctx, DatagramPacket packet) {
+                            onDatagram(packet);
+                        }
+                    })
+                    .bind(port).sync().channel();
+            updateTask = channel.eventLoop().scheduleAtFixedRate(this::update, interval, interval, TimeUnit.MILLISECONDS);
+            logger.info("KCP server started on udp port {}, wnd={}/{}, nodelay={}, interval={}ms, resend={}, mtu={}",
+                    port, sndWnd, rcvWnd, nodelay, interval, resend, mtu);
+        } catch (Exception e) {
+            logger.error("Failed to start KCP server", e);
+            throw new RuntimeException("Failed to start KCP server", e);
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (channel == null) {
+            return;
+        }
+        updateTask.cancel(false);
+        channel.eventLoop().execute(() -> {
+            for (Session session : sessions.values()) {
+                session.kcp.release();
+            }
+            sessions.clear();
+        });
+        channel.close().syncUninterruptibly();
+        logger.info("KCP server stopped");
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * 登录成功后通过TCP向客户端下发绑定信息，未开启时不做任何事
+     */
+    public void offer(long playerId, ChannelHandlerContext ctx) {
+        if (!enabled || ctx == null) {
+            return;
+        }
+        int conv;
+        do {
+            conv = random.nextInt();
+        } while (conv == 0 || pending.containsKey(conv));
+        long token = random.nextLong();
+        pending.put(conv, new Binding(playerId, token, ctx, System.currentTimeMillis() + bindTimeoutMillis));
+        // TCP断开时UDP会话随之关闭，只关闭属于这条TCP连接的绑定，重新登录或会话恢复后的新绑定不受影响
+        Channel tcp = ctx.channel();
+        tcp.closeFuture().addListener(future -> unbind(playerId, tcp));
+
+        KcpBindOffer offer = KcpBindOffer.newBuilder()
+                .setConv(conv)
+                .setPort(port)
+                .setToken(token)
+                .build();
+        MessageUtils.sendResponse(ctx, MsgIdEnum.MSG_KCP_BIND_OFFER_VALUE, 0, offer.toByteString());
+    }
+
+    /**
+     * 关闭玩家的UDP会话，可以在任意线程调用
+     */
+    public void unbind(long playerId) {
+        if (channel == null) {
+            return;
+        }
+        pending.values().removeIf(binding -> binding.playerId == playerId);
+        Session session = players.remove(playerId);
+        if (session != null) {
+            channel.eventLoop().execute(() -> closeSession(session));
+        }
+    }
+
+    /**
+     * TCP连接关闭时调用，只移除绑定在这条连接上的待绑定信息和UDP会话
+     */
+    private void unbind(long playerId, Channel tcp) {
+        if (channel == null) {
+            return;
+        }
+        pending.values().removeIf(binding -> binding.ctx.channel() == tcp);
+        Session session = players.get(playerId);
+        if (session != null && session.binding.ctx.channel() == tcp && players.remove(playerId, session)) {
+            channel.eventLoop().execute(() -> closeSession(session));
+        }
+    }
+
+    /**
+     * 通过可靠UDP向玩家发送消息，可以在任意线程调用
+     * 消息先交给UDP通道的EventLoop再写入会话，返回true只表示已排队；
+     * 排队期间UDP会话被关闭时消息没有发出，改为执行onDropped（在UDP通道的EventLoop上执行）
+     *
+     * @param onDropped 已排队的消息因UDP会话关闭未能发出时执行，通常改走TCP
+     * @return 玩家是否已绑定UDP会话且消息能整条发送，false时调用方应改走TCP，onDropped不会执行
+     */
+    public boolean send(long playerId, int msgId, int sequence, ByteString data, Runnable onDropped) {
+        Session session = players.get(playerId);
+        if (session == null) {
+            return false;
+        }
+        byte[] frame = encode(msgId, sequence, data);
+        if (!session.kcp.canSend(frame.length)) {
+            // 分片数超过窗口的大消息走TCP
+            return false;
+        }
+        try {
+            if (channel.eventLoop().inEventLoop()) {
+                sendFrame(session, frame, onDropped);
+            } else {
+                channel.eventLoop().execute(() -> sendFrame(session, frame, onDropped));
+            }
+        } catch (RejectedExecutionException e) {
+            // UDP通道已关闭
+            return false;
+        }
+        return true;
+    }
+
+    private void sendFrame(Session session, byte[] frame, Runnable onDropped) {
+        if (sessions.get(session.kcp.getConv()) != session) {
+            redirected.increment();
+            onDropped.run();
+            return;
+        }
+        session.kcp.send(frame);
+        if (nodelay) {
+            // 低延迟模式下不等下一次定时更新
+            session.kcp.flush(System.currentTimeMillis());
+            channel.flush();
+        }
+    }
+
+    private void onDatagram(DatagramPacket packet) {
+        ByteBuf content = packet.content();
+        if (content.readableBytes() < KcpSession.OVERHEAD) {
+            dropped.increment();
+            return;
+        }
+        int conv = content.getIntLE(content.readerIndex());
+        long now = System.currentTimeMillis();
+        Session session = sessions.get(conv);
+        if (session == null) {
+            Binding binding = pending.get(conv);
+            if (binding == null || binding.expireAt < now) {
+                dropped.increment();
+                return;
+            }
+            session = new Session(conv, binding, packet.sender(), now);
+            sessions.put(conv, session);
+        }
+        if (!session.kcp.input(content, now)) {
+            dropped.increment();
+            return;
+        }
+        // 只有格式正确的包才更新对端地址，适应移动网络NAT重新映射
+        session.remote = packet.sender();
+        session.lastReceive = now;
+        PayloadCompression compression = ChannelCapabilities.has(session.binding.ctx.channel(), ChannelCapabilities.COMPRESSION)
+                ? payloadCompression : null;
+        for (byte[] frame; (frame = session.kcp.recv()) != null; ) {
+            GameMessage msg = decode(frame, compression);
+            if (msg == null) {
+                dropped.increment();
+            } else if (!session.authenticated) {
+                authenticate(session, msg);
+                if (!session.authenticated) {
+                    return;
+                }
+            } else {
+                dispatch(session, msg);
+            }
+        }
+        channel.flush();
+    }
+
+    private void authenticate(Session session, GameMessage msg) {
+        int conv = session.kcp.getConv();
+        Binding binding = session.binding;
+        boolean valid = false;
+        if (msg.getMsgId() == MsgIdEnum.MSG_KCP_BIND_REQ_VALUE) {
+            try {
+                valid = KcpBindRequest.parseFrom(msg.getData()).getToken() == binding.token
+                        && pending.remove(conv, binding);
+            } catch (InvalidProtocolBufferException e) {
+                logger.debug("Malformed KCP bind request, conv={}", conv);
+            }
+        }
+        if (!valid || !binding.ctx.channel().isActive()) {
+            rejected.increment();
+            closeSession(session);
+            logger.warn("Rejected KCP bind from {}, conv={}", session.remote, conv);
+            return;
+        }
+        session.authenticated = true;
+        Session previous = players.put(binding.playerId, session);
+        if (previous != null) {
+            closeSession(previous);
+        }
+        bound.increment();
+        session.kcp.send(encode(MsgIdEnum.MSG_KCP_BIND_RES_VALUE, msg.getSequence(),
+                KcpBindResponse.newBuilder().setSuccess(true).build().toByteString()));
+        logger.info("KCP session bound, playerId={}, conv={}, remote={}", binding.playerId, conv, session.remote);
+    }
+
+    private void dispatch(Session session, GameMessage msg) {
+        if (session.bucket != null && session.bucket.acquire(System.nanoTime()) > 0) {
+            // UDP没有背压，超出速率的消息直接丢弃
+            rateLimitPolicy.recordDropped();
+            return;
+        }
+        ChannelHandlerContext ctx = session.binding.ctx;
+        // 与TCP消息在同一个EventLoop上处理，玩家的消息处理仍然是单线程的
+        ctx.executor().execute(() -> messageDispatcher.dispatch(ctx, msg));
+    }
+
+    private void update() {
+        long now = System.currentTimeMillis();
+        for (Iterator<Session> it = sessions.values().iterator(); it.hasNext(); ) {
+            Session session = it.next();
+            session.kcp.flush(now);
+            long sessionRetransmits = session.kcp.getRetransmits();
+            retransmits.add(sessionRetransmits - session.lastRetransmits);
+            session.lastRetransmits = sessionRetransmits;
+            boolean idle = now - session.lastReceive > (session.authenticated ? idleTimeoutMillis : bindTimeoutMillis);
+            if (session.kcp.isDead() || idle) {
+                logger.info("KCP session closed, playerId={}, conv={}, dead={}",
+                        session.binding.playerId, session.kcp.getConv(), session.kcp.isDead());
+                it.remove();
+                players.remove(session.binding.playerId, session);
+                session.kcp.release();
+            }
+        }
+        pending.values().removeIf(binding -> binding.expireAt < now);
+        channel.flush();
+    }
+
+    private void closeSession(Session session) {
+        if (sessions.remove(session.kcp.getConv(), session)) {
+            session.kcp.release();
+        }
+        players.remove(session.binding.playerId, session);
+    }
+
+    /**
+     * 可靠UDP统计
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", enabled);
+        stats.put("port", port);
+        stats.put("players", players.size());
+        stats.put("pending", pending.size());
+        stats.put("bound", bound.sum());
+        stats.put("rejected", rejected.sum());
+        stats.put("dropped", dropped.sum());
+        stats.put("retransmits", retransmits.sum());
+        stats.put("redirected", redirected.sum());
+        return stats;
+    }
+
+    /**
+     * 按TCP相同的帧格式编码
+     */
+    static byte[] encode(int msgId, int sequence, ByteString data) {
+        ByteBuffer frame = ByteBuffer.allocate(HEADER_LENGTH + data.size());
+        frame.putInt(2 + 4 + data.size());
+        frame.putShort((short) msgId);
+        frame.putInt(sequence);
+        data.copyTo(frame);
+        return frame.array();
+    }
+
+    /**
+     * 解码一个完整帧，格式错误时返回null
+     */
+    static GameMessage decode(byte[] frame) {
+        return decode(frame, null);
+    }
+
+    /**
+     * 解码一个完整帧，格式错误或连接未协商压缩却收到压缩消息时返回null
+     *
+     * @param compression 连接协商了压缩时传入，否则为null
+     */
+    static GameMessage decode(byte[] frame, PayloadCompression compression) {
+        if (frame.length < HEADER_LENGTH) {
+            return null;
+        }
+        ByteBuffer buf = ByteBuffer.wrap(frame);
+        int length = buf.getInt();
+        if (length != frame.length - 4) {
+            return null;
+        }
+        int msgId = buf.getShort() & 0xFFFF;
+        int sequence = buf.getInt();
+        ByteString data;
+        if ((msgId & PayloadCompression.FLAG_COMPRESSED) != 0) {
+            if (compression == null) {
+                return null;
+            }
+            msgId &= PayloadCompression.MSG_ID_MASK;
+            try {
+                data = UnsafeByteOperations.unsafeWrap(compression.decompress(
+                        Unpooled.wrappedBuffer(frame, HEADER_LENGTH, frame.length - HEADER_LENGTH), frame.length - HEADER_LENGTH));
+            } catch (CorruptedFrameException e) {
+                return null;
+            }
+        } else {
+            data = ByteString.copyFrom(frame, HEADER_LENGTH, frame.length - HEADER_LENGTH);
+        }
+        return GameMessage.newBuilder()
+                .setMsgId(msgId)
+                .setSequence(sequence)
+                .setData(data)
+                .build();
+    }
+}
@@ -0,0 +1,523 @@
+package com.game.netty.kcp;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.ListIterator;
+
+/**
+ * KCP风格的ARQ会话
+ * 报文格式与KCP一致（小端）：conv(4)+cmd(1)+frg(1)+wnd(2)+ts(4)+sn(4)+una(4)+len(4)+data，
+ * 多个报文拼在一个UDP包内，不超过mtu。一条消息按mss分片，frg倒数，接收端按序重组。
+ * <ul>
+ *     <li>选择性重传：每个报文单独确认，una累计确认</li>
+ *     <li>超时重传：RTO按RTT估算，nodelay模式下退避为1.5倍而不是2倍，最小RTO也更小</li>
+ *     <li>快速重传：被后面的确认跳过resend次的报文不等超时立即重传</li>
+ *     <li>发送窗口取本端发送窗口和对端剩余接收窗口的较小值，不做拥塞控制</li>
+ * </ul>
+ * 时间由调用方传入（毫秒），非线程安全，应只在一个线程（UDP通道所属的EventLoop）上使用。
+ */
+public class KcpSession {
+
+    /**
+     * 报文头长度
+     */
+    public static final int OVERHEAD = 24;
+
+    static final int CMD_PUSH = 81;
+    static final int CMD_ACK = 82;
+    static final int CMD_WASK = 83;
+    static final int CMD_WINS = 84;
+
+    private static final int ASK_SEND = 1;
+    private static final int ASK_TELL = 2;
+
+    private static final int RTO_DEFAULT = 200;
+    private static final int RTO_MIN = 100;
+    private static final int RTO_NODELAY_MIN = 30;
+    private static final int RTO_MAX = 60000;
+    private static final int PROBE_INIT = 7000;
+    private static final int PROBE_LIMIT = 120000;
+    private static final int MAX_FRAGMENTS = 255;
+
+    private static final class Segment {
+        private int frg;
+        private int ts;
+        private int sn;
+        private int resendTs;
+        private int rto;
+        private int fastAck;
+        private int xmit;
+        private byte[] data;
+    }
+
+    private final int conv;
+    private final KcpOutput output;
+    private final ByteBufAllocator alloc;
+
+    private int mtu = 1400;
+    private int mss = mtu - OVERHEAD;
+    private int sndWnd = 32;
+    private int rcvWnd = 128;
+    private int rmtWnd = 128;
+    private boolean nodelay;
+    private int interval = 100;
+    private int fastResend;
+    private int deadLink = 20;
+    private int minRto = RTO_MIN;
+
+    private int sndUna;
+    private int sndNxt;
+    private int rcvNxt;
+    private int rxSrtt;
+    private int rxRttVal;
+    private int rxRto = RTO_DEFAULT;
+    private int current;
+    private int probe;
+    private int probeWait;
+    private int tsProbe;
+    private boolean dead;
+    private long retransmits;
+
+    private final ArrayDeque<Segment> sndQueue = new ArrayDeque<>();
+    private final ArrayDeque<Segment> sndBuf = new ArrayDeque<>();
+    private final ArrayDeque<Segment> rcvQueue = new ArrayDeque<>();
+    private final LinkedList<Segment> rcvBuf = new LinkedList<>();
+
+    /**
+     * 待发送的确认，sn和ts交替存放
+     */
+    private int[] acks = new int[16];
+    private int ackCount;
+
+    private ByteBuf buffer;
+
+    /**
+     * @param conv   会话号，双方一致
+     * @param output 输出UDP包
+     * @param alloc  输出缓冲区分配器
+     */
+    public KcpSession(int conv, KcpOutput output, ByteBufAllocator alloc) {
+        this.conv = conv;
+        this.output = output;
+        this.alloc = alloc;
+    }
+
+    /**
+     * @param nodelay  是否启用低延迟模式（更小的最小RTO和更缓的退避）
+     * @param interval 调用flush的间隔毫秒数，参与RTO计算
+     * @param resend   被跳过多少次确认后快速重传，0表示关闭快速重传
+     */
+    public void setNodelay(boolean nodelay, int interval, int resend) {
+        this.nodelay = nodelay;
+        this.minRto = nodelay ? RTO_NODELAY_MIN : RTO_MIN;
+        this.interval = Math.max(1, interval);
+        this.fastResend = Math.max(0, resend);
+    }
+
+    /**
+     * @param sndWnd 发送窗口（报文数）
+     * @param rcvWnd 接收窗口（报文数），一条消息的分片数必须小于对端的接收窗口
+     */
+    public void setWindow(int sndWnd, int rcvWnd) {
+        if (sndWnd <= 0 || rcvWnd <= 0) {
+            throw new IllegalArgumentException("KCP window must be > 0");
+        }
+        this.sndWnd = sndWnd;
+        this.rcvWnd = Math.min(rcvWnd, 0xFFFF);
+    }
+
+    public void setMtu(int mtu) {
+        if (mtu <= OVERHEAD + 50) {
+            throw new IllegalArgumentException("KCP mtu too small: " + mtu);
+        }
+        this.mtu = mtu;
+        this.mss = mtu - OVERHEAD;
+    }
+
+    /**
+     * @param deadLink 单个报文重传多少次后认为连接已断开
+     */
+    public void setDeadLink(int deadLink) {
+        this.deadLink = deadLink;
+    }
+
+    public int getConv() {
+        return conv;
+    }
+
+    public boolean isDead() {
+        return dead;
+    }
+
+    /**
+     * 已发送未确认和排队等待发送的报文数
+     */
+    public int getWaitSend() {
+        return sndBuf.size() + sndQueue.size();
+    }
+
+    /**
+     * 累计重传次数（超时和快速重传）
+     */
+    public long getRetransmits() {
+        return retransmits;
+    }
+
+    /**
+     * 长度为length的消息能否整条发送：分片数不能超过上限，也不能达到接收窗口
+     * 只读取配置参数，可以在任意线程调用
+     */
+    public boolean canSend(int length) {
+        int count = length <= mss ? 1 : (length + mss - 1) / mss;
+        return count <= MAX_FRAGMENTS && count < rcvWnd;
+    }
+
+    /**
+     * 发送一条消息，按mss分片放入发送队列，在下一次flush时按窗口发出
+     */
+    public void send(byte[] data) {
+        if (!canSend(data.length)) {
+            throw new IllegalArgumentException("KCP message too large: " + data.length + " bytes");
+        }
+        int count = data.length <= mss ? 1 : (data.length + mss - 1) / mss;
+        for (int i = 0; i < count; i++) {
+            int offset = i * mss;
+            int length = Math.min(mss, data.length - offset);
+            Segment seg = new Segment();
+            seg.data = new byte[length];
+            System.arraycopy(data, offset, seg.data, 0, length);
+            seg.frg = count - i - 1;
+            sndQueue.add(seg);
+        }
+    }
+
+    /**
+     * 取一条完整的消息
+     *
+     * @return 消息内容，没有完整消息时返回null
+     */
+    public byte[] recv() {
+        int size = peekSize();
+        if (size < 0) {
+            return null;
+        }
+        boolean recover = rcvQueue.size() >= rcvWnd;
+        byte[] data = new byte[size];
+        int offset = 0;
+        while (true) {
+            Segment seg = rcvQueue.poll();
+            System.arraycopy(seg.data, 0, data, offset, seg.data.length);
+            offset += seg.data.length;
+            if (seg.frg == 0) {
+                break;
+            }
+        }
+        moveReceived();
+        // 接收队列腾出空间后主动告知对端窗口
+        if (recover && rcvQueue.size() < rcvWnd) {
+            probe |= ASK_TELL;
+        }
+        return data;
+    }
+
+    private int peekSize() {
+        Segment first = rcvQueue.peek();
+        if (first == null) {
+            return -1;
+        }
+        if (first.frg == 0) {
+            return first.data.length;
+        }
+        if (rcvQueue.size() < first.frg + 1) {
+            return -1;
+        }
+        int size = 0;
+        for (Segment seg : rcvQueue) {
+            size += seg.data.length;
+            if (seg.frg == 0) {
+                break;
+            }
+        }
+        return size;
+    }
+
+    /**
+     * 处理收到的UDP包
+     *
+     * @return 包是否属于本会话且格式正确
+     */
+    public boolean input(ByteBuf data, long nowMillis) {
+        current = (int) nowMillis;
+        if (data.readableBytes() < OVERHEAD) {
+            return false;
+        }
+        boolean ackSeen = false;
+        int maxAck = 0;
+        while (data.readableBytes() >= OVERHEAD) {
+            int segConv = data.readIntLE();
+            int cmd = data.readUnsignedByte();
+            int frg = data.readUnsignedByte();
+            int wnd = data.readUnsignedShortLE();
+            int ts = data.readIntLE();
+            int sn = data.readIntLE();
+            int una = data.readIntLE();
+            int len = data.readIntLE();
+            if (segConv != conv || len < 0 || data.readableBytes() < len
+                    || cmd < CMD_PUSH || cmd > CMD_WINS) {
+                return false;
+            }
+            rmtWnd = wnd;
+            parseUna(una);
+            shrinkBuf();
+
+            if (cmd == CMD_ACK) {
+                if (current - ts >= 0) {
+                    updateAck(current - ts);
+                }
+                parseAck(sn);
+                shrinkBuf();
+                if (!ackSeen || sn - maxAck > 0) {
+                    ackSeen = true;
+                    maxAck = sn;
+                }
+            } else if (cmd == CMD_PUSH) {
+                if (sn - (rcvNxt + rcvWnd) < 0) {
+                    pushAck(sn, ts);
+                    if (sn - rcvNxt >= 0) {
+                        Segment seg = new Segment();
+                        seg.frg = frg;
+                        seg.sn = sn;
+                        seg.data = new byte[len];
+                        data.readBytes(seg.data);
+                        parseData(seg);
+                        continue;
+                    }
+                }
+            } else if (cmd == CMD_WASK) {
+                probe |= ASK_TELL;
+            }
+            data.skipBytes(len);
+        }
+        if (ackSeen) {
+            parseFastAck(maxAck);
+        }
+        return true;
+    }
+
+    private void updateAck(int rtt) {
+        if (rxSrtt == 0) {
+            rxSrtt = rtt;
+            rxRttVal = rtt / 2;
+        } else {
+            int delta = Math.abs(rtt - rxSrtt);
+            rxRttVal = (3 * rxRttVal + delta) / 4;
+            rxSrtt = Math.max(1, (7 * rxSrtt + rtt) / 8);
+        }
+        int rto = rxSrtt + Math.max(interval, 4 * rxRttVal);
+        rxRto = Math.min(Math.max(minRto, rto), RTO_MAX);
+    }
+
+    private void shrinkBuf() {
+        Segment first = sndBuf.peek();
+        sndUna = first != null ? first.sn : sndNxt;
+    }
+
+    private void parseAck(int sn) {
+        if (sn - sndUna < 0 || sn - sndNxt >= 0) {
+            return;
+        }
+        for (Iterator<Segment> it = sndBuf.iterator(); it.hasNext(); ) {
+            Segment seg = it.next();
+            if (seg.sn == sn) {
+                it.remove();
+                break;
+            }
+            if (sn - seg.sn < 0) {
+                break;
+            }
+        }
+    }
+
+    private void parseUna(int una) {
+        while (!sndBuf.isEmpty() && sndBuf.peek().sn - una < 0) {
+            sndBuf.poll();
+        }
+    }
+
+    private void parseFastAck(int sn) {
+        if (sn - sndUna < 0 || sn - sndNxt >= 0) {
+            return;
+        }
+        for (Segment seg : sndBuf) {
+            if (sn - seg.sn < 0) {
+                break;
+            }
+            if (seg.sn != sn) {
+                seg.fastAck++;
+            }
+        }
+    }
+
+    private void pushAck(int sn, int ts) {
+        if (ackCount * 2 + 2 > acks.length) {
+            int[] grown = new int[acks.length * 2];
+            System.arraycopy(acks, 0, grown, 0, ackCount * 2);
+            acks = grown;
+        }
+        acks[ackCount * 2] = sn;
+        acks[ackCount * 2 + 1] = ts;
+        ackCount++;
+    }
+
+    private void parseData(Segment newSeg) {
+        int sn = newSeg.sn;
+        if (sn - (rcvNxt + rcvWnd) >= 0 || sn - rcvNxt < 0) {
+            return;
+        }
+        // 接收缓冲区按sn有序，新报文通常在末尾，从后往前找插入位置
+        ListIterator<Segment> it = rcvBuf.listIterator(rcvBuf.size());
+        while (it.hasPrevious()) {
+            Segment seg = it.previous();
+            if (seg.sn == sn) {
+                return;
+            }
+            if (sn - seg.sn > 0) {
+                it.next();
+                break;
+            }
+        }
+        it.add(newSeg);
+        moveReceived();
+    }
+
+    /**
+     * 把接收缓冲区中连续的报文移到接收队列
+     */
+    private void moveReceived() {
+        while (!rcvBuf.isEmpty() && rcvBuf.getFirst().sn == rcvNxt && rcvQueue.size() < rcvWnd) {
+            rcvQueue.add(rcvBuf.removeFirst());
+            rcvNxt++;
+        }
+    }
+
+    /**
+     * 发出待发送的确认、窗口探测、新报文和需要重传的报文
+     */
+    public void flush(long nowMillis) {
+        current = (int) nowMillis;
+        int wnd = Math.max(0, rcvWnd - rcvQueue.size());
+
+        for (int i = 0; i < ackCount; i++) {
+            writeSegment(CMD_ACK, 0, wnd, acks[i * 2 + 1], acks[i * 2], null);
+        }
+        ackCount = 0;
+
+        // 对端接收窗口为0时定期探测
+        if (rmtWnd == 0) {
+            if (probeWait == 0) {
+                probeWait = PROBE_INIT;
+                tsProbe = current + probeWait;
+            } else if (current - tsProbe >= 0) {
+                probeWait = Math.min(PROBE_LIMIT, Math.max(probeWait + probeWait / 2, PROBE_INIT));
+                tsProbe = current + probeWait;
+                probe |= ASK_SEND;
+            }
+        } else {
+            tsProbe = 0;
+            probeWait = 0;
+        }
+        if ((probe & ASK_SEND) != 0) {
+            writeSegment(CMD_WASK, 0, wnd, 0, 0, null);
+        }
+        if ((probe & ASK_TELL) != 0) {
+            writeSegment(CMD_WINS, 0, wnd, 0, 0, null);
+        }
+        probe = 0;
+
+        int cwnd = Math.min(sndWnd, rmtWnd);
+        while (sndNxt - (sndUna + cwnd) < 0 && !sndQueue.isEmpty()) {
+            Segment seg = sndQueue.poll();
+            seg.sn = sndNxt++;
+            sndBuf.add(seg);
+        }
+
+        int resend = fastResend > 0 ? fastResend : Integer.MAX_VALUE;
+        int rtoMin = nodelay ? 0 : rxRto >> 3;
+        for (Segment seg : sndBuf) {
+            boolean needSend = false;
+            if (seg.xmit == 0) {
+                needSend = true;
+                seg.rto = rxRto;
+                seg.resendTs = current + seg.rto + rtoMin;
+            } else if (current - seg.resendTs >= 0) {
+                needSend = true;
+                seg.rto += nodelay ? seg.rto / 2 : Math.max(seg.rto, rxRto);
+                seg.resendTs = current + seg.rto;
+                retransmits++;
+            } else if (seg.fastAck >= resend) {
+                needSend = true;
+                seg.fastAck = 0;
+                seg.resendTs = current + seg.rto;
+                retransmits++;
+            }
+            if (needSend) {
+                seg.xmit++;
+                seg.ts = current;
+                writeSegment(CMD_PUSH, seg.frg, wnd, seg.ts, seg.sn, seg.data);
+                if (seg.xmit >= deadLink) {
+                    dead = true;
+                }
+            }
+        }
+        flushBuffer();
+    }
+
+    private void writeSegment(int cmd, int frg, int wnd, int ts, int sn, byte[] data) {
+        int length = OVERHEAD + (data == null ? 0 : data.length);
+        if (buffer != null && buffer.readableBytes() + length > mtu) {
+            flushBuffer();
+        }
+        if (buffer == null) {
+            buffer = alloc.buffer(mtu);
+        }
+        buffer.writeIntLE(conv);
+        buffer.writeByte(cmd);
+        buffer.writeByte(frg);
+        buffer.writeShortLE(wnd);
+        buffer.writeIntLE(ts);
+        buffer.writeIntLE(sn);
+        buffer.writeIntLE(rcvNxt);
+        if (data == null) {
+            buffer.writeIntLE(0);
+        } else {
+            buffer.writeIntLE(data.length);
+            buffer.writeBytes(data);
+        }
+    }
+
+    private void flushBuffer() {
+        if (buffer != null) {
+            ByteBuf datagram = buffer;
+            buffer = null;
+            output.output(datagram);
+        }
+    }
+
+    /**
+     * 释放未发出的缓冲区
+     */
+    public void release() {
+        if (buffer != null) {
+            buffer.release();
+            buffer = null;
+        }
+        sndQueue.clear();
+        sndBuf.clear();
+        rcvQueue.clear();
+        rcvBuf.clear();
+    }
+}
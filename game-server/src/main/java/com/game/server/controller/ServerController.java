@@ -1,12 +1,25 @@
 package com.game.server.controller;
 
+import com.game.cache.CacheFlushScheduler;
 import com.game.cache.CacheManager;
+import com.game.config.ConfigLoadReport;
+import com.game.config.ConfigSnapshot;
+import com.game.config.ExcelConfigManager;
+import com.game.init.InitializationManager;
+import com.game.init.InitializationReport;
+import com.game.model.player.login.LoginAdmissionController;
+import com.game.model.player.resume.SessionResumeManager;
 import com.game.netty.NettyServer;
+import com.game.netty.OutboundPolicy;
+import com.game.netty.PayloadCompression;
+import com.game.netty.RateLimitPolicy;
+import com.game.netty.kcp.KcpServer;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
 import java.util.HashMap;
@@ -23,8 +36,35 @@ public class ServerController {
     @Autowired
     private CacheManager cacheManager;
     
+    @Autowired
+    private CacheFlushScheduler cacheFlushScheduler;
+
     @Autowired
     private NettyServer nettyServer;
+
+    @Autowired
+    private InitializationManager initializationManager;
+
+    @Autowired
+    private ExcelConfigManager excelConfigManager;
+
+    @Autowired
+    private OutboundPolicy outboundPolicy;
+
+    @Autowired
+    private RateLimitPolicy rateLimitPolicy;
+
+    @Autowired
+    private PayloadCompression payloadCompression;
+
+    @Autowired
+    private KcpServer kcpServer;
+
+    @Autowired
+    private SessionResumeManager sessionResumeManager;
+
+    @Autowired
+    private LoginAdmissionController loginAdmissionController;
     
     /**
      * 健康检查
@@ -54,6 +94,68 @@ public class ServerController {
         return ResponseEntity.ok(result);
     }
     
+    /**
+     * 获取启动耗时报告
+     */
+    @GetMapping("/startup")
+    public ResponseEntity<Map<String, Object>> startupReport() {
+        InitializationReport report = initializationManager.getReport();
+        if (report == null) {
+            Map<String, Object> result = new HashMap<>();
+            result.put("message", "System initialization has not started");
+            return ResponseEntity.ok(result);
+        }
+        return ResponseEntity.ok(report.toMap());
+    }
+
+    /**
+     * 获取出站背压统计（丢弃、合并、断开次数）
+     */
+    @GetMapping("/outbound/stats")
+    public ResponseEntity<Map<String, Object>> outboundStats() {
+        return ResponseEntity.ok(outboundPolicy.getStats());
+    }
+
+    /**
+     * 获取入站限流统计（限流、丢帧、断开次数）
+     */
+    @GetMapping("/rate-limit/stats")
+    public ResponseEntity<Map<String, Object>> rateLimitStats() {
+        return ResponseEntity.ok(rateLimitPolicy.getStats());
+    }
+
+    /**
+     * 获取消息体压缩统计（按msgId的压缩次数、节省字节数、耗时）
+     */
+    @GetMapping("/compression/stats")
+    public ResponseEntity<Map<String, Object>> compressionStats() {
+        return ResponseEntity.ok(payloadCompression.getStats());
+    }
+
+    /**
+     * 获取可靠UDP统计（绑定会话数、拒绝、丢包、重传次数）
+     */
+    @GetMapping("/kcp/stats")
+    public ResponseEntity<Map<String, Object>> kcpStats() {
+        return ResponseEntity.ok(kcpServer.getStats());
+    }
+
+    /**
+     * 获取断线会话恢复统计（可恢复会话数、挂起、恢复成功/失败、过期、补发消息数）
+     */
+    @GetMapping("/session/resume/stats")
+    public ResponseEntity<Map<String, Object>> sessionResumeStats() {
+        return ResponseEntity.ok(sessionResumeManager.getStats());
+    }
+
+    /**
+     * 获取登录准入统计（当前并发上限、处理中、排队人数、平均耗时、拒绝数）
+     */
+    @GetMapping("/login/admission/stats")
+    public ResponseEntity<Map<String, Object>> loginAdmissionStats() {
+        return ResponseEntity.ok(loginAdmissionController.getStats());
+    }
+
     /**
      * 获取缓存统计信息
      */
@@ -62,6 +164,18 @@ public class ServerController {
         return ResponseEntity.ok(cacheManager.getCacheStats());
     }
     
+    /**
+     * 获取缓存持久化流水线状态
+     */
+    @GetMapping("/cache/persistence")
+    public ResponseEntity<Map<String, Object>> persistenceStats() {
+        Map<String, Object> result = new HashMap<>(cacheManager.getPersistenceStats());
+        result.put("tickDelay", cacheFlushScheduler.getTickDelay());
+        result.put("avgRowLatencyMillis", cacheFlushScheduler.getAvgRowLatencyMillis());
+        result.put("overruns", cacheFlushScheduler.getOverrunCount());
+        return ResponseEntity.ok(result);
+    }
+
     /**
      * 手动触发缓存持久化
      */
@@ -113,6 +227,41 @@ public class ServerController {
         }
     }
     
+    /**
+     * 获取当前配置快照信息
+     */
+    @GetMapping("/config")
+    public ResponseEntity<Map<String, Object>> configSnapshot() {
+        ConfigSnapshot snapshot = excelConfigManager.getSnapshot();
+        Map<String, Object> result = new HashMap<>();
+        result.put("version", snapshot.getVersion());
+        result.put("publishTime", snapshot.getPublishTime());
+        result.put("tables", snapshot.getTableNames());
+        result.put("lastChanged", snapshot.getChangedTables());
+        ConfigLoadReport loadReport = excelConfigManager.getLastLoadReport();
+        if (loadReport != null) {
+            result.put("lastLoad", loadReport.toMap());
+        }
+        return ResponseEntity.ok(result);
+    }
+
+    /**
+     * 热更新配置，多个文件作为一批原子生效
+     */
+    @PostMapping("/config/reload")
+    public ResponseEntity<Map<String, Object>> reloadConfig(@RequestParam("files") List<String> files) {
+        Map<String, Object> result = new HashMap<>();
+        try {
+            ConfigSnapshot snapshot = excelConfigManager.reloadConfigs(files);
+            result.put("message", "Config reloaded successfully");
+            result.put("version", snapshot.getVersion());
+            return ResponseEntity.ok(result);
+        } catch (Exception e) {
+            result.put("error", "Failed to reload config: " + e.getMessage());
+            return ResponseEntity.internalServerError().body(result);
+        }
+    }
+
     /**
      * 创建Netty服务器状态Map
      */
@@ -0,0 +1,9 @@
+-- 号段序列表
+-- 每次租用一段号码：UPDATE sequence SET nextval = nextval + 号段大小，号码在内存中发放，
+-- 进程崩溃时未发放完的号段直接跳过，不会重复
+CREATE TABLE IF NOT EXISTS `sequence` (
+    `name` VARCHAR(64) NOT NULL COMMENT '序列名称',
+    `nextval` BIGINT NOT NULL COMMENT '下一个未租出的号码',
+    `updatetime` BIGINT(20) COMMENT '更新时间',
+    PRIMARY KEY (`name`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COMMENT='号段序列表';
@@ -0,0 +1,175 @@
+package com.game.cache;
+
+import com.game.dao.entity.Player;
+import com.game.dao.mapper.BaseDao;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * BaseCache 持久化相关测试
+ */
+public class BaseCacheTest {
+
+    @Test
+    public void testSlotFlushCoversAllDirtyRowsOnce() {
+        MemoryDao dao = new MemoryDao();
+        TestCache cache = new TestCache(dao);
+        for (long id = 1; id <= 500; id++) {
+            cache.add(newPlayer(id));
+        }
+
+        int slotCount = 8;
+        int written = 0;
+        for (int slot = 0; slot < slotCount; slot++) {
+            written += cache.syncSlotToDatabase(slot, slotCount);
+        }
+
+        assertEquals(500, written);
+        assertEquals(500, dao.rows.size());
+        assertEquals(500, dao.insertCount);
+        assertEquals(0, cache.getDirtySize());
+    }
+
+    @Test
+    public void testFailedRowsMarkedDirtyAgain() {
+        MemoryDao dao = new MemoryDao();
+        TestCache cache = new TestCache(dao);
+        cache.add(newPlayer(1));
+        cache.syncAllDataToDatabase();
+        cache.update(newPlayer(1));
+        cache.add(newPlayer(2));
+
+        // 数据库暂时不可用，写库失败的记录留到下一轮
+        dao.failing = true;
+        assertEquals(0, cache.syncAllDataToDatabase());
+        assertEquals(2, cache.getDirtySize());
+
+        dao.failing = false;
+        assertEquals(2, cache.syncAllDataToDatabase());
+        assertEquals(0, cache.getDirtySize());
+        assertEquals(2, dao.insertCount);
+        assertEquals(1, dao.updateCount);
+    }
+
+    @Test
+    public void testSlotDistribution() {
+        int slotCount = 12;
+        int[] counts = new int[slotCount];
+        for (long id = 1; id <= 12000; id++) {
+            counts[BaseCache.slotOf(String.valueOf(id), slotCount)]++;
+        }
+        for (int count : counts) {
+            assertTrue(count > 800 && count < 1200, "slot count out of range: " + count);
+        }
+    }
+
+    @Test
+    public void testShutdownFlushReturnsUnfinishedRowsAfterDeadline() {
+        MemoryDao dao = new MemoryDao();
+        TestCache cache = new TestCache(dao);
+        for (long id = 1; id <= 10; id++) {
+            cache.add(newPlayer(id));
+        }
+
+        DirtyData<Player> dirty = cache.drainAllDirty();
+        assertEquals(10, dirty.size());
+        assertEquals(0, cache.getDirtySize());
+
+        // 截止时间已过，不应开始任何批次
+        DirtyData<Player> failed = cache.flushForShutdown(dirty, null, System.nanoTime() - 1, rows -> { });
+        assertTrue(failed.isEmpty());
+        assertEquals(0, dirty.flushedSize());
+        assertEquals(10, dirty.remaining().size());
+        assertTrue(dao.rows.isEmpty());
+    }
+
+    @Test
+    public void testRestoreDirty() {
+        MemoryDao dao = new MemoryDao();
+        TestCache cache = new TestCache(dao);
+        cache.add(newPlayer(1));
+        cache.syncAllDataToDatabase();
+
+        cache.restoreDirty(new ArrayList<>(Collections.singletonList(newPlayer(1))),
+                new ArrayList<>(Collections.singletonList("2")));
+        cache.restoreDirty(new ArrayList<>(Collections.singletonList(newPlayer(3))), new ArrayList<>());
+
+        assertEquals(3, cache.getDirtySize());
+        assertFalse(cache.contains(2L));
+        cache.syncAllDataToDatabase();
+        assertEquals(2, dao.insertCount);
+        assertEquals(1, dao.updateCount);
+        assertEquals(Player.class, cache.getEntityClass());
+    }
+
+    private static Player newPlayer(long id) {
+        Player player = new Player();
+        player.setPlayerid(id);
+        player.setName("player" + id);
+        return player;
+    }
+
+    private static class TestCache extends BaseCache<Player> {
+        TestCache(BaseDao<Player> dao) {
+            super(dao);
+        }
+    }
+
+    private static class MemoryDao implements BaseDao<Player> {
+        private final Map<Long, Player> rows = new ConcurrentHashMap<>();
+        private int insertCount;
+        private int updateCount;
+        private volatile boolean failing;
+
+        @Override
+        public Player selectById(Long id) {
+            return rows.get(id);
+        }
+
+        @Override
+        public List<Player> selectAll() {
+            return new ArrayList<>(rows.values());
+        }
+
+        @Override
+        public int insert(Player entity) {
+            checkAvailable();
+            insertCount++;
+            rows.put(entity.getPlayerid(), entity);
+            return 1;
+        }
+
+        @Override
+        public int update(Player entity) {
+            checkAvailable();
+            updateCount++;
+            rows.put(entity.getPlayerid(), entity);
+            return 1;
+        }
+
+        @Override
+        public int deleteById(Long id) {
+            return rows.remove(id) == null ? 0 : 1;
+        }
+
+        @Override
+        public long count() {
+            return rows.size();
+        }
+
+        private void checkAvailable() {
+            if (failing) {
+                throw new IllegalStateException("database unavailable");
+            }
+        }
+    }
+}
@@ -1,9 +1,12 @@
 package com.game.client;
 
 import com.game.proto.GameMessage;
+import com.game.proto.msgid.MsgIdEnum;
 import io.netty.buffer.ByteBuf;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.handler.codec.MessageToMessageDecoder;
+import net.jpountz.lz4.LZ4Factory;
+import net.jpountz.lz4.LZ4SafeDecompressor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -12,10 +15,16 @@ import java.util.List;
 /**
  * 客户端Protobuf解码器
  * 协议格式：4字节(总长度)+2字节(msgId)+4字节(序列号)+data
+ * msgId为MSG_BATCH时data是若干个同样格式的完整子帧，序列号为子帧数量；
+ * msgId最高位为1时data为4字节原始长度+LZ4块
  */
 public class ClientProtobufDecoder extends MessageToMessageDecoder<ByteBuf> {
     
     private static final Logger logger = LoggerFactory.getLogger(ClientProtobufDecoder.class);
+
+    private static final int FLAG_COMPRESSED = 0x8000;
+
+    private static final LZ4SafeDecompressor DECOMPRESSOR = LZ4Factory.fastestInstance().safeDecompressor();
     
     @Override
     protected void decode(ChannelHandlerContext ctx, ByteBuf msg, List<Object> out) throws Exception {
@@ -26,28 +35,50 @@ public class ClientProtobufDecoder extends MessageToMessageDecoder<ByteBuf> {
                 return;
             }
             int length = msg.readInt();
-            short msgId = msg.readShort();   // 2字节msgId
+            int msgId = msg.readUnsignedShort();   // 2字节msgId
             int sequence = msg.readInt(); // 4字节序列号
+
+            if (msgId == MsgIdEnum.MSG_BATCH_VALUE) {
+                // 批量帧：序列号为子帧数量，data为依次拼接的完整子帧
+                for (int i = 0; i < sequence; i++) {
+                    int subLength = msg.readInt();
+                    int subMsgId = msg.readUnsignedShort();
+                    int subSequence = msg.readInt();
+                    out.add(readMessage(msg, subMsgId, subSequence, subLength - 6));
+                }
+                logger.debug("Decoded batch frame with {} messages", sequence);
+                return;
+            }
             
-            // 读取剩余的数据作为protobuf数据
-            byte[] data = new byte[msg.readableBytes()];
-            msg.readBytes(data);
-            
-            // 构造GameMessage对象
-            GameMessage gameMessage = GameMessage.newBuilder()
-                    .setMsgId(msgId)
-                    .setSequence(sequence)
-                    .setData(com.google.protobuf.ByteString.copyFrom(data))
-                    .build();
-            
-            out.add(gameMessage);
-            
-            logger.debug("Decoded message: msgId={}, sequence={}, size={}",
-                    gameMessage.getMsgId(), gameMessage.getSequence(), data.length + 6);
+            out.add(readMessage(msg, msgId, sequence, msg.readableBytes()));
                     
         } catch (Exception e) {
             logger.error("Failed to decode message from channel: {}", ctx.channel(), e);
             ctx.fireExceptionCaught(e);
         }
     }
-}
\ No newline at end of file
+
+    private GameMessage readMessage(ByteBuf msg, int msgId, int sequence, int dataLength) {
+        // 读取数据作为protobuf数据
+        byte[] data = new byte[dataLength];
+        msg.readBytes(data);
+        if ((msgId & FLAG_COMPRESSED) != 0) {
+            msgId &= ~FLAG_COMPRESSED;
+            int rawLength = ((data[0] & 0xFF) << 24) | ((data[1] & 0xFF) << 16) | ((data[2] & 0xFF) << 8) | (data[3] & 0xFF);
+            byte[] raw = new byte[rawLength];
+            DECOMPRESSOR.decompress(data, 4, data.length - 4, raw, 0);
+            data = raw;
+        }
+        
+        // 构造GameMessage对象
+        GameMessage gameMessage = GameMessage.newBuilder()
+                .setMsgId((short) msgId)
+                .setSequence(sequence)
+                .setData(com.google.protobuf.ByteString.copyFrom(data))
+                .build();
+        
+        logger.debug("Decoded message: msgId={}, sequence={}, size={}",
+                gameMessage.getMsgId(), gameMessage.getSequence(), data.length + 6);
+        return gameMessage;
+    }
+}
@@ -1,15 +1,21 @@
 package com.game.client;
 
 import com.game.proto.GameMessage;
+import com.game.proto.msgid.MsgIdEnum;
+import com.google.protobuf.ByteString;
 import io.netty.buffer.ByteBuf;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.handler.codec.MessageToByteEncoder;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.nio.ByteBuffer;
+import java.util.List;
+
 /**
  * 客户端Protobuf编码器
  * 协议格式：4字节(总长度)+2字节(msgId)+4字节(序列号)+data
+ * 批量发送时用{@link #batch(List)}把多条消息打包为一条MSG_BATCH消息，按同样格式编码
  */
 public class ClientProtobufEncoder extends MessageToByteEncoder<GameMessage> {
     
@@ -45,4 +51,27 @@ public class ClientProtobufEncoder extends MessageToByteEncoder<GameMessage> {
             throw e;
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * 把多条消息打包为一条MSG_BATCH消息：序列号为子消息数量，data为依次拼接的完整子帧
+     */
+    public static GameMessage batch(List<GameMessage> messages) {
+        int size = 0;
+        for (GameMessage message : messages) {
+            size += 4 + 2 + 4 + message.getData().size();
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(size);
+        for (GameMessage message : messages) {
+            buffer.putInt(2 + 4 + message.getData().size());
+            buffer.putShort((short) message.getMsgId());
+            buffer.putInt(message.getSequence());
+            message.getData().copyTo(buffer);
+        }
+        buffer.flip();
+        return GameMessage.newBuilder()
+                .setMsgId(MsgIdEnum.MSG_BATCH_VALUE)
+                .setSequence(messages.size())
+                .setData(ByteString.copyFrom(buffer))
+                .build();
+    }
+}
@@ -2,6 +2,8 @@ package com.game.client;
 
 import com.game.proto.ErrorMessage;
 import com.game.proto.GameMessage;
+import com.game.proto.HandshakeRequest;
+import com.game.proto.HandshakeResponse;
 import com.game.proto.HeartbeatMessage;
 import com.game.proto.login.*;
 import com.game.proto.msgid.MsgIdEnum;
@@ -14,6 +16,8 @@ import io.netty.handler.codec.LengthFieldBasedFrameDecoder;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Scanner;
 import java.util.concurrent.TimeUnit;
 
@@ -37,6 +41,12 @@ public class EnhancedGameClient {
     private long playerId = 0;
     private int currentServerIndex = 0;
     private ChannelHandlerContext currentCtx;
+
+    // 客户端支持的能力位，与服务器ChannelCapabilities一致
+    private static final int CAPABILITY_BATCH = 1;
+    private static final int CAPABILITY_COMPRESSION = 2;
+    // 握手后服务器启用的能力位
+    private int capabilities = 0;
     
     public EnhancedGameClient(String host, int port) {
         this.host = host;
@@ -110,6 +120,7 @@ public class EnhancedGameClient {
             System.out.println("test_login - 测试登录流程");
             System.out.println("test_chat - 测试聊天功能");
             System.out.println("stress <count> - 压力测试（发送指定数量的心跳消息）");
+            System.out.println("batch <count> - 用一个批量帧发送指定数量的心跳消息");
             System.out.println("=== 系统命令 ===");
             System.out.println("help - 显示帮助信息");
             System.out.println("exit - 退出客户端");
@@ -188,6 +199,13 @@ public class EnhancedGameClient {
                                 System.out.println("Usage: stress <count>");
                             }
                             break;
+                        case "batch":
+                            if (parts.length >= 2) {
+                                sendHeartbeatBatch(Integer.parseInt(parts[1]));
+                            } else {
+                                System.out.println("Usage: batch <count>");
+                            }
+                            break;
                         case "help":
                             showHelp();
                             break;
@@ -222,6 +240,7 @@ public class EnhancedGameClient {
         System.out.println("test_login - 测试登录流程");
         System.out.println("test_chat - 测试聊天功能");
         System.out.println("stress <count> - 压力测试（发送指定数量的心跳消息）");
+        System.out.println("batch <count> - 用一个批量帧发送指定数量的心跳消息");
         System.out.println("=== 系统命令 ===");
         System.out.println("help - 显示帮助信息");
         System.out.println("exit - 退出客户端");
@@ -369,6 +388,26 @@ public class EnhancedGameClient {
         logger.info("Sent heartbeat message");
     }
     
+    /**
+     * 用一个批量帧发送多条心跳消息
+     */
+    private void sendHeartbeatBatch(int count) {
+        List<GameMessage> messages = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            HeartbeatMessage heartbeat = HeartbeatMessage.newBuilder()
+                    .setTimestamp(System.currentTimeMillis())
+                    .setMessage("Client heartbeat " + i)
+                    .build();
+            messages.add(GameMessage.newBuilder()
+                    .setMsgId(MsgIdEnum.MSG_SYSTEM_HEARTBEAT_REQ_VALUE)
+                    .setSequence(++sequence)
+                    .setData(heartbeat.toByteString())
+                    .build());
+        }
+        channel.writeAndFlush(ClientProtobufEncoder.batch(messages));
+        logger.info("Sent {} heartbeat messages in one batch frame", count);
+    }
+
     /**
      * 测试登录流程
      */
@@ -436,6 +475,17 @@ public class EnhancedGameClient {
         public void channelActive(ChannelHandlerContext ctx) throws Exception {
             logger.info("Channel active: {}", ctx.channel());
             System.out.println("Connected to server. Type 'help' for available commands.");
+
+            // 连接建立后先协商能力
+            HandshakeRequest handshake = HandshakeRequest.newBuilder()
+                    .setCapabilities(CAPABILITY_BATCH | CAPABILITY_COMPRESSION)
+                    .setClientVersion("1.0.0")
+                    .build();
+            ctx.writeAndFlush(GameMessage.newBuilder()
+                    .setMsgId(MsgIdEnum.MSG_SYSTEM_HANDSHAKE_REQ_VALUE)
+                    .setSequence(++sequence)
+                    .setData(handshake.toByteString())
+                    .build());
         }
         
         @Override
@@ -481,6 +531,9 @@ public class EnhancedGameClient {
                 case MSG_SYSTEM_ERROR:
                     handleSystemError(msg);
                     break;
+                case MSG_SYSTEM_HANDSHAKE_RES:
+                    handleHandshakeResponse(msg);
+                    break;
                 case MSG_UNKNOWN:
                 default:
                     logger.warn("Unknown or unhandled msgId: {}", msg.getMsgId());
@@ -656,6 +709,22 @@ public class EnhancedGameClient {
             }
         }
         
+        /**
+         * 处理能力协商响应
+         */
+        private void handleHandshakeResponse(GameMessage msg) {
+            try {
+                HandshakeResponse response = HandshakeResponse.parseFrom(msg.getData());
+                capabilities = response.getCapabilities();
+                System.out.println("Handshake completed, capabilities: " + capabilities
+                        + ((capabilities & CAPABILITY_BATCH) != 0 ? " (batch)" : "")
+                        + ((capabilities & CAPABILITY_COMPRESSION) != 0 ? " (compression)" : ""));
+            } catch (Exception e) {
+                logger.error("Failed to parse handshake response", e);
+                System.out.println("Error parsing handshake response: " + e.getMessage());
+            }
+        }
+
         /**
          * 处理系统错误
          */
@@ -0,0 +1,51 @@
+package com.game.common.collection;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+/**
+ * IntIntMap 测试
+ */
+public class IntIntMapTest {
+
+    @Test
+    public void testOfAgainstHashMap() {
+        Random random = new Random(42);
+        int[] keys = new int[500];
+        int[] values = new int[500];
+        Map<Integer, Integer> expected = new HashMap<>();
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = random.nextInt(400) - 200;
+            values[i] = random.nextInt();
+            expected.put(keys[i], values[i]);
+        }
+
+        IntIntMap map = IntIntMap.of(keys, values, keys.length);
+        assertEquals(expected.size(), map.size());
+        for (Map.Entry<Integer, Integer> entry : expected.entrySet()) {
+            assertEquals(entry.getValue().intValue(), map.get(entry.getKey()));
+        }
+        for (int i = 1; i < map.size(); i++) {
+            assertEquals(true, map.keyAt(i - 1) < map.keyAt(i));
+        }
+        assertFalse(map.containsKey(1000));
+        assertEquals(-1, map.getOrDefault(1000, -1));
+    }
+
+    @Test
+    public void testEmptyAndEquality() {
+        assertSame(IntIntMap.EMPTY, IntIntMap.of(new int[0], new int[0], 0));
+        IntIntMap a = IntIntMap.of(new int[]{3, 1, 2}, new int[]{30, 10, 20}, 3);
+        IntIntMap b = IntIntMap.of(new int[]{1, 2, 3}, new int[]{10, 20, 30}, 3);
+        assertEquals(a, b);
+        assertEquals(a.hashCode(), b.hashCode());
+        assertEquals("{\"1\":10,\"2\":20,\"3\":30}", a.toJSONString());
+    }
+}
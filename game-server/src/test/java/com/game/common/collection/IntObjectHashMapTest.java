@@ -0,0 +1,45 @@
+package com.game.common.collection;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/**
+ * IntObjectHashMap 测试
+ */
+public class IntObjectHashMapTest {
+
+    @Test
+    public void testPutAndGetAgainstHashMap() {
+        IntObjectHashMap<String> map = new IntObjectHashMap<>(4);
+        Map<Integer, String> expected = new HashMap<>();
+        Random random = new Random(42);
+        for (int i = 0; i < 10000; i++) {
+            int key = random.nextInt(20000) - 10000;
+            map.put(key, "v" + i);
+            expected.put(key, "v" + i);
+        }
+
+        assertEquals(expected.size(), map.size());
+        for (Map.Entry<Integer, String> entry : expected.entrySet()) {
+            assertEquals(entry.getValue(), map.get(entry.getKey()));
+        }
+        assertNull(map.get(20001));
+        assertFalse(map.containsKey(-20001));
+    }
+
+    @Test
+    public void testPutIfAbsentKeepsFirst() {
+        IntObjectHashMap<String> map = new IntObjectHashMap<>();
+        assertNull(map.putIfAbsent(0, "first"));
+        assertEquals("first", map.putIfAbsent(0, "second"));
+        assertEquals("first", map.get(0));
+        assertEquals(1, map.size());
+    }
+}
@@ -1,5 +1,7 @@
 package com.game.common.util;
 
+import com.game.common.collection.IntIntMap;
+import com.game.common.collection.IntList;
 import org.apache.poi.ss.usermodel.Cell;
 import org.apache.poi.ss.usermodel.Row;
 import org.apache.poi.ss.usermodel.Sheet;
@@ -9,8 +11,6 @@ import org.junit.Test;
 
 import java.io.IOException;
 import java.math.BigDecimal;
-import java.util.List;
-import java.util.Map;
 
 import static org.junit.Assert.*;
 
@@ -99,11 +99,11 @@ public class ExcelUtilsTest {
             mapCell.setCellValue("{1#10,2#20,3#30}");
             Object result = ExcelUtils.parseMapValue(mapCell, "intIntMap");
             
-            assertTrue(result instanceof Map);
-            Map<Integer, Integer> mapResult = (Map<Integer, Integer>) result;
-            assertEquals(Integer.valueOf(10), mapResult.get(1));
-            assertEquals(Integer.valueOf(20), mapResult.get(2));
-            assertEquals(Integer.valueOf(30), mapResult.get(3));
+            assertTrue(result instanceof IntIntMap);
+            IntIntMap mapResult = (IntIntMap) result;
+            assertEquals(10, mapResult.get(1));
+            assertEquals(20, mapResult.get(2));
+            assertEquals(30, mapResult.get(3));
             
         } catch (IOException e) {
             fail("创建测试工作簿时出错: " + e.getMessage());
@@ -123,11 +123,11 @@ public class ExcelUtilsTest {
             listCell.setCellValue("{1,2,3,4,5}");
             Object result = ExcelUtils.parseListValue(listCell, "intList");
             
-            assertTrue(result instanceof List);
-            List<Integer> listResult = (List<Integer>) result;
+            assertTrue(result instanceof IntList);
+            IntList listResult = (IntList) result;
             assertEquals(5, listResult.size());
-            assertEquals(Integer.valueOf(1), listResult.get(0));
-            assertEquals(Integer.valueOf(5), listResult.get(4));
+            assertEquals(1, listResult.get(0));
+            assertEquals(5, listResult.get(4));
             
         } catch (IOException e) {
             fail("创建测试工作簿时出错: " + e.getMessage());
@@ -0,0 +1,39 @@
+package com.game.common.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class TokenBucketTest {
+
+    private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    @Test
+    public void testBurstThenRefill() {
+        TokenBucket bucket = new TokenBucket(10, 5, 0);
+        for (int i = 0; i < 5; i++) {
+            assertTrue(bucket.tryAcquire(0));
+        }
+        assertFalse(bucket.tryAcquire(0));
+        // 100ms补充1个
+        assertTrue(bucket.tryAcquire(SECOND / 10));
+        assertFalse(bucket.tryAcquire(SECOND / 10));
+        // 补充不超过容量
+        bucket.tryAcquire(100 * SECOND);
+        assertEquals(4, bucket.getTokens(), 1e-9);
+    }
+
+    @Test
+    public void testAcquireReturnsDebtWait() {
+        TokenBucket bucket = new TokenBucket(10, 2, 0);
+        assertEquals(0, bucket.acquire(0));
+        assertEquals(0, bucket.acquire(0));
+        assertEquals(SECOND / 10, bucket.acquire(0), 1);
+        assertEquals(2 * SECOND / 10, bucket.acquire(0), 1);
+        assertEquals(0, bucket.acquire(SECOND / 2));
+    }
+}
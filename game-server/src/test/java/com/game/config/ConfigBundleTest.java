@@ -0,0 +1,65 @@
+package com.game.config;
+
+import com.alibaba.fastjson.JSON;
+import com.game.config.data.ExampleConfig;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 配置包编译与加载测试
+ */
+public class ConfigBundleTest {
+
+    @TempDir
+    File tempDir;
+
+    @Test
+    public void testBundleRoundTrip() throws IOException {
+        File excelFile = copyExampleConfig();
+        assertEquals(1, ConfigBundleCompiler.compile(tempDir, new File(tempDir, ConfigBundle.DEFAULT_FILE_NAME)));
+
+        ConfigBundleLoader.Result result = new ConfigBundleLoader().load(tempDir, Collections.singletonList(excelFile));
+        assertTrue(result.getStaleFiles().isEmpty());
+        ConfigTable bundled = result.getTables().get("ExampleConfig");
+
+        ExcelConfigManager manager = new ExcelConfigManager();
+        manager.loadConfig(excelFile);
+        ConfigTable parsed = manager.getConfigTable("ExampleConfig");
+
+        assertEquals(parsed.getPrimaryKey(), bundled.getPrimaryKey());
+        assertEquals(parsed.getConfigClass(), bundled.getConfigClass());
+        assertEquals(JSON.toJSONString(parsed.getRows()), JSON.toJSONString(bundled.getRows()));
+        for (Object row : bundled.getRows()) {
+            assertSame(row, bundled.get(((ExampleConfig) row).getId().intValue()));
+        }
+    }
+
+    @Test
+    public void testModifiedExcelIsStale() throws IOException {
+        File excelFile = copyExampleConfig();
+        ConfigBundleCompiler.compile(tempDir, new File(tempDir, ConfigBundle.DEFAULT_FILE_NAME));
+
+        try (FileOutputStream out = new FileOutputStream(excelFile, true)) {
+            out.write(0);
+        }
+        ConfigBundleLoader.Result result = new ConfigBundleLoader().load(tempDir, Collections.singletonList(excelFile));
+        assertTrue(result.getTables().isEmpty());
+        assertEquals(Collections.singletonList(excelFile), result.getStaleFiles());
+    }
+
+    private File copyExampleConfig() throws IOException {
+        File excelFile = new File(tempDir, "ExampleConfig.xlsx");
+        Files.copy(new File("config/ExampleConfig.xlsx").toPath(), excelFile.toPath());
+        return excelFile;
+    }
+}
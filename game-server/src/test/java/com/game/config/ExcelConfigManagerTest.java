@@ -0,0 +1,198 @@
+package com.game.config;
+
+import com.game.config.data.ExampleConfig;
+import com.alibaba.fastjson.JSON;
+import com.game.common.util.ExcelUtils;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.ss.usermodel.Workbook;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * ExcelConfigManager 加载与查询测试
+ * 使用 game-server/config 下的示例配置
+ */
+public class ExcelConfigManagerTest {
+
+    private static final File EXAMPLE_CONFIG = new File("config/ExampleConfig.xlsx");
+
+    @Test
+    public void testPrimaryKeyIndex() {
+        ExcelConfigManager manager = new ExcelConfigManager();
+        manager.loadConfig(EXAMPLE_CONFIG);
+
+        ConfigTable table = manager.getConfigTable("ExampleConfig");
+        assertNotNull(table);
+        assertEquals("Id", table.getPrimaryKey());
+        assertTrue(table.size() > 0);
+
+        for (Object row : table.getRows()) {
+            ExampleConfig config = (ExampleConfig) row;
+            assertSame(config, manager.getConfigDataById("ExampleConfig", config.getId().intValue()));
+            assertSame(config, manager.getConfigDataById("ExampleConfig", (Object) config.getId()));
+            assertSame(config, manager.getConfigDataById("ExampleConfig", (Object) config.getId().longValue()));
+        }
+        assertNull(manager.getConfigDataById("ExampleConfig", -1));
+        assertNull(manager.getConfigDataById("NotExistConfig", 1));
+    }
+
+    @Test
+    public void testExampleConfigDeclaredIndexes() {
+        ExcelConfigManager manager = new ExcelConfigManager();
+        manager.loadConfig(EXAMPLE_CONFIG);
+
+        // 示例配置的pInt列声明了分组和范围索引
+        List<Object> expected = manager.getConfigDataByFilter("ExampleConfig", row -> Integer.valueOf(10).equals(((ExampleConfig) row).getPInt()));
+        assertTrue(expected.size() > 1);
+        assertEquals(expected, manager.getConfigDataByGroup("ExampleConfig", "pInt", 10));
+
+        List<Object> range = manager.getConfigDataByRange("ExampleConfig", "pInt", 1, 3);
+        assertEquals(manager.getConfigDataByFilter("ExampleConfig", row -> {
+            Integer value = ((ExampleConfig) row).getPInt();
+            return value != null && value >= 1 && value <= 3;
+        }).size(), range.size());
+        for (int i = 1; i < range.size(); i++) {
+            assertTrue(((ExampleConfig) range.get(i - 1)).getPInt() <= ((ExampleConfig) range.get(i)).getPInt());
+        }
+    }
+
+    @Test
+    public void testRowBinderFields() {
+        ExcelConfigManager manager = new ExcelConfigManager();
+        manager.loadConfig(EXAMPLE_CONFIG);
+
+        ExampleConfig config = (ExampleConfig) manager.getConfigTable("ExampleConfig").getRows().get(0);
+        assertNotNull(config.getId());
+        assertNotNull(config.getPStr());
+        assertNotNull(config.getPIntList());
+
+        ConfigRowBinder mapBinder = ConfigRowBinder.create("MapConfig", null, Arrays.asList(
+                new ExcelUtils.FieldConfig("name", "string", false, 1),
+                new ExcelUtils.FieldConfig("id", "int", true, 0)), "id");
+        assertEquals(0, mapBinder.getPrimaryKeyIndex());
+        Object row = mapBinder.newInstance();
+        mapBinder.getColumns()[0].apply(row, 7);
+        mapBinder.getColumns()[1].apply(row, "seven");
+        assertEquals(7, ((Map<?, ?>) row).get("id"));
+        assertEquals("seven", ((Map<?, ?>) row).get("name"));
+    }
+
+    @Test
+    public void testReloadPublishesNewSnapshotAtomically() {
+        ExcelConfigManager manager = new ExcelConfigManager();
+        manager.loadConfig(EXAMPLE_CONFIG);
+        ConfigSnapshot before = manager.getSnapshot();
+        ConfigTable oldTable = before.getTable("ExampleConfig");
+
+        // 任一文件失败时整体放弃，快照不变
+        assertThrows(IllegalStateException.class, () -> manager.reloadConfigs(EXAMPLE_CONFIG.getParentFile(),
+                Arrays.asList("ExampleConfig.xlsx", "NotExistConfig.xlsx")));
+        assertSame(before, manager.getSnapshot());
+
+        ConfigSnapshot after = manager.reloadConfigs(EXAMPLE_CONFIG.getParentFile(),
+                Collections.singletonList("ExampleConfig.xlsx"));
+        assertEquals(before.getVersion() + 1, after.getVersion());
+        assertSame(after, manager.getSnapshot());
+        assertTrue(after.isChanged("ExampleConfig"));
+        assertNotSame(oldTable, after.getTable("ExampleConfig"));
+        // 旧快照保持原样，持有旧引用的读取方不受影响
+        assertSame(oldTable, before.getTable("ExampleConfig"));
+        assertEquals(oldTable.size(), after.getTable("ExampleConfig").size());
+    }
+
+    @Test
+    public void testStreamingReaderMatchesWorkbook() {
+        ExcelConfigManager manager = new ExcelConfigManager();
+        manager.setStreamingThreshold(-1);
+        manager.loadConfig(EXAMPLE_CONFIG);
+        ConfigTable parsed = manager.getConfigTable("ExampleConfig");
+
+        ExcelConfigManager streaming = new ExcelConfigManager();
+        streaming.setStreamingThreshold(0);
+        streaming.loadConfig(EXAMPLE_CONFIG);
+        ConfigTable streamed = streaming.getConfigTable("ExampleConfig");
+
+        assertEquals(parsed.getPrimaryKey(), streamed.getPrimaryKey());
+        assertEquals(parsed.size(), streamed.size());
+        assertEquals(JSON.toJSONString(parsed.getRows()), JSON.toJSONString(streamed.getRows()));
+    }
+
+    @Test
+    public void testParallelLoadReportsFailures(@TempDir File tempDir) throws IOException {
+        File first = new File(tempDir, "FirstConfig.xlsx");
+        File second = new File(tempDir, "SecondConfig.xlsx");
+        File broken = new File(tempDir, "BrokenConfig.xlsx");
+        Files.copy(EXAMPLE_CONFIG.toPath(), first.toPath());
+        Files.copy(EXAMPLE_CONFIG.toPath(), second.toPath());
+        Files.write(broken.toPath(), new byte[]{1, 2, 3});
+
+        ExcelConfigManager manager = new ExcelConfigManager();
+        assertEquals(2, manager.loadConfigs(Arrays.asList(first, second, broken)));
+
+        ConfigLoadReport report = manager.getLastLoadReport();
+        assertEquals(3, report.getEntries().size());
+        assertEquals(1, report.getFailures().size());
+        assertEquals("BrokenConfig.xlsx", report.getFailures().get(0).getFileName());
+        assertEquals(1L, manager.getSnapshot().getVersion());
+        assertEquals(manager.getConfigTable("FirstConfig").size(), manager.getConfigTable("SecondConfig").size());
+    }
+
+    @Test
+    public void testDeclaredSecondaryIndexes(@TempDir File tempDir) throws IOException {
+        File excelFile = new File(tempDir, "IndexConfig.xlsx");
+        try (Workbook workbook = new XSSFWorkbook(); FileOutputStream out = new FileOutputStream(excelFile)) {
+            Sheet sheet = workbook.createSheet();
+            sheet.createRow(0).createCell(0).setCellValue("索引测试");
+            String[][] header = {{"id", "type", "level", "code"}, {"sk", "sg", "sr", "su"}, {"int", "int", "int", "string"}};
+            for (int r = 0; r < header.length; r++) {
+                Row row = sheet.createRow(r + 2);
+                for (int c = 0; c < header[r].length; c++) {
+                    row.createCell(c).setCellValue(header[r][c]);
+                }
+            }
+            for (int i = 0; i < 20; i++) {
+                Row row = sheet.createRow(i + 5);
+                row.createCell(0).setCellValue(i + 1);
+                row.createCell(1).setCellValue(i % 3);
+                row.createCell(2).setCellValue(20 - i);
+                row.createCell(3).setCellValue("c" + i);
+            }
+            workbook.write(out);
+        }
+
+        ExcelConfigManager manager = new ExcelConfigManager();
+        manager.loadConfig(excelFile);
+        List<Object> expected = manager.getConfigDataByFilter("IndexConfig", row -> Integer.valueOf(1).equals(((Map<?, ?>) row).get("type")));
+        List<Object> group = manager.getConfigDataByGroup("IndexConfig", "type", 1);
+        assertEquals(expected, group);
+        assertSame(group, manager.getConfigDataByGroup("IndexConfig", "type", 1L));
+        assertTrue(manager.getConfigDataByGroup("IndexConfig", "type", 9).isEmpty());
+
+        List<Object> range = manager.getConfigDataByRange("IndexConfig", "level", 5, 7);
+        assertEquals(3, range.size());
+        assertEquals(5, ((Map<?, ?>) range.get(0)).get("level"));
+        assertEquals(7, ((Map<?, ?>) range.get(2)).get("level"));
+
+        assertEquals(8, ((Map<?, ?>) manager.getConfigDataByUnique("IndexConfig", "code", "c7")).get("id"));
+        assertThrows(IllegalArgumentException.class, () -> manager.getConfigDataByGroup("IndexConfig", "level", 1));
+    }
+}
@@ -163,6 +163,7 @@ public class ExcelToEntityConverter {
         sb.append("package ").append(packageName).append(";\n\n");
         
         // 导入
+        sb.append("import com.game.common.collection.*;\n\n");
         sb.append("import java.io.Serializable;\n");
         sb.append("import java.util.*;\n");
         sb.append("import java.math.BigDecimal;\n\n");
@@ -287,7 +288,7 @@ public class ExcelToEntityConverter {
         // 处理Map类型
         if (excelType.contains("Map")) {
             if (excelType.contains("intIntMap")) {
-                return "Map<Integer, Integer>";
+                return "IntIntMap";
             } else if (excelType.contains("intStringMap")) {
                 return "Map<Integer, String>";
             } else if (excelType.contains("stringIntMap")) {
@@ -305,7 +306,7 @@ public class ExcelToEntityConverter {
         if (excelType.contains("List")) {
             // 二维List类型
             if (excelType.contains("intList2") || excelType.contains("integerList2")) {
-                return "List<List<Integer>>";
+                return "IntList2";
             } else if (excelType.contains("longList2")) {
                 return "List<List<Long>>";
             } else if (excelType.contains("floatList2")) {
@@ -319,7 +320,7 @@ public class ExcelToEntityConverter {
             }
             // 一维List类型
             else if (excelType.contains("intList") || excelType.contains("integerList")) {
-                return "List<Integer>";
+                return "IntList";
             } else if (excelType.contains("longList")) {
                 return "List<Long>";
             } else if (excelType.contains("floatList")) {
@@ -0,0 +1,96 @@
+package com.game.model.activity;
+
+import com.game.config.data.PrivateActivityConfig;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * ActivityTimeIndex 测试
+ */
+public class ActivityTimeIndexTest {
+
+    @Test
+    public void testQueriesAgainstScan() {
+        Random random = new Random(7);
+        List<PrivateActivityConfig> configs = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            int start = random.nextInt(60) + 1;
+            configs.add(activity(i, start, start + random.nextInt(15)));
+        }
+        configs.add(activity(999, 10, 5));
+        ActivityTimeIndex index = new ActivityTimeIndex(configs);
+        assertEquals(200, index.size());
+
+        for (int day = 0; day <= 80; day++) {
+            assertEquals(ids(scan(configs, day)), ids(index.getActive(day)), "day " + day);
+
+            List<Integer> starting = new ArrayList<>();
+            List<Integer> ending = new ArrayList<>();
+            for (PrivateActivityConfig config : configs) {
+                if (config.getEndTimeDay() < config.getStarTimeDay()) {
+                    continue;
+                }
+                if (config.getStarTimeDay() > day && config.getStarTimeDay() <= day + 3) {
+                    starting.add(config.getId());
+                }
+                if (config.getEndTimeDay() >= day && config.getEndTimeDay() <= day + 3) {
+                    ending.add(config.getId());
+                }
+            }
+            assertEquals(sorted(starting), sorted(ids(index.getStarting(day + 1, day + 3))));
+            assertEquals(sorted(ending), sorted(ids(index.getEnding(day, day + 3))));
+        }
+        assertSame(index.getActive(30), index.getActive(30));
+    }
+
+    @Test
+    public void testNextBoundary() {
+        ActivityTimeIndex index = new ActivityTimeIndex(Arrays.asList(activity(1, 3, 5), activity(2, 5, 9)));
+        assertEquals(3, index.nextBoundary(1));
+        assertEquals(5, index.nextBoundary(3));
+        assertEquals(6, index.nextBoundary(5));
+        assertEquals(10, index.nextBoundary(6));
+        assertEquals(-1, index.nextBoundary(10));
+        assertTrue(index.getActive(10).isEmpty());
+    }
+
+    private static PrivateActivityConfig activity(int id, int start, int end) {
+        PrivateActivityConfig config = new PrivateActivityConfig();
+        config.setId(id);
+        config.setStarTimeDay(start);
+        config.setEndTimeDay(end);
+        return config;
+    }
+
+    private static List<PrivateActivityConfig> scan(List<PrivateActivityConfig> configs, int day) {
+        List<PrivateActivityConfig> result = new ArrayList<>();
+        for (PrivateActivityConfig config : configs) {
+            if (config.getStarTimeDay() <= day && day <= config.getEndTimeDay()) {
+                result.add(config);
+            }
+        }
+        result.sort((a, b) -> Integer.compare(a.getStarTimeDay(), b.getStarTimeDay()));
+        return result;
+    }
+
+    private static List<Integer> ids(List<PrivateActivityConfig> configs) {
+        List<Integer> ids = new ArrayList<>();
+        for (PrivateActivityConfig config : configs) {
+            ids.add(config.getId());
+        }
+        return ids;
+    }
+
+    private static List<Integer> sorted(List<Integer> ids) {
+        ids.sort(null);
+        return ids;
+    }
+}
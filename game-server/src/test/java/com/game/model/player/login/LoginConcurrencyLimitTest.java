@@ -0,0 +1,39 @@
+package com.game.model.player.login;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class LoginConcurrencyLimitTest {
+
+    @Test
+    public void testRampsUpWhileFastAndBacksOffWhenSlow() {
+        LoginConcurrencyLimit limit = new LoginConcurrencyLimit(2, 16, 500);
+        assertEquals(2, limit.getLimit());
+
+        long now = 0;
+        for (int i = 0; i < 1000; i++) {
+            limit.onSample(100, now += 10);
+        }
+        assertEquals(16, limit.getLimit());
+
+        // 平均耗时拉高到目标以上后开始下调，同一个目标耗时周期内只下调一次
+        int before = limit.getLimit();
+        for (int i = 0; i < 10; i++) {
+            limit.onSample(5000, now);
+        }
+        assertEquals((int) (before * 0.75), limit.getLimit());
+
+        for (int i = 0; i < 100; i++) {
+            limit.onSample(5000, now += 500);
+        }
+        assertEquals(2, limit.getLimit());
+    }
+
+    @Test
+    public void testInvalidRange() {
+        assertThrows(IllegalArgumentException.class, () -> new LoginConcurrencyLimit(0, 16, 500));
+        assertThrows(IllegalArgumentException.class, () -> new LoginConcurrencyLimit(8, 4, 500));
+    }
+}
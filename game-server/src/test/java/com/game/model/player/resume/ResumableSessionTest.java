@@ -0,0 +1,83 @@
+package com.game.model.player.resume;
+
+import com.game.proto.GameMessage;
+import com.google.protobuf.ByteString;
+import io.netty.channel.embedded.EmbeddedChannel;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+public class ResumableSessionTest {
+
+    private static GameMessage message(int sequence, int size) {
+        return GameMessage.newBuilder()
+                .setMsgId(1501)
+                .setSequence(sequence)
+                .setData(ByteString.copyFrom(new byte[size]))
+                .build();
+    }
+
+    @Test
+    public void testResumeReplaysMissedMessages() {
+        EmbeddedChannel oldChannel = new EmbeddedChannel();
+        EmbeddedChannel newChannel = new EmbeddedChannel();
+        ResumableSession session = new ResumableSession(1L, 11L, 8, 1024);
+        session.attach(oldChannel, 11L);
+
+        for (int i = 1; i <= 5; i++) {
+            assertSame(oldChannel, session.route(oldChannel, message(i, 10)));
+        }
+        assertEquals(1, session.suspend(oldChannel));
+        // 挂起期间的消息缓存等待补发
+        assertNull(session.route(oldChannel, message(6, 10)));
+        assertEquals(6, session.getSentCount());
+
+        // 令牌不对时不恢复
+        assertNull(session.resume(newChannel, 12L, 3, 22L));
+
+        List<GameMessage> missed = session.resume(newChannel, 11L, 3, 22L);
+        assertEquals(3, missed.size());
+        assertEquals(4, missed.get(0).getSequence());
+        assertEquals(6, missed.get(2).getSequence());
+        assertEquals(22L, session.getToken());
+        assertSame(session, newChannel.attr(ResumableSession.KEY).get());
+
+        // 旧连接上迟到的消息改从新连接发出，不在旧连接上计数
+        assertSame(newChannel, session.route(oldChannel, message(7, 10)));
+        assertEquals(6, session.getSentCount());
+        assertSame(newChannel, session.route(newChannel, message(7, 10)));
+        assertEquals(7, session.getSentCount());
+        // 旧连接断开不影响已恢复的会话
+        assertEquals(-1, session.suspend(oldChannel));
+    }
+
+    @Test
+    public void testEvictedMessagesCannotBeReplayed() {
+        EmbeddedChannel channel = new EmbeddedChannel();
+        ResumableSession session = new ResumableSession(1L, 11L, 4, 100);
+        session.attach(channel, 11L);
+
+        for (int i = 1; i <= 6; i++) {
+            session.route(channel, message(i, 10));
+        }
+        // 按条数只保留最近4条
+        assertNull(session.missedSince(1));
+        assertEquals(4, session.missedSince(2).size());
+        assertEquals(0, session.missedSince(6).size());
+        // 对方的计数比发出的还多
+        assertNull(session.missedSince(7));
+
+        // 按字节数挤出：再写入80字节后只剩5、6、7三条（共100字节）
+        session.route(channel, message(7, 80));
+        assertEquals(3, session.missedSince(4).size());
+        assertNull(session.missedSince(3));
+        // 单条超过字节上限时仍然保留
+        session.route(channel, message(8, 200));
+        assertEquals(1, session.missedSince(7).size());
+        assertEquals(8, session.missedSince(7).get(0).getSequence());
+    }
+}
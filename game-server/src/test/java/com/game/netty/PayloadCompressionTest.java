@@ -0,0 +1,90 @@
+package com.game.netty;
+
+import com.game.netty.codec.GameProtobufDecoder;
+import com.game.netty.codec.GameProtobufEncoder;
+import com.game.proto.GameMessage;
+import com.google.protobuf.ByteString;
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.codec.CorruptedFrameException;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class PayloadCompressionTest {
+
+    private static PayloadCompression compression() {
+        PayloadCompression compression = new PayloadCompression();
+        ReflectionTestUtils.setField(compression, "enabled", true);
+        ReflectionTestUtils.setField(compression, "threshold", 1024);
+        ReflectionTestUtils.setField(compression, "minRatio", 0.9);
+        ReflectionTestUtils.setField(compression, "maxInflatedBytes", 1 << 20);
+        return compression;
+    }
+
+    private static GameMessage message(int msgId, byte[] data) {
+        return GameMessage.newBuilder()
+                .setMsgId(msgId)
+                .setSequence(7)
+                .setData(ByteString.copyFrom(data))
+                .build();
+    }
+
+    @Test
+    public void testCompressedRoundTrip() {
+        PayloadCompression compression = compression();
+        EmbeddedChannel server = new EmbeddedChannel(new GameProtobufEncoder(compression));
+        ChannelCapabilities.set(server, ChannelCapabilities.COMPRESSION);
+
+        byte[] data = new byte[8192];
+        for (int i = 0; i < data.length; i++) {
+            data[i] = (byte) (i % 16);
+        }
+        server.writeAndFlush(message(1501, data));
+        ByteBuf frame = server.readOutbound();
+        assertEquals(1501 | PayloadCompression.FLAG_COMPRESSED, frame.getUnsignedShort(4));
+        assertTrue(frame.readableBytes() < data.length);
+        assertEquals(frame.readableBytes() - 4, frame.getInt(0));
+
+        // 未协商压缩的连接不接受压缩消息
+        EmbeddedChannel plain = new EmbeddedChannel(new GameProtobufDecoder(compression));
+        assertThrows(CorruptedFrameException.class, () -> plain.writeInbound(frame.retainedDuplicate()));
+
+        EmbeddedChannel client = new EmbeddedChannel(new GameProtobufDecoder(compression));
+        ChannelCapabilities.set(client, ChannelCapabilities.COMPRESSION);
+        client.writeInbound(frame);
+        assertEquals(message(1501, data), client.readInbound());
+
+        @SuppressWarnings("unchecked")
+        Map<String, Object> stat = (Map<String, Object>) ((Map<?, ?>) compression.getStats().get("msgIds")).get(1501);
+        assertEquals(1L, stat.get("compressed"));
+    }
+
+    @Test
+    public void testSmallOrIncompressibleStaysRaw() {
+        PayloadCompression compression = compression();
+        EmbeddedChannel server = new EmbeddedChannel(new GameProtobufEncoder(compression));
+        ChannelCapabilities.set(server, ChannelCapabilities.COMPRESSION);
+
+        byte[] random = new byte[4096];
+        new Random(1).nextBytes(random);
+        server.writeAndFlush(message(1501, new byte[100]));
+        server.writeAndFlush(message(1502, random));
+        ByteBuf small = server.readOutbound();
+        ByteBuf incompressible = server.readOutbound();
+        assertEquals(1501, small.getUnsignedShort(4));
+        assertEquals(1502, incompressible.getUnsignedShort(4));
+        assertEquals(4 + 2 + 4 + random.length, incompressible.readableBytes());
+
+        EmbeddedChannel client = new EmbeddedChannel(new GameProtobufDecoder(compression));
+        client.writeInbound(incompressible);
+        assertEquals(message(1502, random), client.readInbound());
+        small.release();
+    }
+}
@@ -0,0 +1,147 @@
+package com.game.netty;
+
+import com.game.netty.codec.GameProtobufDecoder;
+import com.game.netty.codec.GameProtobufEncoder;
+import com.game.netty.codec.SimpleWebSocketFrameConverter;
+import com.game.proto.GameMessage;
+import com.google.protobuf.ByteString;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.ChannelHandler;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.codec.LengthFieldBasedFrameDecoder;
+import io.netty.handler.codec.http.websocketx.WebSocket08FrameDecoder;
+import io.netty.handler.codec.http.websocketx.WebSocket08FrameEncoder;
+import io.netty.handler.codec.http.websocketx.WebSocketFrameAggregator;
+import io.netty.util.ReferenceCountUtil;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * TCP与WebSocket入站/出站编解码吞吐量基准测试，每次操作处理BATCH条消息
+ * tcp: 长度字段分帧；ws: WebSocket帧模式，一帧一条消息；wsStream: WebSocket流模式，帧内容再按长度字段分帧
+ * 运行: mvn -pl game-server -am -Dmaven.test.skip=false test-compile 后执行本类的main方法
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TransportCodecBenchmark {
+
+    private static final int BATCH = 64;
+
+    @Param({"tcp", "ws", "wsStream"})
+    private String transport;
+
+    @Param({"64", "1024"})
+    private int payloadSize;
+
+    private EmbeddedChannel inbound;
+    private EmbeddedChannel outbound;
+    private ByteBuf wire;
+    private GameMessage message;
+
+    @Setup
+    public void setup() {
+        message = GameMessage.newBuilder()
+                .setMsgId(1501)
+                .setSequence(1)
+                .setData(ByteString.copyFrom(new byte[payloadSize]))
+                .build();
+
+        // 客户端一侧的编码结果作为入站字节
+        EmbeddedChannel client = "tcp".equals(transport)
+                ? new EmbeddedChannel(new GameProtobufEncoder())
+                : new EmbeddedChannel(new WebSocket08FrameEncoder(true), new SimpleWebSocketFrameConverter(), new GameProtobufEncoder());
+        for (int i = 0; i < BATCH; i++) {
+            client.write(message);
+        }
+        client.flush();
+        wire = Unpooled.buffer();
+        for (Object frame; (frame = client.readOutbound()) != null; ) {
+            wire.writeBytes((ByteBuf) frame);
+            ReferenceCountUtil.release(frame);
+        }
+        client.finishAndReleaseAll();
+
+        inbound = new EmbeddedChannel(inboundHandlers());
+        outbound = "tcp".equals(transport)
+                ? new EmbeddedChannel(new GameProtobufEncoder())
+                : new EmbeddedChannel(new WebSocket08FrameEncoder(false), new SimpleWebSocketFrameConverter(), new GameProtobufEncoder());
+    }
+
+    private ChannelHandler[] inboundHandlers() {
+        switch (transport) {
+            case "tcp":
+                return new ChannelHandler[]{new LengthFieldBasedFrameDecoder(1024 * 1024, 0, 4, 0, 0),
+                        new GameProtobufDecoder()};
+            case "ws":
+                return new ChannelHandler[]{new WebSocket08FrameDecoder(true, false, 1024 * 1024),
+                        new WebSocketFrameAggregator(1024 * 1024), new SimpleWebSocketFrameConverter(true),
+                        new GameProtobufDecoder()};
+            default:
+                return new ChannelHandler[]{new WebSocket08FrameDecoder(true, false, 1024 * 1024),
+                        new SimpleWebSocketFrameConverter(false),
+                        new LengthFieldBasedFrameDecoder(1024 * 1024, 0, 4, 0, 0), new GameProtobufDecoder()};
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        inbound.finishAndReleaseAll();
+        outbound.finishAndReleaseAll();
+        wire.release();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public int decode() {
+        inbound.writeInbound(wire.retainedDuplicate());
+        int count = 0;
+        while (inbound.readInbound() != null) {
+            count++;
+        }
+        return count;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public int encode() {
+        for (int i = 0; i < BATCH; i++) {
+            outbound.write(message);
+        }
+        outbound.flush();
+        int bytes = 0;
+        for (Object frame; (frame = outbound.readOutbound()) != null; ) {
+            bytes += ((ByteBuf) frame).readableBytes();
+            ReferenceCountUtil.release(frame);
+        }
+        return bytes;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(TransportCodecBenchmark.class.getSimpleName())
+                .build();
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,66 @@
+package com.game.netty.codec;
+
+import com.game.netty.ChannelCapabilities;
+import com.game.proto.GameMessage;
+import com.game.proto.msgid.MsgIdEnum;
+import com.google.protobuf.ByteString;
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.embedded.EmbeddedChannel;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+public class BatchFrameTest {
+
+    private static GameMessage message(int msgId, int sequence, String data) {
+        return GameMessage.newBuilder()
+                .setMsgId(msgId)
+                .setSequence(sequence)
+                .setData(ByteString.copyFromUtf8(data))
+                .build();
+    }
+
+    @Test
+    public void testBatchRoundTrip() {
+        EmbeddedChannel server = new EmbeddedChannel(new BatchFrameEncoder(65536), new GameProtobufEncoder());
+        ChannelCapabilities.set(server, ChannelCapabilities.BATCH);
+        server.write(message(1001, 1, "a"));
+        server.write(message(1501, 2, "bb"));
+        server.write(message(3002, 3, ""));
+        server.flush();
+
+        ByteBuf frame = server.readOutbound();
+        assertNull(server.readOutbound());
+        assertEquals(MsgIdEnum.MSG_BATCH_VALUE, frame.getShort(4));
+        assertEquals(3, frame.getInt(6));
+        assertEquals(frame.readableBytes() - 4, frame.getInt(0));
+
+        EmbeddedChannel client = new EmbeddedChannel(new GameProtobufDecoder());
+        client.writeInbound(frame);
+        assertEquals(message(1001, 1, "a"), client.readInbound());
+        assertEquals(message(1501, 2, "bb"), client.readInbound());
+        assertEquals(message(3002, 3, ""), client.readInbound());
+        assertNull(client.readInbound());
+    }
+
+    @Test
+    public void testSingleFrameAndNoCapabilityStayUnbatched() {
+        EmbeddedChannel server = new EmbeddedChannel(new BatchFrameEncoder(65536), new GameProtobufEncoder());
+        server.writeAndFlush(message(1001, 1, "a"));
+        server.writeAndFlush(message(1001, 2, "b"));
+        ByteBuf first = server.readOutbound();
+        ByteBuf second = server.readOutbound();
+        assertEquals(1001, first.getShort(4));
+        assertEquals(2, second.getInt(6));
+        first.release();
+        second.release();
+
+        ChannelCapabilities.set(server, ChannelCapabilities.BATCH);
+        server.writeAndFlush(message(1001, 3, "c"));
+        ByteBuf single = server.readOutbound();
+        assertEquals(1001, single.getShort(4));
+        single.release();
+        server.finishAndReleaseAll();
+    }
+}
@@ -0,0 +1,36 @@
+package com.game.netty.codec;
+
+import com.game.proto.GameMessage;
+import com.google.protobuf.ByteString;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.codec.CorruptedFrameException;
+import io.netty.handler.codec.http.websocketx.BinaryWebSocketFrame;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class SimpleWebSocketFrameConverterTest {
+
+    @Test
+    public void testFrameModeDecodesOneMessagePerFrame() {
+        GameMessage message = GameMessage.newBuilder()
+                .setMsgId(1001)
+                .setSequence(5)
+                .setData(ByteString.copyFromUtf8("hello"))
+                .build();
+        EmbeddedChannel encoder = new EmbeddedChannel(new GameProtobufEncoder());
+        encoder.writeOutbound(message);
+        ByteBuf frame = encoder.readOutbound();
+
+        EmbeddedChannel channel = new EmbeddedChannel(new SimpleWebSocketFrameConverter(true), new GameProtobufDecoder());
+        channel.writeInbound(new BinaryWebSocketFrame(frame));
+        assertEquals(message, channel.readInbound());
+
+        // 长度字段与帧大小不一致（半个消息或多个消息拼在一帧）时拒绝
+        ByteBuf partial = Unpooled.buffer().writeInt(100).writeShort(1001).writeInt(1);
+        assertThrows(CorruptedFrameException.class, () -> channel.writeInbound(new BinaryWebSocketFrame(partial)));
+    }
+}
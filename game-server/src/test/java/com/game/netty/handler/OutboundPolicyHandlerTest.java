@@ -0,0 +1,141 @@
+package com.game.netty.handler;
+
+import com.game.netty.OutboundPolicy;
+import com.game.proto.GameMessage;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.ChannelFuture;
+import io.netty.channel.embedded.EmbeddedChannel;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class OutboundPolicyHandlerTest {
+
+    private static final int DROP_ID = 10;
+    private static final int CONFLATE_ID = 20;
+    private static final int PASS_ID = 30;
+
+    private static OutboundPolicy policy(long hardCapBytes, long hardCapTimeoutMillis) {
+        OutboundPolicy policy = new OutboundPolicy();
+        ReflectionTestUtils.setField(policy, "dropMsgIdsText", String.valueOf(DROP_ID));
+        ReflectionTestUtils.setField(policy, "conflateMsgIdsText", String.valueOf(CONFLATE_ID));
+        ReflectionTestUtils.setField(policy, "hardCapBytes", hardCapBytes);
+        ReflectionTestUtils.setField(policy, "hardCapTimeoutMillis", hardCapTimeoutMillis);
+        policy.init();
+        return policy;
+    }
+
+    private static EmbeddedChannel channel(OutboundPolicy policy) {
+        EmbeddedChannel channel = new EmbeddedChannel();
+        // 积压检查按advanceTimeBy推进
+        channel.freezeTime();
+        channel.pipeline().addLast(OutboundPolicyHandler.NAME, new OutboundPolicyHandler(policy));
+        return channel;
+    }
+
+    /**
+     * 通过用户自定义可写位切换连接的可写状态，channelWritabilityChanged作为任务提交到EventLoop
+     */
+    private static void setWritable(EmbeddedChannel channel, boolean writable) {
+        channel.unsafe().outboundBuffer().setUserDefinedWritability(1, writable);
+        channel.runPendingTasks();
+    }
+
+    private static GameMessage message(int msgId, int sequence) {
+        return GameMessage.newBuilder().setMsgId(msgId).setSequence(sequence).build();
+    }
+
+    @Test
+    public void testDropWhileUnwritable() {
+        OutboundPolicy policy = policy(1 << 20, 10_000);
+        EmbeddedChannel channel = channel(policy);
+
+        assertTrue(channel.writeAndFlush(message(DROP_ID, 1)).isSuccess());
+        assertEquals(1, ((GameMessage) channel.readOutbound()).getSequence());
+
+        setWritable(channel, false);
+        ChannelFuture dropped = channel.writeAndFlush(message(DROP_ID, 2));
+        ChannelFuture passed = channel.writeAndFlush(message(PASS_ID, 3));
+        assertFalse(dropped.isSuccess());
+        assertInstanceOf(OutboundPolicyHandler.MessageDroppedException.class, dropped.cause());
+        assertTrue(passed.isSuccess());
+        assertEquals(3, ((GameMessage) channel.readOutbound()).getSequence());
+        assertNull(channel.readOutbound());
+        assertEquals(1L, policy.getStats().get("dropped"));
+        channel.finishAndReleaseAll();
+    }
+
+    @Test
+    public void testConflateKeepsLatestUntilWritable() {
+        OutboundPolicy policy = policy(1 << 20, 10_000);
+        EmbeddedChannel channel = channel(policy);
+
+        setWritable(channel, false);
+        ChannelFuture replaced = channel.writeAndFlush(message(CONFLATE_ID, 1));
+        ChannelFuture latest = channel.writeAndFlush(message(CONFLATE_ID, 2));
+        channel.writeAndFlush(message(PASS_ID, 3));
+        assertInstanceOf(OutboundPolicyHandler.MessageDroppedException.class, replaced.cause());
+        assertFalse(latest.isDone());
+        assertEquals(3, ((GameMessage) channel.readOutbound()).getSequence());
+        assertNull(channel.readOutbound());
+
+        // 恢复可写后写出合并的最新一条
+        setWritable(channel, true);
+        assertTrue(latest.isSuccess());
+        assertEquals(2, ((GameMessage) channel.readOutbound()).getSequence());
+        assertNull(channel.readOutbound());
+        assertEquals(1L, policy.getStats().get("conflated"));
+
+        // 断开时仍未写出的合并消息以失败结束
+        setWritable(channel, false);
+        ChannelFuture pending = channel.writeAndFlush(message(CONFLATE_ID, 4));
+        channel.close();
+        assertInstanceOf(OutboundPolicyHandler.MessageDroppedException.class, pending.cause());
+        channel.finishAndReleaseAll();
+    }
+
+    @Test
+    public void testDisconnectAfterSustainedBacklog() {
+        OutboundPolicy policy = policy(16, 0);
+        EmbeddedChannel channel = channel(policy);
+
+        // 未flush的64字节积压超过16字节硬上限
+        channel.write(Unpooled.wrappedBuffer(new byte[64]));
+        setWritable(channel, false);
+
+        channel.advanceTimeBy(500, TimeUnit.MILLISECONDS);
+        channel.runScheduledPendingTasks();
+        assertTrue(channel.isActive());
+
+        channel.advanceTimeBy(500, TimeUnit.MILLISECONDS);
+        channel.runScheduledPendingTasks();
+        assertFalse(channel.isActive());
+        assertEquals(1L, policy.getStats().get("disconnected"));
+        channel.finishAndReleaseAll();
+    }
+
+    @Test
+    public void testBacklogCheckStopsWhenWritableAgain() {
+        OutboundPolicy policy = policy(16, 0);
+        EmbeddedChannel channel = channel(policy);
+
+        channel.write(Unpooled.wrappedBuffer(new byte[64]));
+        setWritable(channel, false);
+        channel.advanceTimeBy(500, TimeUnit.MILLISECONDS);
+        channel.runScheduledPendingTasks();
+
+        setWritable(channel, true);
+        channel.advanceTimeBy(1000, TimeUnit.MILLISECONDS);
+        channel.runScheduledPendingTasks();
+        assertTrue(channel.isActive());
+        assertEquals(0L, policy.getStats().get("disconnected"));
+        channel.finishAndReleaseAll();
+    }
+}
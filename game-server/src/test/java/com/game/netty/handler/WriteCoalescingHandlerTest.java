@@ -0,0 +1,82 @@
+package com.game.netty.handler;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.channel.embedded.EmbeddedChannel;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+public class WriteCoalescingHandlerTest {
+
+    private static EmbeddedChannel channel(long maxDelay, int maxBytes) {
+        EmbeddedChannel channel = new EmbeddedChannel();
+        // 只按advanceTimeBy推进时间，避免测试机卡顿时定时flush提前触发
+        channel.freezeTime();
+        channel.pipeline().addLast(WriteCoalescingHandler.NAME, new WriteCoalescingHandler(maxDelay, maxBytes));
+        channel.pipeline().addLast(new ChannelInboundHandlerAdapter() {
+            @Override
+            public void channelRead(ChannelHandlerContext ctx, Object msg) {
+                // 每个请求回两条消息
+                ctx.writeAndFlush(Unpooled.wrappedBuffer(new byte[4]));
+                ctx.writeAndFlush(msg);
+            }
+        });
+        return channel;
+    }
+
+    private static int drainOutbound(EmbeddedChannel channel) {
+        int count = 0;
+        ByteBuf buf;
+        while ((buf = channel.readOutbound()) != null) {
+            buf.release();
+            count++;
+        }
+        return count;
+    }
+
+    @Test
+    public void testFlushDelayedUntilMaxDelay() {
+        EmbeddedChannel channel = channel(5, 1024);
+        for (int i = 0; i < 3; i++) {
+            channel.writeAndFlush(Unpooled.wrappedBuffer(new byte[8]));
+        }
+        assertNull(channel.readOutbound());
+
+        channel.advanceTimeBy(5, TimeUnit.MILLISECONDS);
+        channel.runScheduledPendingTasks();
+        assertEquals(3, drainOutbound(channel));
+        channel.finishAndReleaseAll();
+    }
+
+    @Test
+    public void testFlushAtReadComplete() {
+        EmbeddedChannel channel = channel(1000, 1024);
+        channel.pipeline().fireChannelRead(Unpooled.wrappedBuffer(new byte[8]));
+        channel.pipeline().fireChannelRead(Unpooled.wrappedBuffer(new byte[8]));
+        assertNull(channel.readOutbound());
+
+        channel.pipeline().fireChannelReadComplete();
+        assertEquals(4, drainOutbound(channel));
+        channel.finishAndReleaseAll();
+    }
+
+    @Test
+    public void testMaxBytesAndExplicitFlush() {
+        EmbeddedChannel channel = channel(1000, 16);
+        channel.writeAndFlush(Unpooled.wrappedBuffer(new byte[8]));
+        assertNull(channel.readOutbound());
+        channel.writeAndFlush(Unpooled.wrappedBuffer(new byte[8]));
+        assertEquals(2, drainOutbound(channel));
+
+        channel.write(Unpooled.wrappedBuffer(new byte[1]));
+        WriteCoalescingHandler.flushNow(channel);
+        assertEquals(1, drainOutbound(channel));
+        channel.finishAndReleaseAll();
+    }
+}
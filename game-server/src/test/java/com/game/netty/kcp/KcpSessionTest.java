@@ -0,0 +1,199 @@
+package com.game.netty.kcp;
+
+import com.game.netty.PayloadCompression;
+import com.game.proto.GameMessage;
+import com.google.protobuf.ByteString;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufUtil;
+import io.netty.buffer.Unpooled;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class KcpSessionTest {
+
+    private static final int INTERVAL = 10;
+
+    private static void configure(KcpSession session, boolean nodelay, int resend) {
+        session.setNodelay(nodelay, INTERVAL, resend);
+        session.setWindow(128, 128);
+        session.setMtu(1200);
+        session.setDeadLink(50);
+    }
+
+    /**
+     * 每个INTERVAL发送一条消息，返回每条消息从发送到被对端取出的延迟
+     */
+    private static List<Long> simulate(LossyLink link, KcpSession sender, KcpSession receiver, List<byte[]> messages) {
+        List<Long> latencies = new ArrayList<>();
+        long[] sentAt = new long[messages.size()];
+        int next = 0;
+        for (long now = 0; now < 120_000 && latencies.size() < messages.size(); now += INTERVAL) {
+            link.advance(now);
+            if (next < messages.size()) {
+                sentAt[next] = now;
+                sender.send(messages.get(next++));
+            }
+            for (byte[] data; (data = receiver.recv()) != null; ) {
+                int index = latencies.size();
+                assertArrayEquals(messages.get(index), data, "message " + index);
+                latencies.add(now - sentAt[index]);
+            }
+            sender.flush(now);
+            receiver.flush(now);
+        }
+        return latencies;
+    }
+
+    private static List<byte[]> messages(int count, int maxSize) {
+        Random random = new Random(7);
+        List<byte[]> messages = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            byte[] data = new byte[1 + random.nextInt(maxSize)];
+            random.nextBytes(data);
+            messages.add(data);
+        }
+        return messages;
+    }
+
+    @Test
+    public void testReliableInOrderUnderLossAndReordering() {
+        LossyLink link = new LossyLink(1, 0.2, 20, 80);
+        KcpSession[] pair = link.createPair(0x1234);
+        configure(pair[0], true, 2);
+        configure(pair[1], true, 2);
+
+        // 包含需要分片的大消息
+        List<byte[]> messages = messages(500, 4000);
+        List<Long> latencies = simulate(link, pair[0], pair[1], messages);
+
+        assertEquals(messages.size(), latencies.size());
+        assertFalse(pair[0].isDead());
+        assertTrue(pair[0].getRetransmits() > 0);
+        assertTrue(link.getLost() > 0);
+        // 最后几条的确认丢失时发送端还有待确认的报文，继续推进直到全部确认
+        assertEquals(0, drain(link, pair[0], pair[1]));
+    }
+
+    private static int drain(LossyLink link, KcpSession sender, KcpSession receiver) {
+        for (long now = 120_000; now < 130_000 && sender.getWaitSend() > 0; now += INTERVAL) {
+            link.advance(now);
+            sender.flush(now);
+            receiver.flush(now);
+        }
+        return sender.getWaitSend();
+    }
+
+    @Test
+    public void testNodelayLowersLatencyUnderLoss() {
+        List<byte[]> messages = messages(300, 200);
+
+        LossyLink normalLink = new LossyLink(3, 0.1, 30, 30);
+        KcpSession[] normal = normalLink.createPair(1);
+        configure(normal[0], false, 0);
+        configure(normal[1], false, 0);
+        double normalAverage = simulate(normalLink, normal[0], normal[1], messages).stream()
+                .mapToLong(Long::longValue).average().orElse(0);
+
+        LossyLink fastLink = new LossyLink(3, 0.1, 30, 30);
+        KcpSession[] fast = fastLink.createPair(1);
+        configure(fast[0], true, 2);
+        configure(fast[1], true, 2);
+        double fastAverage = simulate(fastLink, fast[0], fast[1], messages).stream()
+                .mapToLong(Long::longValue).average().orElse(0);
+
+        assertTrue(fastAverage < normalAverage, "nodelay " + fastAverage + "ms, normal " + normalAverage + "ms");
+    }
+
+    @Test
+    public void testGameMessageFraming() {
+        LossyLink link = new LossyLink(11, 0.3, 10, 40);
+        KcpSession[] pair = link.createPair(42);
+        configure(pair[0], true, 2);
+        configure(pair[1], true, 2);
+        GameMessage message = GameMessage.newBuilder()
+                .setMsgId(1501)
+                .setSequence(3)
+                .setData(ByteString.copyFrom(new byte[3000]))
+                .build();
+
+        List<byte[]> frames = new ArrayList<>();
+        frames.add(KcpServer.encode(message.getMsgId(), message.getSequence(), message.getData()));
+        List<Long> latencies = new ArrayList<>();
+        for (long now = 0; now < 10_000 && latencies.isEmpty(); now += INTERVAL) {
+            link.advance(now);
+            if (now == 0) {
+                pair[0].send(frames.get(0));
+            }
+            byte[] frame = pair[1].recv();
+            if (frame != null) {
+                assertEquals(message, KcpServer.decode(frame));
+                latencies.add(now);
+            }
+            pair[0].flush(now);
+            pair[1].flush(now);
+        }
+        assertEquals(1, latencies.size());
+    }
+
+    @Test
+    public void testDeadLinkDetected() {
+        LossyLink link = new LossyLink(5, 1.0, 10, 10);
+        KcpSession[] pair = link.createPair(9);
+        configure(pair[0], true, 2);
+        pair[0].setDeadLink(5);
+        pair[0].send(new byte[10]);
+        for (long now = 0; now < 60_000 && !pair[0].isDead(); now += INTERVAL) {
+            link.advance(now);
+            pair[0].flush(now);
+        }
+        assertTrue(pair[0].isDead());
+    }
+
+    @Test
+    public void testOversizedMessageRejected() {
+        KcpSession[] pair = new LossyLink(1, 0, 10, 10).createPair(7);
+        configure(pair[0], true, 2);
+        int mss = 1200 - KcpSession.OVERHEAD;
+        // 分片数必须小于接收窗口128
+        assertTrue(pair[0].canSend(mss * 127));
+        assertFalse(pair[0].canSend(mss * 127 + 1));
+        assertThrows(IllegalArgumentException.class, () -> pair[0].send(new byte[mss * 127 + 1]));
+    }
+
+    @Test
+    public void testCompressedFrameNeedsNegotiation() {
+        PayloadCompression compression = new PayloadCompression();
+        ReflectionTestUtils.setField(compression, "threshold", 1024);
+        ReflectionTestUtils.setField(compression, "minRatio", 0.9);
+        ReflectionTestUtils.setField(compression, "maxInflatedBytes", 1 << 20);
+        byte[] data = new byte[4096];
+
+        ByteBuf frame = Unpooled.buffer();
+        frame.writeInt(0);
+        frame.writeShort(1501 | PayloadCompression.FLAG_COMPRESSED);
+        frame.writeInt(3);
+        assertTrue(compression.compress(1501, ByteBuffer.wrap(data), frame));
+        frame.setInt(0, frame.readableBytes() - 4);
+        byte[] bytes = ByteBufUtil.getBytes(frame);
+        frame.release();
+
+        // 未协商压缩的连接丢弃压缩消息
+        assertNull(KcpServer.decode(bytes));
+        GameMessage message = KcpServer.decode(bytes, compression);
+        assertEquals(1501, message.getMsgId());
+        assertEquals(3, message.getSequence());
+        assertEquals(ByteString.copyFrom(data), message.getData());
+    }
+}
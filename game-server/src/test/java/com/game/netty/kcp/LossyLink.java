@@ -0,0 +1,107 @@
+package com.game.netty.kcp;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.buffer.UnpooledByteBufAllocator;
+
+import java.util.PriorityQueue;
+import java.util.Random;
+
+/**
+ * 丢包/延迟模拟链路，用于在本地验证KCP会话
+ * 每个方向独立按丢包率丢弃UDP包，延迟在[minDelay, maxDelay]内随机，延迟不同的包会乱序到达。
+ * 使用虚拟时间，由测试按步长推进。
+ */
+public class LossyLink {
+
+    private static final class Packet implements Comparable<Packet> {
+        private final long deliverAt;
+        private final long order;
+        private final byte[] data;
+        private final KcpSession target;
+
+        private Packet(long deliverAt, long order, byte[] data, KcpSession target) {
+            this.deliverAt = deliverAt;
+            this.order = order;
+            this.data = data;
+            this.target = target;
+        }
+
+        @Override
+        public int compareTo(Packet o) {
+            return deliverAt != o.deliverAt ? Long.compare(deliverAt, o.deliverAt) : Long.compare(order, o.order);
+        }
+    }
+
+    private final Random random;
+    private final double lossRate;
+    private final int minDelay;
+    private final int maxDelay;
+    private final PriorityQueue<Packet> inFlight = new PriorityQueue<>();
+
+    private long now;
+    private long order;
+    private long sent;
+    private long lost;
+
+    /**
+     * @param seed     随机种子，相同种子的模拟结果可重现
+     * @param lossRate 丢包率(0-1)
+     * @param minDelay 最小单向延迟（毫秒）
+     * @param maxDelay 最大单向延迟（毫秒）
+     */
+    public LossyLink(long seed, double lossRate, int minDelay, int maxDelay) {
+        this.random = new Random(seed);
+        this.lossRate = lossRate;
+        this.minDelay = minDelay;
+        this.maxDelay = maxDelay;
+    }
+
+    /**
+     * 创建通过本链路相连的一对会话
+     */
+    public KcpSession[] createPair(int conv) {
+        KcpSession[] pair = new KcpSession[2];
+        pair[0] = new KcpSession(conv, output(pair, 1), UnpooledByteBufAllocator.DEFAULT);
+        pair[1] = new KcpSession(conv, output(pair, 0), UnpooledByteBufAllocator.DEFAULT);
+        return pair;
+    }
+
+    private KcpOutput output(KcpSession[] pair, int target) {
+        return datagram -> {
+            try {
+                sent++;
+                if (random.nextDouble() < lossRate) {
+                    lost++;
+                    return;
+                }
+                byte[] data = new byte[datagram.readableBytes()];
+                datagram.readBytes(data);
+                long delay = minDelay + (maxDelay > minDelay ? random.nextInt(maxDelay - minDelay + 1) : 0);
+                inFlight.add(new Packet(now + delay, order++, data, pair[target]));
+            } finally {
+                datagram.release();
+            }
+        };
+    }
+
+    /**
+     * 推进虚拟时间并投递到期的包
+     */
+    public void advance(long nowMillis) {
+        now = nowMillis;
+        while (!inFlight.isEmpty() && inFlight.peek().deliverAt <= now) {
+            Packet packet = inFlight.poll();
+            ByteBuf buf = Unpooled.wrappedBuffer(packet.data);
+            packet.target.input(buf, now);
+        }
+    }
+
+    public long getSent() {
+        return sent;
+    }
+
+    public long getLost() {
+        return lost;
+    }
+}